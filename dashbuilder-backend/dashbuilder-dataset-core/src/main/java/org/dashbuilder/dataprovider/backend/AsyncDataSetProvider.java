@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend;
+
+import java.util.concurrent.Future;
+
+import org.dashbuilder.dataprovider.DataSetProvider;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataSetDef;
+
+/**
+ * Data set providers able to resolve lookup requests without blocking the calling thread.
+ * <p>Providers accessing remote storages (databases, search servers, files, ...) implement this interface so
+ * several lookup requests can be resolved in parallel.</p>
+ */
+public interface AsyncDataSetProvider extends DataSetProvider {
+
+    /**
+     * Asynchronous version of the {@link DataSetProvider#lookupDataSet(DataSetDef, DataSetLookup)} method.
+     *
+     * @param def The data set definition lookup request
+     * @param lookup The lookup request over the data set. If null then return the data set as is.
+     * @return A future holding the resulting data set instance
+     */
+    Future<DataSet> lookupDataSetAsync(DataSetDef def, DataSetLookup lookup);
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend;
+
+import java.util.List;
+
+import org.dashbuilder.dataprovider.DataSetProvider;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataSetDef;
+
+/**
+ * Data set providers able to resolve several lookup requests over the same data set at once.
+ * <p>Lookups issued by the same dashboard usually share most of their operations, so resolving them all together
+ * allows for evaluating every shared operation just once.</p>
+ */
+public interface BatchDataSetProvider extends DataSetProvider {
+
+    /**
+     * Batch version of the {@link DataSetProvider#lookupDataSet(DataSetDef, DataSetLookup)} method.
+     *
+     * @param def The data set definition all the lookup requests refer to
+     * @param lookupList The lookup requests over the data set
+     * @return The resulting data sets, in the same order as the lookup requests
+     */
+    List<DataSet> lookupDataSets(DataSetDef def, List<DataSetLookup> lookupList) throws Exception;
+}
@@ -15,14 +15,15 @@
  */
 package org.dashbuilder.dataprovider.backend;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.dashbuilder.dataprovider.DataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProviderType;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetGenerator;
@@ -36,12 +37,15 @@ import org.slf4j.Logger;
 
 @ApplicationScoped
 @Named("bean")
-public class BeanDataSetProvider implements DataSetProvider {
+public class BeanDataSetProvider implements AsyncDataSetProvider, BatchDataSetProvider {
 
     @Inject
     protected StaticDataSetProvider staticDataSetProvider;
 
-    protected Map<String,DataSetGenerator> beanMap = new HashMap<String, DataSetGenerator>();
+    @Inject
+    protected DataSetLookupExecutor lookupExecutor;
+
+    protected Map<String,DataSetGenerator> beanMap = new ConcurrentHashMap<String, DataSetGenerator>();
 
     @Inject
     protected Logger log;
@@ -57,6 +61,20 @@ public class BeanDataSetProvider implements DataSetProvider {
     }
 
     public DataSet lookupDataSet(DataSetDef def, DataSetLookup lookup) throws Exception {
+        loadDataSet(def);
+
+        // Always do the lookup over the static data set registry.
+        return staticDataSetProvider.lookupDataSet(def, lookup);
+    }
+
+    public List<DataSet> lookupDataSets(DataSetDef def, List<DataSetLookup> lookupList) throws Exception {
+        loadDataSet(def);
+
+        // Always do the lookup over the static data set registry.
+        return staticDataSetProvider.lookupDataSets(def, lookupList);
+    }
+
+    protected void loadDataSet(DataSetDef def) throws Exception {
         // Look first into the static data set provider since BEAN data sets are statically registered once loaded.
         DataSet dataSet = staticDataSetProvider.lookupDataSet(def.getUUID(), null);
         if (dataSet == null) {
@@ -74,10 +92,11 @@ public class BeanDataSetProvider implements DataSetProvider {
 
             // Register the data set before return
             staticDataSetProvider.registerDataSet(dataSet);
-
         }
-        // Always do the lookup over the static data set registry.
-        return staticDataSetProvider.lookupDataSet(def, lookup);
+    }
+
+    public Future<DataSet> lookupDataSetAsync(DataSetDef def, DataSetLookup lookup) {
+        return lookupExecutor.lookupDataSet(this, def, lookup);
     }
 
     public boolean isDataSetOutdated(DataSetDef def) {
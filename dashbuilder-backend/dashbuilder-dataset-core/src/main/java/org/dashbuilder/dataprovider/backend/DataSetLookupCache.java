@@ -0,0 +1,269 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.dashbuilder.config.Config;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.events.DataSetDefModifiedEvent;
+import org.dashbuilder.dataset.events.DataSetDefRemovedEvent;
+import org.dashbuilder.dataset.events.DataSetStaleEvent;
+
+/**
+ * Cache for the results of the lookup requests sent to the data set providers which don't keep the
+ * data set in memory (i.e: SQL or ElasticSearch data sets having the cache disabled).
+ * <p>Entries are keyed by data set UUID and lookup (operations plus offset and number of rows) and they are
+ * discarded either when they exceed the time to live, when the max. number of entries is reached (less recently
+ * used first) or when the data set gets stale or its definition is modified.</p>
+ * <p>Concurrent requests for the same lookup are resolved by a single backend query. The first request runs the
+ * query and the rest just wait for its result.</p>
+ */
+@ApplicationScoped
+public class DataSetLookupCache {
+
+    /**
+     * Max. number of lookup results held in the cache. 0 disables the cache (in-flight de-duplication remains).
+     */
+    @Inject @Config("200")
+    protected int maxEntries;
+
+    /**
+     * Time (in milliseconds) a lookup result remains valid in the cache. 0 means no expiration.
+     */
+    @Inject @Config("60000")
+    protected long timeToLive;
+
+    protected final LinkedHashMap<Key,Entry> entryMap = new LinkedHashMap<Key,Entry>(16, 0.75f, true);
+    protected final Map<Key,FutureTask<DataSet>> inFlightMap = new HashMap<Key,FutureTask<DataSet>>();
+    protected final DataSetLookupCacheStats stats = new DataSetLookupCacheStats();
+
+    public DataSetLookupCache() {
+    }
+
+    public DataSetLookupCache(int maxEntries, long timeToLive) {
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public DataSetLookupCacheStats getStats() {
+        return stats;
+    }
+
+    public synchronized int size() {
+        return entryMap.size();
+    }
+
+    /**
+     * Get the result of a lookup request. If not cached then it's obtained from the given loader and stored
+     * into the cache for further requests.
+     *
+     * @param uuid The UUID of the target data set.
+     * @param lookup The lookup request (null means the whole data set).
+     * @param loader The loader that queries the backend.
+     */
+    public DataSet lookupDataSet(String uuid, DataSetLookup lookup, Callable<DataSet> loader) throws Exception {
+        long begin = System.nanoTime();
+        Key key = new Key(uuid, lookup);
+        FutureTask<DataSet> task;
+        boolean owner = false;
+
+        synchronized (this) {
+            Entry entry = entryMap.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(System.currentTimeMillis())) {
+                    stats.hit(System.nanoTime() - begin);
+                    return entry.dataSet;
+                }
+                entryMap.remove(key);
+                stats.eviction();
+            }
+            task = inFlightMap.get(key);
+            if (task == null) {
+                task = new FutureTask<DataSet>(loader);
+                inFlightMap.put(key, task);
+                owner = true;
+            } else {
+                stats.sharedLoad();
+            }
+        }
+
+        if (owner) {
+            task.run();
+            DataSet dataSet = null;
+            try {
+                dataSet = task.get();
+            } catch (ExecutionException e) {
+                // Failures are not cached
+            }
+            _loaded(key, task, dataSet, System.nanoTime() - begin);
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Discard all the entries belonging to the given data set.
+     */
+    public synchronized void invalidate(String uuid) {
+        if (uuid == null) return;
+        boolean found = false;
+        Iterator<Key> it = entryMap.keySet().iterator();
+        while (it.hasNext()) {
+            if (uuid.equals(it.next().uuid)) {
+                it.remove();
+                found = true;
+            }
+        }
+        // Queries in progress are not cached once finished.
+        it = inFlightMap.keySet().iterator();
+        while (it.hasNext()) {
+            if (uuid.equals(it.next().uuid)) {
+                it.remove();
+                found = true;
+            }
+        }
+        if (found) stats.invalidation();
+    }
+
+    public synchronized void clear() {
+        entryMap.clear();
+        inFlightMap.clear();
+    }
+
+    // Listen to changes on the data set definition registry
+
+    protected void onDataSetStaleEvent(@Observes DataSetStaleEvent event) {
+        invalidate(event.getDataSetDef());
+    }
+
+    protected void onDataSetDefModifiedEvent(@Observes DataSetDefModifiedEvent event) {
+        invalidate(event.getOldDataSetDef());
+        invalidate(event.getNewDataSetDef());
+    }
+
+    protected void onDataSetDefRemovedEvent(@Observes DataSetDefRemovedEvent event) {
+        invalidate(event.getDataSetDef());
+    }
+
+    // Internal implementation logic
+
+    protected void invalidate(DataSetDef def) {
+        if (def != null) invalidate(def.getUUID());
+    }
+
+    protected synchronized void _loaded(Key key, FutureTask<DataSet> task, DataSet dataSet, long loadTime) {
+        stats.miss(loadTime);
+
+        // Skip the results of any query invalidated meanwhile
+        if (inFlightMap.get(key) != task) return;
+        inFlightMap.remove(key);
+        if (dataSet == null || maxEntries <= 0) return;
+
+        long expirationTime = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : 0;
+        entryMap.put(key, new Entry(dataSet, expirationTime));
+        _evict();
+    }
+
+    protected void _evict() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = entryMap.values().iterator();
+        int size = entryMap.size();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (size > maxEntries || entry.isExpired(now)) {
+                it.remove();
+                stats.eviction();
+                size--;
+            }
+        }
+    }
+
+    protected static class Key {
+
+        String uuid;
+        DataSetLookup lookup;
+
+        Key(String uuid, DataSetLookup lookup) {
+            this.uuid = uuid;
+            // Keep a copy since the lookup instance might get modified once processed.
+            this.lookup = lookup != null ? lookup.cloneInstance() : null;
+        }
+
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            if (uuid != null ? !uuid.equals(other.uuid) : other.uuid != null) return false;
+            if (lookup != null ? !lookup.equals(other.lookup) : other.lookup != null) return false;
+            return true;
+        }
+
+        public int hashCode() {
+            int result = uuid != null ? uuid.hashCode() : 0;
+            result = 31 * result + (lookup != null ? lookup.hashCode() : 0);
+            return result;
+        }
+    }
+
+    protected static class Entry {
+
+        DataSet dataSet;
+        long expirationTime;
+
+        Entry(DataSet dataSet, long expirationTime) {
+            this.dataSet = dataSet;
+            this.expirationTime = expirationTime;
+        }
+
+        boolean isExpired(long now) {
+            return expirationTime > 0 && now >= expirationTime;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend;
+
+/**
+ * Stats about the usage of a {@link DataSetLookupCache}.
+ */
+public class DataSetLookupCacheStats {
+
+    protected long numberOfHits = 0;
+    protected long numberOfMisses = 0;
+    protected long numberOfSharedLoads = 0;
+    protected long numberOfEvictions = 0;
+    protected long numberOfInvalidations = 0;
+    protected long totalLoadTime = 0;
+    protected long maxLoadTime = 0;
+    protected long totalHitTime = 0;
+
+    /**
+     * Number of lookups served from the cache.
+     */
+    public synchronized long getNumberOfHits() {
+        return numberOfHits;
+    }
+
+    /**
+     * Number of lookups not found in the cache that required a query to the backend.
+     */
+    public synchronized long getNumberOfMisses() {
+        return numberOfMisses;
+    }
+
+    /**
+     * Number of lookups that didn't query the backend since they waited for an identical query already in progress.
+     */
+    public synchronized long getNumberOfSharedLoads() {
+        return numberOfSharedLoads;
+    }
+
+    /**
+     * Number of entries evicted due to the size or the time to live limits.
+     */
+    public synchronized long getNumberOfEvictions() {
+        return numberOfEvictions;
+    }
+
+    /**
+     * Number of times the entries of a data set have been discarded because the data set got stale or modified.
+     */
+    public synchronized long getNumberOfInvalidations() {
+        return numberOfInvalidations;
+    }
+
+    /**
+     * The ratio between the hits (plus shared loads) and the total number of lookups.
+     */
+    public synchronized double getHitRate() {
+        long total = numberOfHits + numberOfSharedLoads + numberOfMisses;
+        if (total == 0) return 0;
+        return (double) (numberOfHits + numberOfSharedLoads) / total;
+    }
+
+    /**
+     * Average time taken by the backend queries.
+     * @return Time in nanoseconds
+     */
+    public synchronized long getAverageLoadTime() {
+        if (numberOfMisses == 0) return 0;
+        return totalLoadTime / numberOfMisses;
+    }
+
+    /**
+     * Time taken by the slowest backend query.
+     * @return Time in nanoseconds
+     */
+    public synchronized long getMaxLoadTime() {
+        return maxLoadTime;
+    }
+
+    /**
+     * Average time taken to serve a lookup from the cache.
+     * @return Time in nanoseconds
+     */
+    public synchronized long getAverageHitTime() {
+        if (numberOfHits == 0) return 0;
+        return totalHitTime / numberOfHits;
+    }
+
+    protected synchronized void hit(long time) {
+        numberOfHits++;
+        totalHitTime += time;
+    }
+
+    protected synchronized void miss(long loadTime) {
+        numberOfMisses++;
+        totalLoadTime += loadTime;
+        if (loadTime > maxLoadTime) maxLoadTime = loadTime;
+    }
+
+    protected synchronized void sharedLoad() {
+        numberOfSharedLoads++;
+    }
+
+    protected synchronized void eviction() {
+        numberOfEvictions++;
+    }
+
+    protected synchronized void invalidation() {
+        numberOfInvalidations++;
+    }
+
+    /**
+     * Prints a stats summary.
+     * @param sep The separator string to insert between every stat.
+     */
+    public synchronized String toString(String sep) {
+        StringBuilder out = new StringBuilder();
+        out.append("#Hits=").append(numberOfHits).append(sep);
+        out.append("#Misses=").append(numberOfMisses).append(sep);
+        out.append("#Shared loads=").append(numberOfSharedLoads).append(sep);
+        out.append("Hit rate=").append(Math.round(getHitRate() * 100)).append("%").append(sep);
+        out.append("#Evictions=").append(numberOfEvictions).append(sep);
+        out.append("#Invalidations=").append(numberOfInvalidations).append(sep);
+        out.append("Avg. load time=").append(getAverageLoadTime() / 1000000).append(" ms").append(sep);
+        out.append("Max. load time=").append(maxLoadTime / 1000000).append(" ms").append(sep);
+        out.append("Avg. hit time=").append(getAverageHitTime() / 1000).append(" us");
+        return out.toString();
+    }
+
+    public String toString() {
+        return toString("  ");
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.dashbuilder.config.Config;
+import org.dashbuilder.dataprovider.DataSetProvider;
+import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataSetDef;
+
+/**
+ * Executes the lookup requests on behalf of the {@link AsyncDataSetProvider} implementations.
+ * <p>Every data source (a database, a search server, ...) gets its own pool of threads, so the number of concurrent
+ * lookups per data source is limited and a slow storage can't starve the lookups targeting the others. Requests
+ * exceeding the limit wait in a queue. Lookups not bound to any data source share a single pool per provider type.</p>
+ */
+@ApplicationScoped
+public class DataSetLookupExecutor {
+
+    /**
+     * Max. number of lookups running concurrently on every data source.
+     */
+    @Inject @Config("4")
+    protected int maxLookupsPerDataSource;
+
+    /**
+     * Time (in milliseconds) an idle lookup thread is kept alive.
+     */
+    @Inject @Config("60000")
+    protected long lookupThreadKeepAlive;
+
+    protected final Map<String,ExecutorService> executorMap = new HashMap<String,ExecutorService>();
+
+    public DataSetLookupExecutor() {
+    }
+
+    public DataSetLookupExecutor(int maxLookupsPerDataSource, long lookupThreadKeepAlive) {
+        this.maxLookupsPerDataSource = maxLookupsPerDataSource;
+        this.lookupThreadKeepAlive = lookupThreadKeepAlive;
+    }
+
+    public int getMaxLookupsPerDataSource() {
+        return maxLookupsPerDataSource;
+    }
+
+    /**
+     * Run a lookup request in the pool of threads of the given provider.
+     */
+    public Future<DataSet> lookupDataSet(DataSetProvider provider, DataSetDef def, DataSetLookup lookup) {
+        return lookupDataSet(null, provider, def, lookup);
+    }
+
+    /**
+     * Run a lookup request in the pool of threads of the given data source.
+     * @param dataSource The data source identifier (i.e: a JNDI name, a server URL). If null, the pool shared by all
+     * the data sets of the provider is used.
+     */
+    public Future<DataSet> lookupDataSet(String dataSource, final DataSetProvider provider, final DataSetDef def, final DataSetLookup lookup) {
+        return submit(provider.getType(), dataSource, new Callable<DataSet>() {
+            public DataSet call() throws Exception {
+                return provider.lookupDataSet(def, lookup);
+            }
+        });
+    }
+
+    public <T> Future<T> submit(DataSetProviderType type, Callable<T> task) {
+        return submit(type, null, task);
+    }
+
+    public <T> Future<T> submit(DataSetProviderType type, String dataSource, Callable<T> task) {
+        return getExecutor(type, dataSource).submit(task);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        for (ExecutorService executor : executorMap.values()) {
+            executor.shutdownNow();
+        }
+        executorMap.clear();
+    }
+
+    protected synchronized ExecutorService getExecutor(DataSetProviderType type, String dataSource) {
+        String key = dataSource == null ? type.toString() : type + "|" + dataSource;
+        ExecutorService executor = executorMap.get(key);
+        if (executor == null) {
+            int nthreads = maxLookupsPerDataSource > 0 ? maxLookupsPerDataSource : 1;
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(nthreads, nthreads,
+                    lookupThreadKeepAlive, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new LookupThreadFactory(type, executorMap.size() + 1));
+            pool.allowCoreThreadTimeOut(true);
+            executorMap.put(key, executor = pool);
+        }
+        return executor;
+    }
+
+    protected static class LookupThreadFactory implements ThreadFactory {
+
+        protected String prefix;
+        protected AtomicInteger threadNumber = new AtomicInteger(1);
+
+        /**
+         * @param poolNumber Identifies the pool in the thread names. The data source is not used on purpose, since
+         * it may include credentials.
+         */
+        public LookupThreadFactory(DataSetProviderType type, int poolNumber) {
+            this.prefix = "dataset-lookup-" + type.toString().toLowerCase() + "-" + poolNumber + "-";
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
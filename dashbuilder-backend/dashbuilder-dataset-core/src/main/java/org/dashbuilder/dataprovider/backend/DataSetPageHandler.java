@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend;
+
+import org.dashbuilder.dataset.DataSet;
+
+/**
+ * Callback receiving the rows of a data set lookup streamed page by page (see
+ * <i>BackendDataSetManager.streamDataSet</i>).
+ */
+public interface DataSetPageHandler {
+
+    /**
+     * Invoked for every page read, in order.
+     *
+     * @param page The rows of the page. The first page is always sent, even if empty, so the columns are known.
+     * If the total number of rows is known in advance then it's available through
+     * {@link DataSet#getRowCountNonTrimmed()}.
+     */
+    void handlePage(DataSet page) throws Exception;
+}
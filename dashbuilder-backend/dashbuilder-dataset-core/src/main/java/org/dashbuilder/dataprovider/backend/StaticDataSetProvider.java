@@ -15,23 +15,27 @@
  */
 package org.dashbuilder.dataprovider.backend;
 
+import java.util.ArrayList;
+import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.commons.lang.StringUtils;
-import org.dashbuilder.dataprovider.DataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProviderType;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetMetadata;
 import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.def.StaticDataSetDef;
 import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
 import org.dashbuilder.dataset.engine.index.DataSetIndex;
 import org.dashbuilder.dataset.events.StaticDataSetRegisteredEvent;
 import org.dashbuilder.dataset.events.StaticDataSetRemovedEvent;
 import org.dashbuilder.dataset.filter.DataSetFilter;
+import org.dashbuilder.dataset.impl.ColumnValues;
+import org.dashbuilder.dataset.impl.DataSetImpl;
 
 /**
  * DataSetProvider implementation for static (in-memory) data sets.
@@ -45,7 +49,7 @@ import org.dashbuilder.dataset.filter.DataSetFilter;
  */
 @ApplicationScoped
 @Named("static")
-public class StaticDataSetProvider implements DataSetProvider {
+public class StaticDataSetProvider implements BatchDataSetProvider {
 
     @Inject
     private SharedDataSetOpEngine dataSetOpEngine;
@@ -67,12 +71,58 @@ public class StaticDataSetProvider implements DataSetProvider {
     }
 
     public void registerDataSet(DataSet dataSet) {
+        // Cached data sets are long lived, so keep their values in a columnar storage.
+        if (dataSet instanceof DataSetImpl) {
+            ((DataSetImpl) dataSet).compact();
+        }
         dataSetOpEngine.getIndexRegistry().put(dataSet);
 
         // Fire an event
         dataSetRegisteredEvent.fire(new StaticDataSetRegisteredEvent(dataSet.getMetadata()));
     }
 
+    /**
+     * Append rows to a registered data set. The indexes already built for the data set are updated with the new rows
+     * rather than dropped (see <i>SharedDataSetOpEngine.append</i>).
+     * @param rows A data set with the same columns holding the rows to append. Its creation date becomes the creation
+     * date of the updated data set, since the rows are as up to date as when they were read.
+     * @return The updated data set or null if the data set is not registered.
+     */
+    public DataSet appendDataSet(String uuid, DataSet rows) {
+        DataSetIndex index = dataSetOpEngine.getIndexRegistry().get(uuid);
+        if (index == null) return null;
+
+        DataSet old = index.getDataSet();
+        if (old.getColumns().size() != rows.getColumns().size()) {
+            throw new IllegalArgumentException("The rows to append do not match the data set columns: " + uuid);
+        }
+        DataSet dataSet = old.cloneInstance();
+        dataSet.setUUID(uuid);
+        dataSet.setDefinition(old.getDefinition());
+        dataSet.setCreationDate(rows.getCreationDate());
+        for (int i = 0; i < rows.getColumns().size(); i++) {
+            List values = dataSet.getColumnByIndex(i).getValues();
+            if (values instanceof ColumnValues) {
+                ((ColumnValues) values).ensureCapacity(values.size() + rows.getRowCount());
+            }
+            values.addAll(rows.getColumnByIndex(i).getValues());
+        }
+        if (dataSet instanceof DataSetImpl) {
+            ((DataSetImpl) dataSet).compact();
+        }
+        dataSetOpEngine.append(index, dataSet);
+
+        // Keep the definition up to date, so the data set is indexed again with all its rows if evicted
+        DataSetDef def = old.getDefinition();
+        if (def instanceof StaticDataSetDef && def.getDataSet() == old) {
+            def.setDataSet(dataSet);
+        }
+
+        // Fire an event
+        dataSetRegisteredEvent.fire(new StaticDataSetRegisteredEvent(dataSet.getMetadata()));
+        return dataSet;
+    }
+
     public DataSet removeDataSet(String uuid) {
         DataSetIndex index = dataSetOpEngine.getIndexRegistry().remove(uuid);
         if (index == null) return null;
@@ -98,6 +148,12 @@ public class StaticDataSetProvider implements DataSetProvider {
         // Lookup the data set (with any existing filters)
         DataSet dataSet = lookupDataSet(uuid, lookup);
 
+        // Static data sets might have been evicted from the index registry. If so, just index them again.
+        if (dataSet == null && def instanceof StaticDataSetDef && def.getDataSet() != null) {
+            dataSetOpEngine.getIndexRegistry().put(def.getDataSet());
+            dataSet = lookupDataSet(uuid, lookup);
+        }
+
         // Add the proper metadata to any root data set retrieval call
         if (dataSet != null && isRoot) {
             dataSet.setUUID(uuid);
@@ -115,9 +171,9 @@ public class StaticDataSetProvider implements DataSetProvider {
         DataSet dataSet = dataSetIndex.getDataSet();
         if (lookup == null) return dataSet;
 
-        // Apply the list of operations specified (if any).
+        // Apply the list of operations specified (if any) and get just the rows requested.
         if (!lookup.getOperationList().isEmpty()) {
-            dataSet = dataSetOpEngine.execute(uuid, lookup.getOperationList());
+            return dataSetOpEngine.execute(dataSetIndex, lookup.getOperationList(), lookup.getRowOffset(), lookup.getNumberOfRows());
         }
 
         // Trim the data set as requested.
@@ -125,6 +181,44 @@ public class StaticDataSetProvider implements DataSetProvider {
         return dataSet;
     }
 
+    public List<DataSet> lookupDataSets(DataSetDef def, List<DataSetLookup> lookupList) {
+        String uuid = def.getUUID();
+        if (StringUtils.isEmpty(uuid)) return null;
+
+        // Be aware of filters on the data set definition
+        boolean[] isRoot = new boolean[lookupList.size()];
+        DataSetFilter filter = def.getDataSetFilter();
+        for (int i = 0; i < lookupList.size(); i++) {
+            DataSetLookup lookup = lookupList.get(i);
+            isRoot[i] = lookup.isEmpty();
+            if (filter != null) lookup.addOperation(0, filter);
+        }
+
+        // Static data sets might have been evicted from the index registry. If so, just index them again.
+        DataSetIndex dataSetIndex = dataSetOpEngine.getIndexRegistry().get(uuid);
+        if (dataSetIndex == null && def instanceof StaticDataSetDef && def.getDataSet() != null) {
+            dataSetIndex = dataSetOpEngine.getIndexRegistry().put(def.getDataSet());
+        }
+        if (dataSetIndex == null) {
+            List<DataSet> result = new ArrayList<DataSet>();
+            for (int i = 0; i < lookupList.size(); i++) result.add(null);
+            return result;
+        }
+
+        // Evaluate the operations shared among the lookups just once.
+        List<DataSet> result = dataSetOpEngine.executeAll(dataSetIndex, lookupList);
+
+        // Add the proper metadata to any root data set retrieval call
+        for (int i = 0; i < result.size(); i++) {
+            DataSet dataSet = result.get(i);
+            if (isRoot[i]) {
+                dataSet.setUUID(uuid);
+                dataSet.setDefinition(def);
+            }
+        }
+        return result;
+    }
+
     public boolean isDataSetOutdated(DataSetDef def) {
         return false;
     }
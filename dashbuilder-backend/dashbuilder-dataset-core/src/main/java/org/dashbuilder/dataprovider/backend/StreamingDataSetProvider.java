@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend;
+
+import org.dashbuilder.dataprovider.DataSetProvider;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataSetDef;
+
+/**
+ * Data set providers able to read the results of a lookup request in pages, straight from the data source
+ * (i.e: a DB cursor) and without holding all the resulting rows in memory.
+ */
+public interface StreamingDataSetProvider extends DataSetProvider {
+
+    /**
+     * Streaming version of the {@link DataSetProvider#lookupDataSet(DataSetDef, DataSetLookup)} method.
+     *
+     * @param def The data set definition
+     * @param lookup The lookup request
+     * @param pageSize The number of rows per page
+     * @param handler The handler receiving the pages
+     * @return false if the lookup can't be streamed by this provider, so it has to be resolved through
+     * regular lookup requests instead.
+     */
+    boolean streamDataSet(DataSetDef def, DataSetLookup lookup, int pageSize, DataSetPageHandler handler) throws Exception;
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Specializes;
+import javax.inject.Inject;
+
+import org.dashbuilder.config.Config;
+import org.dashbuilder.dataset.engine.index.TransientDataSetIndexRegistry;
+
+/**
+ * Backend index registry. It makes the max. heap size configurable.
+ */
+@ApplicationScoped
+@Specializes
+public class BackendDataSetIndexRegistry extends TransientDataSetIndexRegistry {
+
+    /**
+     * Max. heap (in megabytes) to be taken by the data sets held in the registry. 0 means no limit.
+     */
+    @Inject @Config("0")
+    protected int maxHeapSizeInMb;
+
+    @PostConstruct
+    public void init() {
+        setMaxHeapSize(maxHeapSizeInMb * 1024L * 1024L);
+    }
+}
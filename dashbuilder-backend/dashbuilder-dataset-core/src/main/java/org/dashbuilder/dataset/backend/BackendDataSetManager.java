@@ -15,6 +15,15 @@
  */
 package org.dashbuilder.dataset.backend;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -23,7 +32,11 @@ import org.dashbuilder.config.Config;
 import org.dashbuilder.dataprovider.DataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProviderRegistry;
 import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataprovider.backend.AsyncDataSetProvider;
+import org.dashbuilder.dataprovider.backend.BatchDataSetProvider;
+import org.dashbuilder.dataprovider.backend.DataSetPageHandler;
 import org.dashbuilder.dataprovider.backend.StaticDataSetProvider;
+import org.dashbuilder.dataprovider.backend.StreamingDataSetProvider;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetFactory;
 import org.dashbuilder.dataset.DataSetLookup;
@@ -57,6 +70,12 @@ public class BackendDataSetManager implements DataSetManager {
     @Inject @Config("1024")
     protected int pushMaxSize = 2048;
 
+    /**
+     * Resolve in parallel the lookup requests sent in a single call (only for providers supporting it).
+     */
+    @Inject @Config("true")
+    protected boolean parallelLookupsEnabled = true;
+
     @Inject
     protected Logger log;
 
@@ -86,6 +105,7 @@ public class BackendDataSetManager implements DataSetManager {
             def.setName(dataSet.getUUID());
             def.setDataSet(dataSet);
             def.setPushEnabled(pushEnabled);
+            dataSet.setDefinition(def);
             def.setPushMaxSize(pushMaxSize);
             dataSetDefRegistry.registerDataSetDef(def);
 
@@ -118,13 +138,262 @@ public class BackendDataSetManager implements DataSetManager {
     }
 
     public DataSet[] lookupDataSets(DataSetLookup[] lookup) {
+        DataSetLookupException[] errors = new DataSetLookupException[lookup.length];
+        DataSet[] result = lookupDataSets(lookup, errors);
+        for (DataSetLookupException error : errors) {
+            if (error != null) throw error;
+        }
+        return result;
+    }
+
+    /**
+     * Process multiple data set lookup requests in a single shot. A failed request doesn't abort the rest.
+     *
+     * @param lookup The lookup requests
+     * @param errors An array (as long as the requests one) where to put the error of every failed request
+     * @return The resulting data sets in the same order as the lookup requests (null for the failed ones).
+     */
+    public DataSet[] lookupDataSets(DataSetLookup[] lookup, DataSetLookupException[] errors) {
         DataSet[] result = new DataSet[lookup.length];
+        if (!parallelLookupsEnabled || lookup.length < 2) {
+            for (int i = 0; i < lookup.length; i++) {
+                lookupDataSet(lookup, i, result, errors);
+            }
+            return result;
+        }
+        for (List<Integer> round : getLookupRounds(lookup)) {
+            lookupDataSets(lookup, round, result, errors);
+        }
+        return result;
+    }
+
+    /**
+     * Lookups on the same data set are split in two rounds. The first lookup loads the data set and
+     * builds its index, so the rest (resolved afterwards) just reuse it. Lookups on providers supporting
+     * batches are all resolved at once in the first round instead.
+     *
+     * @return The indexes of the lookups to resolve on every round.
+     */
+    protected List<List<Integer>> getLookupRounds(DataSetLookup[] lookup) {
+        List<Integer> firstRound = new ArrayList<Integer>();
+        List<Integer> secondRound = new ArrayList<Integer>();
+        Set<String> uuids = new HashSet<String>();
         for (int i = 0; i < lookup.length; i++) {
+            String uuid = lookup[i].getDataSetUUID();
+            if (uuids.add(uuid) || isBatchLookup(uuid)) firstRound.add(i);
+            else secondRound.add(i);
+        }
+        List<List<Integer>> rounds = new ArrayList<List<Integer>>();
+        rounds.add(firstRound);
+        if (!secondRound.isEmpty()) rounds.add(secondRound);
+        return rounds;
+    }
+
+    protected void lookupDataSets(DataSetLookup[] lookup, List<Integer> indexes, DataSet[] result, DataSetLookupException[] errors) {
+        // Several lookups on the same data set are resolved together, if the provider supports it.
+        Map<String,List<Integer>> batches = getLookupBatches(lookup, indexes);
+        Set<Integer> batched = new HashSet<Integer>();
+        for (List<Integer> batch : batches.values()) {
+            batched.addAll(batch);
+        }
+
+        // Send the lookups to the asynchronous providers first, so they're resolved in parallel...
+        Map<Integer,Future<DataSet>> futures = new HashMap<Integer,Future<DataSet>>();
+        Set<Integer> failed = new HashSet<Integer>();
+        try {
+            for (Integer i : indexes) {
+                if (batched.contains(i)) continue;
+                try {
+                    Future<DataSet> future = lookupDataSetAsync(lookup[i]);
+                    if (future != null) futures.put(i, future);
+                } catch (RuntimeException e) {
+                    errors[i] = toLookupException(lookup[i], e);
+                    failed.add(i);
+                }
+            }
+            // ... meanwhile, resolve the rest in the calling thread.
+            for (List<Integer> batch : batches.values()) {
+                try {
+                    lookupDataSetBatch(lookup, batch, result);
+                } catch (DataSetLookupException e) {
+                    // Resolve the batch one by one, so only the failed lookups get the error
+                    for (Integer i : batch) {
+                        lookupDataSet(lookup, i, result, errors);
+                    }
+                }
+            }
+            for (Integer i : indexes) {
+                if (!futures.containsKey(i) && !batched.contains(i) && !failed.contains(i)) {
+                    lookupDataSet(lookup, i, result, errors);
+                }
+            }
+            // Gather the asynchronous results
+            for (Integer i : indexes) {
+                Future<DataSet> future = futures.get(i);
+                if (future != null) {
+                    try {
+                        result[i] = getLookupResult(lookup[i], future);
+                    } catch (DataSetLookupException e) {
+                        errors[i] = e;
+                    }
+                }
+            }
+        } finally {
+            for (Future<DataSet> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    protected void lookupDataSet(DataSetLookup[] lookup, int i, DataSet[] result, DataSetLookupException[] errors) {
+        try {
             result[i] = lookupDataSet(lookup[i]);
+        } catch (RuntimeException e) {
+            errors[i] = toLookupException(lookup[i], e);
+        }
+    }
+
+    protected DataSetLookupException toLookupException(DataSetLookup lookup, RuntimeException e) {
+        if (e instanceof DataSetLookupException) return (DataSetLookupException) e;
+        return new DataSetLookupException(lookup.getDataSetUUID(), e.getMessage(), e);
+    }
+
+    /**
+     * Get the lookups that can be resolved in a single call to its provider, grouped by data set.
+     */
+    protected Map<String,List<Integer>> getLookupBatches(DataSetLookup[] lookup, List<Integer> indexes) {
+        Map<String,List<Integer>> result = new HashMap<String,List<Integer>>();
+        for (Integer i : indexes) {
+            String uuid = lookup[i].getDataSetUUID();
+            List<Integer> batch = result.get(uuid);
+            if (batch == null) {
+                if (!isBatchLookup(uuid)) continue;
+                result.put(uuid, batch = new ArrayList<Integer>());
+            }
+            batch.add(i);
+        }
+        Iterator<List<Integer>> it = result.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().size() < 2) it.remove();
         }
         return result;
     }
 
+    protected boolean isBatchLookup(String uuid) {
+        if (StringUtils.isBlank(uuid)) return false;
+
+        DataSetDef dataSetDef = dataSetDefRegistry.getDataSetDef(uuid);
+        return dataSetDef != null && resolveProvider(dataSetDef) instanceof BatchDataSetProvider;
+    }
+
+    /**
+     * Resolve in a single call several lookups on the same data set.
+     */
+    protected void lookupDataSetBatch(DataSetLookup[] lookup, List<Integer> batch, DataSet[] result) {
+        String uuid = lookup[batch.get(0)].getDataSetUUID();
+        DataSetDef dataSetDef = dataSetDefRegistry.getDataSetDef(uuid);
+        List<DataSetLookup> lookupList = new ArrayList<DataSetLookup>();
+        for (Integer i : batch) {
+            lookupList.add(lookup[i]);
+        }
+        try {
+            BatchDataSetProvider provider = (BatchDataSetProvider) resolveProvider(dataSetDef);
+            List<DataSet> dataSets = provider.lookupDataSets(dataSetDef, lookupList);
+            for (int j = 0; j < batch.size(); j++) {
+                result[batch.get(j)] = dataSets == null ? null : dataSets.get(j);
+            }
+        } catch (Exception e) {
+            throw new DataSetLookupException(uuid, "Can't lookup on specified data set: " + uuid, e);
+        }
+    }
+
+    /**
+     * Send the lookup request to the target provider, if it supports asynchronous lookups.
+     * @return null if the provider is synchronous (or the request is empty).
+     */
+    protected Future<DataSet> lookupDataSetAsync(DataSetLookup lookup) {
+        String uuid = lookup.getDataSetUUID();
+        if (StringUtils.isBlank(uuid)) return null;
+
+        DataSetDef dataSetDef = dataSetDefRegistry.getDataSetDef(uuid);
+        if (dataSetDef == null) throw new RuntimeException("Data set not found: " + uuid);
+
+        DataSetProvider provider = resolveProvider(dataSetDef);
+        if (!(provider instanceof AsyncDataSetProvider)) return null;
+        return ((AsyncDataSetProvider) provider).lookupDataSetAsync(dataSetDef, lookup);
+    }
+
+    protected DataSet getLookupResult(DataSetLookup lookup, Future<DataSet> future) {
+        String uuid = lookup.getDataSetUUID();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataSetLookupException(uuid, "Lookup interrupted on specified data set: " + uuid, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) throw (Error) cause;
+            throw new DataSetLookupException(uuid, "Can't lookup on specified data set: " + uuid, (Exception) cause);
+        }
+    }
+
+    /**
+     * Read the results of a lookup request page by page, so they can be processed (i.e: exported) without holding
+     * all the rows in memory. Providers supporting it stream the rows straight from the data source. For the rest,
+     * every page is fetched through a regular lookup request.
+     *
+     * @param lookup The lookup request. Its row offset and number of rows (if any) are honoured.
+     * @param pageSize The number of rows per page
+     * @param handler The handler receiving the pages
+     */
+    public void streamDataSet(DataSetLookup lookup, int pageSize, DataSetPageHandler handler) {
+        String uuid = lookup.getDataSetUUID();
+        if (StringUtils.isBlank(uuid)) return;
+        if (pageSize <= 0) throw new IllegalArgumentException("Invalid page size: " + pageSize);
+
+        DataSetDef dataSetDef = dataSetDefRegistry.getDataSetDef(uuid);
+        if (dataSetDef == null) throw new RuntimeException("Data set not found: " + uuid);
+
+        try {
+            DataSetProvider provider = resolveProvider(dataSetDef);
+            if (provider instanceof StreamingDataSetProvider) {
+                StreamingDataSetProvider streamingProvider = (StreamingDataSetProvider) provider;
+                if (streamingProvider.streamDataSet(dataSetDef, lookup.cloneInstance(), pageSize, handler)) return;
+            }
+            streamDataSetPages(lookup, pageSize, handler);
+        } catch (DataSetLookupException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DataSetLookupException(uuid, "Can't stream the specified data set: " + uuid, e);
+        }
+    }
+
+    /**
+     * Split the lookup request into several requests, one per page. Trimmed lookups return the total number of
+     * rows available, so no request past the last row is ever issued (it'd be rejected).
+     */
+    protected void streamDataSetPages(DataSetLookup lookup, int pageSize, DataSetPageHandler handler) throws Exception {
+        int offset = lookup.getRowOffset();
+        int limit = lookup.getNumberOfRows();
+        int rows = 0;
+        while (true) {
+            int pageRows = limit > 0 ? Math.min(pageSize, limit - rows) : pageSize;
+
+            // Providers might modify the lookup, so every page is requested with a brand new instance.
+            DataSetLookup pageLookup = lookup.cloneInstance();
+            pageLookup.setRowOffset(offset + rows);
+            pageLookup.setNumberOfRows(pageRows);
+            DataSet page = lookupDataSet(pageLookup);
+            if (page == null) return;
+
+            int pageRowCount = page.getRowCount();
+            if (rows == 0 || pageRowCount > 0) handler.handlePage(page);
+            rows += pageRowCount;
+            if (pageRowCount < pageRows || (limit > 0 && rows >= limit)) return;
+            if (offset + rows >= page.getRowCountNonTrimmed()) return;
+        }
+    }
+
     public DataSetMetadata getDataSetMetadata(String uuid) {
         if (StringUtils.isBlank(uuid)) return null;
 
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Specializes;
+import javax.inject.Inject;
+
+import org.dashbuilder.config.Config;
+import org.dashbuilder.dataset.engine.RowChunkExecutor;
+import org.dashbuilder.dataset.engine.RowChunkTask;
+
+/**
+ * Backend row chunk executor. Row sets above a given threshold are split into chunks which are processed in
+ * parallel by a pool of threads.
+ */
+@ApplicationScoped
+@Specializes
+public class BackendRowChunkExecutor extends RowChunkExecutor {
+
+    /**
+     * Enable/disable the parallel processing of large row sets.
+     */
+    @Inject @Config("true")
+    protected boolean parallelEnabled;
+
+    /**
+     * Min. number of rows required to switch to the parallel processing.
+     */
+    @Inject @Config("100000")
+    protected int parallelThreshold;
+
+    /**
+     * Number of threads available to process the chunks. 0 means one thread per available processor.
+     */
+    @Inject @Config("0")
+    protected int parallelThreads;
+
+    protected int poolSize = 1;
+    protected ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        setPoolSize(parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Set the number of threads processing the chunks (the calling thread included).
+     */
+    public void setPoolSize(int poolSize) {
+        shutdown();
+        this.poolSize = poolSize;
+        if (parallelEnabled && poolSize > 1) {
+            executor = Executors.newFixedThreadPool(poolSize - 1, new WorkerThreadFactory());
+        }
+    }
+
+    public boolean isParallel(int rows) {
+        // Chunks are never split again to avoid the pool threads waiting for each other.
+        return executor != null && rows >= parallelThreshold && rows > 1
+                && !(Thread.currentThread() instanceof WorkerThread);
+    }
+
+    public <T> List<T> execute(int rows, final RowChunkTask<T> task) {
+        if (!isParallel(rows)) {
+            return super.execute(rows, task);
+        }
+        // One chunk per thread. The calling thread processes the first chunk itself.
+        int nchunks = Math.min(poolSize, rows);
+        int chunkSize = rows / nchunks;
+        List<Future<T>> futures = new ArrayList<Future<T>>(nchunks - 1);
+        for (int i = 1; i < nchunks; i++) {
+            final int from = i * chunkSize;
+            final int to = i == nchunks - 1 ? rows : from + chunkSize;
+            futures.add(executor.submit(new Callable<T>() {
+                public T call() throws Exception {
+                    return task.process(from, to);
+                }
+            }));
+        }
+        List<T> result = new ArrayList<T>(nchunks);
+        try {
+            result.add(task.process(0, chunkSize));
+            for (Future<T> future : futures) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Row chunk processing interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    protected static class WorkerThread extends Thread {
+
+        public WorkerThread(Runnable r, String name) {
+            super(r, name);
+            setDaemon(true);
+        }
+    }
+
+    protected static class WorkerThreadFactory implements ThreadFactory {
+
+        protected AtomicInteger threadNumber = new AtomicInteger(1);
+
+        public Thread newThread(Runnable r) {
+            return new WorkerThread(r, "dataset-engine-Worker" + threadNumber.getAndIncrement());
+        }
+    }
+}
@@ -16,9 +16,19 @@
 package org.dashbuilder.dataset.backend;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
@@ -35,6 +45,8 @@ import org.slf4j.Logger;
 
 /**
  * This class looks for Data set definition files within an specific server directory and deploys them.
+ * <p>Changes in the directory are notified by the file system (see <i>DataSetDefWatcher</i>). If the file system
+ * does not support it then the directory is polled for changes every <i>pollingTime</i> milliseconds.</p>
  */
 @ApplicationScoped
 public class DataSetDefDeployer {
@@ -45,6 +57,25 @@ public class DataSetDefDeployer {
     @Inject @Config("3000")
     protected int pollingTime;
 
+    /**
+     * Enable/disable the notification of changes by the file system. If disabled the directory is always polled.
+     */
+    @Inject @Config("true")
+    protected boolean watchEnabled;
+
+    /**
+     * Time (in milliseconds) the directory must remain unchanged before deploying the changes notified.
+     */
+    @Inject @Config("200")
+    protected int debounceTime;
+
+    /**
+     * Number of threads parsing the definition files when many of them are deployed at once.
+     * 0 means one thread per available processor.
+     */
+    @Inject @Config("0")
+    protected int parserThreads;
+
      @Inject
     protected DataSetDefRegistry dataSetDefRegistry;
 
@@ -78,28 +109,37 @@ public class DataSetDefDeployer {
     @PreDestroy
     public synchronized void stop() {
         directory = null;
+        stopWatcher();
     }
 
     public synchronized void deploy(String dir) {
+        stopWatcher();
         if (validateDirectory(dir)) {
             log.info("Data sets deployment directory = " + dir);
             directory = dir;
+
+            // Start watching before the first deployment so no changes are missed
+            Runnable watcher = watchEnabled ? createWatcher(dir) : null;
             doDeploy();
 
-            if (pollingTime > 0) {
-                watcherThread = new Thread(new Runnable() {
+            if (watcher == null && pollingTime > 0) {
+                final String watchedDir = dir;
+                watcher = new Runnable() {
                     public void run() {
-                        // TODO: replace by NIO WatcherService (requires upgrade to Java 7)
-                        while (directory != null) {
+                        while (watchedDir.equals(directory)) {
                             try {
                                 Thread.sleep(pollingTime);
-                                doDeploy();
+                                doDeploy(watchedDir);
                             } catch (InterruptedException e) {
-                                log.error("Data set watcher thread error.", e);
+                                return;
                             }
                         }
                     }
-                });
+                };
+            }
+            if (watcher != null) {
+                watcherThread = new Thread(watcher, "dataset-deployer");
+                watcherThread.setDaemon(true);
                 watcherThread.start();
             }
         }
@@ -109,6 +149,32 @@ public class DataSetDefDeployer {
         }
     }
 
+    /**
+     * Create the watcher notifying about the changes in the given directory.
+     * @return null if the directory's file system can't be watched.
+     */
+    protected Runnable createWatcher(String dir) {
+        try {
+            Class.forName("java.nio.file.WatchService");
+        } catch (ClassNotFoundException e) {
+            log.info("Data sets deployment directory polled for changes (file system watch requires Java 7)");
+            return null;
+        }
+        try {
+            return new DataSetDefWatcher(this, dir, debounceTime);
+        } catch (Exception e) {
+            log.info("Data sets deployment directory polled for changes (file system watch not supported): " + e.getMessage());
+            return null;
+        }
+    }
+
+    protected void stopWatcher() {
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+            watcherThread = null;
+        }
+    }
+
     protected boolean validateDirectory(String dir) {
         if (StringUtils.isBlank(dir)) {
             return false;
@@ -131,41 +197,141 @@ public class DataSetDefDeployer {
         File[] files = new File(directory).listFiles(_dsetFilter);
         if (files == null) return;
 
-        // look for new data set deployments and updates
+        // Look for new data set deployments and updates
+        List<File> changed = new ArrayList<File>();
+        Set<String> fileNames = new HashSet<String>();
         for (File f : files) {
-            try {
-                // Avoid repetitions
-                DataSetDefRecord r = deployed.get(f.getName());
-                if (r != null && !r.isOutdated()) continue;
+            fileNames.add(f.getName());
 
-                // Read & Parse the definition file
-                FileReader fileReader = new FileReader(f);
-                String json = IOUtils.toString(fileReader);
-                DataSetDef def = dataSetDefJSONMarshaller.fromJson(json);
+            // Avoid repetitions
+            DataSetDefRecord r = deployed.get(f.getName());
+            if (r == null || r.isOutdated(f)) changed.add(f);
+        }
+        deployFiles(changed);
 
-                // Register the data set
-                if (StringUtils.isBlank(def.getUUID())) def.setUUID(f.getName());
-                def.setDefFilePath(f.getAbsolutePath());
-                dataSetDefRegistry.registerDataSetDef(def);
-                deployed.put(f.getName(), new DataSetDefRecord(def, f));
-                if (r == null) log.info("Data set definition deployed: " + def.getUUID());
-                else log.info("Data set definition updated: " + def.getUUID());
+        // Look for data set removals
+        for (String fileName : new ArrayList<String>(deployed.keySet())) {
+            if (!fileNames.contains(fileName)) {
+                undeploy(fileName);
+            }
+        }
+    }
+
+    /**
+     * Look into the given directory for changes, provided it's still the deployment directory.
+     * <p>The watcher thread is not waited for when the deployer is stopped, so it may still be polling the previous
+     * deployment directory.</p>
+     */
+    protected synchronized void doDeploy(String dir) {
+        if (dir.equals(directory)) doDeploy();
+    }
 
+    /**
+     * Deploy the changes notified for the given definition files.
+     * @param dir The directory watched. The changes are ignored if it's no longer the deployment directory since the
+     * batch was collected before the deployer was stopped or moved to another directory.
+     * @param overflow If true then some changes might have been missed, so the whole directory is processed.
+     */
+    protected synchronized void deployChanges(String dir, Collection<String> fileNames, boolean overflow) {
+        if (StringUtils.isBlank(directory) || !directory.equals(dir)) return;
+        if (overflow) {
+            doDeploy();
+            return;
+        }
+        List<File> changed = new ArrayList<File>();
+        for (String fileName : fileNames) {
+            File f = new File(directory, fileName);
+            if (f.exists()) changed.add(f);
+            else if (deployed.containsKey(fileName)) undeploy(fileName);
+        }
+        deployFiles(changed);
+    }
+
+    /**
+     * Read & register the given data set definition files.
+     */
+    protected void deployFiles(List<File> files) {
+        List<DataSetDef> defs = parseFiles(files);
+        for (int i = 0; i < files.size(); i++) {
+            File f = files.get(i);
+            DataSetDef def = defs.get(i);
+            if (def == null) continue;
+
+            // Register the data set
+            DataSetDefRecord r = deployed.get(f.getName());
+            dataSetDefRegistry.registerDataSetDef(def);
+            deployed.put(f.getName(), new DataSetDefRecord(def, f));
+            if (r == null) log.info("Data set definition deployed: " + def.getUUID());
+            else log.info("Data set definition updated: " + def.getUUID());
+        }
+    }
+
+    protected void undeploy(String fileName) {
+        DataSetDefRecord r = deployed.remove(fileName);
+        if (r != null) {
+            dataSetDefRegistry.removeDataSetDef(r.def.getUUID());
+            log.info("Data set definition removed: " + r.def.getUUID());
+        }
+    }
+
+    /**
+     * Parse the given definition files. Large sets of files (i.e: on startup) are parsed in parallel.
+     * @return The list of definitions, in the same order as the files. Null for the files with errors.
+     */
+    protected List<DataSetDef> parseFiles(final List<File> files) {
+        List<DataSetDef> result = new ArrayList<DataSetDef>(files.size());
+        int nthreads = Math.min(files.size() / 2, parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors());
+        if (nthreads < 2) {
+            for (File f : files) {
+                result.add(parseFile(f));
             }
-            catch (Exception e) {
-                log.error("Error parsing the data set definition file: " + f.getName(), e);
+            return result;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(nthreads);
+        try {
+            List<Future<DataSetDef>> futures = new ArrayList<Future<DataSetDef>>(files.size());
+            for (final File f : files) {
+                futures.add(executor.submit(new Callable<DataSetDef>() {
+                    public DataSetDef call() throws Exception {
+                        return parseFile(f);
+                    }
+                }));
             }
+            for (Future<DataSetDef> future : futures) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Data set definition files parsing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
-        // Look for data set removals
-        for (DataSetDef def : dataSetDefRegistry.getDataSetDefs(false)) {
-            if (!StringUtils.isBlank(def.getDefFilePath())) {
-                if (!new File(def.getDefFilePath()).exists()) {
-                    deployed.remove(def.getDefFilePath());
-                    dataSetDefRegistry.removeDataSetDef(def.getUUID());
-                    log.info("Data set definition removed: " + def.getUUID());
-                }
+    }
+
+    /**
+     * Read & parse the definition file.
+     * @return null if the file can't be parsed.
+     */
+    protected DataSetDef parseFile(File f) {
+        try {
+            FileReader fileReader = new FileReader(f);
+            try {
+                String json = IOUtils.toString(fileReader);
+                DataSetDef def = dataSetDefJSONMarshaller.fromJson(json);
+                if (StringUtils.isBlank(def.getUUID())) def.setUUID(f.getName());
+                def.setDefFilePath(f.getAbsolutePath());
+                return def;
+            } finally {
+                fileReader.close();
             }
         }
+        catch (Exception e) {
+            log.error("Error parsing the data set definition file: " + f.getName(), e);
+            return null;
+        }
     }
 
     FilenameFilter _dsetFilter = new FilenameFilter() {
@@ -186,8 +352,8 @@ public class DataSetDefDeployer {
             this.defFile = f;
         }
 
-        boolean isOutdated() {
-            return defFile.lastModified() > regTime;
+        boolean isOutdated(File f) {
+            return !defFile.equals(f) || defFile.lastModified() > regTime;
         }
     }
     
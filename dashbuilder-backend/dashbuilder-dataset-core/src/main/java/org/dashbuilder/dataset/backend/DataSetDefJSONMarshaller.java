@@ -59,9 +59,11 @@ public class DataSetDefJSONMarshaller {
     public static final String ESCAPECHAR = "escapeChar";
     public static final String DATEPATTERN = "datePattern";
     public static final String NUMBERPATTERN = "numberPattern";
+    public static final String APPEND_ENABLED = "appendEnabled";
 
     // SQL related
     public static final String DATA_SOURCE = "dataSource";
+    public static final String DB_DRIVER = "dbDriver";
     public static final String DB_SCHEMA = "dbSchema";
     public static final String DB_TABLE = "dbTable";
     public static final String DB_SQL = "dbSQL";
@@ -285,6 +287,7 @@ public class DataSetDefJSONMarshaller {
         String datePattern = json.has(DATEPATTERN) ? json.getString(DATEPATTERN) : null;
         String numberPattern = json.has(NUMBERPATTERN) ? json.getString(NUMBERPATTERN) : null;
         String allColumns = json.has(ALL_COLUMNS) ? json.getString(ALL_COLUMNS) : null;
+        String appendEnabled = json.has(APPEND_ENABLED) ? json.getString(APPEND_ENABLED) : null;
 
         if (!StringUtils.isBlank(fileURL)) def.setFileURL(fileURL);
         if (!StringUtils.isBlank(filePath)) def.setFilePath(filePath);
@@ -294,18 +297,21 @@ public class DataSetDefJSONMarshaller {
         if (!StringUtils.isBlank(numberPattern)) def.setNumberPattern(numberPattern);
         if (!StringUtils.isBlank(datePattern)) def.setDatePattern(datePattern);
         if (!StringUtils.isBlank(allColumns)) def.setAllColumnsEnabled(Boolean.parseBoolean(allColumns));
+        if (!StringUtils.isBlank(appendEnabled)) def.setAppendEnabled(Boolean.parseBoolean(appendEnabled));
 
         return def;
     }
 
     public SQLDataSetDef readSQLSettings(SQLDataSetDef def, JSONObject json) throws Exception {
         String dataSource = json.has(DATA_SOURCE) ? json.getString(DATA_SOURCE) : null;
+        String dbDriver = json.has(DB_DRIVER) ? json.getString(DB_DRIVER) : null;
         String dbTable = json.has(DB_TABLE) ? json.getString(DB_TABLE) : null;
         String dbSchema = json.has(DB_SCHEMA) ? json.getString(DB_SCHEMA) : null;
         String dbSQL = json.has(DB_SQL) ? json.getString(DB_SQL) : null;
         String allColumns = json.has(ALL_COLUMNS) ? json.getString(ALL_COLUMNS) : null;
 
         if (!StringUtils.isBlank(dataSource)) def.setDataSource(dataSource);
+        if (!StringUtils.isBlank(dbDriver)) def.setDbDriver(dbDriver);
         if (!StringUtils.isBlank(dbSchema)) def.setDbSchema(dbSchema);
         if (!StringUtils.isBlank(dbTable)) def.setDbTable(dbTable);
         if (!StringUtils.isBlank(dbSQL)) def.setDbSQL(dbSQL);
@@ -441,6 +447,9 @@ public class DataSetDefJSONMarshaller {
         // All columns flag.
         json.put( ALL_COLUMNS, dataSetDef.isAllColumnsEnabled());
 
+        // Append mode flag.
+        json.put( APPEND_ENABLED, dataSetDef.isAppendEnabled());
+
     }
 
     private void toJsonObject(final SQLDataSetDef dataSetDef, final JSONObject json ) throws JSONException {
@@ -448,6 +457,9 @@ public class DataSetDefJSONMarshaller {
         // Data source.
         json.put( DATA_SOURCE, dataSetDef.getDataSource());
 
+        // JDBC driver.
+        if (dataSetDef.getDbDriver() != null) json.put( DB_DRIVER, dataSetDef.getDbDriver());
+
         // Schema.
         json.put( DB_SCHEMA, dataSetDef.getDbSchema());
 
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the data set deployment directory through the NIO <i>WatchService</i> (it requires Java 7 or higher).
+ * <p>Changes are debounced: the events are collected until no further event arrives for a while and then they are
+ * deployed all together in a single batch.</p>
+ */
+public class DataSetDefWatcher implements Runnable {
+
+    /**
+     * Remote file systems only notify about the changes made from the local host, so they can't be watched.
+     */
+    public static final Set<String> REMOTE_FILE_STORES = new HashSet<String>(Arrays.asList(
+            "nfs", "nfs4", "cifs", "smbfs", "smb2", "afs", "fuse.sshfs"));
+
+    protected DataSetDefDeployer deployer;
+    protected String directory;
+    protected Path dir;
+    protected WatchService watchService;
+    protected int debounceTime;
+
+    /**
+     * @throws IOException If the directory's file system does not support watching.
+     */
+    public DataSetDefWatcher(DataSetDefDeployer deployer, String directory, int debounceTime) throws IOException {
+        this.deployer = deployer;
+        this.debounceTime = debounceTime;
+        this.directory = directory;
+        this.dir = Paths.get(directory);
+
+        FileStore fileStore = Files.getFileStore(dir);
+        if (REMOTE_FILE_STORES.contains(fileStore.type())) {
+            throw new IOException("Remote file system: " + fileStore.type());
+        }
+        watchService = dir.getFileSystem().newWatchService();
+        dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<String> fileNames = new LinkedHashSet<String>();
+                WatchKey key = watchService.take();
+                boolean overflow = false;
+
+                // Wait until the directory remains quiet for a while
+                while (key != null) {
+                    overflow |= collect(key, fileNames);
+                    if (!key.reset()) {
+                        deployer.log.warn("Data sets deployment directory no longer accessible: " + dir);
+                        return;
+                    }
+                    key = watchService.poll(debounceTime, TimeUnit.MILLISECONDS);
+                }
+                if (overflow || !fileNames.isEmpty()) {
+                    deployer.deployChanges(directory, fileNames, overflow);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Deployer stopped
+        } catch (ClosedWatchServiceException e) {
+            // Deployer stopped
+        } finally {
+            close();
+        }
+    }
+
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            deployer.log.error("Error closing the data sets directory watch service.", e);
+        }
+    }
+
+    /**
+     * Collect the name of the data set definition files affected by the events of the given key.
+     * @return true if some events have been lost.
+     */
+    protected boolean collect(WatchKey key, Set<String> fileNames) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (StandardWatchEventKinds.OVERFLOW.equals(event.kind())) {
+                overflow = true;
+                continue;
+            }
+            String name = ((Path) event.context()).getFileName().toString();
+            if (deployer._dsetFilter.accept(dir.toFile(), name)) {
+                fileNames.add(name);
+            }
+        }
+        return overflow;
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataColumn;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.impl.ColumnValues;
+import org.dashbuilder.dataset.impl.DateColumnValues;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
+
+/**
+ * DataSet from/to binary snapshot utilities.
+ * <p>Snapshots are stored column by column: numbers and dates as primitive values plus a null bitmap, labels as a
+ * dictionary of distinct values plus the codes of every row and texts as a list of strings. The snapshot header keeps
+ * a digest of the JSON of the data set definition it was created from, so it can be validated before reading it back.
+ * The JSON itself is not stored since it might contain credentials (i.e: the SQL data source URL).</p>
+ */
+public class DataSetSnapshotMarshaller {
+
+    public static final int MAGIC = 0x44534E50;
+    public static final int VERSION = 2;
+
+    private static final String CHARSET = "UTF-8";
+
+    /**
+     * Check if all the values of the given data set can be stored in a snapshot.
+     */
+    public boolean isSupported(DataSet dataSet) {
+        for (DataColumn column : dataSet.getColumns()) {
+            ColumnType type = column.getColumnType();
+            List values = column.getValues();
+            if (values instanceof ColumnValues && ((ColumnValues) values).isColumnar()
+                    && !ColumnType.LABEL.equals(type)) {
+                continue;
+            }
+            for (Object value : values) {
+                if (value == null) continue;
+                if (ColumnType.NUMBER.equals(type) && !(value instanceof Number)) return false;
+                if (ColumnType.DATE.equals(type) && !(value instanceof Date)) return false;
+                if (ColumnType.LABEL.equals(type) && !(value instanceof String)) return false;
+                if (ColumnType.TEXT.equals(type) && !(value instanceof String)) return false;
+            }
+        }
+        return true;
+    }
+
+    public void write(DataSet dataSet, String defJson, OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        int rows = dataSet.getRowCount();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, digest(defJson));
+        out.writeLong(dataSet.getCreationDate().getTime());
+        out.writeInt(rows);
+        out.writeInt(dataSet.getColumns().size());
+
+        for (DataColumn column : dataSet.getColumns()) {
+            ColumnType type = column.getColumnType();
+            writeString(out, column.getId());
+            writeString(out, type.toString());
+
+            List values = column.getValues();
+            if (ColumnType.NUMBER.equals(type)) {
+                NumberColumnValues numbers = values instanceof NumberColumnValues && ((NumberColumnValues) values).isColumnar() ? (NumberColumnValues) values : null;
+                writeNulls(out, values, rows);
+                for (int i = 0; i < rows; i++) {
+                    if (numbers != null) {
+                        out.writeDouble(numbers.getDouble(i));
+                    } else {
+                        Number n = (Number) values.get(i);
+                        out.writeDouble(n == null ? 0 : n.doubleValue());
+                    }
+                }
+            }
+            else if (ColumnType.DATE.equals(type)) {
+                DateColumnValues dates = values instanceof DateColumnValues && ((DateColumnValues) values).isColumnar() ? (DateColumnValues) values : null;
+                writeNulls(out, values, rows);
+                for (int i = 0; i < rows; i++) {
+                    if (dates != null) {
+                        out.writeLong(dates.getTime(i));
+                    } else {
+                        Date d = (Date) values.get(i);
+                        out.writeLong(d == null ? 0 : d.getTime());
+                    }
+                }
+            }
+            else if (ColumnType.LABEL.equals(type)) {
+                List<String> dictionary = new ArrayList<String>();
+                Map<String,Integer> dictionaryMap = new HashMap<String,Integer>();
+                int[] codes = new int[rows];
+                for (int i = 0; i < rows; i++) {
+                    String value = (String) values.get(i);
+                    if (value == null) {
+                        codes[i] = -1;
+                        continue;
+                    }
+                    Integer code = dictionaryMap.get(value);
+                    if (code == null) {
+                        dictionaryMap.put(value, code = dictionary.size());
+                        dictionary.add(value);
+                    }
+                    codes[i] = code;
+                }
+                out.writeInt(dictionary.size());
+                for (String value : dictionary) {
+                    writeString(out, value);
+                }
+                for (int i = 0; i < rows; i++) {
+                    out.writeInt(codes[i]);
+                }
+            }
+            else {
+                for (int i = 0; i < rows; i++) {
+                    writeString(out, (String) values.get(i));
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Read a snapshot back.
+     * @param defJson The JSON of the current data set definition.
+     * @return The data set stored or null if the snapshot was created from a different data set definition.
+     */
+    public DataSet read(File file, String defJson) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a data set snapshot: " + file);
+            }
+            if (in.readInt() != VERSION) return null;
+            if (!digest(defJson).equals(readString(in))) return null;
+
+            DataSet dataSet = DataSetFactory.newEmptyDataSet();
+            dataSet.setCreationDate(new Date(in.readLong()));
+            int rows = in.readInt();
+            int ncolumns = in.readInt();
+            for (int c = 0; c < ncolumns; c++) {
+                String columnId = readString(in);
+                ColumnType type = ColumnType.getByName(readString(in));
+                if (type == null) {
+                    throw new IOException("Unknown column type in snapshot: " + file);
+                }
+                ColumnValues columnValues = ColumnValues.create(type);
+                List values = columnValues != null ? columnValues : new ArrayList(rows);
+                if (columnValues != null) columnValues.ensureCapacity(rows);
+
+                if (ColumnType.NUMBER.equals(type)) {
+                    NumberColumnValues numbers = (NumberColumnValues) columnValues;
+                    byte[] nulls = readNulls(in, rows);
+                    for (int i = 0; i < rows; i++) {
+                        double value = in.readDouble();
+                        if (isNull(nulls, i)) numbers.addNull();
+                        else numbers.addDouble(value);
+                    }
+                }
+                else if (ColumnType.DATE.equals(type)) {
+                    DateColumnValues dates = (DateColumnValues) columnValues;
+                    byte[] nulls = readNulls(in, rows);
+                    for (int i = 0; i < rows; i++) {
+                        long value = in.readLong();
+                        if (isNull(nulls, i)) dates.addNull();
+                        else dates.addTime(value);
+                    }
+                }
+                else if (ColumnType.LABEL.equals(type)) {
+                    String[] dictionary = new String[in.readInt()];
+                    for (int i = 0; i < dictionary.length; i++) {
+                        dictionary[i] = readString(in);
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        int code = in.readInt();
+                        if (code == -1) columnValues.addNull();
+                        else values.add(dictionary[code]);
+                    }
+                }
+                else {
+                    for (int i = 0; i < rows; i++) {
+                        values.add(readString(in));
+                    }
+                }
+                dataSet.addColumn(columnId, type, values);
+            }
+            return dataSet;
+        } finally {
+            in.close();
+        }
+    }
+
+    protected void writeNulls(DataOutputStream out, List values, int rows) throws IOException {
+        ColumnValues columnValues = values instanceof ColumnValues ? (ColumnValues) values : null;
+        byte[] nulls = new byte[(rows + 7) >> 3];
+        for (int i = 0; i < rows; i++) {
+            boolean isNull = columnValues != null ? columnValues.isNull(i) : values.get(i) == null;
+            if (isNull) nulls[i >> 3] |= 1 << (i & 7);
+        }
+        out.write(nulls);
+    }
+
+    protected byte[] readNulls(DataInputStream in, int rows) throws IOException {
+        byte[] nulls = new byte[(rows + 7) >> 3];
+        in.readFully(nulls);
+        return nulls;
+    }
+
+    protected boolean isNull(byte[] nulls, int index) {
+        return (nulls[index >> 3] & (1 << (index & 7))) != 0;
+    }
+
+    protected void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    protected String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    protected String digest(String defJson) throws IOException {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(defJson.getBytes(CHARSET));
+            StringBuilder out = new StringBuilder();
+            for (byte b : hash) {
+                out.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return out.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not supported", e);
+        }
+    }
+}
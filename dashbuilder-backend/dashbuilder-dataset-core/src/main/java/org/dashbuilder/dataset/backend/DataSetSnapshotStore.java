@@ -0,0 +1,284 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.apache.commons.lang.StringUtils;
+import org.dashbuilder.config.Config;
+import org.dashbuilder.dataprovider.DataSetProvider;
+import org.dashbuilder.dataprovider.DataSetProviderRegistry;
+import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataprovider.backend.StaticDataSetProvider;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.date.TimeAmount;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.events.DataSetDefRegisteredEvent;
+import org.dashbuilder.dataset.events.DataSetDefRemovedEvent;
+import org.dashbuilder.dataset.events.DataSetStaleEvent;
+import org.dashbuilder.dataset.events.StaticDataSetRegisteredEvent;
+import org.slf4j.Logger;
+
+/**
+ * Keeps a binary snapshot of every data set loaded into the static data set cache, so they don't need to be loaded
+ * again from their source (CSV files, SQL queries, ...) after a server restart.
+ * <p>Snapshots are written in background every time a data set is registered into the cache and they are read back
+ * as soon as its data set definition gets deployed. A snapshot is discarded if the data set definition has changed,
+ * if it's older than the definition's refresh time or if the data set provider reports the data as outdated
+ * (i.e: the CSV file has been modified since the snapshot was taken).</p>
+ */
+@ApplicationScoped
+public class DataSetSnapshotStore {
+
+    /**
+     * Enable/disable the data set snapshots.
+     */
+    @Inject @Config("false")
+    protected boolean snapshotEnabled;
+
+    /**
+     * Directory where to store the snapshots. If not set then they're stored in a <i>.snapshots</i> directory
+     * located next to the data set definition file (data sets not deployed from a file are never stored).
+     */
+    @Inject @Config("")
+    protected String snapshotDirectory;
+
+    @Inject
+    protected StaticDataSetProvider staticDataSetProvider;
+
+    @Inject
+    protected DataSetProviderRegistry dataSetProviderRegistry;
+
+    @Inject
+    protected DataSetDefJSONMarshaller dataSetDefJSONMarshaller;
+
+    @Inject
+    protected DataSetSnapshotMarshaller dataSetSnapshotMarshaller;
+
+    @Inject
+    protected Logger log;
+
+    public static final String SNAPSHOT_DIR = ".snapshots";
+    public static final String SNAPSHOT_EXT = ".snapshot";
+
+    protected ExecutorService writeExecutor;
+    protected final Set<String> pendingWrites = new HashSet<String>();
+
+    // The creation time of the data set held by every snapshot file
+    protected final Map<String,Long> snapshotTimes = new HashMap<String,Long>();
+
+    public boolean isEnabled() {
+        return snapshotEnabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.snapshotEnabled = enabled;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (writeExecutor != null) {
+            writeExecutor.shutdown();
+            writeExecutor = null;
+        }
+    }
+
+    /**
+     * Get the snapshot file for the given data set definition.
+     * @return null if the data set can't be stored.
+     */
+    public File getSnapshotFile(DataSetDef def) {
+        if (def == null || StringUtils.isBlank(def.getUUID())) return null;
+        if (DataSetProviderType.STATIC.equals(def.getProvider())) return null;
+
+        File dir = null;
+        if (!StringUtils.isBlank(snapshotDirectory)) {
+            dir = new File(snapshotDirectory);
+        }
+        else if (!StringUtils.isBlank(def.getDefFilePath())) {
+            dir = new File(new File(def.getDefFilePath()).getParentFile(), SNAPSHOT_DIR);
+        }
+        if (dir == null) return null;
+        return new File(dir, def.getUUID().replaceAll("[^\\w\\.\\-]", "_") + SNAPSHOT_EXT);
+    }
+
+    /**
+     * Read the snapshot of the given data set (if any) and register it into the static data set cache.
+     * @return The data set restored or null if no valid snapshot is found.
+     */
+    public DataSet restore(DataSetDef def) {
+        File file = getSnapshotFile(def);
+        if (file == null || !file.exists()) return null;
+
+        String uuid = def.getUUID();
+        try {
+            DataSet dataSet = dataSetSnapshotMarshaller.read(file, dataSetDefJSONMarshaller.toJsonString(def));
+            if (dataSet == null) {
+                log.info("Data set snapshot discarded (definition changed): " + uuid);
+                delete(def);
+                return null;
+            }
+            TimeAmount refreshTime = def.getRefreshTimeAmount();
+            if (refreshTime != null && dataSet.getCreationDate().getTime() + refreshTime.toMillis() < System.currentTimeMillis()) {
+                log.info("Data set snapshot discarded (refresh time expired): " + uuid);
+                delete(def);
+                return null;
+            }
+            dataSet.setUUID(uuid);
+            dataSet.setDefinition(def);
+            synchronized (snapshotTimes) {
+                snapshotTimes.put(uuid, dataSet.getCreationDate().getTime());
+            }
+            staticDataSetProvider.registerDataSet(dataSet);
+
+            // Ask the provider whether the source data has changed since the snapshot was taken
+            DataSetProvider provider = dataSetProviderRegistry.getDataSetProvider(def.getProvider());
+            if (provider != null && provider.isDataSetOutdated(def)) {
+                log.info("Data set snapshot discarded (data outdated): " + uuid);
+                staticDataSetProvider.removeDataSet(uuid);
+                delete(def);
+                return null;
+            }
+            log.info("Data set restored from snapshot: " + uuid + " (" + dataSet.getRowCount() + " rows)");
+            return dataSet;
+        }
+        catch (Exception e) {
+            log.error("Error reading the data set snapshot: " + file, e);
+            delete(def);
+            return null;
+        }
+    }
+
+    /**
+     * Write the snapshot of the data set currently registered into the static data set cache.
+     */
+    public void store(DataSetDef def) {
+        File file = getSnapshotFile(def);
+        if (file == null) return;
+
+        String uuid = def.getUUID();
+        DataSet dataSet = staticDataSetProvider.lookupDataSet(uuid, null);
+        if (dataSet == null || dataSet.getCreationDate() == null) return;
+
+        // Skip if the snapshot is up to date or the values can't be stored
+        Long creationTime = dataSet.getCreationDate().getTime();
+        synchronized (snapshotTimes) {
+            if (creationTime.equals(snapshotTimes.get(uuid))) return;
+        }
+        if (!dataSetSnapshotMarshaller.isSupported(dataSet)) {
+            log.warn("Data set snapshot not supported: " + uuid);
+            return;
+        }
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try {
+            file.getParentFile().mkdirs();
+            OutputStream os = new BufferedOutputStream(new FileOutputStream(tmpFile), 65536);
+            try {
+                dataSetSnapshotMarshaller.write(dataSet, dataSetDefJSONMarshaller.toJsonString(def), os);
+            } finally {
+                os.close();
+            }
+            // Replace the old snapshot once the new one is complete
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                throw new IOException("Can't rename " + tmpFile + " to " + file);
+            }
+            synchronized (snapshotTimes) {
+                snapshotTimes.put(uuid, creationTime);
+            }
+        }
+        catch (Exception e) {
+            log.error("Error writing the data set snapshot: " + file, e);
+            tmpFile.delete();
+        }
+    }
+
+    public void delete(DataSetDef def) {
+        synchronized (snapshotTimes) {
+            snapshotTimes.remove(def.getUUID());
+        }
+        File file = getSnapshotFile(def);
+        if (file != null) file.delete();
+    }
+
+    /**
+     * Write the snapshot in background. Requests for the same data set still pending are coalesced into one.
+     */
+    protected synchronized void scheduleStore(final DataSetDef def) {
+        if (!pendingWrites.add(def.getUUID())) return;
+        if (writeExecutor == null) {
+            writeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "dataset-snapshot-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        writeExecutor.execute(new Runnable() {
+            public void run() {
+                synchronized (DataSetSnapshotStore.this) {
+                    pendingWrites.remove(def.getUUID());
+                }
+                store(def);
+            }
+        });
+    }
+
+    // Listen to changes on the data set definition registry & the static data set cache
+
+    protected void onDataSetDefRegisteredEvent(@Observes DataSetDefRegisteredEvent event) {
+        if (snapshotEnabled) {
+            restore(event.getDataSetDef());
+        }
+    }
+
+    protected void onDataSetStaleEvent(@Observes DataSetStaleEvent event) {
+        if (snapshotEnabled) {
+            delete(event.getDataSetDef());
+        }
+    }
+
+    protected void onDataSetDefRemovedEvent(@Observes DataSetDefRemovedEvent event) {
+        if (snapshotEnabled) {
+            delete(event.getDataSetDef());
+        }
+    }
+
+    protected void onStaticDataSetRegisteredEvent(@Observes StaticDataSetRegisteredEvent event) {
+        if (snapshotEnabled) {
+            DataSetDef def = event.getDataSetMetadata().getDefinition();
+            if (getSnapshotFile(def) != null) {
+                scheduleStore(def);
+            }
+        }
+    }
+}
@@ -20,8 +20,11 @@ import javax.inject.Inject;
 
 import org.apache.commons.io.IOUtils;
 import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
 import org.dashbuilder.dataset.DataSetFormatter;
+import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetManager;
+import org.dashbuilder.dataset.RawDataSetSamples;
 import org.dashbuilder.dataset.backend.DataSetDefJSONMarshaller;
 import org.dashbuilder.dataset.def.DataSetDef;
 import org.dashbuilder.dataset.def.DataSetDefRegistry;
@@ -35,6 +38,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import static org.dashbuilder.dataset.Assertions.*;
+import static org.dashbuilder.dataset.group.AggregateFunctionType.*;
+import static org.fest.assertions.api.Assertions.*;
 
 @RunWith(Arquillian.class)
 public class BeanDataSetGeneratorTest {
@@ -112,6 +117,55 @@ public class BeanDataSetGeneratorTest {
         }, 0);
     }
 
+    @Test
+    public void testParallelLookups() throws Exception {
+        DataSet expenses = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        expenses.setUUID("expense_reports_parallel");
+        dataSetManager.registerDataSet(expenses);
+
+        // The bean lookups (on different data sets) run asynchronously, while the lookups
+        // on the static data set are resolved in a single batch from the calling thread.
+        DataSetLookup[] lookups = new DataSetLookup[] {
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset("salesPerYear")
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset("expense_reports_parallel")
+                        .group("department")
+                        .column("department")
+                        .column("amount", SUM, "total")
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset("salesPerYearAdjusted")
+                        .rowNumber(6)
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset("expense_reports_parallel")
+                        .rowNumber(10)
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset("expense_reports_parallel")
+                        .rowOffset(10)
+                        .rowNumber(10)
+                        .buildLookup()
+        };
+        DataSet[] results = dataSetManager.lookupDataSets(lookups);
+        assertThat(results.length).isEqualTo(lookups.length);
+        for (int i = 0; i < lookups.length; i++) {
+            DataSet expected = dataSetManager.lookupDataSet(lookups[i]);
+            assertThat(results[i].getRowCount()).isEqualTo(expected.getRowCount());
+            for (int row = 0; row < expected.getRowCount(); row++) {
+                for (int col = 0; col < expected.getColumns().size(); col++) {
+                    assertThat(dataSetFormatter.formatValueAt(results[i], row, col))
+                            .isEqualTo(dataSetFormatter.formatValueAt(expected, row, col));
+                }
+            }
+        }
+        assertThat(results[0].getRowCount()).isEqualTo(12);
+        assertThat(results[2].getRowCount()).isEqualTo(6);
+        assertThat(results[4].getRowCount()).isEqualTo(10);
+    }
+
     private void printDataSet(DataSet dataSet) {
         System.out.print(dataSetFormatter.formatDataSet(dataSet, "{", "}", ",\n", "\"", "\"", ", ") + "\n\n");
     }
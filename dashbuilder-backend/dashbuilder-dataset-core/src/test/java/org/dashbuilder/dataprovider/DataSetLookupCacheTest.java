@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dashbuilder.dataprovider.backend.DataSetLookupCache;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.impl.DataSetImpl;
+import org.dashbuilder.dataset.sort.SortOrder;
+import org.junit.Test;
+
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+import static org.dashbuilder.dataset.group.AggregateFunctionType.*;
+import static org.fest.assertions.api.Assertions.*;
+
+public class DataSetLookupCacheTest {
+
+    public static final String EXPENSE_REPORTS = "expense_reports";
+
+    class CountingLoader implements Callable<DataSet> {
+
+        AtomicInteger calls = new AtomicInteger(0);
+
+        public DataSet call() throws Exception {
+            calls.incrementAndGet();
+            return new DataSetImpl();
+        }
+    }
+
+    DataSetLookup buildLookup(int offset) {
+        return DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .filter("amount", greaterThan(100), notEqualsTo("city", "Barcelona"))
+                .group("department")
+                .column("department")
+                .column("amount", SUM, "total")
+                .sort("total", SortOrder.DESCENDING)
+                .rowOffset(offset)
+                .rowNumber(10)
+                .buildLookup();
+    }
+
+    @Test
+    public void testLookupEquality() throws Exception {
+        DataSetLookup lookup1 = buildLookup(0);
+        DataSetLookup lookup2 = buildLookup(0);
+        assertThat(lookup1).isEqualTo(lookup2);
+        assertThat(lookup1.hashCode()).isEqualTo(lookup2.hashCode());
+        assertThat(lookup1.cloneInstance()).isEqualTo(lookup1);
+        assertThat(lookup1.cloneInstance().hashCode()).isEqualTo(lookup1.hashCode());
+        assertThat(lookup1).isNotEqualTo(buildLookup(10));
+        assertThat(lookup1.equals(null)).isFalse();
+        assertThat(new DataSetLookup()).isEqualTo(new DataSetLookup());
+    }
+
+    @Test
+    public void testCacheHits() throws Exception {
+        DataSetLookupCache cache = new DataSetLookupCache(10, 0);
+        CountingLoader loader = new CountingLoader();
+
+        DataSet first = cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(0), loader);
+        DataSet second = cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(0), loader);
+        assertThat(second).isSameAs(first);
+        assertThat(loader.calls.get()).isEqualTo(1);
+
+        cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(10), loader);
+        assertThat(loader.calls.get()).isEqualTo(2);
+        assertThat(cache.getStats().getNumberOfHits()).isEqualTo(1);
+        assertThat(cache.getStats().getNumberOfMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCacheBounds() throws Exception {
+        DataSetLookupCache cache = new DataSetLookupCache(2, 0);
+        CountingLoader loader = new CountingLoader();
+        for (int i = 0; i < 5; i++) {
+            cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(i), loader);
+        }
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getStats().getNumberOfEvictions()).isEqualTo(3);
+
+        // The less recently used lookups are gone
+        cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(4), loader);
+        assertThat(loader.calls.get()).isEqualTo(5);
+        cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(0), loader);
+        assertThat(loader.calls.get()).isEqualTo(6);
+
+        // Expired entries are not reused
+        cache.setTimeToLive(1);
+        cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(1), loader);
+        Thread.sleep(10);
+        cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(1), loader);
+        assertThat(loader.calls.get()).isEqualTo(8);
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        DataSetLookupCache cache = new DataSetLookupCache(10, 0);
+        CountingLoader loader = new CountingLoader();
+        cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(0), loader);
+        cache.lookupDataSet("other", null, loader);
+
+        cache.invalidate(EXPENSE_REPORTS);
+        assertThat(cache.size()).isEqualTo(1);
+        cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(0), loader);
+        cache.lookupDataSet("other", null, loader);
+        assertThat(loader.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testInFlightLookups() throws Exception {
+        final DataSetLookupCache cache = new DataSetLookupCache(10, 0);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger(0);
+        final Callable<DataSet> loader = new Callable<DataSet>() {
+            public DataSet call() throws Exception {
+                calls.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return new DataSetImpl();
+            }
+        };
+
+        int nthreads = 5;
+        final DataSet[] results = new DataSet[nthreads];
+        Thread[] threads = new Thread[nthreads];
+        for (int i = 0; i < nthreads; i++) {
+            final int n = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        results[n] = cache.lookupDataSet(EXPENSE_REPORTS, buildLookup(0), loader);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            threads[i].start();
+            if (i == 0) loading.await();
+        }
+        while (cache.getStats().getNumberOfSharedLoads() < nthreads - 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        for (DataSet result : results) {
+            assertThat(result).isSameAs(results[0]);
+        }
+    }
+
+    @Test
+    public void testLoadFailure() throws Exception {
+        DataSetLookupCache cache = new DataSetLookupCache(10, 0);
+        try {
+            cache.lookupDataSet(EXPENSE_REPORTS, null, new Callable<DataSet>() {
+                public DataSet call() throws Exception {
+                    throw new IllegalStateException("Backend down");
+                }
+            });
+            fail("Exception expected");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).isEqualTo("Backend down");
+        }
+        assertThat(cache.size()).isEqualTo(0);
+    }
+}
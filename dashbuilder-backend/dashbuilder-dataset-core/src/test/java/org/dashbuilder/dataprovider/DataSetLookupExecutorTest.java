@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dashbuilder.dataprovider.backend.DataSetLookupExecutor;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class DataSetLookupExecutorTest {
+
+    DataSetLookupExecutor executor = new DataSetLookupExecutor(2, 1000);
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < 10; i++) {
+            final int n = i;
+            futures.add(executor.submit(DataSetProviderType.SQL, new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    int current = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        if (current > maxRunning.get()) maxRunning.set(current);
+                    }
+                    Thread.sleep(10);
+                    running.decrementAndGet();
+                    return n;
+                }
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get()).isEqualTo(i);
+        }
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testProvidersIsolated() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<Integer> blocked = new Callable<Integer>() {
+            public Integer call() throws Exception {
+                release.await();
+                return 0;
+            }
+        };
+        // Exhaust the SQL threads ...
+        executor.submit(DataSetProviderType.SQL, blocked);
+        executor.submit(DataSetProviderType.SQL, blocked);
+        Future<Integer> queued = executor.submit(DataSetProviderType.SQL, blocked);
+
+        // ... other providers are not affected
+        Future<Integer> csv = executor.submit(DataSetProviderType.CSV, new Callable<Integer>() {
+            public Integer call() throws Exception {
+                return 1;
+            }
+        });
+        assertThat(csv.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(queued.isDone()).isFalse();
+
+        release.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(0);
+    }
+
+    @Test
+    public void testDataSourcesIsolated() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<Integer> blocked = new Callable<Integer>() {
+            public Integer call() throws Exception {
+                release.await();
+                return 0;
+            }
+        };
+        // Exhaust the threads of one database ...
+        executor.submit(DataSetProviderType.SQL, "java:jboss/datasources/db1", blocked);
+        executor.submit(DataSetProviderType.SQL, "java:jboss/datasources/db1", blocked);
+        Future<Integer> queued = executor.submit(DataSetProviderType.SQL, "java:jboss/datasources/db1", blocked);
+
+        // ... the rest of databases are not affected
+        Future<Integer> other = executor.submit(DataSetProviderType.SQL, "java:jboss/datasources/db2", new Callable<Integer>() {
+            public Integer call() throws Exception {
+                return 1;
+            }
+        });
+        assertThat(other.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(queued.isDone()).isFalse();
+
+        release.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(0);
+    }
+}
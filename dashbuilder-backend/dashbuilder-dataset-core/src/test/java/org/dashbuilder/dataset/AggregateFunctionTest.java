@@ -19,6 +19,8 @@ import java.util.Arrays;
 import java.util.List;
 import javax.inject.Inject;
 
+import org.dashbuilder.dataset.engine.function.AbstractFunction;
+import org.dashbuilder.dataset.engine.function.PartialAggregate;
 import org.dashbuilder.dataset.group.AggregateFunction;
 import org.dashbuilder.dataset.group.AggregateFunctionManager;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
@@ -88,4 +90,17 @@ public class AggregateFunctionTest {
         double result = sf.aggregate(listOfStrings);
         assertThat(result).isEqualTo(3);
     }
+
+    @Test
+    public void testPartialAggregates() throws Exception {
+        List listWithNulls = Arrays.asList(4, null, 1, 5, 2, null, 3);
+        for (AggregateFunctionType type : AggregateFunctionType.values()) {
+            AbstractFunction f = (AbstractFunction) aggregateFunctionManager.getFunctionByType(type);
+            List values = type == AggregateFunctionType.DISTINCT ? listOfStrings : listWithNulls;
+            PartialAggregate partial = f.partial(values, null, 0, 2);
+            partial.merge(f.partial(values, null, 2, 3));
+            partial.merge(f.partial(values, null, 3, values.size()));
+            assertThat(f.aggregate(partial)).as(type.toString()).isEqualTo(f.aggregate(values));
+        }
+    }
 }
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import javax.inject.Inject;
+
+import org.dashbuilder.dataprovider.backend.StaticDataSetProvider;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.dataset.engine.index.stats.DataSetIndexStats;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+import static org.dashbuilder.dataset.group.AggregateFunctionType.*;
+
+@RunWith(Arquillian.class)
+public class DataSetAppendTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final String EXPENSE_REPORTS = "expense_reports_append";
+
+    @Inject
+    SharedDataSetOpEngine dataSetOpEngine;
+
+    @Inject
+    StaticDataSetProvider staticDataSetProvider;
+
+    DataSetLookup filterAndAggregate = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(EXPENSE_REPORTS)
+            .filter("city", equalsTo("Barcelona"))
+            .column("amount", COUNT, "count")
+            .column("amount", MIN, "min")
+            .column("amount", MAX, "max")
+            .column("amount", SUM, "total")
+            .buildLookup();
+
+    DataSetLookup filterAndSort = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(EXPENSE_REPORTS)
+            .filter("amount", greaterThan(100))
+            .filter("department", equalsTo("Engineering"))
+            .sort("amount", "desc")
+            .buildLookup();
+
+    DataSetLookup groupByDept = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(EXPENSE_REPORTS)
+            .group("department")
+            .column("department")
+            .column(COUNT, "occurrences")
+            .buildLookup();
+
+    @Before
+    public void setUp() throws Exception {
+        DataSet dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        staticDataSetProvider.registerDataSet(dataSet);
+    }
+
+    @Test
+    public void testIndexesUpdated() throws Exception {
+        for (DataSetLookup lookup : new DataSetLookup[] {filterAndAggregate, filterAndSort, groupByDept}) {
+            dataSetOpEngine.execute(EXPENSE_REPORTS, lookup.getOperationList());
+        }
+        DataSet rows = RawDataSetSamples.EXPENSE_REPORTS.toDataSet().trim(0, 20);
+        DataSet dataSet = staticDataSetProvider.appendDataSet(EXPENSE_REPORTS, rows);
+        assertThat(dataSet.getRowCount()).isEqualTo(RawDataSetSamples.EXPENSE_REPORTS.toDataSet().getRowCount() + 20);
+
+        // Filter indexes & the aggregates which can be updated are kept. Sort & group indexes are dropped.
+        DataSetIndex index = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        assertThat(index.getDataSet()).isSameAs(dataSet);
+        DataSetIndexStats stats = index.getStats();
+        assertThat(stats.getNumberOfFilterOps()).isEqualTo(3);
+        assertThat(stats.getNumberOfAggFunctions()).isEqualTo(3);
+        assertThat(stats.getNumberOfSortOps()).isEqualTo(0);
+        assertThat(stats.getNumberOfGroupOps()).isEqualTo(0);
+
+        // The results must be the same as the ones calculated from scratch
+        for (DataSetLookup lookup : new DataSetLookup[] {filterAndAggregate, filterAndSort, groupByDept}) {
+            DataSet expected = dataSetOpEngine.execute(dataSet.cloneInstance(), lookup.getOperationList());
+            DataSet actual = dataSetOpEngine.execute(EXPENSE_REPORTS, lookup.getOperationList());
+            assertThat(actual.getRowCount()).isEqualTo(expected.getRowCount());
+            for (int i = 0; i < expected.getRowCount(); i++) {
+                for (int j = 0; j < expected.getColumns().size(); j++) {
+                    assertThat(actual.getValueAt(i, j)).isEqualTo(expected.getValueAt(i, j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNotRegistered() throws Exception {
+        DataSet rows = RawDataSetSamples.EXPENSE_REPORTS.toDataSet().trim(0, 5);
+        assertThat(staticDataSetProvider.appendDataSet("not_registered", rows)).isNull();
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+import static org.dashbuilder.dataset.group.AggregateFunctionType.*;
+
+@RunWith(Arquillian.class)
+public class DataSetBatchLookupTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final String EXPENSE_REPORTS = "expense_reports_batch";
+
+    @Inject
+    SharedDataSetOpEngine dataSetOpEngine;
+
+    @Inject
+    DataSetManager dataSetManager;
+
+    DataSetFormatter dataSetFormatter = new DataSetFormatter();
+
+    @Before
+    public void setUp() throws Exception {
+        DataSet dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        dataSetManager.registerDataSet(dataSet);
+    }
+
+    /**
+     * A typical dashboard: several displayers sharing the same filter and interval selection.
+     */
+    protected DataSetLookup[] createLookups() {
+        return new DataSetLookup[] {
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(EXPENSE_REPORTS)
+                        .filter("amount", greaterThan(100))
+                        .group("department").select("Engineering", "Services")
+                        .group("city")
+                        .column("city")
+                        .column(COUNT, "occurrences")
+                        .column("amount", SUM, "total")
+                        .sort("city", "asc")
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(EXPENSE_REPORTS)
+                        .filter("amount", greaterThan(100))
+                        .group("department").select("Engineering", "Services")
+                        .group("employee")
+                        .column("employee")
+                        .column("amount", AVERAGE, "average")
+                        .sort("employee", "desc")
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(EXPENSE_REPORTS)
+                        .filter("amount", greaterThan(100))
+                        .group("department").select("Engineering", "Services")
+                        .column("amount", SUM, "total")
+                        .column("amount", MAX, "max")
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(EXPENSE_REPORTS)
+                        .filter("amount", greaterThan(100))
+                        .sort("amount", "desc")
+                        .rowNumber(5)
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(EXPENSE_REPORTS)
+                        .filter("city", equalsTo("Barcelona"))
+                        .buildLookup(),
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(EXPENSE_REPORTS)
+                        .rowOffset(10)
+                        .rowNumber(10)
+                        .buildLookup()
+        };
+    }
+
+    @Test
+    public void testSharedPrefixExecution() throws Exception {
+        DataSetIndex index = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        DataSetLookup[] lookups = createLookups();
+        List<DataSetLookup> lookupList = new ArrayList<DataSetLookup>();
+        for (DataSetLookup lookup : lookups) {
+            lookupList.add(lookup);
+        }
+        List<DataSet> results = dataSetOpEngine.executeAll(index, lookupList);
+        assertThat(results.size()).isEqualTo(lookups.length);
+
+        for (int i = 0; i < lookups.length; i++) {
+            DataSetLookup lookup = lookups[i];
+            DataSet expected = dataSetOpEngine.execute(index, lookup.getOperationList(), lookup.getRowOffset(), lookup.getNumberOfRows());
+            assertDataSetEquals(expected, results.get(i));
+        }
+    }
+
+    @Test
+    public void testBatchLookup() throws Exception {
+        DataSetLookup[] lookups = createLookups();
+        DataSet[] results = dataSetManager.lookupDataSets(lookups);
+        assertThat(results.length).isEqualTo(lookups.length);
+
+        for (int i = 0; i < lookups.length; i++) {
+            DataSet expected = dataSetManager.lookupDataSet(lookups[i]);
+            assertDataSetEquals(expected, results[i]);
+        }
+        assertThat(results[3].getRowCount()).isEqualTo(5);
+        assertThat(results[5].getRowCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void testInvalidLookupInBatch() throws Exception {
+        DataSetLookup[] lookups = createLookups();
+        lookups[1] = DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .filter("amount", greaterThan(100))
+                .sort("amount", "desc")
+                .filter("city", equalsTo("Barcelona"))
+                .buildLookup();
+        try {
+            dataSetManager.lookupDataSets(lookups);
+            fail("Invalid operation sequences must be rejected");
+        } catch (Exception e) {
+            // Expected
+        }
+    }
+
+    protected void assertDataSetEquals(DataSet expected, DataSet actual) {
+        assertThat(actual.getRowCount()).isEqualTo(expected.getRowCount());
+        assertThat(actual.getRowCountNonTrimmed()).isEqualTo(expected.getRowCountNonTrimmed());
+        assertThat(actual.getColumns().size()).isEqualTo(expected.getColumns().size());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumns().size(); j++) {
+                assertThat(dataSetFormatter.formatValueAt(actual, i, j)).isEqualTo(dataSetFormatter.formatValueAt(expected, i, j));
+            }
+        }
+    }
+}
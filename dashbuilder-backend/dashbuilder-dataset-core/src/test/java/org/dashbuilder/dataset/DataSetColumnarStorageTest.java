@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.Date;
+import java.util.List;
+
+import org.dashbuilder.dataset.impl.ColumnValues;
+import org.dashbuilder.dataset.impl.DataColumnImpl;
+import org.dashbuilder.dataset.impl.DataSetImpl;
+import org.dashbuilder.dataset.impl.DateColumnValues;
+import org.dashbuilder.dataset.impl.LabelColumnValues;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class DataSetColumnarStorageTest {
+
+    DataSetImpl dataSet;
+    long originalSize;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSet = (DataSetImpl) RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        originalSize = dataSet.getEstimatedSize();
+        dataSet.compact();
+    }
+
+    @Test
+    public void testColumnsCompacted() throws Exception {
+        for (DataColumn column : dataSet.getColumns()) {
+            List values = column.getValues();
+            assertThat(values instanceof ColumnValues).isEqualTo(true);
+            assertThat(((ColumnValues) values).isColumnar()).isEqualTo(true);
+        }
+        assertThat(dataSet.getEstimatedSize()).isLessThan(originalSize);
+    }
+
+    @Test
+    public void testValuesPreserved() throws Exception {
+        DataSet raw = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        assertThat(dataSet.getRowCount()).isEqualTo(raw.getRowCount());
+        for (int i = 0; i < raw.getRowCount(); i++) {
+            assertThat(dataSet.getValueAt(i, 1)).isEqualTo(raw.getValueAt(i, 1));
+            assertThat(dataSet.getValueAt(i, 4)).isEqualTo(raw.getValueAt(i, 4));
+            assertThat(((Number) dataSet.getValueAt(i, 5)).doubleValue()).isEqualTo(((Number) raw.getValueAt(i, 5)).doubleValue());
+        }
+    }
+
+    @Test
+    public void testLabelDictionary() throws Exception {
+        LabelColumnValues cities = (LabelColumnValues) dataSet.getColumnById("city").getValues();
+        assertThat(cities.getDictionary().size()).isEqualTo(6);
+        assertThat(cities.getCode(0)).isEqualTo(cities.getCode(1));
+        assertThat(cities.getDictionary().get(cities.getCode(0))).isEqualTo("Barcelona");
+    }
+
+    @Test
+    public void testNullValues() throws Exception {
+        dataSet.setValueAt(0, 1, null);
+        dataSet.setValueAt(0, 4, null);
+        dataSet.setValueAt(0, 5, null);
+        assertThat(dataSet.getValueAt(0, 1)).isNull();
+        assertThat(dataSet.getValueAt(0, 4)).isNull();
+        assertThat(dataSet.getValueAt(0, 5)).isNull();
+        assertThat(dataSet.getValueAt(1, 1)).isEqualTo("Barcelona");
+    }
+
+    @Test
+    public void testUnsupportedValue() throws Exception {
+        DataColumnImpl column = (DataColumnImpl) dataSet.getColumnById("amount");
+        column.getValues().set(0, "N/A");
+        assertThat(((ColumnValues) column.getValues()).isColumnar()).isEqualTo(false);
+        assertThat(column.getValues().get(0)).isEqualTo("N/A");
+        assertThat(column.getValues().size()).isEqualTo(dataSet.getRowCount());
+        assertThat(column.compact()).isEqualTo(false);
+    }
+
+    @Test
+    public void testTrimColumnar() throws Exception {
+        DataSet trimmed = dataSet.trim(10, 5);
+        assertThat(trimmed.getRowCount()).isEqualTo(5);
+        assertThat(trimmed.getValueAt(0, 4) instanceof Date).isEqualTo(true);
+        assertThat(trimmed.getValueAt(0, 1)).isEqualTo(dataSet.getValueAt(10, 1));
+        assertThat(trimmed.getColumnByIndex(1).getValues() instanceof ColumnValues).isEqualTo(true);
+    }
+
+    @Test
+    public void testPrimitiveAppend() throws Exception {
+        NumberColumnValues numbers = new NumberColumnValues();
+        numbers.addDouble(1.5);
+        numbers.addNull();
+        numbers.addDouble(-2);
+        assertThat(numbers.size()).isEqualTo(3);
+        assertThat(numbers.get(0)).isEqualTo(1.5d);
+        assertThat(numbers.get(1)).isNull();
+        assertThat(numbers.get(2)).isEqualTo(-2d);
+
+        DateColumnValues dates = new DateColumnValues();
+        dates.addNull();
+        dates.addTime(1000L);
+        assertThat(dates.size()).isEqualTo(2);
+        assertThat(dates.get(0)).isNull();
+        assertThat(dates.get(1)).isEqualTo(new Date(1000L));
+
+        // Appends keep working once the storage has fallen back to plain objects
+        numbers.add("N/A");
+        numbers.addDouble(3);
+        numbers.addNull();
+        assertThat(numbers.isColumnar()).isFalse();
+        assertThat(numbers.size()).isEqualTo(6);
+        assertThat(numbers.get(4)).isEqualTo(3d);
+        assertThat(numbers.get(5)).isNull();
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.net.URL;
+import javax.inject.Inject;
+
+import org.apache.commons.io.IOUtils;
+import org.dashbuilder.dataset.backend.DataSetDefDeployer;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.def.DataSetDefRegistry;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+
+@RunWith(Arquillian.class)
+public class DataSetDefDeployerTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    @Inject
+    DataSetDefDeployer dataSetDefDeployer;
+
+    @Inject
+    DataSetDefRegistry dataSetDefRegistry;
+
+    File deployDir;
+    String salesPerYear;
+
+    @Before
+    public void setUp() throws Exception {
+        URL fileURL = Thread.currentThread().getContextClassLoader().getResource("salesPerYear.dset");
+        salesPerYear = IOUtils.toString(fileURL);
+
+        deployDir = File.createTempFile("dsets", "");
+        deployDir.delete();
+        deployDir.mkdirs();
+        for (int i = 0; i < 10; i++) {
+            writeDef("sales" + i);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dataSetDefDeployer.stop();
+        for (File f : deployDir.listFiles()) {
+            dataSetDefRegistry.removeDataSetDef(f.getName().replace(".dset", ""));
+            f.delete();
+        }
+        deployDir.delete();
+    }
+
+    @Test
+    public void testDeploy() throws Exception {
+        dataSetDefDeployer.deploy(deployDir.getPath());
+        for (int i = 0; i < 10; i++) {
+            DataSetDef def = dataSetDefRegistry.getDataSetDef("sales" + i);
+            assertThat(def).isNotNull();
+            assertThat(def.getDefFilePath()).isEqualTo(new File(deployDir, "sales" + i + ".dset").getAbsolutePath());
+        }
+    }
+
+    @Test
+    public void testDeployChanges() throws Exception {
+        dataSetDefDeployer.deploy(deployDir.getPath());
+        writeDef("sales10");
+        new File(deployDir, "sales0.dset").delete();
+
+        // Changes are deployed in background (some file systems, i.e: macOS, are polled every 10s by the watch service)
+        long timeout = System.currentTimeMillis() + 30000;
+        while (System.currentTimeMillis() < timeout
+                && (dataSetDefRegistry.getDataSetDef("sales10") == null || dataSetDefRegistry.getDataSetDef("sales0") != null)) {
+            Thread.sleep(50);
+        }
+        assertThat(dataSetDefRegistry.getDataSetDef("sales10")).isNotNull();
+        assertThat(dataSetDefRegistry.getDataSetDef("sales0")).isNull();
+        assertThat(dataSetDefRegistry.getDataSetDef("sales1")).isNotNull();
+    }
+
+    private void writeDef(String uuid) throws Exception {
+        FileWriter writer = new FileWriter(new File(deployDir, uuid + ".dset"));
+        try {
+            writer.write(salesPerYear.replace("\"salesPerYear\"", "\"" + uuid + "\""));
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.Date;
+import java.util.List;
+
+import org.dashbuilder.dataset.engine.filter.DataSetFilterContext;
+import org.dashbuilder.dataset.engine.filter.DataSetFunction;
+import org.dashbuilder.dataset.engine.filter.DefaultFilterAlgorithm;
+import org.dashbuilder.dataset.engine.filter.FilterCompiler;
+import org.dashbuilder.dataset.engine.filter.FilterPredicate;
+import org.dashbuilder.dataset.filter.ColumnFilter;
+import org.dashbuilder.dataset.impl.ArrayRowList;
+import org.dashbuilder.dataset.impl.DataSetImpl;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+/**
+ * <p>Compares the time spent by compiled and interpreted filters over a large columnar data set.</p>
+ * <p>It's not executed as part of the regular build. To run it:
+ * <code>mvn test -Dtest=DataSetFilterCompilerBenchmark -Dbenchmark.rows=200000</code></p>
+ */
+public class DataSetFilterCompilerBenchmark {
+
+    FilterCompiler filterCompiler = new FilterCompiler();
+    DefaultFilterAlgorithm filterAlgorithm = new DefaultFilterAlgorithm();
+
+    @Test
+    public void testFilterPerformance() throws Exception {
+        DataSetBuilder builder = DataSetFactory.newDataSetBuilder()
+                .label("city")
+                .number("amount")
+                .date("date");
+
+        int rows = Integer.getInteger("benchmark.rows", 200000);
+        Date date = new Date(115, 0, 1);
+        String[] cities = {"Barcelona", "Madrid", "Brno", "London", "Westford", "Raleigh"};
+        for (int i = 0; i < rows; i++) {
+            builder.row(cities[i % cities.length], (double) ((i * 37) % 1000), new Date(date.getTime() + i * 60000L));
+        }
+        DataSetImpl dataSet = (DataSetImpl) builder.buildDataSet();
+        dataSet.compact();
+
+        ColumnFilter filter = AND("amount", greaterThan(100d), lowerThan(500d));
+        int lookupTimes = 20;
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < lookupTimes; i++) interpretedRows(dataSet, filter);
+        long interpretedTime = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < lookupTimes; i++) compiledRows(dataSet, filter);
+        long compiledTime = System.nanoTime() - begin;
+
+        System.out.println("Interpreted filter=" + (double) interpretedTime / 1000000 + " ms");
+        System.out.println("Compiled filter=" + (double) compiledTime / 1000000 + " ms");
+        assertThat(compiledRows(dataSet, filter)).isEqualTo(interpretedRows(dataSet, filter));
+    }
+
+    protected List<Integer> compiledRows(DataSet dataSet, ColumnFilter filter) {
+        FilterPredicate predicate = filterCompiler.compile(dataSet, filter);
+        ArrayRowList result = new ArrayRowList();
+        for (int i = 0; i < dataSet.getRowCount(); i++) {
+            if (predicate.pass(i)) result.addRow(i);
+        }
+        return result;
+    }
+
+    protected List<Integer> interpretedRows(DataSet dataSet, ColumnFilter filter) {
+        DataSetFilterContext filterContext = new DataSetFilterContext(dataSet);
+        DataSetFunction function = filterAlgorithm.buildFunction(filterContext, filter);
+        ArrayRowList result = new ArrayRowList();
+        for (int i = 0; i < dataSet.getRowCount(); i++) {
+            filterContext.setCurrentRow(i);
+            if (function.pass()) result.addRow(i);
+        }
+        return result;
+    }
+}
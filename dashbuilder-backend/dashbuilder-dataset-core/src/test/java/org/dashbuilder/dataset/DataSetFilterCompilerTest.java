@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.dashbuilder.dataset.engine.filter.DataSetFilterContext;
+import org.dashbuilder.dataset.engine.filter.DataSetFunction;
+import org.dashbuilder.dataset.engine.filter.DefaultFilterAlgorithm;
+import org.dashbuilder.dataset.engine.filter.FilterCompiler;
+import org.dashbuilder.dataset.engine.filter.FilterPredicate;
+import org.dashbuilder.dataset.filter.ColumnFilter;
+import org.dashbuilder.dataset.impl.ArrayRowList;
+import org.dashbuilder.dataset.impl.DataSetImpl;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+public class DataSetFilterCompilerTest {
+
+    FilterCompiler filterCompiler = new FilterCompiler();
+    DefaultFilterAlgorithm filterAlgorithm = new DefaultFilterAlgorithm();
+
+    Date date = new Date(115, 0, 1);
+
+    List<ColumnFilter> filters = Arrays.asList(
+            equalsTo("city", "Barcelona"),
+            notEqualsTo("city", "Barcelona"),
+            equalsTo("city", Arrays.<Comparable>asList("Barcelona", "Brno")),
+            greaterThan("city", "London"),
+            lowerOrEqualsTo("city", "Madrid"),
+            isNull("city"),
+            notNull("city"),
+            equalsTo("amount", 120.35),
+            greaterThan("amount", 300d),
+            greaterOrEqualsTo("amount", 300d),
+            lowerThan("amount", 150d),
+            lowerOrEqualsTo("amount", 150d),
+            between("amount", 100d, 200d),
+            greaterThan("date", date),
+            lowerOrEqualsTo("date", date),
+            between("date", new Date(114, 0, 1), date),
+            AND("amount", greaterThan(100d), lowerThan(500d)),
+            OR("amount", NOT(greaterThan(100d)), greaterThan(1000d)),
+            NOT("city", equalsTo("Barcelona")));
+
+    @Test
+    public void testCompiledFiltersOnColumnarDataSet() throws Exception {
+        DataSetImpl dataSet = (DataSetImpl) RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        dataSet.setValueAt(0, 1, null);
+        dataSet.compact();
+        for (ColumnFilter filter : filters) {
+            assertThat(compiledRows(dataSet, filter)).as(filter.toString()).isEqualTo(interpretedRows(dataSet, filter));
+        }
+    }
+
+    @Test
+    public void testCompiledFiltersOnObjectDataSet() throws Exception {
+        DataSet dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        dataSet.setValueAt(0, 1, null);
+        for (ColumnFilter filter : filters) {
+            assertThat(compiledRows(dataSet, filter)).as(filter.toString()).isEqualTo(interpretedRows(dataSet, filter));
+        }
+    }
+
+    @Test
+    public void testMultipleValuesEqualsTo() throws Exception {
+        DataSetImpl dataSet = (DataSetImpl) RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        dataSet.compact();
+        ColumnFilter filter = equalsTo("city", Arrays.<Comparable>asList("Barcelona", "Brno"));
+        List<Integer> rows = compiledRows(dataSet, filter);
+        assertThat(rows.size()).isEqualTo(15);
+        for (Integer row : rows) {
+            assertThat(dataSet.getValueAt(row, 1)).isIn("Barcelona", "Brno");
+        }
+    }
+
+    protected List<Integer> compiledRows(DataSet dataSet, ColumnFilter filter) {
+        FilterPredicate predicate = filterCompiler.compile(dataSet, filter);
+        ArrayRowList result = new ArrayRowList();
+        for (int i = 0; i < dataSet.getRowCount(); i++) {
+            if (predicate.pass(i)) result.addRow(i);
+        }
+        return result;
+    }
+
+    protected List<Integer> interpretedRows(DataSet dataSet, ColumnFilter filter) {
+        DataSetFilterContext filterContext = new DataSetFilterContext(dataSet);
+        DataSetFunction function = filterAlgorithm.buildFunction(filterContext, filter);
+        ArrayRowList result = new ArrayRowList();
+        for (int i = 0; i < dataSet.getRowCount(); i++) {
+            filterContext.setCurrentRow(i);
+            if (function.pass()) result.addRow(i);
+        }
+        return result;
+    }
+}
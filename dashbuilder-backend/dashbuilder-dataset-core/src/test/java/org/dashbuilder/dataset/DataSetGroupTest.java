@@ -17,6 +17,8 @@ package org.dashbuilder.dataset;
 
 import javax.inject.Inject;
 
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
 import org.dashbuilder.dataset.group.DateIntervalType;
 import org.dashbuilder.dataset.date.DayOfWeek;
 import org.dashbuilder.dataset.date.Month;
@@ -52,6 +54,9 @@ public class DataSetGroupTest {
     @Inject
     public DataSetFormatter dataSetFormatter;
 
+    @Inject
+    public SharedDataSetOpEngine dataSetOpEngine;
+
     @Before
     public void setUp() throws Exception {
         DataSet dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
@@ -102,6 +107,70 @@ public class DataSetGroupTest {
         }, 0);
     }
 
+    @Test
+    public void testGroupFunctionsSameColumn() throws Exception {
+        // All the functions over the same column are calculated together
+        AggregateFunctionType[] functions = {SUM, DISTINCT, AVERAGE, COUNT, MAX};
+        DataSetLookupBuilder builder = DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .group("city")
+                .column("city", "City");
+        for (AggregateFunctionType function : functions) {
+            builder.column("amount", function, function.toString());
+        }
+        DataSet result = dataSetManager.lookupDataSet(builder.buildLookup());
+        assertThat(result.getRowCount()).isEqualTo(6);
+
+        // The results must match the ones calculated apart
+        for (int j = 0; j < functions.length; j++) {
+            DataSet single = dataSetManager.lookupDataSet(
+                    DataSetFactory.newDataSetLookupBuilder()
+                    .dataset(EXPENSE_REPORTS)
+                    .group("city")
+                    .column("city", "City")
+                    .column("amount", functions[j], "single")
+                    .buildLookup());
+
+            for (int i = 0; i < result.getRowCount(); i++) {
+                assertThat(result.getValueAt(i, j + 1)).as(functions[j].toString()).isEqualTo(single.getValueAt(i, 1));
+            }
+        }
+    }
+
+    @Test
+    public void testGroupByLabelIgnoresMaxIntervals() throws Exception {
+        DataSetLookup lookup = DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .group("department").dynamic(3, false)
+                .column("department", "Department")
+                .column(COUNT, "Occurrences")
+                .column("amount", MIN, "min")
+                .column("amount", MAX, "max")
+                .column("amount", SUM, "total")
+                .sort("department", SortOrder.ASCENDING)
+                .buildLookup();
+
+        // Every label gets its own interval (as in the SQL & ElasticSearch providers)
+        String[][] expected = new String[][] {
+                {"Engineering", "19.00", "1.10", "1,100.10", "7,650.16"},
+                {"Management", "11.00", "43.03", "992.20", "6,017.47"},
+                {"Sales", "8.00", "75.75", "995.30", "3,213.53"},
+                {"Services", "5.00", "152.25", "911.11", "2,504.50"},
+                {"Support", "7.00", "300.01", "1,001.90", "3,345.60"}
+        };
+
+        // Registered data sets are grouped using the label dictionary codes
+        DataSet result = dataSetManager.lookupDataSet(lookup);
+        assertThat(result.getRowCount()).isEqualTo(5);
+        assertDataSetValues(result, dataSetFormatter, expected, 0);
+
+        // Non columnar data sets are grouped by hashing the labels
+        DataSet dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        result = dataSetOpEngine.execute(dataSet, lookup.getOperationList());
+        assertThat(result.getRowCount()).isEqualTo(5);
+        assertDataSetValues(result, dataSetFormatter, expected, 0);
+    }
+
     @Test
     public void testGroupByYearDynamic() throws Exception {
         DataSet result = dataSetManager.lookupDataSet(
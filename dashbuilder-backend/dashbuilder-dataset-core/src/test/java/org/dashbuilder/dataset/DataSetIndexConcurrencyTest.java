@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.inject.Inject;
+
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.dataset.engine.index.stats.DataSetIndexStats;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+@RunWith(Arquillian.class)
+public class DataSetIndexConcurrencyTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final String CONCURRENT_DATASET = "concurrent_lookups_dataset";
+
+    public static final int THREADS = 16;
+    public static final int LOOKUPS_PER_THREAD = 40;
+    public static final int ROWS = 50000;
+
+    public static final String[] DEPARTMENTS = {"Engineering", "Services", "Sales", "Support", "Management"};
+    public static final String[] CITIES = {"Barcelona", "Madrid", "Brno", "London", "Westford", "Raleigh"};
+
+    DataSetLookup groupByDept = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(CONCURRENT_DATASET)
+            .group("department")
+            .column("department")
+            .column("amount", AggregateFunctionType.SUM)
+            .buildLookup();
+
+    DataSetLookup groupByCity = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(CONCURRENT_DATASET)
+            .group("city")
+            .column("city")
+            .column(AggregateFunctionType.COUNT, "occurrences")
+            .buildLookup();
+
+    DataSetLookup filterByCityAndDept = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(CONCURRENT_DATASET)
+            .filter("city", equalsTo("Barcelona"))
+            .filter("department", equalsTo("Engineering"))
+            .buildLookup();
+
+    DataSetLookup sortByAmountAsc = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(CONCURRENT_DATASET)
+            .sort("amount", "asc")
+            .buildLookup();
+
+    @Inject
+    SharedDataSetOpEngine dataSetOpEngine;
+
+    DataSet dataSet;
+
+    @Before
+    public void setUp() throws Exception {
+        // A data set big enough for concurrent index builds to overlap
+        DataSetBuilder builder = DataSetFactory.newDataSetBuilder()
+                .label("city")
+                .label("department")
+                .number("amount");
+
+        for (int i = 0; i < ROWS; i++) {
+            builder.row(CITIES[i % CITIES.length], DEPARTMENTS[(i / 7) % DEPARTMENTS.length], (double) ((i * 37) % 1000));
+        }
+        dataSet = builder.buildDataSet();
+        dataSet.setUUID(CONCURRENT_DATASET);
+        dataSetOpEngine.getIndexRegistry().put(dataSet);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dataSetOpEngine.getIndexRegistry().remove(CONCURRENT_DATASET);
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final DataSetLookup[] lookups = {groupByDept, groupByCity, filterByCityAndDept, sortByAmountAsc};
+
+        // Calculate the expected results without using any index
+        final List<DataSet> expected = new ArrayList<DataSet>();
+        for (DataSetLookup lookup : lookups) {
+            expected.add(dataSetOpEngine.execute(dataSet, lookup.getOperationList()));
+        }
+
+        // Hammer the same data set index from several threads at once
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t;
+            results.add(executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    startSignal.await();
+                    for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+                        int n = (i + offset) % lookups.length;
+                        DataSet result = dataSetOpEngine.execute(CONCURRENT_DATASET, lookups[n].getOperationList());
+                        String diff = compare(expected.get(n), result);
+                        if (diff != null) return diff;
+                    }
+                    return null;
+                }
+            }));
+        }
+        startSignal.countDown();
+        executor.shutdown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get()).isNull();
+        }
+
+        // Every index must have been built just once
+        DataSetIndex dataSetIndex = dataSetOpEngine.getIndexRegistry().get(CONCURRENT_DATASET);
+        DataSetIndexStats stats = dataSetIndex.getStats();
+        assertThat(stats.getNumberOfGroupOps()).isEqualTo(2);
+        assertThat(stats.getNumberOfFilterOps()).isEqualTo(2);
+        assertThat(stats.getNumberOfSortOps()).isEqualTo(2);
+        assertThat(stats.getReuseRate()).isGreaterThan(0);
+    }
+
+    protected String compare(DataSet expected, DataSet actual) {
+        DataSetFormatter formatter = new DataSetFormatter();
+        if (expected.getRowCount() != actual.getRowCount()) {
+            return "Row count is different. Actual=" + actual.getRowCount() + " Expected=" + expected.getRowCount();
+        }
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumns().size(); j++) {
+                String expectedValue = formatter.formatValueAt(expected, i, j);
+                String actualValue = formatter.formatValueAt(actual, i, j);
+                if (!expectedValue.equals(actualValue)) {
+                    return "Data set value [" + i + "," + j + "] is different. " +
+                            "Actual=\"" + actualValue + "\" Expected=\"" + expectedValue + "\"";
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import javax.inject.Inject;
+
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.dataset.engine.index.TransientDataSetIndexRegistry;
+import org.dashbuilder.dataset.engine.index.stats.DataSetIndexStats;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+@RunWith(Arquillian.class)
+public class DataSetIndexEvictionTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final String EXPENSE_REPORTS = "expense_reports_eviction";
+    public static final String EXPENSE_REPORTS_COPY = "expense_reports_eviction_copy";
+    public static final String EXPENSE_REPORTS_COPY2 = "expense_reports_eviction_copy2";
+
+    DataSetLookup groupByDept = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(EXPENSE_REPORTS)
+            .group("department")
+            .column("department")
+            .column("amount", AggregateFunctionType.SUM)
+            .buildLookup();
+
+    DataSetLookup filterByCity = DataSetFactory.newDataSetLookupBuilder()
+            .dataset(EXPENSE_REPORTS)
+            .filter("city", equalsTo("Barcelona"))
+            .buildLookup();
+
+    @Inject
+    DataSetManager dataSetManager;
+
+    @Inject
+    SharedDataSetOpEngine dataSetOpEngine;
+
+    TransientDataSetIndexRegistry indexRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        indexRegistry = (TransientDataSetIndexRegistry) dataSetOpEngine.getIndexRegistry();
+        indexRegistry.setEvictionCheckInterval(1);
+
+        DataSet dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        dataSetManager.registerDataSet(dataSet);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        indexRegistry.setMaxHeapSize(0);
+        dataSetManager.removeDataSet(EXPENSE_REPORTS);
+        indexRegistry.remove(EXPENSE_REPORTS_COPY);
+        indexRegistry.remove(EXPENSE_REPORTS_COPY2);
+    }
+
+    @Test
+    public void testIndexEviction() throws Exception {
+        DataSet groupResult = dataSetManager.lookupDataSet(groupByDept);
+        dataSetManager.lookupDataSet(filterByCity);
+
+        DataSetIndex index = indexRegistry.get(EXPENSE_REPORTS);
+        long dataSetSize = index.getDataSet().getEstimatedSize();
+        assertThat(index.getStats().getNumberOfGroupOps()).isEqualTo(1);
+        assertThat(index.getStats().getNumberOfFilterOps()).isEqualTo(1);
+
+        // Only the data set fits in memory => all the indexes must be evicted
+        indexRegistry.setMaxHeapSize(dataSetSize + index.getEstimatedSize());
+        indexRegistry.evict();
+        DataSetIndexStats stats = index.getStats();
+        assertThat(stats.getNumberOfGroupOps()).isEqualTo(0);
+        assertThat(stats.getNumberOfFilterOps()).isEqualTo(0);
+        assertThat(stats.getNumberOfEvictedIndexes()).isEqualTo(2);
+        assertThat(indexRegistry.get(EXPENSE_REPORTS)).isEqualTo(index);
+
+        // Evicted indexes are rebuilt on demand
+        DataSet result = dataSetManager.lookupDataSet(groupByDept);
+        assertThat(result.getRowCount()).isEqualTo(groupResult.getRowCount());
+        assertThat(result.getValueAt(0, 1)).isEqualTo(groupResult.getValueAt(0, 1));
+    }
+
+    @Test
+    public void testDataSetEviction() throws Exception {
+        long dataSetSize = indexRegistry.get(EXPENSE_REPORTS).getDataSetSize();
+        indexRegistry.setMaxHeapSize(dataSetSize * 5 / 2);
+
+        // The least recently used data set must be evicted
+        DataSet copy = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        copy.setUUID(EXPENSE_REPORTS_COPY);
+        indexRegistry.put(copy);
+        DataSet copy2 = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        copy2.setUUID(EXPENSE_REPORTS_COPY2);
+        indexRegistry.put(copy2);
+        assertThat(indexRegistry.get(EXPENSE_REPORTS_COPY)).isNull();
+        assertThat(indexRegistry.get(EXPENSE_REPORTS_COPY2)).isNotNull();
+
+        // Registered data sets are kept since they're also referenced by its definition
+        assertThat(indexRegistry.get(EXPENSE_REPORTS)).isNotNull();
+
+        // Evictions are tracked across re-indexing
+        DataSetIndex index = indexRegistry.put(copy);
+        assertThat(index.getStats().getNumberOfDataSetEvictions()).isEqualTo(1);
+        assertThat(indexRegistry.get(EXPENSE_REPORTS_COPY2)).isNull();
+    }
+
+    @Test
+    public void testRegisteredDataSetKept() throws Exception {
+        dataSetManager.lookupDataSet(groupByDept);
+        DataSetIndex index = indexRegistry.get(EXPENSE_REPORTS);
+        assertThat(index.getStats().getNumberOfGroupOps()).isEqualTo(1);
+
+        // Evicting the data set would release no memory, just its indexes are evicted
+        indexRegistry.setMaxHeapSize(1);
+        indexRegistry.evict();
+        assertThat(indexRegistry.get(EXPENSE_REPORTS)).isEqualTo(index);
+        assertThat(index.getStats().getNumberOfGroupOps()).isEqualTo(0);
+        assertThat(index.getStats().getNumberOfDataSetEvictions()).isEqualTo(0);
+
+        DataSet result = dataSetManager.lookupDataSet(filterByCity);
+        assertThat(result.getRowCount()).isEqualTo(6);
+    }
+}
@@ -158,6 +158,35 @@ public class DataSetIndexTest {
         assertThat(stats.getIndexSize()).isLessThan(dataSet.getEstimatedSize()/5);
     }
 
+    @Test
+    public void testFilterIndexIntersection() throws Exception {
+        // Index the city & department filters over the whole data set
+        dataSetOpEngine.execute(EXPENSE_REPORTS, DataSetFactory.newDataSetLookupBuilder()
+                .filter(equalsTo("city", "Barcelona"))
+                .buildLookup().getOperationList());
+        dataSetOpEngine.execute(EXPENSE_REPORTS, DataSetFactory.newDataSetLookupBuilder()
+                .filter(equalsTo("department", "Engineering"))
+                .buildLookup().getOperationList());
+
+        // The indexed terms are intersected and just the amount filter is evaluated on top
+        DataSet dataSet = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS).getDataSet();
+        DataSet result = dataSetOpEngine.execute(EXPENSE_REPORTS, DataSetFactory.newDataSetLookupBuilder()
+                .filter(notEqualsTo("employee", "Unknown"))
+                .filter(AND("city", equalsTo("city", "Barcelona"), equalsTo("department", "Engineering"), greaterThan("amount", 300)))
+                .buildLookup().getOperationList());
+
+        int expected = 0;
+        for (int i = 0; i < dataSet.getRowCount(); i++) {
+            if ("Barcelona".equals(dataSet.getValueAt(i, 1))
+                    && "Engineering".equals(dataSet.getValueAt(i, 2))
+                    && ((Number) dataSet.getValueAt(i, 5)).doubleValue() > 300) {
+                expected++;
+            }
+        }
+        assertThat(expected).isGreaterThan(0);
+        assertThat(result.getRowCount()).isEqualTo(expected);
+    }
+
     @Test
     public void testSortPerformance() throws Exception {
 
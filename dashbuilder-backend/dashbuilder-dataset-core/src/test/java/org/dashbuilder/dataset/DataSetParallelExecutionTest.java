@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import javax.inject.Inject;
+
+import org.dashbuilder.dataset.backend.BackendRowChunkExecutor;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+@RunWith(Arquillian.class)
+public class DataSetParallelExecutionTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final int ROWS = 20000;
+    public static final String[] CITIES = {"Barcelona", "Madrid", "Brno", "London", "Westford", "Raleigh"};
+
+    DataSetLookup groupByCity = DataSetFactory.newDataSetLookupBuilder()
+            .group("city")
+            .column("city")
+            .column(AggregateFunctionType.COUNT, "occurrences")
+            .column("amount", AggregateFunctionType.SUM)
+            .column("amount", AggregateFunctionType.AVERAGE)
+            .column("amount", AggregateFunctionType.MIN)
+            .column("amount", AggregateFunctionType.MAX)
+            .column("code", AggregateFunctionType.DISTINCT)
+            .buildLookup();
+
+    DataSetLookup filterAndGroupByCode = DataSetFactory.newDataSetLookupBuilder()
+            .filter("amount", greaterThan(250))
+            .filter("city", notEqualsTo("Brno"))
+            .group("code")
+            .column("code")
+            .column("amount", AggregateFunctionType.SUM)
+            .buildLookup();
+
+    DataSetLookup totals = DataSetFactory.newDataSetLookupBuilder()
+            .filter("amount", OR(lowerThan(100), greaterThan(900)))
+            .column("amount", AggregateFunctionType.SUM)
+            .column("amount", AggregateFunctionType.AVERAGE)
+            .column("code", AggregateFunctionType.DISTINCT)
+            .buildLookup();
+
+    @Inject
+    SharedDataSetOpEngine dataSetOpEngine;
+
+    @Inject
+    BackendRowChunkExecutor chunkExecutor;
+
+    DataSet dataSet;
+    int threshold;
+    int poolSize;
+
+    @Before
+    public void setUp() throws Exception {
+        DataSetBuilder builder = DataSetFactory.newDataSetBuilder()
+                .label("city")
+                .label("code")
+                .number("amount");
+
+        for (int i = 0; i < ROWS; i++) {
+            Double amount = i % 11 == 0 ? null : (double) ((i * 37) % 1000);
+            builder.row(CITIES[(i / 3) % CITIES.length], "C" + (i % 97), amount);
+        }
+        dataSet = builder.buildDataSet();
+        threshold = chunkExecutor.getParallelThreshold();
+        poolSize = chunkExecutor.getPoolSize();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        chunkExecutor.setParallelThreshold(threshold);
+        chunkExecutor.setPoolSize(poolSize);
+    }
+
+    @Test
+    public void testParallelResults() throws Exception {
+        DataSetLookup[] lookups = {groupByCity, filterAndGroupByCode, totals};
+        for (DataSetLookup lookup : lookups) {
+            chunkExecutor.setParallelThreshold(Integer.MAX_VALUE);
+            DataSet expected = dataSetOpEngine.execute(dataSet, lookup.getOperationList());
+
+            chunkExecutor.setParallelThreshold(1000);
+            chunkExecutor.setPoolSize(4);
+            assertThat(chunkExecutor.isParallel(ROWS)).isEqualTo(true);
+            DataSet result = dataSetOpEngine.execute(dataSet, lookup.getOperationList());
+            assertDataSetEquals(expected, result);
+        }
+    }
+
+    protected void assertDataSetEquals(DataSet expected, DataSet actual) {
+        DataSetFormatter formatter = new DataSetFormatter();
+        assertThat(actual.getRowCount()).isEqualTo(expected.getRowCount());
+        assertThat(actual.getColumns().size()).isEqualTo(expected.getColumns().size());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumns().size(); j++) {
+                assertThat(formatter.formatValueAt(actual, i, j)).isEqualTo(formatter.formatValueAt(expected, i, j));
+            }
+        }
+    }
+}
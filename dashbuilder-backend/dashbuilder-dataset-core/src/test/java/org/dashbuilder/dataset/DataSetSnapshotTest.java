@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.io.File;
+import java.util.Date;
+import javax.inject.Inject;
+
+import org.dashbuilder.dataprovider.backend.StaticDataSetProvider;
+import org.dashbuilder.dataset.backend.DataSetSnapshotStore;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+
+@RunWith(Arquillian.class)
+public class DataSetSnapshotTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final String EXPENSE_REPORTS = "expense_reports_snapshot";
+
+    @Inject
+    DataSetSnapshotStore snapshotStore;
+
+    @Inject
+    StaticDataSetProvider staticDataSetProvider;
+
+    File deployDir;
+    DataSetDef dataSetDef;
+    DataSet dataSet;
+
+    @Before
+    public void setUp() throws Exception {
+        deployDir = File.createTempFile("dsets", "");
+        deployDir.delete();
+        deployDir.mkdirs();
+
+        dataSetDef = DataSetFactory.newBeanDataSetDef()
+                .uuid(EXPENSE_REPORTS)
+                .generatorClass("org.dashbuilder.dataprovider.SalesPerYearDataSetGenerator")
+                .buildDef();
+        dataSetDef.setDefFilePath(new File(deployDir, "expenseReports.dset").getPath());
+
+        // Nulls must survive the snapshot as well
+        dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        for (int i = 0; i < dataSet.getColumns().size(); i++) {
+            dataSet.setValueAt(0, i, null);
+        }
+        dataSet.setUUID(EXPENSE_REPORTS);
+        dataSet.setDefinition(dataSetDef);
+        staticDataSetProvider.registerDataSet(dataSet);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        staticDataSetProvider.removeDataSet(EXPENSE_REPORTS);
+        snapshotStore.delete(dataSetDef);
+        new File(deployDir, DataSetSnapshotStore.SNAPSHOT_DIR).delete();
+        deployDir.delete();
+    }
+
+    @Test
+    public void testStoreAndRestore() throws Exception {
+        snapshotStore.store(dataSetDef);
+        File file = snapshotStore.getSnapshotFile(dataSetDef);
+        assertThat(file.exists()).isTrue();
+        assertThat(file.getParentFile().getName()).isEqualTo(DataSetSnapshotStore.SNAPSHOT_DIR);
+
+        staticDataSetProvider.removeDataSet(EXPENSE_REPORTS);
+        DataSet restored = snapshotStore.restore(dataSetDef);
+        assertThat(restored).isNotNull();
+        assertThat(staticDataSetProvider.lookupDataSet(EXPENSE_REPORTS, null)).isSameAs(restored);
+        assertThat(restored.getCreationDate()).isEqualTo(dataSet.getCreationDate());
+        assertThat(restored.getRowCount()).isEqualTo(dataSet.getRowCount());
+        assertThat(restored.getColumns().size()).isEqualTo(dataSet.getColumns().size());
+        for (int j = 0; j < dataSet.getColumns().size(); j++) {
+            DataColumn expected = dataSet.getColumnByIndex(j);
+            DataColumn actual = restored.getColumnByIndex(j);
+            assertThat(actual.getId()).isEqualTo(expected.getId());
+            assertThat(actual.getColumnType()).isEqualTo(expected.getColumnType());
+            for (int i = 0; i < dataSet.getRowCount(); i++) {
+                assertThat(restored.getValueAt(i, j)).isEqualTo(dataSet.getValueAt(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void testDefinitionChanged() throws Exception {
+        snapshotStore.store(dataSetDef);
+        staticDataSetProvider.removeDataSet(EXPENSE_REPORTS);
+
+        DataSetDef newDef = dataSetDef.clone();
+        newDef.setPublic(!dataSetDef.isPublic());
+        assertThat(snapshotStore.restore(newDef)).isNull();
+        assertThat(snapshotStore.getSnapshotFile(dataSetDef).exists()).isFalse();
+        assertThat(staticDataSetProvider.lookupDataSet(EXPENSE_REPORTS, null)).isNull();
+    }
+
+    @Test
+    public void testRefreshTimeExpired() throws Exception {
+        dataSetDef.setRefreshTime("1minute");
+        dataSet.setCreationDate(new Date(System.currentTimeMillis() - 120000));
+        snapshotStore.store(dataSetDef);
+        staticDataSetProvider.removeDataSet(EXPENSE_REPORTS);
+
+        assertThat(snapshotStore.restore(dataSetDef)).isNull();
+        assertThat(snapshotStore.getSnapshotFile(dataSetDef).exists()).isFalse();
+    }
+
+    @Test
+    public void testStaticDataSetsSkipped() throws Exception {
+        DataSetDef staticDef = DataSetFactory.newStaticDataSetDef().uuid(EXPENSE_REPORTS).buildDef();
+        staticDef.setDefFilePath(dataSetDef.getDefFilePath());
+        assertThat(snapshotStore.getSnapshotFile(staticDef)).isNull();
+    }
+}
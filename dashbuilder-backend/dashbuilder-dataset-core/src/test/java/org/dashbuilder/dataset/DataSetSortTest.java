@@ -28,6 +28,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import static org.dashbuilder.dataset.Assertions.*;
+import static org.fest.assertions.api.Assertions.*;
 import static org.dashbuilder.dataset.sort.SortOrder.*;
 
 @RunWith(Arquillian.class)
@@ -136,6 +137,62 @@ public class DataSetSortTest {
         }, 0);
     }
 
+    @Test
+    public void testSortFirstRows() throws Exception {
+        DataSet all = dataSetManager.lookupDataSet(
+                DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort("city", ASCENDING)
+                .sort("amount", DESCENDING)
+                .buildLookup());
+
+        // Get the sorted data set page by page (ties included)
+        for (int offset = 0; offset < 50; offset += 8) {
+            DataSet page = dataSetManager.lookupDataSet(
+                    DataSetFactory.newDataSetLookupBuilder()
+                    .dataset(EXPENSE_REPORTS)
+                    .sort("city", ASCENDING)
+                    .sort("amount", DESCENDING)
+                    .rowOffset(offset)
+                    .rowNumber(8)
+                    .buildLookup());
+
+            assertThat(page.getRowCountNonTrimmed()).isEqualTo(50);
+            assertThat(page.getRowCount()).isEqualTo(Math.min(8, 50 - offset));
+            for (int i = 0; i < page.getRowCount(); i++) {
+                for (int j = 0; j < all.getColumns().size(); j++) {
+                    assertThat(page.getValueAt(i, j)).isEqualTo(all.getValueAt(offset + i, j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSortFirstRowsInverted() throws Exception {
+        DataSet top = dataSetManager.lookupDataSet(
+                DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort("amount", DESCENDING)
+                .rowNumber(3)
+                .buildLookup());
+
+        DataSet bottom = dataSetManager.lookupDataSet(
+                DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort("amount", ASCENDING)
+                .rowNumber(3)
+                .buildLookup());
+
+        // A partial sort can't be reused for the inverted order
+        assertThat(top.getRowCountNonTrimmed()).isEqualTo(50);
+        assertThat(bottom.getRowCountNonTrimmed()).isEqualTo(50);
+        assertDataSetValue(top, 0, 0, "2.00");
+        assertDataSetValue(top, 1, 0, "15.00");
+        assertDataSetValue(top, 2, 0, "20.00");
+        assertDataSetValue(bottom, 0, 0, "23.00");
+        assertDataSetValue(bottom, 1, 0, "24.00");
+        assertDataSetValue(bottom, 2, 0, "30.00");
+    }
 
     private void printDataSet(DataSet dataSet) {
         System.out.print(dataSetFormatter.formatDataSet(dataSet, "{", "}", ",\n", "\"", "\"", ", ") + "\n\n");
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+
+import org.dashbuilder.dataprovider.backend.DataSetPageHandler;
+import org.dashbuilder.dataset.backend.BackendDataSetManager;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+import static org.dashbuilder.dataset.group.AggregateFunctionType.*;
+
+@RunWith(Arquillian.class)
+public class DataSetStreamingTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final String EXPENSE_REPORTS = "expense_reports";
+
+    @Inject
+    public BackendDataSetManager dataSetManager;
+
+    @Inject
+    public DataSetFormatter dataSetFormatter;
+
+    @Before
+    public void setUp() throws Exception {
+        DataSet dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        dataSetManager.registerDataSet(dataSet);
+    }
+
+    @Test
+    public void testStreamPages() throws Exception {
+        DataSetLookup lookup = DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .filter("amount", greaterThan(100))
+                .sort("amount", "desc")
+                .buildLookup();
+
+        List<DataSet> pages = streamDataSet(lookup, 7);
+        DataSet expected = dataSetManager.lookupDataSet(lookup.cloneInstance());
+        assertThat(pages.size()).isEqualTo((expected.getRowCount() + 6) / 7);
+        for (int i = 0; i < pages.size() - 1; i++) {
+            assertThat(pages.get(i).getRowCount()).isEqualTo(7);
+        }
+        assertPagesEquals(expected, pages);
+    }
+
+    @Test
+    public void testStreamRowLimits() throws Exception {
+        DataSetLookup lookup = DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .rowOffset(10)
+                .rowNumber(15)
+                .buildLookup();
+
+        List<DataSet> pages = streamDataSet(lookup, 4);
+        assertThat(pages.size()).isEqualTo(4);
+        assertThat(pages.get(3).getRowCount()).isEqualTo(3);
+        assertPagesEquals(dataSetManager.lookupDataSet(lookup.cloneInstance()), pages);
+    }
+
+    @Test
+    public void testStreamGroupedResults() throws Exception {
+        DataSetLookup lookup = DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .group("city")
+                .column("city")
+                .column("amount", SUM, "total")
+                .sort("city", "asc")
+                .buildLookup();
+
+        List<DataSet> pages = streamDataSet(lookup, 2);
+        assertPagesEquals(dataSetManager.lookupDataSet(lookup.cloneInstance()), pages);
+    }
+
+    @Test
+    public void testStreamEmptyResults() throws Exception {
+        DataSetLookup lookup = DataSetFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .filter("city", equalsTo("Nowhere"))
+                .buildLookup();
+
+        List<DataSet> pages = streamDataSet(lookup, 10);
+        assertThat(pages.size()).isEqualTo(1);
+        assertThat(pages.get(0).getRowCount()).isEqualTo(0);
+        assertThat(pages.get(0).getColumns().size()).isEqualTo(6);
+    }
+
+    protected List<DataSet> streamDataSet(DataSetLookup lookup, int pageSize) {
+        final List<DataSet> pages = new ArrayList<DataSet>();
+        dataSetManager.streamDataSet(lookup, pageSize, new DataSetPageHandler() {
+            public void handlePage(DataSet page) throws Exception {
+                pages.add(page);
+            }
+        });
+        return pages;
+    }
+
+    protected void assertPagesEquals(DataSet expected, List<DataSet> pages) {
+        int row = 0;
+        for (DataSet page : pages) {
+            assertThat(page.getColumns().size()).isEqualTo(expected.getColumns().size());
+            for (int i = 0; i < page.getRowCount(); i++, row++) {
+                for (int j = 0; j < expected.getColumns().size(); j++) {
+                    assertThat(dataSetFormatter.formatValueAt(page, i, j)).isEqualTo(dataSetFormatter.formatValueAt(expected, row, j));
+                }
+            }
+        }
+        assertThat(row).isEqualTo(expected.getRowCount());
+    }
+}
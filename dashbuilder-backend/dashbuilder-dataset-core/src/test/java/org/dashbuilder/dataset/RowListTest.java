@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.dashbuilder.dataset.impl.ArrayRowList;
+import org.dashbuilder.dataset.impl.BitmapRowList;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class RowListTest {
+
+    @Test
+    public void testCompactDense() throws Exception {
+        List<Integer> rows = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i += 2) rows.add(i);
+
+        RowList rowList = RowList.compact(rows);
+        assertThat(rowList instanceof BitmapRowList).isEqualTo(true);
+        assertThat(rowList.size()).isEqualTo(500);
+        assertThat(rowList.getRow(0)).isEqualTo(0);
+        assertThat(rowList.getRow(499)).isEqualTo(998);
+        assertThat(rowList.containsRow(10)).isEqualTo(true);
+        assertThat(rowList.containsRow(11)).isEqualTo(false);
+        assertThat(rowList).isEqualTo(rows);
+    }
+
+    @Test
+    public void testCompactSparse() throws Exception {
+        List<Integer> rows = Arrays.asList(5, 1000, 20000);
+        RowList rowList = RowList.compact(rows);
+        assertThat(rowList instanceof ArrayRowList).isEqualTo(true);
+        assertThat(rowList.isAscending()).isEqualTo(true);
+        assertThat(rowList.containsRow(1000)).isEqualTo(true);
+        assertThat(rowList.containsRow(1001)).isEqualTo(false);
+        assertThat(rowList).isEqualTo(rows);
+    }
+
+    @Test
+    public void testCompactUnordered() throws Exception {
+        List<Integer> rows = Arrays.asList(3, 1, 2, 0);
+        RowList rowList = RowList.compact(rows);
+        assertThat(rowList instanceof ArrayRowList).isEqualTo(true);
+        assertThat(rowList.isAscending()).isEqualTo(false);
+        assertThat(rowList).isEqualTo(rows);
+        assertThat(rowList.containsRow(2)).isEqualTo(true);
+    }
+
+    @Test
+    public void testBitmapRandomAccess() throws Exception {
+        Random random = new Random(1);
+        List<Integer> rows = new ArrayList<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            if (random.nextInt(3) == 0) rows.add(i);
+        }
+        BitmapRowList bitmap = new BitmapRowList(rows);
+        assertThat(bitmap.size()).isEqualTo(rows.size());
+        for (int i = 0; i < rows.size(); i += 7) {
+            assertThat(bitmap.getRow(i)).isEqualTo(rows.get(i));
+        }
+        RowIterator it = bitmap.rowIterator();
+        for (Integer row : rows) {
+            assertThat(it.nextRow()).isEqualTo(row);
+        }
+        assertThat(it.hasNext()).isEqualTo(false);
+    }
+
+    @Test
+    public void testIntersection() throws Exception {
+        List<Integer> even = new ArrayList<Integer>();
+        List<Integer> threes = new ArrayList<Integer>();
+        for (int i = 0; i < 300; i++) {
+            if (i % 2 == 0) even.add(i);
+            if (i % 3 == 0) threes.add(i);
+        }
+        RowList result = RowList.and(RowList.compact(even), RowList.compact(threes));
+        assertThat(result.size()).isEqualTo(50);
+        for (int i = 0; i < result.size(); i++) {
+            assertThat(result.getRow(i)).isEqualTo(i * 6);
+        }
+        // The order of the first list must be kept
+        List<Integer> sorted = Arrays.asList(12, 7, 0, 6);
+        result = RowList.and(sorted, RowList.compact(even));
+        assertThat(result).isEqualTo(Arrays.asList(12, 0, 6));
+    }
+
+    @Test
+    public void testArrayRowList() throws Exception {
+        ArrayRowList rowList = new ArrayRowList();
+        rowList.add(1);
+        rowList.add(5);
+        rowList.add(1, 3);
+        assertThat(rowList).isEqualTo(Arrays.asList(1, 3, 5));
+        assertThat(rowList.isAscending()).isEqualTo(true);
+
+        rowList.reverse();
+        assertThat(rowList).isEqualTo(Arrays.asList(5, 3, 1));
+        assertThat(rowList.isAscending()).isEqualTo(false);
+        assertThat(rowList.remove(0)).isEqualTo(5);
+        assertThat(rowList.containsRow(1)).isEqualTo(true);
+        assertThat(rowList.containsRow(5)).isEqualTo(false);
+    }
+
+    @Test
+    public void testRangeIterator() throws Exception {
+        List<Integer> rows = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 3 != 0) rows.add(i);
+        }
+        RowList[] rowLists = {new BitmapRowList(rows), new ArrayRowList(rows)};
+        for (RowList rowList : rowLists) {
+            for (int from = 0; from <= rows.size(); from += 37) {
+                RowIterator it = rowList.rowIterator(from);
+                for (int i = from; i < rows.size(); i++) {
+                    assertThat(it.nextRow()).isEqualTo(rows.get(i));
+                }
+                assertThat(it.hasNext()).isEqualTo(false);
+            }
+        }
+        RowIterator it = RowList.rowIterator(rows, 5);
+        assertThat(it.nextRow()).isEqualTo(rows.get(5));
+    }
+}
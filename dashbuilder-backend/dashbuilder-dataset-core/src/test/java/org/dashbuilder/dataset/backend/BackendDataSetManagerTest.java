@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import javax.inject.Inject;
+
+import org.apache.commons.io.IOUtils;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.RawDataSetSamples;
+import org.dashbuilder.dataset.def.DataSetDefRegistry;
+import org.dashbuilder.dataset.exception.DataSetLookupException;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+import static org.fest.assertions.api.Assertions.*;
+
+@RunWith(Arquillian.class)
+public class BackendDataSetManagerTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final String EXPENSE_REPORTS = "expense_reports_manager";
+    public static final String SALES_PER_YEAR = "salesPerYear";
+    public static final String UNKNOWN = "unknown_data_set";
+
+    @Inject
+    BackendDataSetManager dataSetManager;
+
+    @Inject
+    DataSetDefRegistry dataSetDefRegistry;
+
+    @Inject
+    DataSetDefJSONMarshaller jsonMarshaller;
+
+    @Before
+    public void setUp() throws Exception {
+        DataSet dataSet = RawDataSetSamples.EXPENSE_REPORTS.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        dataSetManager.registerDataSet(dataSet);
+
+        URL fileURL = Thread.currentThread().getContextClassLoader().getResource("salesPerYear.dset");
+        dataSetDefRegistry.registerDataSetDef(jsonMarshaller.fromJson(IOUtils.toString(fileURL)));
+    }
+
+    protected DataSetLookup lookup(String uuid) {
+        return DataSetFactory.newDataSetLookupBuilder()
+                .dataset(uuid)
+                .rowNumber(5)
+                .buildLookup();
+    }
+
+    protected DataSetLookup invalidLookup(String uuid) {
+        return DataSetFactory.newDataSetLookupBuilder()
+                .dataset(uuid)
+                .sort("amount", "desc")
+                .filter("city", equalsTo("Barcelona"))
+                .buildLookup();
+    }
+
+    @Test
+    public void testLookupRounds() throws Exception {
+        // Batch lookups (static & bean) all go in the first round,
+        // the rest only once per data set (the first time it's referenced).
+        DataSetLookup[] lookups = new DataSetLookup[] {
+                lookup(EXPENSE_REPORTS),
+                lookup(UNKNOWN),
+                lookup(EXPENSE_REPORTS),
+                lookup(UNKNOWN),
+                lookup(SALES_PER_YEAR),
+                lookup(UNKNOWN)
+        };
+        List<List<Integer>> rounds = dataSetManager.getLookupRounds(lookups);
+        assertThat(rounds).hasSize(2);
+        assertThat(rounds.get(0)).isEqualTo(Arrays.asList(0, 1, 2, 4));
+        assertThat(rounds.get(1)).isEqualTo(Arrays.asList(3, 5));
+
+        rounds = dataSetManager.getLookupRounds(new DataSetLookup[] {lookup(EXPENSE_REPORTS), lookup(SALES_PER_YEAR)});
+        assertThat(rounds).hasSize(1);
+        assertThat(rounds.get(0)).isEqualTo(Arrays.asList(0, 1));
+    }
+
+    @Test
+    public void testFailedLookupsIsolated() throws Exception {
+        DataSetLookup[] lookups = new DataSetLookup[] {
+                lookup(EXPENSE_REPORTS),
+                lookup(UNKNOWN),
+                invalidLookup(EXPENSE_REPORTS),
+                lookup(SALES_PER_YEAR),
+                lookup(EXPENSE_REPORTS)
+        };
+        DataSetLookupException[] errors = new DataSetLookupException[lookups.length];
+        DataSet[] results = dataSetManager.lookupDataSets(lookups, errors);
+
+        assertThat(results[0].getRowCount()).isEqualTo(5);
+        assertThat(errors[0]).isNull();
+        assertThat(results[1]).isNull();
+        assertThat(errors[1]).isNotNull();
+        assertThat(results[2]).isNull();
+        assertThat(errors[2]).isNotNull();
+        assertThat(results[3].getRowCount()).isEqualTo(5);
+        assertThat(errors[3]).isNull();
+        assertThat(results[4].getRowCount()).isEqualTo(5);
+        assertThat(errors[4]).isNull();
+
+        try {
+            dataSetManager.lookupDataSets(lookups);
+            fail("Lookup errors must be thrown if not collected");
+        } catch (DataSetLookupException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testSequentialLookups() throws Exception {
+        dataSetManager.parallelLookupsEnabled = false;
+        try {
+            DataSetLookup[] lookups = new DataSetLookup[] {
+                    lookup(EXPENSE_REPORTS),
+                    invalidLookup(EXPENSE_REPORTS),
+                    lookup(SALES_PER_YEAR)
+            };
+            DataSetLookupException[] errors = new DataSetLookupException[lookups.length];
+            DataSet[] results = dataSetManager.lookupDataSets(lookups, errors);
+            assertThat(results[0].getRowCount()).isEqualTo(5);
+            assertThat(errors[1]).isNotNull();
+            assertThat(results[2].getRowCount()).isEqualTo(5);
+        } finally {
+            dataSetManager.parallelLookupsEnabled = true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.csv;
+
+/**
+ * Keeps track of the part of a CSV file already loaded into a data set (see <code>CSVDataSetDef.isAppendEnabled</code>).
+ */
+public class CSVAppendState {
+
+    protected String[] header;
+    protected long offset;
+    protected int rows;
+    protected long checksum;
+
+    public CSVAppendState(String[] header, long offset, int rows, long checksum) {
+        this.header = header;
+        this.offset = offset;
+        this.rows = rows;
+        this.checksum = checksum;
+    }
+
+    /**
+     * The CSV header at the time of loading.
+     */
+    public String[] getHeader() {
+        return header;
+    }
+
+    /**
+     * The number of bytes of the file loaded so far. It's always the offset right after a record boundary.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * The number of rows loaded so far.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * A checksum of the last bytes loaded. It changes if the file is rewritten rather than appended.
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Register the rows appended to the file.
+     */
+    public void append(long offset, int rows, long checksum) {
+        this.offset = offset;
+        this.rows += rows;
+        this.checksum = checksum;
+    }
+}
@@ -16,13 +16,24 @@
 package org.dashbuilder.dataprovider.backend.csv;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.dashbuilder.dataprovider.DataSetProvider;
+import org.dashbuilder.config.Config;
 import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataprovider.backend.AsyncDataSetProvider;
+import org.dashbuilder.dataprovider.backend.BatchDataSetProvider;
+import org.dashbuilder.dataprovider.backend.DataSetLookupExecutor;
 import org.dashbuilder.dataprovider.backend.StaticDataSetProvider;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetLookup;
@@ -35,14 +46,35 @@ import org.slf4j.Logger;
 
 @ApplicationScoped
 @Named("csv")
-public class CSVDataSetProvider implements DataSetProvider {
+public class CSVDataSetProvider implements AsyncDataSetProvider, BatchDataSetProvider {
 
     @Inject
     protected StaticDataSetProvider staticDataSetProvider;
 
+    @Inject
+    protected DataSetLookupExecutor lookupExecutor;
+
     @Inject
     protected Logger log;
 
+    /**
+     * Max. number of file chunks parsed in parallel when loading a CSV file (1 disables the parallel load).
+     */
+    @Inject @Config("4")
+    protected int parallelLoadThreads;
+
+    /**
+     * Min. size (in bytes) of a CSV file to be loaded in parallel.
+     */
+    @Inject @Config("8388608")
+    protected long parallelLoadMinSize;
+
+    // The threads parsing the CSV file chunks (created on demand)
+    protected ExecutorService loadExecutor;
+
+    // The part of the CSV files already loaded (append mode only)
+    protected final Map<String,CSVAppendState> _appendStateMap = new HashMap<String,CSVAppendState>();
+
     public DataSetProviderType getType() {
         return DataSetProviderType.CSV;
     }
@@ -54,6 +86,20 @@ public class CSVDataSetProvider implements DataSetProvider {
     }
 
     public DataSet lookupDataSet(DataSetDef def, DataSetLookup lookup) throws Exception {
+        loadDataSet(def);
+
+        // Always do the lookup on the statically registered data set.
+        return staticDataSetProvider.lookupDataSet(def, lookup);
+    }
+
+    public List<DataSet> lookupDataSets(DataSetDef def, List<DataSetLookup> lookupList) throws Exception {
+        loadDataSet(def);
+
+        // Always do the lookup on the statically registered data set.
+        return staticDataSetProvider.lookupDataSets(def, lookupList);
+    }
+
+    protected void loadDataSet(DataSetDef def) throws Exception {
         // Look first into the static data set provider since CSV data set are statically registered once loaded.
         DataSet dataSet = staticDataSetProvider.lookupDataSet(def.getUUID(), null);
 
@@ -63,6 +109,13 @@ public class CSVDataSetProvider implements DataSetProvider {
         File csvFile = csvParser.getCSVFile();
 
         if (dataSet == null || hasCSVFileChanged(dataSet, csvFile)) {
+            // Files in append mode just require the new rows to be loaded
+            if (dataSet != null && csvDef.isAppendEnabled() && appendDataSet(csvDef, csvParser)) {
+                return;
+            }
+            if (parallelLoadThreads > 1 && csvFile != null && csvFile.length() >= parallelLoadMinSize) {
+                csvParser.setParallelLoad(getLoadExecutor(), parallelLoadThreads, parallelLoadMinSize);
+            }
             dataSet = csvParser.load();
             dataSet.setUUID(def.getUUID());
             dataSet.setDefinition(def);
@@ -70,9 +123,83 @@ public class CSVDataSetProvider implements DataSetProvider {
             // Make the data set static before return
             staticDataSetProvider.registerDataSet(dataSet);
 
+            // Keep track of the part of the file loaded
+            if (csvDef.isAppendEnabled()) {
+                setAppendState(def.getUUID(), csvParser.createAppendState(dataSet));
+            }
         }
-        // Always do the lookup on the statically registered data set.
-        return staticDataSetProvider.lookupDataSet(def, lookup);
+    }
+
+    /**
+     * Load just the rows appended to the CSV file since the last load.
+     * @return false if the file has not just grown, so a full load is required.
+     */
+    protected boolean appendDataSet(CSVDataSetDef def, CSVParser csvParser) throws Exception {
+        String uuid = def.getUUID();
+        CSVAppendState state = getAppendState(uuid);
+        if (state == null) return false;
+
+        synchronized (state) {
+            // Concurrent requests might have loaded the new rows already
+            DataSet dataSet = staticDataSetProvider.lookupDataSet(uuid, null);
+            if (dataSet == null || dataSet.getRowCount() != state.getRows()) return false;
+            if (!hasCSVFileChanged(dataSet, csvParser.getCSVFile())) return true;
+
+            DataSet rows = csvParser.loadAppended(state, dataSet);
+            if (rows == null) {
+                setAppendState(uuid, null);
+                return false;
+            }
+            // No complete rows appended yet
+            if (rows.getRowCount() == 0) {
+                dataSet.setCreationDate(rows.getCreationDate());
+                return true;
+            }
+            if (staticDataSetProvider.appendDataSet(uuid, rows) == null) {
+                setAppendState(uuid, null);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    protected CSVAppendState getAppendState(String uuid) {
+        synchronized (_appendStateMap) {
+            return _appendStateMap.get(uuid);
+        }
+    }
+
+    protected void setAppendState(String uuid, CSVAppendState state) {
+        synchronized (_appendStateMap) {
+            if (state == null) _appendStateMap.remove(uuid);
+            else _appendStateMap.put(uuid, state);
+        }
+    }
+
+    protected synchronized ExecutorService getLoadExecutor() {
+        if (loadExecutor == null) {
+            loadExecutor = Executors.newFixedThreadPool(parallelLoadThreads, new ThreadFactory() {
+                int threadNumber = 1;
+                public synchronized Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "csv-loader-" + threadNumber++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return loadExecutor;
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (loadExecutor != null) {
+            loadExecutor.shutdownNow();
+            loadExecutor = null;
+        }
+    }
+
+    public Future<DataSet> lookupDataSetAsync(DataSetDef def, DataSetLookup lookup) {
+        return lookupExecutor.lookupDataSet(this, def, lookup);
     }
 
     public boolean isDataSetOutdated(DataSetDef def) {
@@ -113,5 +240,6 @@ public class CSVDataSetProvider implements DataSetProvider {
 
     private void remove(final String uuid) {
         staticDataSetProvider.removeDataSet(uuid);
+        setAppendState(uuid, null);
     }
 }
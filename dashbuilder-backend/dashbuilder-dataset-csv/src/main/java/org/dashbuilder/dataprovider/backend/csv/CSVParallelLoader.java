@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import au.com.bytecode.opencsv.CSVReader;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.def.CSVDataSetDef;
+import org.dashbuilder.dataset.impl.ColumnValues;
+import org.dashbuilder.dataset.impl.DateColumnValues;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
+
+/**
+ * <p>Loads a CSV file by splitting it into chunks which are parsed in parallel.</p>
+ * <p>The file is memory-mapped and scanned for record boundaries (see <code>CSVRecordScanner</code>). Only line breaks outside quoted values are taken
+ * as boundaries, so every chunk holds complete records. Chunks are then parsed by the threads of the given executor
+ * (every one with its own <code>CSVParser</code> since date and number formats are not thread-safe) and their
+ * column buffers are finally merged in file order.</p>
+ * <p>The result is the same as the sequential load: the data set ends at the first malformed line (if any).</p>
+ */
+public class CSVParallelLoader {
+
+    // Default min. and max. size of a chunk
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 256 * 1024 * 1024;
+
+    protected CSVParser parser;
+    protected CSVDataSetDef dataSetDef;
+    protected File file;
+    protected ExecutorService executor;
+    protected int threads;
+    protected long minChunkSize;
+
+    /**
+     * @param minSize The min. size of the files loaded in parallel. Chunks might get smaller than the default min.
+     * size, so that files just over this size are still split among all the threads.
+     */
+    public CSVParallelLoader(CSVParser parser, File file, ExecutorService executor, int threads, long minSize) {
+        this.parser = parser;
+        this.dataSetDef = parser.dataSetDef;
+        this.file = file;
+        this.executor = executor;
+        this.threads = threads;
+        this.minChunkSize = Math.max(1, Math.min(MIN_CHUNK_SIZE, minSize / threads));
+    }
+
+    /**
+     * Check if the chunks of a CSV file can be delimited by scanning its raw bytes, which is only possible if
+     * the separator, quote, escape and line break chars are always encoded as single ASCII bytes.
+     */
+    public static boolean isSupported(CSVDataSetDef def) {
+        Charset charset = Charset.defaultCharset();
+        boolean asciiCompatible = "UTF-8".equals(charset.name()) || charset.newEncoder().maxBytesPerChar() == 1;
+        return asciiCompatible
+                && isAscii(def.getSeparatorChar())
+                && isAscii(def.getQuoteChar())
+                && isAscii(def.getEscapeChar());
+    }
+
+    private static boolean isAscii(Character c) {
+        return c != null && c < 128;
+    }
+
+    public DataSet load() throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long[] boundaries = findBoundaries(channel);
+            if (boundaries.length < 2) throw new IOException("The CSV has no header: " + dataSetDef);
+
+            String[] header = readFirst(channel, 0, boundaries[1]);
+            if (header == null) throw new IOException("The CSV has no header: " + dataSetDef);
+
+            String[] firstRow = null;
+            if (boundaries.length > 2) {
+                firstRow = readFirst(channel, boundaries[1], boundaries[2]);
+                if (firstRow != null && firstRow.length < header.length) firstRow = null;
+            }
+
+            // Build the data set structure
+            List<Integer> columnIdxs = new ArrayList<Integer>();
+            DataSet dataSet = parser.createDataSet(header, firstRow, columnIdxs);
+            if (firstRow == null) return dataSet;
+
+            // Parse the chunks in parallel
+            List<Future<Chunk>> futures = new ArrayList<Future<Chunk>>();
+            for (int i = 1; i < boundaries.length - 1; i++) {
+                Chunk chunk = new Chunk(channel, dataSet, header.length, columnIdxs, boundaries[i], boundaries[i+1], i == 1);
+                futures.add(executor.submit(chunk));
+            }
+
+            // Merge the chunks in file order, up to the first one holding a malformed line.
+            try {
+                List<Chunk> chunks = new ArrayList<Chunk>();
+                int rows = 0;
+                for (Future<Chunk> future : futures) {
+                    Chunk chunk = getResult(future);
+                    chunks.add(chunk);
+                    rows += chunk.rows;
+                    if (chunk.truncated) break;
+                }
+                merge(dataSet, chunks, rows);
+            } finally {
+                for (Future<Chunk> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            return dataSet;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Scan the file for record boundaries.
+     * @return The offsets of the header end, the first row end, the chunk ends and the file end, preceded by 0.
+     */
+    protected long[] findBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        final long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(minChunkSize, size / (threads * 4)));
+
+        final List<Long> result = new ArrayList<Long>();
+        result.add(0L);
+        CSVRecordScanner scanner = new CSVRecordScanner(dataSetDef) {
+            long next = 0;
+            protected void boundary(long end) {
+                // The header and the first row are always delimited since both are read in advance
+                if (result.size() < 3 || end >= next) {
+                    result.add(end);
+                    next = end + chunkSize;
+                }
+            }
+        };
+        scanner.scan(channel, 0, size);
+        if (result.get(result.size() - 1) < size) result.add(size);
+
+        long[] boundaries = new long[result.size()];
+        for (int i = 0; i < boundaries.length; i++) boundaries[i] = result.get(i);
+        return boundaries;
+    }
+
+    protected String[] readFirst(FileChannel channel, long start, long end) throws IOException {
+        CSVReader csvReader = parser.createReader(channel, start, end);
+        try {
+            return csvReader.readNext();
+        } finally {
+            csvReader.close();
+        }
+    }
+
+    protected Chunk getResult(Future<Chunk> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    protected void merge(DataSet dataSet, List<Chunk> chunks, int rows) {
+        for (int i = 0; i < dataSet.getColumns().size(); i++) {
+            ColumnValues values = ColumnValues.create(dataSet.getColumnByIndex(i).getColumnType());
+            List result;
+            if (values != null) {
+                values.ensureCapacity(rows);
+                result = values;
+            } else {
+                result = new ArrayList(rows);
+            }
+            for (Chunk chunk : chunks) {
+                List buffer = chunk.buffers[i];
+                if (buffer instanceof NumberColumnValues) {
+                    NumberColumnValues source = (NumberColumnValues) buffer;
+                    NumberColumnValues target = (NumberColumnValues) result;
+                    for (int j = 0; j < source.size(); j++) {
+                        if (source.isNull(j)) target.addNull();
+                        else target.addDouble(source.getDouble(j));
+                    }
+                }
+                else if (buffer instanceof DateColumnValues) {
+                    DateColumnValues source = (DateColumnValues) buffer;
+                    DateColumnValues target = (DateColumnValues) result;
+                    for (int j = 0; j < source.size(); j++) {
+                        if (source.isNull(j)) target.addNull();
+                        else target.addTime(source.getTime(j));
+                    }
+                }
+                else {
+                    result.addAll(buffer);
+                }
+                // Release the chunk values as soon as possible
+                chunk.buffers[i] = null;
+            }
+            dataSet.getColumnByIndex(i).setValues(result);
+        }
+    }
+
+    /**
+     * A range of complete CSV records parsed into its own column buffers.
+     */
+    protected class Chunk implements Callable<Chunk> {
+
+        FileChannel channel;
+        DataSet dataSet;
+        int lineLength;
+        List<Integer> columnIdxs;
+        long start;
+        long end;
+        boolean first;
+
+        List[] buffers;
+        int rows = 0;
+        boolean truncated = false;
+
+        Chunk(FileChannel channel, DataSet dataSet, int lineLength, List<Integer> columnIdxs, long start, long end, boolean first) {
+            this.channel = channel;
+            this.dataSet = dataSet;
+            this.lineLength = lineLength;
+            this.columnIdxs = columnIdxs;
+            this.start = start;
+            this.end = end;
+            this.first = first;
+        }
+
+        public Chunk call() throws Exception {
+            CSVParser chunkParser = new CSVParser(dataSetDef);
+            buffers = chunkParser.createBuffers(dataSet);
+
+            CSVReader csvReader = parser.createReader(channel, start, end);
+            try {
+                String[] line = csvReader.readNext();
+                // The first row of the file is allowed to have extra values (same as in the sequential load)
+                if (first && line != null && line.length > lineLength) {
+                    chunkParser._appendLine(dataSet, buffers, line, columnIdxs);
+                    rows++;
+                    line = csvReader.readNext();
+                }
+                while (line != null && line.length == lineLength) {
+                    if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                    chunkParser._appendLine(dataSet, buffers, line, columnIdxs);
+                    rows++;
+                    line = csvReader.readNext();
+                }
+                truncated = line != null;
+                return this;
+            } finally {
+                csvReader.close();
+            }
+        }
+    }
+}
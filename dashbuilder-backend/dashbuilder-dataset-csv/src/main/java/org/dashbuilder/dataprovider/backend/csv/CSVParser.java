@@ -16,22 +16,31 @@
 package org.dashbuilder.dataprovider.backend.csv;
 
 import java.io.BufferedReader;
+import java.io.CharArrayReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.CRC32;
 
 import au.com.bytecode.opencsv.CSVReader;
 import org.apache.commons.lang.StringUtils;
@@ -40,15 +49,29 @@ import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetFactory;
 import org.dashbuilder.dataset.def.CSVDataSetDef;
+import org.dashbuilder.dataset.impl.ColumnValues;
+import org.dashbuilder.dataset.impl.DateColumnValues;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
 
 public class CSVParser {
 
     // Custom pattern for Unix dates (epoch).
     public static final String DATE_FORMAT_EPOCH = "epoch";
+
+    // Max. size of the header line
+    private static final long HEADER_MAX_SIZE = 1024 * 1024;
+
+    // Number of bytes taken to detect whether a file has been rewritten
+    private static final int CHECKSUM_SIZE = 1024;
     
     protected transient Map<String,DateFormat> _dateFormatMap = new HashMap<String,DateFormat>();
     protected transient Map<String,DecimalFormat> _numberFormatMap = new HashMap<String,DecimalFormat>();
+    protected transient Map<String,FastDateParser> _fastDateParserMap = new HashMap<String,FastDateParser>();
+    protected transient Map<String,FastNumberParser> _fastNumberParserMap = new HashMap<String,FastNumberParser>();
     protected CSVDataSetDef dataSetDef;
+    protected ExecutorService executor;
+    protected int parallelLoadThreads;
+    protected long parallelLoadMinSize;
 
     public CSVParser(CSVDataSetDef def) {
         this.dataSetDef = def;
@@ -60,7 +83,27 @@ public class CSVParser {
         return dataSetDef.getDataSet().getColumnById(columnId) != null;
     }
 
+    /**
+     * Enable the parallel loading of large CSV files.
+     * @param executor The threads parsing the file chunks.
+     * @param threads The number of chunks parsed at the same time.
+     * @param minSize Files smaller than this size (in bytes) are always loaded sequentially.
+     */
+    public void setParallelLoad(ExecutorService executor, int threads, long minSize) {
+        this.executor = executor;
+        this.parallelLoadThreads = threads;
+        this.parallelLoadMinSize = minSize;
+    }
+
     protected DataSet load() throws Exception {
+        // Large local files are split into chunks and parsed in parallel
+        if (executor != null && parallelLoadThreads > 1) {
+            File file = getCSVFile();
+            if (file != null && file.length() >= parallelLoadMinSize && CSVParallelLoader.isSupported(dataSetDef)) {
+                return new CSVParallelLoader(this, file, executor, parallelLoadThreads, parallelLoadMinSize).load();
+            }
+        }
+
         InputStream is = getCSVInputStream();
         try {
             BufferedReader br = new BufferedReader(new InputStreamReader(is));
@@ -74,28 +117,20 @@ public class CSVParser {
 
             // Build the data set structure
             List<Integer> _columnIdxs = new ArrayList<Integer>();
-            DataSet dataSet = DataSetFactory.newEmptyDataSet();
-            for (int i = 0; i < header.length; i++) {
-                String columnId = header[i];
-                if (isColumnIncluded(columnId)) {
-                    ColumnType type = ColumnType.LABEL;
-                    if (firstRow != null) type = calculateType(columnId, firstRow[i]);
-                    dataSet.addColumn(columnId, type);
-                    _columnIdxs.add(i);
-                }
-            }
+            DataSet dataSet = createDataSet(header, firstRow, _columnIdxs);
 
-            // Load & insert the CSV rows
+            // Load & insert the CSV rows straight into the column buffers
             if (firstRow != null) {
-                Object[] _rowArray = new Object[dataSet.getColumns().size()];
-                _processLine(dataSet, _rowArray, firstRow, _columnIdxs);
-                dataSet.setValuesAt(dataSet.getRowCount(), _rowArray);
+                List[] _buffers = createBuffers(dataSet);
+                _appendLine(dataSet, _buffers, firstRow, _columnIdxs);
                 String[] _line = csvReader.readNext();
                 while (_line != null && _line.length == header.length) {
-                    _processLine(dataSet,_rowArray, _line, _columnIdxs);
-                    dataSet.setValuesAt(dataSet.getRowCount(), _rowArray);
+                    _appendLine(dataSet, _buffers, _line, _columnIdxs);
                     _line = csvReader.readNext();
                 }
+                for (int i = 0; i < _buffers.length; i++) {
+                    dataSet.getColumnByIndex(i).setValues(_buffers[i]);
+                }
             }
             return dataSet;
         } finally {
@@ -103,6 +138,157 @@ public class CSVParser {
         }
     }
 
+    /**
+     * Build the data set structure from the CSV header. Column types are inferred from the first row (if any).
+     * @param columnIdxs Filled with the position within the CSV line of every data set column.
+     */
+    protected DataSet createDataSet(String[] header, String[] firstRow, List<Integer> columnIdxs) {
+        DataSet dataSet = DataSetFactory.newEmptyDataSet();
+        for (int i = 0; i < header.length; i++) {
+            String columnId = header[i];
+            if (isColumnIncluded(columnId)) {
+                ColumnType type = ColumnType.LABEL;
+                if (firstRow != null) type = calculateType(columnId, firstRow[i]);
+                dataSet.addColumn(columnId, type);
+                columnIdxs.add(i);
+            }
+        }
+        return dataSet;
+    }
+
+    /**
+     * Create an empty value buffer for every data set column. Columnar storage is used whenever available.
+     */
+    protected List[] createBuffers(DataSet dataSet) {
+        List<DataColumn> columns = dataSet.getColumns();
+        List[] buffers = new List[columns.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            ColumnValues values = ColumnValues.create(columns.get(i).getColumnType());
+            buffers[i] = values != null ? values : new ArrayList();
+        }
+        return buffers;
+    }
+
+    /**
+     * Get the append state of a data set just loaded from the whole CSV file.
+     * @return null if no rows can be appended to the data set, f.i: if the file has malformed lines or its last
+     * line is not complete yet.
+     */
+    public CSVAppendState createAppendState(DataSet dataSet) throws Exception {
+        File file = getCSVFile();
+        if (file == null || dataSet.getRowCount() == 0 || !CSVParallelLoader.isSupported(dataSetDef)) return null;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            CSVRecordScanner scanner = new CSVRecordScanner(dataSetDef);
+            scanner.scan(channel, 0, size);
+
+            // Every line but the header must have been loaded
+            if (scanner.getLastBoundary() != size || scanner.getRecords() != dataSet.getRowCount() + 1) return null;
+            return new CSVAppendState(readHeader(channel), size, dataSet.getRowCount(), checksum(channel, size));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Load the rows appended to the CSV file since the last load. The last line is not loaded until it is complete.
+     * @param state The append state of the data set. It's updated with the rows loaded.
+     * @param dataSet The data set holding the rows loaded so far.
+     * @return A data set with the new rows or null if the file has not just grown (a full load is required then).
+     * Its creation date is the time right before the file size is read, so any write made afterwards is noticed
+     * on the next load.
+     */
+    public DataSet loadAppended(CSVAppendState state, DataSet dataSet) throws Exception {
+        File file = getCSVFile();
+        if (file == null) return null;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            Date loadDate = new Date();
+            long size = channel.size();
+            long offset = state.getOffset();
+            if (size < offset) return null;
+            if (!Arrays.equals(state.getHeader(), readHeader(channel))) return null;
+            if (checksum(channel, offset) != state.getChecksum()) return null;
+
+            DataSet result = dataSet.cloneEmpty();
+            result.setCreationDate(loadDate);
+            CSVRecordScanner scanner = new CSVRecordScanner(dataSetDef);
+            scanner.scan(channel, offset, size);
+            long end = scanner.getLastBoundary();
+            if (end == -1) return result;
+
+            String[] header = state.getHeader();
+            List<Integer> _columnIdxs = new ArrayList<Integer>();
+            for (int i = 0; i < header.length; i++) {
+                if (isColumnIncluded(header[i])) _columnIdxs.add(i);
+            }
+            if (_columnIdxs.size() != result.getColumns().size()) return null;
+
+            // Any malformed line requires a full load, which stops right at that line.
+            List[] _buffers = createBuffers(result);
+            CSVReader csvReader = createReader(channel, offset, end);
+            try {
+                String[] _line = csvReader.readNext();
+                while (_line != null) {
+                    if (_line.length != header.length) return null;
+                    _appendLine(result, _buffers, _line, _columnIdxs);
+                    _line = csvReader.readNext();
+                }
+            } finally {
+                csvReader.close();
+            }
+            for (int i = 0; i < _buffers.length; i++) {
+                result.getColumnByIndex(i).setValues(_buffers[i]);
+            }
+            state.append(end, result.getRowCount(), checksum(channel, end));
+            return result;
+        } finally {
+            raf.close();
+        }
+    }
+
+    protected String[] readHeader(FileChannel channel) throws IOException {
+        CSVRecordScanner scanner = new CSVRecordScanner(dataSetDef);
+        long end = Math.min(channel.size(), HEADER_MAX_SIZE);
+        scanner.scan(channel, 0, end);
+        if (scanner.getLastBoundary() != -1) end = scanner.getLastBoundary();
+
+        CSVReader csvReader = createReader(channel, 0, end);
+        try {
+            return csvReader.readNext();
+        } finally {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * Calculate the checksum of the bytes right before the given offset.
+     */
+    protected long checksum(FileChannel channel, long offset) throws IOException {
+        int length = (int) Math.min(offset, CHECKSUM_SIZE);
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset - length, length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    /**
+     * Get a reader for the given range of the CSV file. The range must start at a record boundary.
+     */
+    protected CSVReader createReader(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CharBuffer chars = Charset.defaultCharset().decode(buffer);
+        return new CSVReader(new CharArrayReader(chars.array(), chars.arrayOffset(), chars.limit()),
+                dataSetDef.getSeparatorChar(), dataSetDef.getQuoteChar(), dataSetDef.getEscapeChar());
+    }
+
     protected InputStream getCSVInputStream() throws Exception {
         String path = dataSetDef.getFilePath();
         if (!StringUtils.isBlank(path)) {
@@ -155,43 +341,90 @@ public class CSVParser {
         }
     }
 
-    protected void _processLine(DataSet dataSet, Object[] row, String[] line, List<Integer> columnIdxs) throws Exception {
-        List<DataColumn> columns = dataSet.getColumns();
-        for (int i=0; i<columns.size(); i++) {
+    protected void _appendLine(DataSet dataSet, List[] buffers, String[] line, List<Integer> columnIdxs) throws Exception {
+        for (int i=0; i<buffers.length; i++) {
             DataColumn column = dataSet.getColumnByIndex(i);
-            int columnIdx = columnIdxs.get(i);
-            String valueStr = line[columnIdx];
-            if (!StringUtils.isBlank(valueStr)){
-                row[i] = parseValue(column, valueStr);
-            } else {
-                row[i] = null;
+            List buffer = buffers[i];
+            String valueStr = line[columnIdxs.get(i)];
+            if (StringUtils.isBlank(valueStr)) {
+                if (buffer instanceof ColumnValues) ((ColumnValues) buffer).addNull();
+                else buffer.add(null);
+            }
+            else if (buffer instanceof NumberColumnValues) {
+                ((NumberColumnValues) buffer).addDouble(parseNumber(column, valueStr));
+            }
+            else if (buffer instanceof DateColumnValues) {
+                ((DateColumnValues) buffer).addTime(parseDate(column, valueStr));
+            }
+            else {
+                buffer.add(parseValue(column, valueStr));
             }
         }
     }
 
     protected Object parseValue(DataColumn column, String value) throws Exception {
         ColumnType type = column.getColumnType();
+        if (type.equals(ColumnType.DATE)) {
+            return new Date(parseDate(column, value));
+        } else if (type.equals(ColumnType.NUMBER)) {
+            return parseNumber(column, value);
+        } else {
+            return value;
+        }
+    }
+
+    protected double parseNumber(DataColumn column, String value) throws Exception {
+        FastNumberParser fastParser = getFastNumberParser(column.getId());
+        if (fastParser.parse(value)) return fastParser.getValue();
         try {
-            if (type.equals(ColumnType.DATE)) {
-                String pattern = dataSetDef.getPattern(column.getId());
-                // Handle special date pattern "epoch"
-                if (pattern != null && DATE_FORMAT_EPOCH.equalsIgnoreCase(pattern)) {
-                    Double _epoch = Double.parseDouble(value);
-                    return new Date(_epoch.longValue() * 1000);
-                } else {
-                    DateFormat dateFormat = getDateFormat(column.getId());
-                    return dateFormat.parse(value);
-                }
-            } else if (type.equals(ColumnType.NUMBER)) {
-                DecimalFormat numberFormat = getNumberFormat(column.getId());
-                return numberFormat.parse(value).doubleValue();
-            } else {
-                return value;
-            }
+            DecimalFormat numberFormat = getNumberFormat(column.getId());
+            return numberFormat.parse(value).doubleValue();
         } catch (ParseException e) {
-            String msg = "Error parsing value: " + value + ", " + e.getMessage() + ". Check column\u0027s data type consistency!";
-            throw new Exception(msg);
+            throw parseError(value, e);
+        }
+    }
+
+    /**
+     * @return The date as epoch milliseconds.
+     */
+    protected long parseDate(DataColumn column, String value) throws Exception {
+        String pattern = dataSetDef.getPattern(column.getId());
+        // Handle special date pattern "epoch"
+        if (pattern != null && DATE_FORMAT_EPOCH.equalsIgnoreCase(pattern)) {
+            Double _epoch = Double.parseDouble(value);
+            return _epoch.longValue() * 1000;
+        }
+        FastDateParser fastParser = getFastDateParser(column.getId());
+        if (fastParser.parse(value)) return fastParser.getTime();
+        try {
+            DateFormat dateFormat = getDateFormat(column.getId());
+            return dateFormat.parse(value).getTime();
+        } catch (ParseException e) {
+            throw parseError(value, e);
+        }
+    }
+
+    protected Exception parseError(String value, ParseException e) {
+        String msg = "Error parsing value: " + value + ", " + e.getMessage() + ". Check column\u0027s data type consistency!";
+        return new Exception(msg);
+    }
+
+    protected FastNumberParser getFastNumberParser(String columnId) {
+        FastNumberParser parser = _fastNumberParserMap.get(columnId);
+        if (parser == null) {
+            parser = new FastNumberParser(getNumberFormat(columnId));
+            _fastNumberParserMap.put(columnId, parser);
+        }
+        return parser;
+    }
+
+    protected FastDateParser getFastDateParser(String columnId) {
+        FastDateParser parser = _fastDateParserMap.get(columnId);
+        if (parser == null) {
+            parser = new FastDateParser((SimpleDateFormat) getDateFormat(columnId));
+            _fastDateParserMap.put(columnId, parser);
         }
+        return parser;
     }
 
     protected DateFormat getDateFormat(String columnId) {
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.csv;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.dashbuilder.dataset.def.CSVDataSetDef;
+
+/**
+ * Scans the raw bytes of a CSV file looking for record boundaries, this is, line breaks outside quoted values.
+ * <p>It requires the separator, quote, escape and line break chars to be encoded as single ASCII bytes
+ * (see <code>CSVParallelLoader.isSupported</code>).</p>
+ */
+public class CSVRecordScanner {
+
+    // Max. size of the memory-mapped window used to scan the file
+    private static final int MAX_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    protected byte quote;
+    protected byte escape;
+    protected boolean inQuotes = false;
+    protected boolean escaped = false;
+    protected long records = 0;
+    protected long lastBoundary = -1;
+
+    public CSVRecordScanner(CSVDataSetDef def) {
+        quote = (byte) def.getQuoteChar().charValue();
+        escape = (byte) def.getEscapeChar().charValue();
+    }
+
+    /**
+     * Scan the given range of the file. The range must start at a record boundary (or continue a previous scan).
+     */
+    public void scan(FileChannel channel, long from, long to) throws IOException {
+        for (long offset = from; offset < to; offset += MAX_WINDOW_SIZE) {
+            int length = (int) Math.min(MAX_WINDOW_SIZE, to - offset);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            for (int i = 0; i < length; i++) {
+                byte b = buffer.get(i);
+                if (escaped) {
+                    // An escaped quote (or escape) char does not close the quoted value
+                    escaped = false;
+                    if (b == quote || b == escape) continue;
+                }
+                if (inQuotes && b == escape && escape != quote) {
+                    escaped = true;
+                }
+                else if (b == quote) {
+                    inQuotes = !inQuotes;
+                }
+                else if (b == '\n' && !inQuotes) {
+                    records++;
+                    lastBoundary = offset + i + 1;
+                    boundary(lastBoundary);
+                }
+            }
+        }
+    }
+
+    /**
+     * Invoked every time a record boundary is found.
+     * @param end The offset right after the line break.
+     */
+    protected void boundary(long end) {
+    }
+
+    /**
+     * The number of line breaks found outside quoted values.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * The offset right after the last record boundary found or -1 if none.
+     */
+    public long getLastBoundary() {
+        return lastBoundary;
+    }
+}
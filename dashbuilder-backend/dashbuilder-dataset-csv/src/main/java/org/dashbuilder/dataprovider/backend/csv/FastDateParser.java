@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.csv;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * <p>Parses dates with numeric only patterns (f.i: "yyyy-MM-dd HH:mm:ss") with no object allocation involved.</p>
+ * <p>It's a fast path for the <code>SimpleDateFormat</code> given. The supported pattern letters are: y (3 or more
+ * letters), M (1 or 2 letters), d, H, m, s and S. Numeric fields must be separated by literals. Patterns with any
+ * other letter are not supported. Values not matching the pattern exactly make the <code>parse</code> method return
+ * false, so they can be parsed by the format itself.</p>
+ */
+public class FastDateParser {
+
+    // Max. number of digits in a field
+    private static final int MAX_DIGITS = 9;
+
+    protected boolean enabled;
+    protected int[] fields;
+    protected char[] literals;
+    protected Calendar calendar;
+    protected long time;
+
+    public FastDateParser(SimpleDateFormat format) {
+        calendar = (Calendar) format.getCalendar().clone();
+        enabled = compile(format.toPattern());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn the pattern into a sequence of elements: a calendar field (>= 0) or a literal (-1).
+     */
+    protected boolean compile(String pattern) {
+        List<Integer> fieldList = new ArrayList<Integer>();
+        StringBuilder literalList = new StringBuilder();
+        int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                // Quoted literals ('' is a single quote)
+                i++;
+                if (i < length && pattern.charAt(i) == '\'') {
+                    fieldList.add(-1);
+                    literalList.append('\'');
+                    i++;
+                    continue;
+                }
+                while (i < length) {
+                    char q = pattern.charAt(i++);
+                    if (q == '\'') {
+                        if (i < length && pattern.charAt(i) == '\'') i++;
+                        else break;
+                    }
+                    fieldList.add(-1);
+                    literalList.append(q);
+                }
+            }
+            else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int count = 1;
+                while (i + count < length && pattern.charAt(i + count) == c) count++;
+                int field = getCalendarField(c, count);
+                if (field < 0) return false;
+
+                // Abutting numeric fields are not supported
+                if (!fieldList.isEmpty() && fieldList.get(fieldList.size() - 1) >= 0) return false;
+                fieldList.add(field);
+                literalList.append(c);
+                i += count;
+            }
+            else {
+                if (Character.isDigit(c)) return false;
+                fieldList.add(-1);
+                literalList.append(c);
+                i++;
+            }
+        }
+        if (fieldList.isEmpty()) return false;
+
+        fields = new int[fieldList.size()];
+        for (int j = 0; j < fields.length; j++) fields[j] = fieldList.get(j);
+        literals = literalList.toString().toCharArray();
+        return true;
+    }
+
+    protected int getCalendarField(char letter, int count) {
+        switch (letter) {
+            // Two (or one) letter years are adjusted to the current century by the format.
+            case 'y': return count > 2 ? Calendar.YEAR : -1;
+            // Three or more letter months are month names.
+            case 'M': return count <= 2 ? Calendar.MONTH : -1;
+            case 'd': return Calendar.DAY_OF_MONTH;
+            case 'H': return Calendar.HOUR_OF_DAY;
+            case 'm': return Calendar.MINUTE;
+            case 's': return Calendar.SECOND;
+            case 'S': return Calendar.MILLISECOND;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Parse the given value.
+     * @return true if the value has been parsed. Its epoch milliseconds can be obtained by calling <code>getTime</code>.
+     */
+    public boolean parse(String str) {
+        if (!enabled) return false;
+
+        calendar.clear();
+        int length = str.length();
+        int pos = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int field = fields[i];
+            if (field < 0) {
+                if (pos >= length || str.charAt(pos) != literals[i]) return false;
+                pos++;
+            } else {
+                int value = 0;
+                int start = pos;
+                while (pos < length) {
+                    char c = str.charAt(pos);
+                    if (c < '0' || c > '9') break;
+                    if (pos - start == MAX_DIGITS) return false;
+                    value = value * 10 + (c - '0');
+                    pos++;
+                }
+                if (pos == start) return false;
+                calendar.set(field, field == Calendar.MONTH ? value - 1 : value);
+            }
+        }
+        // Trailing text is ignored by the format. Let it decide.
+        if (pos != length) return false;
+
+        time = calendar.getTimeInMillis();
+        return true;
+    }
+
+    public long getTime() {
+        return time;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.csv;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * <p>Parses plain decimal numbers (f.i: "-1,234.56") with no object allocation involved.</p>
+ * <p>It's a fast path for the <code>DecimalFormat</code> given. Only those values that the format would parse into
+ * exactly the same number are accepted. For any other value (prefixes/suffixes, exponents, too many digits, ...)
+ * the <code>parse</code> method returns false and the value must be parsed by the format itself.</p>
+ */
+public class FastNumberParser {
+
+    // Powers of ten exactly representable as doubles.
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i-1] * 10;
+    }
+    private static final long MAX_MANTISSA = 1L << 53;
+
+    protected boolean enabled;
+    protected char groupSeparator;
+    protected char decimalSeparator;
+    protected char minusSign;
+    protected boolean groupingUsed;
+    protected double value;
+
+    public FastNumberParser(DecimalFormat format) {
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+        groupSeparator = symbols.getGroupingSeparator();
+        decimalSeparator = symbols.getDecimalSeparator();
+        minusSign = symbols.getMinusSign();
+        groupingUsed = format.isGroupingUsed();
+        enabled = format.getPositivePrefix().length() == 0
+                && format.getPositiveSuffix().length() == 0
+                && format.getNegativePrefix().equals(String.valueOf(minusSign))
+                && format.getNegativeSuffix().length() == 0
+                && format.getMultiplier() == 1
+                && !format.isParseIntegerOnly()
+                && !format.isParseBigDecimal()
+                && groupSeparator != decimalSeparator
+                && !Character.isDigit(groupSeparator)
+                && !Character.isDigit(decimalSeparator)
+                && !Character.isDigit(minusSign);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Parse the given value.
+     * @return true if the value has been parsed. Its value can be obtained by calling <code>getValue</code>.
+     */
+    public boolean parse(String str) {
+        if (!enabled) return false;
+
+        int length = str.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && str.charAt(i) == minusSign) {
+            negative = true;
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean decimal = false;
+        for (; i < length; i++) {
+            char c = str.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > 18) return false;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (decimal) scale++;
+            }
+            else if (c == decimalSeparator && !decimal) {
+                decimal = true;
+            }
+            else if (c == groupSeparator && groupingUsed && !decimal && i > 0 && i + 1 < length) {
+                // Grouping separators must be surrounded by digits
+                char prev = str.charAt(i - 1);
+                char next = str.charAt(i + 1);
+                if (prev < '0' || prev > '9' || next < '0' || next > '9') return false;
+            }
+            else {
+                return false;
+            }
+        }
+        int start = negative ? 1 : 0;
+        if (length == start || (decimal && length == start + 1)) return false;
+        if (mantissa > MAX_MANTISSA || scale >= POW10.length) return false;
+
+        double result = scale == 0 ? mantissa : mantissa / POW10[scale];
+        value = negative ? -result : result;
+        return true;
+    }
+
+    public double getValue() {
+        return value;
+    }
+}
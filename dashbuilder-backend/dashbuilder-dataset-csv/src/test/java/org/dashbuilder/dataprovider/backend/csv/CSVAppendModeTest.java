@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.csv;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import javax.inject.Inject;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetManager;
+import org.dashbuilder.dataset.def.DataSetDefRegistry;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.test.ShrinkWrapHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+@RunWith(Arquillian.class)
+public class CSVAppendModeTest {
+
+    @Deployment
+    public static Archive<?> createTestArchive()  {
+        return ShrinkWrapHelper.createJavaArchive()
+                .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    public static final String APPEND_REPORTS = "dataset_append_reports";
+
+    @Inject
+    DataSetManager dataSetManager;
+
+    @Inject
+    protected DataSetDefRegistry dataSetDefRegistry;
+
+    File csvFile;
+
+    @Before
+    public void setUp() throws Exception {
+        csvFile = File.createTempFile("appendReports", ".csv");
+        write(false, "id;office;department;author;date;amount\n",
+                "1;Barcelona;Engineering;Roxie Foraker;12-11-2012;120.35\n",
+                "2;Barcelona;Engineering;Roxie Foraker;12-01-2012;\"1,100.10\"\n",
+                "3;Madrid;Sales;Jamie Gilbeau;06-02-2012;300.00\n");
+
+        dataSetDefRegistry.registerDataSetDef(
+                DataSetFactory.newCSVDataSetDef()
+                        .uuid(APPEND_REPORTS)
+                        .filePath(csvFile.getAbsolutePath())
+                        .label("id")
+                        .label("office")
+                        .label("department")
+                        .label("author")
+                        .date("date", "MM-dd-yyyy")
+                        .number("amount", "#,###.##")
+                        .separatorChar(';')
+                        .quoteChar('\"')
+                        .escapeChar('\\')
+                        .appendEnabled(true)
+                        .buildDef());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dataSetDefRegistry.removeDataSetDef(APPEND_REPORTS);
+        csvFile.delete();
+    }
+
+    @Test
+    public void testAppendRows() throws Exception {
+        assertThat(lookupCount("Barcelona")).isEqualTo(2);
+        assertThat(lookupRowCount()).isEqualTo(3);
+
+        // The last line is not complete yet, so it must not be loaded
+        write(true, "4;Barcelona;Sales;Jamie Gilbeau;06-03-2012;50.00\n",
+                "5;Barcelona;Sales;Jamie Gil");
+        assertThat(lookupRowCount()).isEqualTo(4);
+        assertThat(lookupCount("Barcelona")).isEqualTo(3);
+
+        write(true, "beau;06-04-2012;75.00\n");
+        assertThat(lookupRowCount()).isEqualTo(5);
+        assertThat(lookupCount("Barcelona")).isEqualTo(4);
+        assertThat(lookupMax()).isEqualTo(1100.10);
+    }
+
+    @Test
+    public void testRewrittenFile() throws Exception {
+        assertThat(lookupRowCount()).isEqualTo(3);
+
+        // The file is replaced by a shorter one, so it must be loaded from scratch
+        write(false, "id;office;department;author;date;amount\n",
+                "1;Madrid;Sales;Jamie Gilbeau;06-02-2012;10.00\n");
+        assertThat(lookupRowCount()).isEqualTo(1);
+        assertThat(lookupCount("Barcelona")).isEqualTo(0);
+    }
+
+    private void write(boolean append, String... lines) throws Exception {
+        long lastModified = csvFile.lastModified();
+        Writer writer = new FileWriter(csvFile, append);
+        try {
+            for (String line : lines) writer.write(line);
+        } finally {
+            writer.close();
+        }
+        // Make sure the change is noticed even on file systems with a coarse timestamp resolution
+        csvFile.setLastModified(Math.max(lastModified, System.currentTimeMillis()) + 2000);
+    }
+
+    private int lookupRowCount() throws Exception {
+        return dataSetManager.lookupDataSet(
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(APPEND_REPORTS)
+                        .buildLookup()).getRowCount();
+    }
+
+    private int lookupCount(String office) throws Exception {
+        DataSet result = dataSetManager.lookupDataSet(
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(APPEND_REPORTS)
+                        .filter("office", equalsTo(office))
+                        .buildLookup());
+        return result.getRowCount();
+    }
+
+    private double lookupMax() throws Exception {
+        DataSet result = dataSetManager.lookupDataSet(
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset(APPEND_REPORTS)
+                        .column("amount", AggregateFunctionType.MAX)
+                        .buildLookup());
+        return ((Number) result.getValueAt(0, 0)).doubleValue();
+    }
+}
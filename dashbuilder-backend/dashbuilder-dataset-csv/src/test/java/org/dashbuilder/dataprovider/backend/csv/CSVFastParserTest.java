@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.csv;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class CSVFastParserTest {
+
+    @Test
+    public void testNumberParser() throws Exception {
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+        symbols.setGroupingSeparator(',');
+        symbols.setDecimalSeparator('.');
+        DecimalFormat format = new DecimalFormat("#,###.##", symbols);
+        FastNumberParser parser = new FastNumberParser(format);
+        assertThat(parser.isEnabled()).isTrue();
+
+        for (String value : new String[] {"0", "-1", "1,234.56", "-1,234,567.891", ".5", "00012.3400", "0.1"}) {
+            assertThat(parser.parse(value)).isTrue();
+            assertThat(parser.getValue()).isEqualTo(format.parse(value).doubleValue());
+        }
+        // Left to the format
+        for (String value : new String[] {"", "-", "1,,2", "1e5", "$10", "12 ", "1234567890123456789"}) {
+            assertThat(parser.parse(value)).isFalse();
+        }
+
+        assertThat(new FastNumberParser(new DecimalFormat("#.##%")).isEnabled()).isFalse();
+    }
+
+    @Test
+    public void testDateParser() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("MM-dd-yyyy HH:mm:ss.SSS");
+        FastDateParser parser = new FastDateParser(format);
+        assertThat(parser.isEnabled()).isTrue();
+
+        for (String value : new String[] {"01-31-2015 10:20:30.400", "2-1-1999 0:0:0.0", "13-45-2015 25:61:61.1000"}) {
+            assertThat(parser.parse(value)).isTrue();
+            assertThat(parser.getTime()).isEqualTo(format.parse(value).getTime());
+        }
+        // Left to the format
+        for (String value : new String[] {"", "01/31/2015 10:20:30.400", "01-31-2015", "01-31-2015 10:20:30.400 GMT"}) {
+            assertThat(parser.parse(value)).isFalse();
+        }
+
+        assertThat(new FastDateParser(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss")).isEnabled()).isTrue();
+        assertThat(new FastDateParser(new SimpleDateFormat("MMM dd, yyyy")).isEnabled()).isFalse();
+        assertThat(new FastDateParser(new SimpleDateFormat("yyMMdd")).isEnabled()).isFalse();
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.csv;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.def.CSVDataSetDef;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+
+public class CSVParallelLoadTest {
+
+    File csvFile;
+    CSVDataSetDef def;
+    ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        csvFile = File.createTempFile("parallelLoad", ".csv");
+        Writer writer = new FileWriter(csvFile);
+        try {
+            writer.write("id;text;amount\n");
+            for (int i = 0; i < 200; i++) {
+                // A line with missing values in one of the last chunks
+                if (i == 150) {
+                    writer.write(i + ";broken\n");
+                    continue;
+                }
+                // Quoted values spanning several lines, so many chunk limits fall within a record
+                if (i % 2 == 0) writer.write(i + ";\"line " + i + "\nnext; line\";" + i + "\n");
+                // Escaped quotes
+                else writer.write(i + ";\"say \\\"hi\\\" " + i + "\";" + i + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+
+        def = (CSVDataSetDef) DataSetFactory.newCSVDataSetDef()
+                .uuid("parallel_load")
+                .filePath(csvFile.getAbsolutePath())
+                .label("id")
+                .label("text")
+                .number("amount", "#")
+                .separatorChar(';')
+                .quoteChar('\"')
+                .escapeChar('\\')
+                .buildDef();
+
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        csvFile.delete();
+    }
+
+    @Test
+    public void testSameAsSequentialLoad() throws Exception {
+        assertThat(CSVParallelLoader.isSupported(def)).isTrue();
+        DataSet expected = new CSVParser(def).load();
+
+        // Files over 256 bytes are split into chunks of 64 bytes
+        CSVParser parser = new CSVParser(def);
+        parser.setParallelLoad(executor, 4, 256);
+        DataSet result = parser.load();
+
+        // Both stop at the malformed line
+        assertThat(expected.getRowCount()).isEqualTo(150);
+        assertThat(expected.getValueAt(0, 1)).isEqualTo("line 0\nnext; line");
+        assertThat(expected.getValueAt(1, 1)).isEqualTo("say \"hi\" 1");
+
+        assertThat(result.getRowCount()).isEqualTo(expected.getRowCount());
+        assertThat(result.getColumns().size()).isEqualTo(expected.getColumns().size());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumns().size(); j++) {
+                assertThat(result.getValueAt(i, j)).isEqualTo(expected.getValueAt(i, j));
+            }
+        }
+    }
+}
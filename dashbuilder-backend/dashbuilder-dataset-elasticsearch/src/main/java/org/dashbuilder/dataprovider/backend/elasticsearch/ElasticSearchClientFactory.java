@@ -15,17 +15,82 @@
  */
 package org.dashbuilder.dataprovider.backend.elasticsearch;
 
+import org.dashbuilder.config.Config;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.ElasticSearchClient;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.DateLimitsCache;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.ElasticSearchJestClient;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.GsonCache;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.JestClientMetrics;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.JestClientPool;
 import org.dashbuilder.dataset.def.ElasticSearchDataSetDef;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 @ApplicationScoped
 public class ElasticSearchClientFactory {
 
+    /**
+     * Max. number of concurrent connections per ElasticSearch server.
+     */
+    @Inject @Config("20")
+    protected int maxConnections;
+
+    /**
+     * Connection timeout in milliseconds.
+     */
+    @Inject @Config("30000")
+    protected int connectTimeout;
+
+    /**
+     * Socket read timeout in milliseconds.
+     */
+    @Inject @Config("30000")
+    protected int readTimeout;
+
+    /**
+     * Time in milliseconds the connections to a server are kept open since its last request. 0 means forever.
+     */
+    @Inject @Config("300000")
+    protected long keepAlive;
+
+    /**
+     * Time in milliseconds the min/max values of the columns used in dynamic date groups are cached. 0 means disabled.
+     */
+    @Inject @Config("60000")
+    protected long dateLimitsTimeToLive;
+
+    // Clients are shared by all the data sets pointing to the same server.
+    protected JestClientPool clientPool;
+
+    // The JSON adapters are shared by all the requests on the same data set.
+    protected GsonCache gsonCache;
+
+    @PostConstruct
+    public void init() {
+        clientPool = new JestClientPool(maxConnections, connectTimeout, readTimeout, keepAlive);
+        gsonCache = new GsonCache(clientPool, new DateLimitsCache(dateLimitsTimeToLive));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (clientPool != null) {
+            clientPool.shutdown();
+        }
+    }
+
+    public JestClientMetrics getClientMetrics() {
+        return clientPool.getMetrics();
+    }
+
+    public GsonCache getGsonCache() {
+        return gsonCache;
+    }
+
     public ElasticSearchClient newClient() {
-        return new ElasticSearchJestClient();
+        return new ElasticSearchJestClient(clientPool, gsonCache);
     }
     
     public ElasticSearchClient newClient(ElasticSearchDataSetDef elasticSearchDataSetDef) {
@@ -17,9 +17,14 @@ package org.dashbuilder.dataprovider.backend.elasticsearch;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
-import org.dashbuilder.dataprovider.DataSetProvider;
+import org.dashbuilder.config.Config;
 import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataprovider.backend.DataSetLookupCache;
+import org.dashbuilder.dataprovider.backend.AsyncDataSetProvider;
+import org.dashbuilder.dataprovider.backend.DataSetLookupExecutor;
+import org.dashbuilder.dataprovider.backend.DataSetPageHandler;
 import org.dashbuilder.dataprovider.backend.StaticDataSetProvider;
+import org.dashbuilder.dataprovider.backend.StreamingDataSetProvider;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.*;
 import org.dashbuilder.dataset.*;
 import org.dashbuilder.dataset.def.DataSetDef;
@@ -31,18 +36,28 @@ import org.dashbuilder.dataset.filter.ColumnFilter;
 import org.dashbuilder.dataset.filter.DataSetFilter;
 import org.dashbuilder.dataset.group.DataSetGroup;
 import org.dashbuilder.dataset.group.GroupFunction;
+import org.dashbuilder.dataset.impl.ColumnValues;
+import org.dashbuilder.dataset.impl.DateColumnValues;
 import org.dashbuilder.dataset.impl.ElasticSearchDataSetMetadata;
 import org.dashbuilder.dataset.impl.MemSizeEstimator;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
 import org.dashbuilder.dataset.sort.ColumnSort;
 import org.dashbuilder.dataset.sort.DataSetSort;
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * <p>Data provider for an ElasticSearch server.</p>
@@ -105,7 +120,7 @@ import java.util.*;
  */
 @ApplicationScoped
 @Named("elasticsearch")
-public class ElasticSearchDataSetProvider implements DataSetProvider {
+public class ElasticSearchDataSetProvider implements AsyncDataSetProvider, StreamingDataSetProvider {
 
     public static final DateTimeFormatter EL_DEFAULT_DATETIME_FORMATTER = ISODateTimeFormat.dateOptionalTimeParser();
     public static final int RESPONSE_CODE_OK = 200;
@@ -113,6 +128,12 @@ public class ElasticSearchDataSetProvider implements DataSetProvider {
     @Inject
     protected StaticDataSetProvider staticDataSetProvider;
 
+    @Inject
+    protected DataSetLookupExecutor lookupExecutor;
+
+    @Inject
+    protected DataSetLookupCache lookupCache;
+
     @Inject
     protected DataSetDefRegistry dataSetDefRegistry;
 
@@ -121,9 +142,24 @@ public class ElasticSearchDataSetProvider implements DataSetProvider {
 
     @Inject
     protected ElasticSearchQueryBuilderFactory queryBuilderFactory;
-    
+
+    /**
+     * Number of documents fetched on every request (per shard) when loading a data set into the cache.
+     */
+    @Inject @Config("5000")
+    protected int cacheLoadPageSize;
+
+    /**
+     * Max. number of shard slices fetched in parallel when loading a data set into the cache.
+     */
+    @Inject @Config("4")
+    protected int cacheLoadSlices;
+
     protected final Map<String,DataSetMetadata> _metadataMap = new HashMap<String,DataSetMetadata>();
 
+    // The threads fetching the shard slices in parallel (created on demand)
+    protected ExecutorService sliceExecutor;
+
     public ElasticSearchDataSetProvider() {
     }
 
@@ -146,10 +182,10 @@ public class ElasticSearchDataSetProvider implements DataSetProvider {
                 // Fetch always from EL server if existing rows are greater than the cache max. rows
                 long rows = getRowCount(elDef);
                 if (rows > elDef.getCacheMaxRows()) {
-                    return _lookupDataSet(elDef, lookup);
+                    return _lookupDataSetCached(elDef, lookup);
                 }
                 // Fetch from EL server and register into the static cache. Further requests will lookup from cache.
-                dataSet = _lookupDataSet(elDef, null);
+                dataSet = _loadDataSet(elDef);
                 dataSet.setUUID(def.getUUID());
                 dataSet.setDefinition(def);
                 staticDataSetProvider.registerDataSet(dataSet);
@@ -157,8 +193,116 @@ public class ElasticSearchDataSetProvider implements DataSetProvider {
             }
         }
 
-        // If cache is disabled then always fetch from EL server.
-        return _lookupDataSet(elDef, lookup);
+        // If cache is disabled then always fetch from EL server (identical lookups resolved lately are reused).
+        return _lookupDataSetCached(elDef, lookup);
+    }
+
+    public Future<DataSet> lookupDataSetAsync(DataSetDef def, DataSetLookup lookup) {
+        return lookupExecutor.lookupDataSet(((ElasticSearchDataSetDef) def).getServerURL(), this, def, lookup);
+    }
+
+    /**
+     * The lookup results are fetched through the scroll API and every page of hits is handled as soon as it arrives.
+     * Data sets held by the static cache, aggregations and lookups limited to a range of rows (fetched in a single
+     * request anyway) are resolved through regular lookup requests instead.
+     */
+    public boolean streamDataSet(DataSetDef def, DataSetLookup lookup, final int pageSize, final DataSetPageHandler handler) throws Exception {
+        ElasticSearchDataSetDef elDef = (ElasticSearchDataSetDef) def;
+        if (elDef.isCacheEnabled() && staticDataSetProvider.lookupDataSet(def.getUUID(), null) != null) return false;
+        if (lookup.getNumberOfRows() > 0 || lookup.getRowOffset() > 0) return false;
+
+        List<DataSetGroup> groupOps = lookup.getOperationList(DataSetGroup.class);
+        if (!groupOps.isEmpty()) return false;
+
+        final ElasticSearchDataSetMetadata metadata = (ElasticSearchDataSetMetadata) getDataSetMetadata(elDef);
+        List<DataSetFilter> filters = lookup.getOperationList(DataSetFilter.class);
+        List<DataSetSort> sortOps = lookup.getOperationList(DataSetSort.class);
+        checkOperations(metadata, groupOps, filters, sortOps);
+
+        int numberOfColumns = metadata.getNumberOfColumns();
+        String[] fields = new String[numberOfColumns];
+        for (int x = 0; x < numberOfColumns; x++) {
+            fields[x] = metadata.getColumnId(x);
+        }
+        SearchRequest request = new SearchRequest(metadata);
+        request.setFields(fields);
+        request.setSize(pageSize);
+        if (!filters.isEmpty()) {
+            Query query = queryBuilderFactory.newQueryBuilder().metadata(metadata).groupInterval(groupOps).filter(filters).build();
+            request.setQuery(query);
+        }
+
+        // Default sorting.
+        if (sortOps.isEmpty() && elDef.getColumnSort() != null) {
+            DataSetSort defaultSort = new DataSetSort();
+            defaultSort.addSortColumn(elDef.getColumnSort());
+            sortOps.add(defaultSort);
+        }
+        request.setSorting(sortOps);
+
+        // Every scroll request returns up to a page of hits per shard, so they're split into pages again.
+        final int totalRows = filters.isEmpty() ? metadata.getNumberOfRows() : -1;
+        SearchHitHandler hitHandler = new SearchHitHandler() {
+            public void handle(List<Object[]> hits) throws Exception {
+                for (int from = 0; from < hits.size(); from += pageSize) {
+                    List<Object[]> pageHits = hits.subList(from, Math.min(hits.size(), from + pageSize));
+                    handler.handlePage(_createDataSet(metadata, pageHits, totalRows));
+                }
+            }
+        };
+        long hits = clientFactory.newClient(elDef).scroll(elDef, metadata, request, hitHandler);
+        if (hits == 0) {
+            handler.handlePage(_createDataSet(metadata, new ArrayList<Object[]>(), totalRows));
+        }
+        return true;
+    }
+
+    /**
+     * Creates a data set from a list of hits fetched through the scroll API.
+     */
+    protected DataSet _createDataSet(ElasticSearchDataSetMetadata metadata, List<Object[]> hits, int totalRows) {
+        int numberOfColumns = metadata.getNumberOfColumns();
+        DataSet dataSet = DataSetFactory.newEmptyDataSet();
+        List[] valueLists = new List[numberOfColumns];
+        for (int x = 0; x < numberOfColumns; x++) {
+            ColumnType columnType = metadata.getColumnType(x);
+            List values = ColumnValues.create(columnType);
+            if (values == null) values = new ArrayList(hits.size());
+            else ((ColumnValues) values).ensureCapacity(hits.size());
+            dataSet.addColumn(metadata.getColumnId(x), columnType, values);
+            valueLists[x] = dataSet.getColumnByIndex(x).getValues();
+        }
+        _appendHits(valueLists, hits);
+        dataSet.setRowCountNonTrimmed(totalRows);
+        return dataSet;
+    }
+
+    /**
+     * Append the hits fetched through the scroll API to the column buffers.
+     */
+    protected void _appendHits(List[] valueLists, List<Object[]> hits) {
+        for (Object[] hit : hits) {
+            for (int x = 0; x < hit.length; x++) {
+                Object value = hit[x];
+                List values = valueLists[x];
+                if (value == null && values instanceof ColumnValues) ((ColumnValues) values).addNull();
+                else if (values instanceof NumberColumnValues) ((NumberColumnValues) values).addDouble(((Number) value).doubleValue());
+                else if (values instanceof DateColumnValues) ((DateColumnValues) values).addTime(((Date) value).getTime());
+                else values.add(value);
+            }
+        }
+    }
+
+    /**
+     * Non cached data sets are fetched on every lookup request. The results of the last lookups are
+     * kept for a while though, so identical requests don't hit the EL server again.
+     */
+    protected DataSet _lookupDataSetCached(final ElasticSearchDataSetDef elDef, final DataSetLookup lookup) throws Exception {
+        return lookupCache.lookupDataSet(elDef.getUUID(), lookup, new Callable<DataSet>() {
+            public DataSet call() throws Exception {
+                return _lookupDataSet(elDef, lookup);
+            }
+        });
     }
 
     protected DataSet _lookupDataSet(ElasticSearchDataSetDef elDef, DataSetLookup lookup) throws Exception {
@@ -233,8 +377,8 @@ public class ElasticSearchDataSetProvider implements DataSetProvider {
         // There are no results. Return an empty dataset.
         if (searchResponse instanceof EmptySearchResponse) return dataSet;
 
-        // There exist values. Fill the dataset.
-        fillDataSetValues(elDef, dataSet, searchResponse.getHits());
+        // There exist values. Fill the dataset (unless the values have been already read into the columns).
+        if (!searchResponse.hasColumnValues()) fillDataSetValues(elDef, dataSet, searchResponse.getHits());
 
         if (trim) {
             dataSet.setRowCountNonTrimmed((int)searchResponse.getTotalHits());            
@@ -242,6 +386,122 @@ public class ElasticSearchDataSetProvider implements DataSetProvider {
         return dataSet;
     }
 
+    /**
+     * Fetch all the documents of the given data set, so it can be registered into the static cache.
+     * <p>The documents are fetched using the scroll API, page by page and with the index shards split into slices
+     * which are fetched in parallel. Every page is parsed straight from the response stream and appended to the
+     * column buffers, so the data set is filled incrementally as the pages arrive.</p>
+     */
+    protected DataSet _loadDataSet(final ElasticSearchDataSetDef elDef) throws Exception {
+        final ElasticSearchDataSetMetadata metadata = (ElasticSearchDataSetMetadata) getDataSetMetadata(elDef);
+        int numberOfColumns = metadata.getNumberOfColumns();
+        int expectedRows = metadata.getNumberOfRows();
+
+        // Create the column buffers.
+        final DataSet dataSet = DataSetFactory.newEmptyDataSet();
+        final ColumnType[] columnTypes = new ColumnType[numberOfColumns];
+        final List[] valueLists = new List[numberOfColumns];
+        String[] fields = new String[numberOfColumns];
+        for (int x = 0; x < numberOfColumns; x++) {
+            fields[x] = metadata.getColumnId(x);
+            columnTypes[x] = metadata.getColumnType(x);
+            List values = ColumnValues.create(columnTypes[x]);
+            if (values == null) values = new ArrayList(Math.max(expectedRows, 10));
+            else if (expectedRows > 0) ((ColumnValues) values).ensureCapacity(expectedRows);
+            dataSet.addColumn(fields[x], columnTypes[x], values);
+            valueLists[x] = dataSet.getColumnByIndex(x).getValues();
+        }
+
+        // Default sorting.
+        List<DataSetSort> sortOps = new ArrayList<DataSetSort>();
+        if (elDef.getColumnSort() != null) {
+            DataSetSort defaultSort = new DataSetSort();
+            defaultSort.addSortColumn(elDef.getColumnSort());
+            sortOps.add(defaultSort);
+        }
+
+        // Split the shards into slices. Sorted results can't be split though.
+        // The shards are the ones of the scrolled index (the first one), since the shard numbers apply per index.
+        int slices = 1;
+        int shards = 0;
+        if (sortOps.isEmpty() && cacheLoadSlices > 1) {
+            String[] scrolledIndex = new String[] {elDef.getIndex()[0]};
+            CountResponse countResponse = clientFactory.newClient(elDef).count(scrolledIndex, elDef.getType());
+            if (countResponse != null && countResponse.getShards() != null) shards = countResponse.getShards();
+            slices = Math.max(1, Math.min(cacheLoadSlices, shards));
+        }
+        final SearchRequest[] requests = new SearchRequest[slices];
+        for (int i = 0; i < slices; i++) {
+            SearchRequest request = new SearchRequest(metadata);
+            request.setFields(fields);
+            request.setSize(cacheLoadPageSize);
+            request.setSorting(sortOps);
+            if (slices > 1) {
+                int[] sliceShards = new int[(shards - i + slices - 1) / slices];
+                for (int j = 0; j < sliceShards.length; j++) sliceShards[j] = i + j * slices;
+                request.setShards(sliceShards);
+            }
+            requests[i] = request;
+        }
+
+        // Append the hits to the column buffers as they're fetched.
+        final SearchHitHandler hitHandler = new SearchHitHandler() {
+            public void handle(List<Object[]> hits) throws Exception {
+                synchronized (dataSet) {
+                    _appendHits(valueLists, hits);
+                }
+            }
+        };
+
+        // Fetch the slices in parallel (the first one in the calling thread).
+        List<Future<Long>> futures = new ArrayList<Future<Long>>();
+        try {
+            for (int i = 1; i < slices; i++) {
+                final SearchRequest request = requests[i];
+                futures.add(getSliceExecutor().submit(new Callable<Long>() {
+                    public Long call() throws Exception {
+                        return clientFactory.newClient(elDef).scroll(elDef, metadata, request, hitHandler);
+                    }
+                }));
+            }
+            clientFactory.newClient(elDef).scroll(elDef, metadata, requests[0], hitHandler);
+            for (Future<Long> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        } finally {
+            for (Future<Long> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return dataSet;
+    }
+
+    protected synchronized ExecutorService getSliceExecutor() {
+        if (sliceExecutor == null) {
+            sliceExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                int threadNumber = 1;
+                public synchronized Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "elasticsearch-slice-" + threadNumber++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sliceExecutor;
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (sliceExecutor != null) {
+            sliceExecutor.shutdownNow();
+            sliceExecutor = null;
+        }
+    }
+
     private void checkOperations(DataSetMetadata metadata, List<DataSetGroup> groupOps, List<DataSetFilter> filterOps, List<DataSetSort> sortOps) {
         if (metadata == null) return;
         
@@ -602,6 +862,8 @@ public class ElasticSearchDataSetProvider implements DataSetProvider {
     
     private void remove(final String uuid) {
         _metadataMap.remove(uuid);
+        clientFactory.getGsonCache().remove(uuid);
+        clientFactory.getGsonCache().getDateLimitsCache().remove(uuid);
         staticDataSetProvider.removeDataSet(uuid);
     }
 }
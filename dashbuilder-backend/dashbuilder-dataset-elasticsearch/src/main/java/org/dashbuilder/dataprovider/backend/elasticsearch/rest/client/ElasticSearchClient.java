@@ -18,6 +18,7 @@ package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.exception.ElasticSearchClientGenericException;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.CountResponse;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.MappingsResponse;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchHitHandler;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchRequest;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchResponse;
 import org.dashbuilder.dataset.def.DataSetDef;
@@ -93,4 +94,20 @@ public interface ElasticSearchClient<T extends ElasticSearchClient> {
      * @return The number of documents for a given index/es and type/es
      */
     SearchResponse search(DataSetDef definition, ElasticSearchDataSetMetadata metadata, SearchRequest searchRequest) throws ElasticSearchClientGenericException;
+
+    /**
+     * <p>Obtain all the documents matching the given request, using the scroll API.</p>
+     * <p>Documents are fetched in pages of <code>searchRequest.getSize()</code> hits (per shard, if the request is not
+     * sorted). Every page is parsed as it's read from the response stream and passed to the given handler, so the
+     * whole result never needs to be held in memory at once.</p>
+     * <p>Aggregations and pagination settings of the request are ignored. Use <code>searchRequest.setShards</code>
+     * to scroll over just a subset of the index shards.</p>
+     *
+     * @param definition The dataset definition.
+     * @param metadata The metadata.
+     * @param searchRequest The search request.
+     * @param handler The handler receiving the resulting hits.
+     * @return The number of documents fetched.
+     */
+    long scroll(DataSetDef definition, ElasticSearchDataSetMetadata metadata, SearchRequest searchRequest, SearchHitHandler handler) throws ElasticSearchClientGenericException;
 }
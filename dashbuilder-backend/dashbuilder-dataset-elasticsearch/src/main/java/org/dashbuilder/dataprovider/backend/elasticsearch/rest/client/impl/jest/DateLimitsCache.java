@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.Query;
+
+/**
+ * <p>Keeps the minimum & maximum values of the date columns used in dynamic date groups.</p>
+ * <p>Every dynamic date histogram needs the date limits before the aggregation can be built, which costs an extra
+ * request to the server. The limits are cached per data set, column and filter for the given time to live. The
+ * entries of a data set are also evicted as soon as the data set gets stale.</p>
+ */
+public class DateLimitsCache {
+
+    protected long timeToLive;
+
+    // Data set uuid -> (column & filter -> limits)
+    protected final Map<String, Map<List<Object>, Entry>> entryMap = new HashMap<String, Map<List<Object>, Entry>>();
+
+    /**
+     * @param timeToLive The time (in milliseconds) the limits are cached. 0 means disabled.
+     */
+    public DateLimitsCache(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Get the limits of the given column.
+     *
+     * @param uuid The data set uuid.
+     * @param columnId The date column identifier.
+     * @param filter The filter query the limits have been calculated for (if any). Queries are compared by value.
+     * @return The minimum & maximum dates or null if not cached (or expired).
+     */
+    public Date[] get(String uuid, String columnId, Query filter) {
+        if (uuid == null || timeToLive <= 0) return null;
+
+        synchronized (entryMap) {
+            Map<List<Object>, Entry> dataSetEntries = entryMap.get(uuid);
+            if (dataSetEntries == null) return null;
+
+            List<Object> key = getKey(columnId, filter);
+            Entry entry = dataSetEntries.get(key);
+            if (entry == null) return null;
+            if (System.currentTimeMillis() - entry.timestamp > timeToLive) {
+                dataSetEntries.remove(key);
+                return null;
+            }
+            return entry.limits;
+        }
+    }
+
+    public void put(String uuid, String columnId, Query filter, Date[] limits) {
+        if (uuid == null || timeToLive <= 0 || limits == null) return;
+
+        synchronized (entryMap) {
+            Map<List<Object>, Entry> dataSetEntries = entryMap.get(uuid);
+            if (dataSetEntries == null) {
+                dataSetEntries = new HashMap<List<Object>, Entry>();
+                entryMap.put(uuid, dataSetEntries);
+            }
+            dataSetEntries.put(getKey(columnId, filter), new Entry(limits, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Evict all the limits of the given data set.
+     */
+    public void remove(String uuid) {
+        synchronized (entryMap) {
+            entryMap.remove(uuid);
+        }
+    }
+
+    public int size() {
+        synchronized (entryMap) {
+            int size = 0;
+            for (Map<List<Object>, Entry> dataSetEntries : entryMap.values()) {
+                size += dataSetEntries.size();
+            }
+            return size;
+        }
+    }
+
+    protected List<Object> getKey(String columnId, Query filter) {
+        return Arrays.<Object>asList(columnId, filter);
+    }
+
+    protected static class Entry {
+
+        Date[] limits;
+        long timestamp;
+
+        Entry(Date[] limits, long timestamp) {
+            this.limits = limits;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -16,18 +16,17 @@
 package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import io.searchbox.action.Action;
 import io.searchbox.client.JestClient;
 import io.searchbox.client.JestClientFactory;
 import io.searchbox.client.JestResult;
 import io.searchbox.client.config.HttpClientConfig;
 import io.searchbox.core.Count;
 import io.searchbox.core.CountResult;
-import io.searchbox.core.Search;
-import io.searchbox.core.search.sort.Sort;
 import io.searchbox.indices.mapping.GetMapping;
 import org.dashbuilder.dataprovider.backend.elasticsearch.ElasticSearchDataSetProvider;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.ElasticSearchClient;
-import org.dashbuilder.dataprovider.backend.elasticsearch.ElasticSearchClientFactory;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.exception.ElasticSearchClientGenericException;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.gson.*;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.*;
@@ -48,7 +47,12 @@ import org.joda.time.format.DateTimeFormatter;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Named;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * <p>The Jest/GSON client for ElasticSearch server.</p>
@@ -60,6 +64,7 @@ import java.util.*;
 public class ElasticSearchJestClient implements ElasticSearchClient<ElasticSearchJestClient> {
 
     public static final int DEFAULT_TIMEOUT = 30000; // Defaults to 30sec.
+    public static final String SCROLL_KEEP_ALIVE = "1m";
 
     protected String serverURL;
     protected String clusterName;
@@ -70,49 +75,66 @@ public class ElasticSearchJestClient implements ElasticSearchClient<ElasticSearc
     private JestClient client;
     protected int timeout = DEFAULT_TIMEOUT;
 
+    // The shared clients (if any). The client above is only used when no pool is set.
+    protected JestClientPool clientPool;
+
+    // The JSON adapters for every data set.
+    protected GsonCache gsonCache;
+
     public ElasticSearchJestClient() {
+        this(null, new GsonCache());
+    }
+
+    public ElasticSearchJestClient(JestClientPool clientPool) {
+        this(clientPool, new GsonCache(clientPool));
+    }
+
+    public ElasticSearchJestClient(JestClientPool clientPool, GsonCache gsonCache) {
+        this.clientPool = clientPool;
+        this.gsonCache = gsonCache;
     }
 
     @Override
     public ElasticSearchJestClient serverURL(String serverURL) {
         this.serverURL = serverURL;
-        if (clusterName != null) buildClient();
+        closeClient();
         return this;
     }
 
     @Override
     public ElasticSearchJestClient index(String... indexes) {
         this.index = indexes;
-        if (serverURL != null && clusterName != null) buildClient();
         return this;
     }
 
     @Override
     public ElasticSearchJestClient type(String... types) {
+        if (index == null && serverURL != null && clusterName != null)
+            throw new IllegalArgumentException("You cannot call elasticsearchRESTEasyClient#type before calling elasticsearchRESTEasyClient#index.");
         this.type = types;
-        if (serverURL != null && clusterName != null) {
-            if (index == null)
-                throw new IllegalArgumentException("You cannot call elasticsearchRESTEasyClient#type before calling elasticsearchRESTEasyClient#index.");
-            buildClient();
-        }
         return this;
     }
 
     @Override
     public ElasticSearchJestClient clusterName(String clusterName) {
         this.clusterName = clusterName;
-        if (serverURL != null) buildClient();
+        closeClient();
         return this;
     }
 
+    /**
+     * <p>Sets the timeout for the requests. It does not apply if the client is using a shared {@link JestClientPool},
+     * as the pool clients are configured with the pool timeouts.</p>
+     */
     @Override
     public void setTimeout(int timeout) {
         this.timeout = timeout;
+        closeClient();
     }
 
     @Override
     public MappingsResponse getMappings(String... index) throws ElasticSearchClientGenericException {
-        if (client == null) throw new IllegalArgumentException("elasticsearchRESTEasyClient instance is not build.");
+        checkClient();
 
         try {
             IndexMappingResponse[] result = new IndexMappingResponse[index.length];
@@ -132,7 +154,7 @@ public class ElasticSearchJestClient implements ElasticSearchClient<ElasticSearc
         if (type != null) builder = builder.addType(type);
 
         GetMapping getMapping = builder.build();
-        JestResult result = client.execute(getMapping);
+        JestResult result = execute(getMapping, index);
         Set<Map.Entry<String, JsonElement>> mappings = result.getJsonObject().get(index).getAsJsonObject().get("mappings").getAsJsonObject().entrySet();
         TypeMappingResponse[] types = new TypeMappingResponse[mappings.size()];
         int x = 0;
@@ -164,13 +186,13 @@ public class ElasticSearchJestClient implements ElasticSearchClient<ElasticSearc
 
     @Override
     public CountResponse count(String[] index, String... type) throws ElasticSearchClientGenericException {
-        if (client == null) throw new IllegalArgumentException("elasticsearchRESTEasyClient instance is not build.");
+        checkClient();
 
         Count.Builder countBuilder = new Count.Builder().addIndex(Arrays.asList(index));
         if (type != null) countBuilder = countBuilder.addType(Arrays.asList(type));
         Count count = countBuilder.build();
         try {
-            CountResult result = client.execute(count);
+            CountResult result = execute(count, join(index));
 
             double hitCount = result.getCount();
             int totalShards = result.getJsonObject().get("_shards").getAsJsonObject().get("total").getAsInt();
@@ -188,7 +210,7 @@ public class ElasticSearchJestClient implements ElasticSearchClient<ElasticSearc
      */
     @Override
     public SearchResponse search(DataSetDef definition, ElasticSearchDataSetMetadata metadata, SearchRequest request) throws ElasticSearchClientGenericException {
-        if (client == null) throw new IllegalArgumentException("elasticsearchRESTEasyClient instance is not build.");
+        checkClient();
 
         ElasticSearchDataSetDef elasticSearchDataSetDef = (ElasticSearchDataSetDef) definition;
         String[] index = ((ElasticSearchDataSetDef) definition).getIndex();
@@ -203,77 +225,239 @@ public class ElasticSearchJestClient implements ElasticSearchClient<ElasticSearc
         // The order for column ids in the resulting dataset, based on the lookup definition.
         List<DataColumn> columns = new LinkedList<DataColumn>();
 
-        // Crate the Gson builder and instance.        
-        GsonBuilder builder = new GsonBuilder();
-        JsonSerializer aggregationSerializer = new AggregationSerializer(metadata, elasticSearchDataSetDef, columns, request, ElasticSearchClientFactory.configure(new ElasticSearchJestClient(), elasticSearchDataSetDef));
-        JsonSerializer querySerializer = new QuerySerializer(metadata, elasticSearchDataSetDef, columns);
-        JsonSerializer searchQuerySerializer = new SearchQuerySerializer(metadata, elasticSearchDataSetDef, columns);
-        JsonDeserializer searchResponseDeserializer = new SearchResponseDeserializer(metadata, elasticSearchDataSetDef, columns);
-        JsonDeserializer hitDeserializer = new HitDeserializer(metadata, elasticSearchDataSetDef, columns);
-        JsonDeserializer aggreationsDeserializer = new AggregationsDeserializer(metadata, elasticSearchDataSetDef, columns);
-        builder.registerTypeAdapter(DataSetGroup.class, aggregationSerializer);
-        builder.registerTypeAdapter(Query.class, querySerializer);
-        builder.registerTypeAdapter(SearchQuery.class, searchQuerySerializer);
-        builder.registerTypeAdapter(SearchResponse.class, searchResponseDeserializer);
-        builder.registerTypeAdapter(SearchHitResponse.class, hitDeserializer);
-        builder.registerTypeAdapter(SearchHitResponse[].class, aggreationsDeserializer);
-        Gson gson = builder.create();
-
-        // Set request lookup constraints into the query JSON request.
-        JsonElement gsonQueryElement = gson.toJsonTree(query);
-        JsonObject gsonQuery = null;
-        if (gsonQueryElement instanceof JsonObject) gsonQuery = (JsonObject) gsonQueryElement;
-
-        // Add the group functions translated as query aggregations.
-        List<JsonObject> aggregationObjects = null;
-        if (aggregations != null && !aggregations.isEmpty()) {
-            aggregationObjects = new LinkedList<JsonObject>();
-            for (DataSetGroup aggregation : aggregations) {
-                JsonElement object = gson.toJsonTree(aggregation, DataSetGroup.class);
-                if (object != null && object.isJsonObject()) {
-                    aggregationObjects.add((JsonObject) object);
+        // Get the Gson instance for the data set. Its adapters pick the columns & the request from the request context.
+        Gson gson = gsonCache.get(elasticSearchDataSetDef, metadata);
+        AbstractAdapter.beginRequest(columns, request);
+        try {
+            // Set request lookup constraints into the query JSON request.
+            JsonElement gsonQueryElement = gson.toJsonTree(query);
+            JsonObject gsonQuery = null;
+            if (gsonQueryElement instanceof JsonObject) gsonQuery = (JsonObject) gsonQueryElement;
+
+            // Add the group functions translated as query aggregations.
+            List<JsonObject> aggregationObjects = null;
+            if (aggregations != null && !aggregations.isEmpty()) {
+                aggregationObjects = new LinkedList<JsonObject>();
+                for (DataSetGroup aggregation : aggregations) {
+                    JsonElement object = gson.toJsonTree(aggregation, DataSetGroup.class);
+                    if (object != null && object.isJsonObject()) {
+                        aggregationObjects.add((JsonObject) object);
+                    }
                 }
             }
+
+            // Build the search request.
+            SearchQuery searchQuery = new SearchQuery(fields, gsonQuery, aggregationObjects, start, size);
+            JsonObject searchObject = gson.toJsonTree(searchQuery, SearchQuery.class).getAsJsonObject();
+
+            // Add sorting.
+            if (sorting != null && !sorting.isEmpty()) {
+                searchObject.add("sort", serializeSorting(sorting));
+            }
+
+            StringBuilder searchURL = new StringBuilder(getBaseURL()).append("/").append(index[0]);
+            if (type != null && type.length > 0) searchURL.append("/").append(type[0]);
+            searchURL.append("/_search");
+
+            // Perform the query to the EL server and read the response values straight into the resulting columns.
+            final SearchResponseParser parser = new SearchResponseParser(metadata, elasticSearchDataSetDef, null);
+            return post(searchURL.toString(), searchObject.toString(), index[0], new ResponseReader<SearchResponse>() {
+                public SearchResponse read(JsonReader reader) throws IOException {
+                    return parser.parse(reader);
+                }
+            });
+        } catch (ElasticSearchClientGenericException e) {
+            throw e;
+        } catch (JsonParseException e) {
+            throw new ElasticSearchClientGenericException(e.getMessage(), e);
+        } catch (Exception e) {
+            throw new ElasticSearchClientGenericException("An error ocurred during search operation.", e);
+        } finally {
+            AbstractAdapter.endRequest();
         }
+    }
 
-        // Build the search request.
-        SearchQuery searchQuery = new SearchQuery(fields, gsonQuery, aggregationObjects, start, size);
-        String serializedSearchQuery = gson.toJson(searchQuery, SearchQuery.class);
-        Search.Builder searchRequestBuilder = new Search.Builder(serializedSearchQuery).addIndex(index[0]);
-        if (type != null && type.length > 0) searchRequestBuilder.addType(type[0]);
-
-        // Add sorting.
-        if (sorting != null && !sorting.isEmpty()) {
-            for (DataSetSort sortOp : sorting) {
-                List<ColumnSort> columnSorts = sortOp.getColumnSortList();
-                if (columnSorts != null && !columnSorts.isEmpty()) {
-                    for (ColumnSort columnSort : columnSorts) {
-                        Sort sort = new Sort(columnSort.getColumnId(), columnSort.getOrder().asInt() == 1 ? Sort.Sorting.ASC : Sort.Sorting.DESC);
-                        searchRequestBuilder.addSort(sort);
-                    }
+    protected JsonArray serializeSorting(List<DataSetSort> sorting) {
+        JsonArray sortArray = new JsonArray();
+        for (DataSetSort sortOp : sorting) {
+            List<ColumnSort> columnSorts = sortOp.getColumnSortList();
+            if (columnSorts != null) {
+                for (ColumnSort columnSort : columnSorts) {
+                    JsonObject order = new JsonObject();
+                    order.addProperty("order", columnSort.getOrder().asInt() == 1 ? "asc" : "desc");
+                    JsonObject sortObject = new JsonObject();
+                    sortObject.add(columnSort.getColumnId(), order);
+                    sortArray.add(sortObject);
                 }
             }
         }
+        return sortArray;
+    }
+
+    @Override
+    public long scroll(DataSetDef definition, ElasticSearchDataSetMetadata metadata, SearchRequest request, SearchHitHandler handler) throws ElasticSearchClientGenericException {
+        checkClient();
+
+        ElasticSearchDataSetDef elasticSearchDataSetDef = (ElasticSearchDataSetDef) definition;
+        String[] index = elasticSearchDataSetDef.getIndex();
+        String[] type = elasticSearchDataSetDef.getType();
+        List<DataSetSort> sorting = request.getSorting();
+        boolean sorted = sorting != null && !sorting.isEmpty();
+
+        // The resulting columns, in the same order as the request fields.
+        List<DataColumn> columns = new LinkedList<DataColumn>();
+
+        // Build the search request.
+        Gson gson = gsonCache.get(elasticSearchDataSetDef, metadata);
+        JsonObject searchObject;
+        AbstractAdapter.beginRequest(columns, request);
+        try {
+            JsonElement gsonQueryElement = gson.toJsonTree(request.getQuery());
+            JsonObject gsonQuery = null;
+            if (gsonQueryElement instanceof JsonObject) gsonQuery = (JsonObject) gsonQueryElement;
+            SearchQuery searchQuery = new SearchQuery(request.getFields(), gsonQuery, null, 0, request.getSize());
+            searchObject = gson.toJsonTree(searchQuery, SearchQuery.class).getAsJsonObject();
+        } finally {
+            AbstractAdapter.endRequest();
+        }
+
+        // Sorted scrolls can't use the (faster) scan search type.
+        if (sorted) {
+            searchObject.add("sort", serializeSorting(sorting));
+        }
+
+        StringBuilder searchURL = new StringBuilder(getBaseURL()).append("/").append(index[0]);
+        if (type != null && type.length > 0) searchURL.append("/").append(type[0]);
+        searchURL.append("/_search?scroll=").append(SCROLL_KEEP_ALIVE);
+        if (!sorted) searchURL.append("&search_type=scan");
+        int[] shards = request.getShards();
+        if (shards != null && shards.length > 0) {
+            searchURL.append("&preference=_shards:").append(shards[0]);
+            for (int i = 1; i < shards.length; i++) searchURL.append(",").append(shards[i]);
+        }
+        String scrollURL = getBaseURL() + "/_search/scroll?scroll=" + SCROLL_KEEP_ALIVE;
+
+        // Fetch and handle the hits page by page.
+        final ScrollResponseParser parser = new ScrollResponseParser(metadata, elasticSearchDataSetDef, columns);
+        ResponseReader<ScrollResponseParser.ScrollPage> pageReader = new ResponseReader<ScrollResponseParser.ScrollPage>() {
+            public ScrollResponseParser.ScrollPage read(JsonReader reader) throws IOException {
+                return parser.parse(reader);
+            }
+        };
+        String scrollId = null;
+        long total = 0;
+        try {
+            ScrollResponseParser.ScrollPage page = post(searchURL.toString(), searchObject.toString(), index[0], pageReader);
+            scrollId = page.getScrollId();
+
+            // Scan requests just return the scroll identifier, the hits come along with the next requests.
+            if (!sorted && scrollId != null) {
+                page = post(scrollURL, scrollId, index[0], pageReader);
+                scrollId = page.getScrollId();
+            }
+            while (!page.getHits().isEmpty()) {
+                handler.handle(page.getHits());
+                total += page.getHits().size();
+                if (scrollId == null) break;
+
+                page = post(scrollURL, scrollId, index[0], pageReader);
+                scrollId = page.getScrollId();
+            }
+            return total;
+        } catch (ElasticSearchClientGenericException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ElasticSearchClientGenericException("An error ocurred during scroll operation.", e);
+        } finally {
+            clearScroll(scrollId);
+        }
+    }
+
+    /**
+     * Reads a response from the EL server.
+     */
+    protected interface ResponseReader<T> {
+
+        T read(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * Send a request to the EL server and parse the response as it's read from the connection.
+     * <p>If the client is using a shared {@link JestClientPool}, the request waits for a free connection to the server.</p>
+     */
+    protected <T> T post(final String url, final String body, String index, final ResponseReader<T> responseReader) throws Exception {
+        Callable<T> request = new Callable<T>() {
+            public T call() throws Exception {
+                return post(url, body, responseReader);
+            }
+        };
+        if (clientPool != null) return clientPool.execute(serverURL, request, index);
+        return request.call();
+    }
+
+    protected <T> T post(String url, String body, ResponseReader<T> responseReader) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(clientPool != null ? clientPool.getConnectTimeout() : timeout);
+        connection.setReadTimeout(clientPool != null ? clientPool.getReadTimeout() : timeout);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+        OutputStream out = connection.getOutputStream();
+        try {
+            out.write(body.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            String error = readError(connection);
+            throw new ElasticSearchClientGenericException("Request to [" + url + "] failed with status " + status + ". This is the internal error: \n" + error);
+        }
+        JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8")));
+        try {
+            return responseReader.read(reader);
+        } finally {
+            reader.close();
+        }
+    }
 
-        // Perform the query to the EL server.
-        Search searchRequest = searchRequestBuilder.build();
-        JestResult result = null;
+    /**
+     * Release the resources held by the EL server for the given scroll (if any).
+     */
+    protected void clearScroll(String scrollId) {
+        if (scrollId == null) return;
         try {
-            //System.out.println(serializedSearchQuery);
-            result = client.execute(searchRequest);
+            URL url = new URL(getBaseURL() + "/_search/scroll/" + URLEncoder.encode(scrollId, "UTF-8"));
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setRequestMethod("DELETE");
+            connection.getResponseCode();
+            readError(connection);
         } catch (Exception e) {
-            throw new ElasticSearchClientGenericException("An error ocurred during search operation.", e);
+            // The scroll will expire anyway.
         }
-        JsonObject resultObject = result.getJsonObject();
-        if (resultObject.get("error") != null) {
-            String errorMessage = resultObject.get("error").getAsString();
-            throw new ElasticSearchClientGenericException("An error ocurred during search operation. This is the internal error: \n" + errorMessage);
+    }
+
+    protected String readError(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getErrorStream();
+        if (in == null) return null;
+        try {
+            Reader reader = new InputStreamReader(in, "UTF-8");
+            StringBuilder out = new StringBuilder();
+            char[] buffer = new char[1024];
+            int n;
+            while ((n = reader.read(buffer)) != -1) out.append(buffer, 0, n);
+            return out.toString();
+        } finally {
+            in.close();
         }
-        //System.out.println(resultObject.toString());
-        SearchResponse searchResult = gson.fromJson(resultObject, SearchResponse.class);
-        return searchResult;
     }
 
+    protected String getBaseURL() {
+        return serverURL.endsWith("/") ? serverURL.substring(0, serverURL.length() - 1) : serverURL;
+    }
 
     public static class SearchQuery {
         String[] fields;
@@ -461,10 +645,37 @@ public class ElasticSearchJestClient implements ElasticSearchClient<ElasticSearc
         return intervalExpression;
     }
 
+    protected void checkClient() throws IllegalArgumentException {
+        if (serverURL == null || clusterName == null) throw new IllegalArgumentException("elasticsearchRESTEasyClient instance is not build.");
+    }
+
+    /**
+     * Executes the action through the shared client pool (if any) or through the client instance.
+     */
+    protected <T extends JestResult> T execute(Action<T> action, String index) throws Exception {
+        if (clientPool != null) return clientPool.execute(serverURL, action, index);
+        if (client == null) buildClient();
+        return client.execute(action);
+    }
+
     protected JestClient buildClient() throws IllegalArgumentException {
         return client = buildNewClient(serverURL, clusterName, timeout);
     }
 
+    protected void closeClient() {
+        if (client != null) {
+            client.shutdownClient();
+            client = null;
+        }
+    }
+
+    protected static String join(String[] values) {
+        if (values == null || values.length == 0) return null;
+        StringBuilder out = new StringBuilder(values[0]);
+        for (int i = 1; i < values.length; i++) out.append(",").append(values[i]);
+        return out.toString();
+    }
+
     public static JestClient buildNewClient(String serverURL, String clusterName, int timeout) throws IllegalArgumentException {
         if (serverURL == null || serverURL.trim().length() == 0)
             throw new IllegalArgumentException("Parameter serverURL is missing.");
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.dashbuilder.dataprovider.backend.elasticsearch.ElasticSearchClientFactory;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.ElasticSearchClient;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.gson.*;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.Query;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchHitResponse;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchResponse;
+import org.dashbuilder.dataset.def.ElasticSearchDataSetDef;
+import org.dashbuilder.dataset.group.DataSetGroup;
+import org.dashbuilder.dataset.impl.ElasticSearchDataSetMetadata;
+
+/**
+ * <p>Keeps the Gson instance (along with its JSON adapters) used to serialize the search requests of every data set.</p>
+ * <p>The adapters are created with no columns nor request attached. They take both from the request context of the
+ * {@link AbstractAdapter} class, so the instances are thread safe and they can be shared by all the requests sent
+ * for the same data set. An entry is rebuilt as soon as the data set definition or metadata instances change.</p>
+ */
+public class GsonCache {
+
+    protected final Map<String, Entry> entryMap = new HashMap<String, Entry>();
+
+    // The shared clients used by the adapters that need to query the server (f.i: to calculate date limits).
+    protected JestClientPool clientPool;
+
+    // The date limits shared by the aggregation serializers.
+    protected DateLimitsCache dateLimitsCache;
+
+    public GsonCache() {
+    }
+
+    public GsonCache(JestClientPool clientPool) {
+        this.clientPool = clientPool;
+    }
+
+    public GsonCache(JestClientPool clientPool, DateLimitsCache dateLimitsCache) {
+        this.clientPool = clientPool;
+        this.dateLimitsCache = dateLimitsCache;
+    }
+
+    public DateLimitsCache getDateLimitsCache() {
+        return dateLimitsCache;
+    }
+
+    /**
+     * Get the Gson instance for the given data set.
+     *
+     * @param definition The data set definition.
+     * @param metadata The data set metadata.
+     */
+    public Gson get(ElasticSearchDataSetDef definition, ElasticSearchDataSetMetadata metadata) {
+        String uuid = definition.getUUID();
+        if (uuid == null) return create(definition, metadata);
+
+        synchronized (entryMap) {
+            Entry entry = entryMap.get(uuid);
+            if (entry == null || entry.definition != definition || entry.metadata != metadata) {
+                entry = new Entry(definition, metadata, create(definition, metadata));
+                entryMap.put(uuid, entry);
+            }
+            return entry.gson;
+        }
+    }
+
+    public void remove(String uuid) {
+        synchronized (entryMap) {
+            entryMap.remove(uuid);
+        }
+    }
+
+    public int size() {
+        synchronized (entryMap) {
+            return entryMap.size();
+        }
+    }
+
+    protected ElasticSearchClient createClient(ElasticSearchDataSetDef definition) {
+        return ElasticSearchClientFactory.configure(new ElasticSearchJestClient(clientPool, this), definition);
+    }
+
+    protected Gson create(ElasticSearchDataSetDef definition, ElasticSearchDataSetMetadata metadata) {
+        AggregationSerializer aggregationSerializer = new AggregationSerializer(metadata, definition, null, createClient(definition));
+        aggregationSerializer.setDateLimitsCache(dateLimitsCache);
+
+        GsonBuilder builder = new GsonBuilder();
+        builder.registerTypeAdapter(DataSetGroup.class, aggregationSerializer);
+        builder.registerTypeAdapter(Query.class, new QuerySerializer(metadata, definition, null));
+        builder.registerTypeAdapter(ElasticSearchJestClient.SearchQuery.class, new SearchQuerySerializer(metadata, definition, null));
+        builder.registerTypeAdapter(SearchResponse.class, new SearchResponseDeserializer(metadata, definition, null));
+        builder.registerTypeAdapter(SearchHitResponse.class, new HitDeserializer(metadata, definition, null));
+        builder.registerTypeAdapter(SearchHitResponse[].class, new AggregationsDeserializer(metadata, definition, null));
+        return builder.create();
+    }
+
+    protected static class Entry {
+
+        ElasticSearchDataSetDef definition;
+        ElasticSearchDataSetMetadata metadata;
+        Gson gson;
+
+        Entry(ElasticSearchDataSetDef definition, ElasticSearchDataSetMetadata metadata, Gson gson) {
+            this.definition = definition;
+            this.metadata = metadata;
+            this.gson = gson;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request metrics of a {@link JestClientPool}. All the times are in nanoseconds.
+ */
+public class JestClientMetrics {
+
+    protected AtomicInteger inFlightRequests = new AtomicInteger(0);
+    protected AtomicInteger waitingRequests = new AtomicInteger(0);
+    protected AtomicLong numberOfRequests = new AtomicLong(0);
+    protected AtomicLong poolWaitTime = new AtomicLong(0);
+    protected AtomicLong maxPoolWaitTime = new AtomicLong(0);
+    protected ConcurrentMap<String, Latency> indexLatencyMap = new ConcurrentHashMap<String, Latency>();
+
+    /**
+     * Number of requests being executed right now.
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    /**
+     * Number of requests waiting for a free connection.
+     */
+    public int getWaitingRequests() {
+        return waitingRequests.get();
+    }
+
+    /**
+     * Total number of requests executed.
+     */
+    public long getNumberOfRequests() {
+        return numberOfRequests.get();
+    }
+
+    /**
+     * Total time spent waiting for a free connection.
+     */
+    public long getPoolWaitTime() {
+        return poolWaitTime.get();
+    }
+
+    /**
+     * The longest time a request has been waiting for a free connection.
+     */
+    public long getMaxPoolWaitTime() {
+        return maxPoolWaitTime.get();
+    }
+
+    /**
+     * The average time spent waiting for a free connection.
+     */
+    public long getAveragePoolWaitTime() {
+        long n = numberOfRequests.get();
+        return n == 0 ? 0 : poolWaitTime.get() / n;
+    }
+
+    /**
+     * The indexes requested so far.
+     */
+    public Set<String> getIndexes() {
+        return indexLatencyMap.keySet();
+    }
+
+    /**
+     * The request latency for the given index/es.
+     * @return null if no requests have been sent to the given index/es.
+     */
+    public Latency getLatency(String index) {
+        return indexLatencyMap.get(index);
+    }
+
+    public void reset() {
+        numberOfRequests.set(0);
+        poolWaitTime.set(0);
+        maxPoolWaitTime.set(0);
+        indexLatencyMap.clear();
+    }
+
+    protected void requestQueued() {
+        waitingRequests.incrementAndGet();
+    }
+
+    protected void requestDequeued(long waitTime) {
+        waitingRequests.decrementAndGet();
+        poolWaitTime.addAndGet(waitTime);
+        long max = maxPoolWaitTime.get();
+        while (waitTime > max && !maxPoolWaitTime.compareAndSet(max, waitTime)) {
+            max = maxPoolWaitTime.get();
+        }
+    }
+
+    protected void requestStarted() {
+        inFlightRequests.incrementAndGet();
+    }
+
+    protected void requestFinished(String index, long time) {
+        inFlightRequests.decrementAndGet();
+        numberOfRequests.incrementAndGet();
+
+        String key = index == null ? "_all" : index;
+        Latency latency = indexLatencyMap.get(key);
+        if (latency == null) {
+            Latency newLatency = new Latency();
+            latency = indexLatencyMap.putIfAbsent(key, newLatency);
+            if (latency == null) latency = newLatency;
+        }
+        latency.add(time);
+    }
+
+    /**
+     * Request latency for a given index.
+     */
+    public static class Latency {
+
+        protected AtomicLong numberOfRequests = new AtomicLong(0);
+        protected AtomicLong totalTime = new AtomicLong(0);
+        protected AtomicLong maxTime = new AtomicLong(0);
+
+        public long getNumberOfRequests() {
+            return numberOfRequests.get();
+        }
+
+        public long getTotalTime() {
+            return totalTime.get();
+        }
+
+        public long getMaxTime() {
+            return maxTime.get();
+        }
+
+        public long getAverageTime() {
+            long n = numberOfRequests.get();
+            return n == 0 ? 0 : totalTime.get() / n;
+        }
+
+        protected void add(long time) {
+            numberOfRequests.incrementAndGet();
+            totalTime.addAndGet(time);
+            long max = maxTime.get();
+            while (time > max && !maxTime.compareAndSet(max, time)) {
+                max = maxTime.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestClientFactory;
+import io.searchbox.client.JestResult;
+import io.searchbox.client.config.HttpClientConfig;
+
+/**
+ * <p>Keeps a single Jest client (and so a single HTTP connection pool) per ElasticSearch server URL.</p>
+ * <p>Every server client allows up to <code>maxConnections</code> concurrent requests, the rest wait for a free
+ * connection. Clients not used for longer than the <code>keepAlive</code> time are shut down.</p>
+ */
+public class JestClientPool {
+
+    protected int maxConnections;
+    protected int connectTimeout;
+    protected int readTimeout;
+    protected long keepAlive;
+
+    protected final Map<String, PooledClient> clientMap = new HashMap<String, PooledClient>();
+    protected final JestClientMetrics metrics = new JestClientMetrics();
+
+    /**
+     * @param maxConnections Max. number of concurrent connections per server.
+     * @param connectTimeout The connection timeout in milliseconds.
+     * @param readTimeout The socket read timeout in milliseconds.
+     * @param keepAlive The time (in milliseconds) an unused server client is kept open. 0 means forever.
+     */
+    public JestClientPool(int maxConnections, int connectTimeout, int readTimeout, long keepAlive) {
+        if (maxConnections < 1) throw new IllegalArgumentException("Max. connections must be greater than 0.");
+        this.maxConnections = maxConnections;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.keepAlive = keepAlive;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public JestClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * The number of server clients currently open.
+     */
+    public int size() {
+        synchronized (clientMap) {
+            return clientMap.size();
+        }
+    }
+
+    /**
+     * Execute an action against the given server.
+     * @param serverURL The server URL.
+     * @param action The action to execute.
+     * @param index The target index/es (used for metric purposes only).
+     */
+    public <T extends JestResult> T execute(String serverURL, final Action<T> action, String index) throws Exception {
+        final PooledClient pooledClient = acquire(serverURL);
+        try {
+            return execute(pooledClient, new Callable<T>() {
+                public T call() throws Exception {
+                    return pooledClient.client.execute(action);
+                }
+            }, index);
+        } finally {
+            release(pooledClient);
+        }
+    }
+
+    /**
+     * Execute a request not handled by the Jest client (f.i: a request whose response is read as a stream) against
+     * the given server. The request is subject to the same connection limits as any other request sent to the server.
+     * @param serverURL The server URL.
+     * @param request The request to execute.
+     * @param index The target index/es (used for metric purposes only).
+     */
+    public <T> T execute(String serverURL, Callable<T> request, String index) throws Exception {
+        PooledClient pooledClient = acquire(serverURL);
+        try {
+            return execute(pooledClient, request, index);
+        } finally {
+            release(pooledClient);
+        }
+    }
+
+    protected <T> T execute(PooledClient pooledClient, Callable<T> request, String index) throws Exception {
+        // Wait for a free connection
+        metrics.requestQueued();
+        long waitStart = System.nanoTime();
+        try {
+            pooledClient.connections.acquire();
+        } finally {
+            metrics.requestDequeued(System.nanoTime() - waitStart);
+        }
+
+        long start = System.nanoTime();
+        metrics.requestStarted();
+        try {
+            return request.call();
+        } finally {
+            metrics.requestFinished(index, System.nanoTime() - start);
+            pooledClient.connections.release();
+        }
+    }
+
+    /**
+     * Shut down all the server clients.
+     */
+    public void shutdown() {
+        synchronized (clientMap) {
+            for (PooledClient pooledClient : clientMap.values()) {
+                pooledClient.client.shutdownClient();
+            }
+            clientMap.clear();
+        }
+    }
+
+    protected PooledClient acquire(String serverURL) {
+        if (serverURL == null || serverURL.trim().length() == 0) {
+            throw new IllegalArgumentException("Parameter serverURL is missing.");
+        }
+        synchronized (clientMap) {
+            long now = System.currentTimeMillis();
+            evictIdleClients(now);
+
+            PooledClient pooledClient = clientMap.get(serverURL);
+            if (pooledClient == null) {
+                pooledClient = new PooledClient(createClient(serverURL), maxConnections);
+                clientMap.put(serverURL, pooledClient);
+            }
+            pooledClient.users++;
+            pooledClient.lastUsed = now;
+            return pooledClient;
+        }
+    }
+
+    protected void release(PooledClient pooledClient) {
+        synchronized (clientMap) {
+            pooledClient.users--;
+            pooledClient.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    protected void evictIdleClients(long now) {
+        if (keepAlive <= 0) return;
+
+        Iterator<PooledClient> it = clientMap.values().iterator();
+        while (it.hasNext()) {
+            PooledClient pooledClient = it.next();
+            if (pooledClient.users == 0 && now - pooledClient.lastUsed > keepAlive) {
+                pooledClient.client.shutdownClient();
+                it.remove();
+            }
+        }
+    }
+
+    protected JestClient createClient(String serverURL) {
+        JestClientFactory factory = new JestClientFactory();
+        factory.setHttpClientConfig(new HttpClientConfig
+                .Builder(serverURL)
+                .multiThreaded(true)
+                .maxTotalConnection(maxConnections)
+                .defaultMaxTotalConnectionPerRoute(maxConnections)
+                .connTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build());
+
+        return factory.getObject();
+    }
+
+    protected static class PooledClient {
+
+        JestClient client;
+        Semaphore connections;
+        int users = 0;
+        long lastUsed;
+
+        PooledClient(JestClient client, int maxConnections) {
+            this.client = client;
+            this.connections = new Semaphore(maxConnections, true);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.gson;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.ElasticSearchJestClient;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchRequest;
 import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.def.ElasticSearchDataSetDef;
 import org.dashbuilder.dataset.impl.ElasticSearchDataSetMetadata;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +27,27 @@ public abstract class AbstractAdapter<T extends AbstractAdapter> {
     protected ElasticSearchDataSetDef definition;
     protected SearchRequest request;
 
+    // The state of the search requests being processed by the current thread. Used by the shared adapter instances.
+    private static final ThreadLocal<LinkedList<Object[]>> requestContext = new ThreadLocal<LinkedList<Object[]>>() {
+        @Override
+        protected LinkedList<Object[]> initialValue() {
+            return new LinkedList<Object[]>();
+        }
+    };
+
+    /**
+     * <p>Binds the resulting columns and the search request to the current thread. Adapters created with no columns
+     * (or request) pick them from here, so a single adapter instance can be shared among concurrent requests.</p>
+     * <p>Nested requests are supported. Every call must be followed by a call to <code>endRequest</code>.</p>
+     */
+    public static void beginRequest(List<DataColumn> columns, SearchRequest request) {
+        requestContext.get().addFirst(new Object[] {columns, request});
+    }
+
+    public static void endRequest() {
+        requestContext.get().removeFirst();
+    }
+
     public AbstractAdapter(ElasticSearchDataSetMetadata metadata, ElasticSearchDataSetDef definition, List<DataColumn> columns) {
         this.metadata = metadata;
         this.columns = columns;
@@ -56,7 +84,88 @@ public abstract class AbstractAdapter<T extends AbstractAdapter> {
         return result;
     }
 
+    /**
+     * Read the field values of a search hit from the given stream.
+     * <p>Both the requested <code>fields</code> and the <code>_source</code> document values are read.</p>
+     *
+     * @param reader The reader positioned at the beginning of the hit object.
+     * @param parser The parser used to read the field values.
+     * @return The field values.
+     */
+    protected static Map<String, JsonElement> readHitFields(JsonReader reader, JsonParser parser) throws IOException {
+        Map<String, JsonElement> fields = new HashMap<String, JsonElement>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("fields".equals(name) || "_source".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String fieldName = reader.nextName();
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        // Requested fields always come as an array of values.
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            JsonElement element = parser.parse(reader);
+                            if (element.isJsonPrimitive()) fields.put(fieldName, element);
+                        }
+                        reader.endArray();
+                    } else {
+                        fields.put(fieldName, parser.parse(reader));
+                    }
+                }
+                reader.endObject();
+            }
+            else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return fields;
+    }
+
+    /**
+     * Get the field values of a bucket returned by a bucketed aggregation.
+     *
+     * @param columnId The identifier of the column the aggregation has been defined for.
+     * @param bucket The bucket.
+     * @return The bucket key (as the given column value) along with the value of the sub aggregations.
+     */
+    protected Map<String, JsonElement> parseBucket(String columnId, JsonObject bucket) {
+        Map<String, JsonElement> bucketFields = new HashMap<String, JsonElement>();
+        boolean keyAsStringFound = false;
+        for (Map.Entry<String, JsonElement> bucketEntry : bucket.entrySet()) {
+            String aggName = bucketEntry.getKey();
+            if ("key_as_string".equals(aggName)) {
+                bucketFields.put(columnId, bucketEntry.getValue());
+                keyAsStringFound = true;
+            }
+            else if (!keyAsStringFound && "key".equals(aggName)) {
+                bucketFields.put(columnId, bucketEntry.getValue());
+            } else if ("doc_count".equals(aggName)) {
+                // Do nothing.
+            } else if (getColumn(aggName) != null) {
+                JsonElement aggValueElement = bucketEntry.getValue();
+                if (aggValueElement != null && aggValueElement.isJsonPrimitive()) bucketFields.put(aggName, aggValueElement);
+                else if (aggValueElement != null && aggValueElement.isJsonObject()) bucketFields.put(aggName, ((JsonObject) bucketEntry.getValue()).get("value"));
+            }
+        }
+        return bucketFields;
+    }
+
+    protected List<DataColumn> getColumns() {
+        if (columns != null) return columns;
+        Object[] current = requestContext.get().peek();
+        return current != null ? (List<DataColumn>) current[0] : null;
+    }
+
+    protected SearchRequest getRequest() {
+        if (request != null) return request;
+        Object[] current = requestContext.get().peek();
+        return current != null ? (SearchRequest) current[1] : null;
+    }
+
     protected DataColumn getColumn(String columnId) {
+        List<DataColumn> columns = getColumns();
         if (columns != null && columnId != null && !columns.isEmpty()) {
             for (DataColumn column : columns) {
                 if (columnId.equals(column.getId())) return column;
@@ -5,7 +5,9 @@ import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.ElasticSearchClient;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.exception.ElasticSearchClientGenericException;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.DateLimitsCache;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.ElasticSearchJestClient;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.Query;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchHitResponse;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchRequest;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchResponse;
@@ -47,6 +49,7 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
 
     protected BackendIntervalBuilderDynamicDate intervalBuilder;
     protected ElasticSearchClient client;
+    protected DateLimitsCache dateLimitsCache;
 
     public AggregationSerializer(ElasticSearchDataSetMetadata metadata, ElasticSearchDataSetDef definition, List<DataColumn> columns, ElasticSearchClient client) {
         super(metadata, definition, columns);
@@ -60,6 +63,14 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
         intervalBuilder = new BackendIntervalBuilderDynamicDate();
     }
 
+    public DateLimitsCache getDateLimitsCache() {
+        return dateLimitsCache;
+    }
+
+    public void setDateLimitsCache(DateLimitsCache dateLimitsCache) {
+        this.dateLimitsCache = dateLimitsCache;
+    }
+
     public JsonObject serialize(DataSetGroup groupOp, Type typeOfSrc, JsonSerializationContext context) {
         ColumnGroup columnGroup = groupOp.getColumnGroup();
         List<GroupFunction> groupFunctions = groupOp.getGroupFunctions();
@@ -158,6 +169,7 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
             parent.add(resultingColumnId, result);
 
             // Add the resulting dataset column.
+            List<DataColumn> columns = getColumns();
             if (columns != null) {
                 DataColumn column = new DataColumnImpl(resultingColumnId, columnType);
                 column.setColumnGroup(new ColumnGroup(sourceId, resultingColumnId, columnGroup.getStrategy(), columnGroup.getMaxIntervals(), columnGroup.getIntervalSize()));
@@ -179,6 +191,7 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
             parent.add(resultingColumnId, result);
 
             // Add the resulting dataset column.
+            List<DataColumn> columns = getColumns();
             if (columns != null) {
                 DataColumn column = new DataColumnImpl(resultingColumnId, columnType);
                 column.setColumnGroup(new ColumnGroup(sourceId, resultingColumnId, columnGroup.getStrategy(), columnGroup.getMaxIntervals(), columnGroup.getIntervalSize()));
@@ -294,6 +307,7 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
             } 
 
             // Add the resulting dataset column.
+            List<DataColumn> columns = getColumns();
             if (columns != null) {
                 DataColumn column = new DataColumnImpl(resultingColumnId, ColumnType.LABEL);
                 column.setIntervalType(dateIntervalType.name());
@@ -427,6 +441,7 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
             parent.add(columnId, subObject);
 
             // Add the resulting dataset column.
+            List<DataColumn> columns = getColumns();
             if (columns != null) {
                 DataColumn column = new DataColumnImpl(columnId, resultingColumnType);
                 columns.add(column);
@@ -441,7 +456,16 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
      * @return The minimum and maximum dates.
      */
     protected Date[] calculateDateLimits(String dateColumnId) throws ElasticSearchClientGenericException{
-        
+
+        // Look for the limits already calculated for the same column & filter.
+        SearchRequest currentRequest = getRequest();
+        Query filter = currentRequest != null ? currentRequest.getQuery() : null;
+        String uuid = definition != null ? definition.getUUID() : null;
+        if (dateLimitsCache != null) {
+            Date[] limits = dateLimitsCache.get(uuid, dateColumnId, filter);
+            if (limits != null) return limits;
+        }
+
         String minDateColumnId = dateColumnId + "_min";
         String maxDateColumnId = dateColumnId + "_max";
         
@@ -455,7 +479,7 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
         request.setAggregations(Arrays.asList(aggregation));
         
         // Append the filter clauses
-        if (this.request != null && this.request.getQuery() != null) request.setQuery(this.request.getQuery());
+        if (filter != null) request.setQuery(filter);
         
         // Perform the query.
         SearchResponse searchResult = client.search(definition, metadata, request);
@@ -467,7 +491,11 @@ public class AggregationSerializer extends AbstractAdapter<AggregationSerializer
                 if (fields != null && !fields.isEmpty()) {
                     Date minValue = (Date) fields.get(minDateColumnId);
                     Date maxValue = (Date) fields.get(maxDateColumnId);
-                    return new Date[] {minValue, maxValue};
+                    Date[] limits = new Date[] {minValue, maxValue};
+                    if (dateLimitsCache != null && minValue != null && maxValue != null) {
+                        dateLimitsCache.put(uuid, dateColumnId, filter, limits);
+                    }
+                    return limits;
                 }
             }
         }
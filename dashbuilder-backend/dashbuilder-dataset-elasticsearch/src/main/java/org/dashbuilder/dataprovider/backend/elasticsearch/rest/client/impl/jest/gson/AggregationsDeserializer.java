@@ -36,27 +36,9 @@ public class AggregationsDeserializer extends AbstractAdapter<AggregationsDeseri
                         if (bucketsElement != null && bucketsElement.isJsonArray()) {
                             Iterator<JsonElement> bucketsIt = ((JsonArray)bucketsElement).iterator();
                             while (bucketsIt.hasNext()) {
-                                Map<String, JsonElement> bucketFields = new HashMap<String, JsonElement>();
                                 JsonObject bucket = (JsonObject) bucketsIt.next();
-                                Set<Map.Entry<String, JsonElement>> bucketEntries = bucket.entrySet();
-                                boolean keyAsStringFound = false;
-                                for (Map.Entry<String, JsonElement> bucketEntry : bucketEntries) {
-                                    String aggName = bucketEntry.getKey();
-                                    if ("key_as_string".equals(aggName)) {
-                                        bucketFields.put(columnId, bucketEntry.getValue());
-                                        keyAsStringFound = true;
-                                    }
-                                    else if (!keyAsStringFound && "key".equals(aggName)) {
-                                        bucketFields.put(columnId, bucketEntry.getValue());
-                                    } else if ("doc_count".equals(aggName)) {
-                                        // Do nothing.
-                                    } else if (getColumn(aggName) != null) {
-                                        JsonElement aggValueElement = bucketEntry.getValue();
-                                        if (aggValueElement != null && aggValueElement.isJsonPrimitive()) bucketFields.put(aggName, aggValueElement);
-                                        else if (aggValueElement != null && aggValueElement.isJsonObject()) bucketFields.put(aggName, ((JsonObject) bucketEntry.getValue()).get("value"));
-                                    }
-                                }
-                                result.add(new SearchHitResponse(orderAndParseFields(definition, metadata, bucketFields, columns)));
+                                Map<String, JsonElement> bucketFields = parseBucket(columnId, bucket);
+                                result.add(new SearchHitResponse(orderAndParseFields(definition, metadata, bucketFields, getColumns())));
                             }
                         } else {
                             // Process no bucketed aggregations.
@@ -65,7 +47,7 @@ public class AggregationsDeserializer extends AbstractAdapter<AggregationsDeseri
                         }
                     }
                 }
-                if (!noBucketFields.isEmpty()) result.add(new SearchHitResponse(orderAndParseFields(definition, metadata, noBucketFields, columns)));
+                if (!noBucketFields.isEmpty()) result.add(new SearchHitResponse(orderAndParseFields(definition, metadata, noBucketFields, getColumns())));
             }
         }
 
@@ -56,7 +56,7 @@ public class HitDeserializer extends AbstractAdapter<HitDeserializer> implements
 
             }
 
-            result = new SearchHitResponse(score, index, id, type, version, orderAndParseFields(definition, metadata, fields, columns));
+            result = new SearchHitResponse(score, index, id, type, version, orderAndParseFields(definition, metadata, fields, getColumns()));
         }
 
         return result;
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.gson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.ElasticSearchJestClient;
+import org.dashbuilder.dataset.DataColumn;
+import org.dashbuilder.dataset.def.ElasticSearchDataSetDef;
+import org.dashbuilder.dataset.impl.ElasticSearchDataSetMetadata;
+
+/**
+ * <p>Parses the responses of the scroll requests straight from the response stream.</p>
+ * <p>Unlike the <code>SearchResponseDeserializer</code>, no JSON tree is built for the whole response. The hits
+ * are read one by one and converted into arrays of values, in the same order as the given columns.</p>
+ */
+public class ScrollResponseParser extends AbstractAdapter<ScrollResponseParser> {
+
+    protected JsonParser parser = new JsonParser();
+
+    public ScrollResponseParser(ElasticSearchDataSetMetadata metadata, ElasticSearchDataSetDef definition, List<DataColumn> columns) {
+        super(metadata, definition, columns);
+    }
+
+    public ScrollPage parse(JsonReader reader) throws IOException {
+        ScrollPage page = new ScrollPage();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("_scroll_id".equals(name)) {
+                page.scrollId = reader.nextString();
+            }
+            else if ("hits".equals(name)) {
+                parseHits(reader, page);
+            }
+            else if ("error".equals(name)) {
+                throw new JsonParseException("An error ocurred during scroll operation. This is the internal error: \n" + parser.parse(reader));
+            }
+            else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return page;
+    }
+
+    protected void parseHits(JsonReader reader, ScrollPage page) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("total".equals(name)) {
+                page.totalHits = reader.nextLong();
+            }
+            else if ("hits".equals(name)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    page.hits.add(parseHit(reader));
+                }
+                reader.endArray();
+            }
+            else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    protected Object[] parseHit(JsonReader reader) throws IOException {
+        Map<String, JsonElement> fields = readHitFields(reader, parser);
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            DataColumn column = columns.get(i);
+            values[i] = ElasticSearchJestClient.parseValue(definition, metadata, column, fields.get(column.getId()));
+        }
+        return values;
+    }
+
+    /**
+     * A page of hits returned by a scroll request.
+     */
+    public static class ScrollPage {
+
+        protected String scrollId;
+        protected long totalHits = 0;
+        protected List<Object[]> hits = new ArrayList<Object[]>();
+
+        public String getScrollId() {
+            return scrollId;
+        }
+
+        public long getTotalHits() {
+            return totalHits;
+        }
+
+        public List<Object[]> getHits() {
+            return hits;
+        }
+    }
+}
@@ -64,6 +64,7 @@ public class SearchQuerySerializer extends AbstractAdapter<SearchQuerySerializer
 
         // Add the fields to retrieve, if apply.
         if (!existAggregations) {
+            List<DataColumn> columns = getColumns();
             JsonArray fieldsArray = new JsonArray();
             for (String field : fields) {
                 fieldsArray.add(new JsonPrimitive(field));
@@ -56,7 +56,7 @@ public class SearchResponseDeserializer extends AbstractAdapter<SearchResponseDe
 
                 // Build the response model.
                 if (hits == null || hits.isEmpty()) result = new EmptySearchResponse(tookInMillis, responseStatus, totalHits, maxScore, totalShards, successfulShards, shardFailures);
-                else result = new SearchResponse(tookInMillis, responseStatus, totalHits, maxScore, totalShards, successfulShards, shardFailures, columns, hits.toArray(new SearchHitResponse[hits.size()]));
+                else result = new SearchResponse(tookInMillis, responseStatus, totalHits, maxScore, totalShards, successfulShards, shardFailures, getColumns(), hits.toArray(new SearchHitResponse[hits.size()]));
             }
         }
 
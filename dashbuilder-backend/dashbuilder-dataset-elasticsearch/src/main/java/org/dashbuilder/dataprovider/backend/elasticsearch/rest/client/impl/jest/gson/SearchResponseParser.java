@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.gson;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.dashbuilder.dataprovider.backend.elasticsearch.ElasticSearchDataSetProvider;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.ElasticSearchJestClient;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.EmptySearchResponse;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchResponse;
+import org.dashbuilder.dataset.DataColumn;
+import org.dashbuilder.dataset.def.ElasticSearchDataSetDef;
+import org.dashbuilder.dataset.impl.ElasticSearchDataSetMetadata;
+
+/**
+ * <p>Parses the search responses straight from the response stream.</p>
+ * <p>It's the streaming counterpart of the <code>SearchResponseDeserializer</code>. No JSON tree is built for the
+ * response, the hits (or the aggregation buckets) are read one by one and their values are added straight into the
+ * resulting columns.</p>
+ */
+public class SearchResponseParser extends AbstractAdapter<SearchResponseParser> {
+
+    public SearchResponseParser(ElasticSearchDataSetMetadata metadata, ElasticSearchDataSetDef definition, List<DataColumn> columns) {
+        super(metadata, definition, columns);
+    }
+
+    public SearchResponse parse(JsonReader reader) throws IOException {
+        JsonParser parser = new JsonParser();
+        List<DataColumn> columns = getColumns();
+        long tookInMillis = 0;
+        int totalShards = 0;
+        int successfulShards = 0;
+        int shardFailures = 0;
+        long totalHits = 0;
+        float maxScore = 0;
+        int rows = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("took".equals(name)) {
+                tookInMillis = reader.nextLong();
+            }
+            else if ("_shards".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String shardsName = reader.nextName();
+                    if ("total".equals(shardsName)) totalShards = reader.nextInt();
+                    else if ("successful".equals(shardsName)) successfulShards = reader.nextInt();
+                    else if ("failed".equals(shardsName)) shardFailures = reader.nextInt();
+                    else reader.skipValue();
+                }
+                reader.endObject();
+            }
+            else if ("hits".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String hitsName = reader.nextName();
+                    if ("total".equals(hitsName) && reader.peek() == JsonToken.NUMBER) {
+                        totalHits = reader.nextLong();
+                    }
+                    else if ("max_score".equals(hitsName) && reader.peek() == JsonToken.NUMBER) {
+                        maxScore = (float) reader.nextDouble();
+                    }
+                    else if ("hits".equals(hitsName)) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            addRow(columns, readHitFields(reader, parser));
+                            rows++;
+                        }
+                        reader.endArray();
+                    }
+                    else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            else if ("aggregations".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                // Requests with aggregations never ask for document hits (size=0).
+                rows += parseAggregations(reader, parser, columns);
+            }
+            else if ("error".equals(name)) {
+                throw new JsonParseException("An error ocurred during search operation. This is the internal error: \n" + parser.parse(reader));
+            }
+            else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        int responseStatus = ElasticSearchDataSetProvider.RESPONSE_CODE_OK;
+        if (rows == 0) return new EmptySearchResponse(tookInMillis, responseStatus, totalHits, maxScore, totalShards, successfulShards, shardFailures);
+        return new SearchResponse(tookInMillis, responseStatus, totalHits, maxScore, totalShards, successfulShards, shardFailures, columns);
+    }
+
+    protected int parseAggregations(JsonReader reader, JsonParser parser, List<DataColumn> columns) throws IOException {
+        int rows = 0;
+        Map<String, JsonElement> noBucketFields = new HashMap<String, JsonElement>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String columnId = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("buckets".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    // Process bucketed aggregations. Buckets are small, so just read them one at a time.
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        JsonElement bucket = parser.parse(reader);
+                        if (bucket.isJsonObject()) {
+                            addRow(columns, parseBucket(columnId, bucket.getAsJsonObject()));
+                            rows++;
+                        }
+                    }
+                    reader.endArray();
+                }
+                else if ("value".equals(name)) {
+                    // Process no bucketed aggregations.
+                    JsonElement aggValueElement = parser.parse(reader);
+                    if (aggValueElement.isJsonPrimitive()) noBucketFields.put(columnId, aggValueElement);
+                }
+                else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+
+        if (!noBucketFields.isEmpty()) {
+            addRow(columns, noBucketFields);
+            rows++;
+        }
+        return rows;
+    }
+
+    protected void addRow(List<DataColumn> columns, Map<String, JsonElement> fields) {
+        for (DataColumn column : columns) {
+            Object value = ElasticSearchJestClient.parseValue(definition, metadata, column, fields.get(column.getId()));
+            column.getValues().add(value);
+        }
+    }
+}
@@ -153,6 +153,24 @@ public class Query {
         return params.get(key);
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Query)) return false;
+        Query other = (Query) obj;
+        if (type != other.type) return false;
+        if (field != null ? !field.equals(other.field) : other.field != null) return false;
+        return params.equals(other.params);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type != null ? type.hashCode() : 0;
+        result = 31 * result + (field != null ? field.hashCode() : 0);
+        result = 31 * result + params.hashCode();
+        return result;
+    }
+
     @Override
     public String toString() {
         return toString(-1);
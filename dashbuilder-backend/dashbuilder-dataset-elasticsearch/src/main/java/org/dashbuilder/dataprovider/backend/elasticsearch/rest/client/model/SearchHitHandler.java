@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model;
+
+import java.util.List;
+
+/**
+ * <p>Receives the hits fetched by a scroll request, page by page.</p>
+ */
+public interface SearchHitHandler {
+
+    /**
+     * <p>Handle a page of hits.</p>
+     * <p>Every hit is an array holding its field values (already parsed) in the same order as the request fields.
+     * Pages coming from different slices might be handled concurrently.</p>
+     *
+     * @param hits The page of hits.
+     */
+    void handle(List<Object[]> hits) throws Exception;
+}
@@ -35,6 +35,8 @@ public class SearchRequest {
     private List<DataSetSort> sorting = new LinkedList<DataSetSort>();
     private int start = 0;
     private int size = 50;
+    /* The shards to search on (scroll requests only). All of them if null. */
+    private int[] shards;
 
     public SearchRequest(DataSetMetadata metadata) {
         this.metadata = metadata;
@@ -91,4 +93,12 @@ public class SearchRequest {
     public void setSize(int size) {
         this.size = size;
     }
+
+    public int[] getShards() {
+        return shards;
+    }
+
+    public void setShards(int[] shards) {
+        this.shards = shards;
+    }
 }
@@ -17,6 +17,7 @@ package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model;
 
 import org.dashbuilder.dataset.DataColumn;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 
 /**
@@ -33,7 +34,7 @@ public class SearchResponse {
     protected int shardFailures;
     protected List<DataColumn> columns;
     protected SearchHitResponse[] hits;
-
+    protected boolean columnValues = false;
 
     public SearchResponse(long tookInMillis, int responseStatus, long totalHits, float maxScore, int totalShards, int successfulShards, int shardFailures, List<DataColumn> columns, SearchHitResponse[] hits) {
         this.tookInMillis = tookInMillis;
@@ -47,6 +48,14 @@ public class SearchResponse {
         this.hits = hits;
     }
 
+    /**
+     * Creates a response whose hit values have been already written into the given columns.
+     */
+    public SearchResponse(long tookInMillis, int responseStatus, long totalHits, float maxScore, int totalShards, int successfulShards, int shardFailures, List<DataColumn> columns) {
+        this(tookInMillis, responseStatus, totalHits, maxScore, totalShards, successfulShards, shardFailures, columns, null);
+        this.columnValues = true;
+    }
+
     public long getTookInMillis() {
         return tookInMillis;
     }
@@ -76,9 +85,27 @@ public class SearchResponse {
     }
 
     public SearchHitResponse[] getHits() {
+        if (hits == null && columnValues && columns != null && !columns.isEmpty()) {
+            int rows = columns.get(0).getValues().size();
+            hits = new SearchHitResponse[rows];
+            for (int row = 0; row < rows; row++) {
+                LinkedHashMap<String, Object> fields = new LinkedHashMap<String, Object>();
+                for (DataColumn column : columns) {
+                    fields.put(column.getId(), column.getValues().get(row));
+                }
+                hits[row] = new SearchHitResponse(fields);
+            }
+        }
         return hits;
     }
 
+    /**
+     * @return true if the hit values are already held by the response columns.
+     */
+    public boolean hasColumnValues() {
+        return columnValues;
+    }
+
     public List<DataColumn> getColumns() {
         return columns;
     }
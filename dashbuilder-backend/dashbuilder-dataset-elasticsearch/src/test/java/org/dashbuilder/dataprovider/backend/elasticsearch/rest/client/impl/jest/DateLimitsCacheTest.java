@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest;
+
+import java.util.Date;
+
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.Query;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * <p>Test unit for the date limits cache.</p>
+ */
+public class DateLimitsCacheTest {
+
+    protected Date[] limits = new Date[] {new Date(0), new Date(1000)};
+
+    protected Query term(String field, String value) {
+        return new Query(field, Query.Type.TERM).setParam(Query.Parameter.VALUE.name(), value);
+    }
+
+    @Test
+    public void testGetPut() throws Exception {
+        DateLimitsCache cache = new DateLimitsCache(60000);
+        cache.put("expenses", "date", null, limits);
+        cache.put("expenses", "date", term("city", "Barcelona"), limits);
+        Assert.assertSame(cache.get("expenses", "date", null), limits);
+        Assert.assertSame(cache.get("expenses", "date", term("city", "Barcelona")), limits);
+        Assert.assertNull(cache.get("expenses", "date", term("city", "London")));
+        Assert.assertNull(cache.get("expenses", "date", term("department", "Barcelona")));
+        Assert.assertNull(cache.get("expenses", "created", null));
+        Assert.assertNull(cache.get("logs", "date", null));
+        Assert.assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        DateLimitsCache cache = new DateLimitsCache(60000);
+        cache.put("expenses", "date", null, limits);
+        cache.put("logs", "date", null, limits);
+        cache.remove("expenses");
+        Assert.assertNull(cache.get("expenses", "date", null));
+        Assert.assertSame(cache.get("logs", "date", null), limits);
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        DateLimitsCache cache = new DateLimitsCache(10);
+        cache.put("expenses", "date", null, limits);
+        Thread.sleep(50);
+        Assert.assertNull(cache.get("expenses", "date", null));
+        Assert.assertEquals(cache.size(), 0);
+
+        // Disabled
+        cache = new DateLimitsCache(0);
+        cache.put("expenses", "date", null, limits);
+        Assert.assertNull(cache.get("expenses", "date", null));
+    }
+}
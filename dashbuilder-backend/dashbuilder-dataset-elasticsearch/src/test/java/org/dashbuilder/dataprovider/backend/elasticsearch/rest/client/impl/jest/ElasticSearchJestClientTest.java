@@ -17,9 +17,11 @@ package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
 import org.dashbuilder.dataprovider.backend.elasticsearch.ElasticSearchDataSetTestBase;
 import org.dashbuilder.dataprovider.backend.elasticsearch.ElasticSearchClientFactory;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest.gson.*;
+import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.EmptySearchResponse;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.Query;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchHitResponse;
 import org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.model.SearchResponse;
@@ -38,6 +40,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.StringReader;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -436,4 +439,96 @@ public class ElasticSearchJestClientTest {
     }
 
 
+    @Test
+    public void testScrollResponseParser() throws Exception {
+        String response = "{\"_scroll_id\":\"c2NhbjsxOzE=\",\"took\":2,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"hits\":{\"total\":50,\"max_score\":0.0,\"hits\":[{\"_index\":\"expensereports\",\"_type\":\"expense\",\"_id\":\"12\",\"_score\":0.0,\"fields\":{\"id\":[12],\"city\":[\"Madrid\"],\"amount\":[344.9]}},{\"_index\":\"expensereports\",\"_type\":\"expense\",\"_id\":\"20\",\"_score\":0.0,\"_source\":{\"id\":20,\"city\":\"Brno\"}}]}}";
+
+        List<DataColumn> columns = new LinkedList<DataColumn>();
+        columns.add(new DataColumnImpl("id", ColumnType.NUMBER));
+        columns.add(new DataColumnImpl("city", ColumnType.LABEL));
+        columns.add(new DataColumnImpl("amount", ColumnType.NUMBER));
+
+        ScrollResponseParser parser = new ScrollResponseParser(metadata, definition, columns);
+        ScrollResponseParser.ScrollPage page = parser.parse(new JsonReader(new StringReader(response)));
+        Assert.assertEquals(page.getScrollId(), "c2NhbjsxOzE=");
+        Assert.assertEquals(page.getTotalHits(), 50);
+        Assert.assertEquals(page.getHits().size(), 2);
+
+        Object[] hit0 = page.getHits().get(0);
+        Assert.assertEquals(hit0[0], 12d);
+        Assert.assertEquals(hit0[1], "Madrid");
+        Assert.assertEquals(hit0[2], 344.9d);
+
+        Object[] hit1 = page.getHits().get(1);
+        Assert.assertEquals(hit1[0], 20d);
+        Assert.assertEquals(hit1[1], "Brno");
+        Assert.assertNull(hit1[2]);
+    }
+
+    @Test
+    public void testSearchResponseParser() throws Exception {
+        String response = "{\"took\":4,\"timed_out\":false,\"_shards\":{\"total\":5,\"successful\":5,\"failed\":0},\"hits\":{\"total\":8,\"max_score\":2.609438,\"hits\":[{\"_index\":\"expensereports\",\"_type\":\"expense\",\"_id\":\"12\",\"_score\":2.609438,\"fields\":{\"id\":[12],\"city\":[\"Madrid\"],\"amount\":[344.9]}},{\"_index\":\"expensereports\",\"_type\":\"expense\",\"_id\":\"20\",\"_score\":2.609438,\"fields\":{\"id\":[20],\"city\":[\"Brno\"]}}]}}";
+
+        List<DataColumn> columns = new LinkedList<DataColumn>();
+        columns.add(new DataColumnImpl("id", ColumnType.NUMBER));
+        columns.add(new DataColumnImpl("city", ColumnType.LABEL));
+        columns.add(new DataColumnImpl("amount", ColumnType.NUMBER));
+
+        // The values are read straight into the resulting columns.
+        SearchResponseParser parser = new SearchResponseParser(metadata, definition, columns);
+        SearchResponse result = parser.parse(new JsonReader(new StringReader(response)));
+        Assert.assertTrue(result.hasColumnValues());
+        Assert.assertEquals(result.getTookInMillis(), 4);
+        Assert.assertEquals(result.getMaxScore(), 2.609438f, 0.1);
+        Assert.assertEquals(result.getTotalShards(), 5);
+        Assert.assertEquals(result.getTotalHits(), 8);
+        Assert.assertEquals(columns.get(0).getValues(), Arrays.asList(12d, 20d));
+        Assert.assertEquals(columns.get(1).getValues(), Arrays.asList("Madrid", "Brno"));
+        Assert.assertEquals(columns.get(2).getValues(), Arrays.asList(344.9d, null));
+        Assert.assertEquals(result.getHits().length, 2);
+        Assert.assertEquals(result.getHits()[1].getFieldValue("city"), "Brno");
+
+        // Aggregation buckets.
+        response = "{\"took\":2,\"_shards\":{\"total\":5,\"successful\":5,\"failed\":0},\"hits\":{\"total\":50,\"max_score\":0.0,\"hits\":[]},\"aggregations\":{\"departmentGrouped\":{\"doc_count_error_upper_bound\":0,\"buckets\":[{\"key\":\"Engineering\",\"doc_count\":19,\"amount-count\":{\"value\":19}},{\"key\":\"Management\",\"doc_count\":11,\"amount-count\":{\"value\":11}}]}}}";
+        columns = new LinkedList<DataColumn>();
+        columns.add(new DataColumnImpl("departmentGrouped", ColumnType.LABEL));
+        columns.add(new DataColumnImpl("amount-count", ColumnType.NUMBER));
+        parser = new SearchResponseParser(metadata, definition, columns);
+        result = parser.parse(new JsonReader(new StringReader(response)));
+        Assert.assertEquals(result.getTotalHits(), 50);
+        Assert.assertEquals(columns.get(0).getValues(), Arrays.asList("Engineering", "Management"));
+        Assert.assertEquals(columns.get(1).getValues(), Arrays.asList(19d, 11d));
+
+        // Empty responses.
+        response = "{\"took\":1,\"_shards\":{\"total\":5,\"successful\":5,\"failed\":0},\"hits\":{\"total\":0,\"max_score\":null,\"hits\":[]}}";
+        parser = new SearchResponseParser(metadata, definition, new LinkedList<DataColumn>());
+        result = parser.parse(new JsonReader(new StringReader(response)));
+        Assert.assertTrue(result instanceof EmptySearchResponse);
+    }
+
+    @Test
+    public void testGsonCache() throws Exception {
+        when(definition.getUUID()).thenReturn("expenses");
+        GsonCache gsonCache = new GsonCache();
+        Gson gson = gsonCache.get(definition, metadata);
+        Assert.assertSame(gson, gsonCache.get(definition, metadata));
+        Assert.assertEquals(gsonCache.size(), 1);
+
+        // The adapters take the resulting columns from the current request.
+        List<DataColumn> columns = new LinkedList<DataColumn>();
+        AbstractAdapter.beginRequest(columns, null);
+        try {
+            ElasticSearchJestClient.SearchQuery searchQuery = new ElasticSearchJestClient.SearchQuery(new String[] {"id", "city"}, null, null, 0, 10);
+            String serializedQuery = gson.toJson(searchQuery, ElasticSearchJestClient.SearchQuery.class);
+            Assert.assertEquals(serializedQuery, "{\"from\":0,\"size\":10,\"query\":{\"match_all\":{}},\"fields\":[\"id\",\"city\"]}");
+        } finally {
+            AbstractAdapter.endRequest();
+        }
+        Assert.assertEquals(columns.size(), 2);
+        Assert.assertEquals(columns.get(1).getId(), "city");
+
+        gsonCache.remove("expenses");
+        Assert.assertEquals(gsonCache.size(), 0);
+    }
+
 }
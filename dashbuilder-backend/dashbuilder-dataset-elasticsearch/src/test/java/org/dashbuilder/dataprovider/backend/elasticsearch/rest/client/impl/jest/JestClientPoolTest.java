@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.elasticsearch.rest.client.impl.jest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Count;
+import io.searchbox.core.CountResult;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * <p>Test unit for the shared Jest clients.</p>
+ */
+public class JestClientPoolTest {
+
+    protected List<JestClient> clients;
+    protected JestClientPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        clients = new ArrayList<JestClient>();
+        pool = new JestClientPool(2, 1000, 1000, 0) {
+            protected JestClient createClient(String serverURL) {
+                JestClient client = Mockito.mock(JestClient.class);
+                try {
+                    when(client.execute(any(Count.class))).thenReturn(mock(CountResult.class));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                clients.add(client);
+                return client;
+            }
+        };
+    }
+
+    @Test
+    public void testClientReuse() throws Exception {
+        Count count = new Count.Builder().addIndex("expensereports").build();
+        pool.execute("http://server1:9200", count, "expensereports");
+        pool.execute("http://server1:9200", count, "expensereports");
+        pool.execute("http://server2:9200", count, "expensereports");
+
+        Assert.assertEquals(2, clients.size());
+        Assert.assertEquals(2, pool.size());
+        verify(clients.get(0), times(2)).execute(count);
+        verify(clients.get(1), times(1)).execute(count);
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        Count count = new Count.Builder().addIndex("expensereports").build();
+        pool.execute("http://server1:9200", count, "expensereports");
+        pool.execute("http://server1:9200", count, "expensereports");
+        pool.execute("http://server1:9200", count, "logs");
+
+        JestClientMetrics metrics = pool.getMetrics();
+        Assert.assertEquals(3, metrics.getNumberOfRequests());
+        Assert.assertEquals(0, metrics.getInFlightRequests());
+        Assert.assertEquals(0, metrics.getWaitingRequests());
+        Assert.assertEquals(2, metrics.getIndexes().size());
+        Assert.assertEquals(2, metrics.getLatency("expensereports").getNumberOfRequests());
+        Assert.assertEquals(1, metrics.getLatency("logs").getNumberOfRequests());
+        Assert.assertNull(metrics.getLatency("unknown"));
+    }
+
+    @Test
+    public void testRequestError() throws Exception {
+        Count count = new Count.Builder().addIndex("expensereports").build();
+        pool.execute("http://server1:9200", count, "expensereports");
+        when(clients.get(0).execute(any(Count.class))).thenThrow(new RuntimeException("Connection refused"));
+        try {
+            pool.execute("http://server1:9200", count, "expensereports");
+            Assert.fail("Exception expected");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        // The connection must be released anyway
+        JestClientMetrics metrics = pool.getMetrics();
+        Assert.assertEquals(0, metrics.getInFlightRequests());
+        Assert.assertEquals(2, pool.clientMap.get("http://server1:9200").connections.availablePermits());
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        Count count = new Count.Builder().addIndex("expensereports").build();
+        pool.execute("http://server1:9200", count, "expensereports");
+        pool.execute("http://server2:9200", count, "expensereports");
+        pool.shutdown();
+
+        Assert.assertEquals(0, pool.size());
+        verify(clients.get(0)).shutdownClient();
+        verify(clients.get(1)).shutdownClient();
+    }
+
+    @Test
+    public void testIdleClientEviction() throws Exception {
+        pool.keepAlive = 1;
+        Count count = new Count.Builder().addIndex("expensereports").build();
+        pool.execute("http://server1:9200", count, "expensereports");
+        Thread.sleep(10);
+        pool.execute("http://server2:9200", count, "expensereports");
+
+        Assert.assertEquals(1, pool.size());
+        verify(clients.get(0)).shutdownClient();
+        verify(clients.get(1), never()).shutdownClient();
+    }
+}
@@ -16,8 +16,13 @@
 package org.dashbuilder.dataprovider.backend.sql;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
@@ -25,9 +30,14 @@ import javax.inject.Named;
 import javax.sql.DataSource;
 
 import org.apache.commons.lang.StringUtils;
-import org.dashbuilder.dataprovider.DataSetProvider;
+import org.dashbuilder.config.Config;
 import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataprovider.backend.DataSetLookupCache;
+import org.dashbuilder.dataprovider.backend.AsyncDataSetProvider;
+import org.dashbuilder.dataprovider.backend.DataSetLookupExecutor;
+import org.dashbuilder.dataprovider.backend.DataSetPageHandler;
 import org.dashbuilder.dataprovider.backend.StaticDataSetProvider;
+import org.dashbuilder.dataprovider.backend.StreamingDataSetProvider;
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.DataSet;
@@ -60,20 +70,27 @@ import org.dashbuilder.dataset.group.GroupFunction;
 import org.dashbuilder.dataset.group.GroupStrategy;
 import org.dashbuilder.dataset.group.Interval;
 import org.dashbuilder.dataset.date.TimeFrame;
+import org.dashbuilder.dataset.impl.ColumnValues;
 import org.dashbuilder.dataset.impl.DataColumnImpl;
 import org.dashbuilder.dataset.impl.DataSetMetadataImpl;
+import org.dashbuilder.dataset.impl.DateColumnValues;
 import org.dashbuilder.dataset.impl.MemSizeEstimator;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
 import org.dashbuilder.dataset.sort.ColumnSort;
 import org.dashbuilder.dataset.sort.DataSetSort;
 import org.dashbuilder.dataset.sort.SortOrder;
 import org.jooq.Condition;
 import org.jooq.DataType;
 import org.jooq.Field;
-import org.jooq.Result;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
 import org.jooq.SelectSelectStep;
 import org.jooq.SelectWhereStep;
 import org.jooq.SortField;
 import org.jooq.Table;
+import org.jooq.conf.ParamType;
+import org.jooq.exception.SQLDialectNotSupportedException;
+import org.jooq.impl.DefaultDataType;
 import org.jooq.impl.SQLDataType;
 import org.slf4j.Logger;
 
@@ -96,7 +113,7 @@ import static org.jooq.impl.DSL.*;
  */
 @ApplicationScoped 
 @Named("sql")
-public class SQLDataSetProvider implements DataSetProvider {
+public class SQLDataSetProvider implements AsyncDataSetProvider, StreamingDataSetProvider {
 
     @Inject
     protected Logger log;
@@ -104,6 +121,12 @@ public class SQLDataSetProvider implements DataSetProvider {
     @Inject
     protected StaticDataSetProvider staticDataSetProvider;
 
+    @Inject
+    protected DataSetLookupExecutor lookupExecutor;
+
+    @Inject
+    protected DataSetLookupCache lookupCache;
+
     @Inject
     protected SQLDataSourceLocator dataSourceLocator;
 
@@ -116,6 +139,14 @@ public class SQLDataSetProvider implements DataSetProvider {
     @Inject
     protected DataSetOpEngine opEngine;
 
+    /**
+     * Number of rows fetched from the database on every round-trip while reading the query results.
+     * <p>Some drivers (i.e: PostgreSQL) only use a cursor if the connection's auto-commit is off, so it's turned off
+     * while streaming. MySQL drivers stream row by row instead (see <i>getStreamFetchSize</i>).</p>
+     */
+    @Inject @Config("1000")
+    protected int fetchSize;
+
     public DataSetProviderType getType() {
         return DataSetProviderType.SQL;
     }
@@ -139,9 +170,10 @@ public class SQLDataSetProvider implements DataSetProvider {
             } else  {
 
                 // Fetch always from database if existing rows are greater than the cache max. rows
-                int rows = getRowCount(sqlDef);
+                // (the metadata holds the row count and it's reused by the lookup below)
+                int rows = getDataSetMetadata(sqlDef).getNumberOfRows();
                 if (rows > sqlDef.getCacheMaxRows()) {
-                    return _lookupDataSet(sqlDef, lookup);
+                    return _lookupDataSetCached(sqlDef, lookup);
                 }
                 // Fetch from database and register into the static cache. Further requests will lookup from cache.
                 dataSet = _lookupDataSet(sqlDef, null);
@@ -152,8 +184,28 @@ public class SQLDataSetProvider implements DataSetProvider {
             }
         }
 
-        // If cache is disabled then always fetch from database.
-        return _lookupDataSet(sqlDef, lookup);
+        // If cache is disabled then always fetch from database (identical lookups resolved lately are reused).
+        return _lookupDataSetCached(sqlDef, lookup);
+    }
+
+    public Future<DataSet> lookupDataSetAsync(DataSetDef def, DataSetLookup lookup) {
+        return lookupExecutor.lookupDataSet(((SQLDataSetDef) def).getDataSource(), this, def, lookup);
+    }
+
+    /**
+     * The lookup results are read straight from a DB cursor, page by page. Data sets held by the static cache
+     * are paged from the cache instead.
+     */
+    public boolean streamDataSet(DataSetDef def, DataSetLookup lookup, int pageSize, DataSetPageHandler handler) throws Exception {
+        SQLDataSetDef sqlDef = (SQLDataSetDef) def;
+        if (sqlDef.isCacheEnabled() && staticDataSetProvider.lookupDataSet(def.getUUID(), null) != null) {
+            return false;
+        }
+        LookupProcessor processor = new LookupProcessor(sqlDef, lookup);
+        long begin = System.nanoTime();
+        processor.stream(pageSize, handler);
+        _queryExecuted(sqlDef, System.nanoTime() - begin);
+        return true;
     }
 
     public boolean isDataSetOutdated(DataSetDef def) {
@@ -161,6 +213,7 @@ public class SQLDataSetProvider implements DataSetProvider {
         // Non fetched data sets can't get outdated.
         DataSetMetadata last = _metadataMap.remove(def.getUUID());
         if (last == null) return false;
+        _fieldsMap.remove(def.getUUID());
 
         // Check if the metadata has changed since the last time it was fetched.
         try {
@@ -209,6 +262,7 @@ public class SQLDataSetProvider implements DataSetProvider {
         if (DataSetProviderType.SQL.equals(def.getProvider())) {
             String uuid = def.getUUID();
             _metadataMap.remove(uuid);
+            _fieldsMap.remove(uuid);
             staticDataSetProvider.removeDataSet(uuid);
         }
     }
@@ -216,6 +270,31 @@ public class SQLDataSetProvider implements DataSetProvider {
     // Internal implementation logic
 
     protected transient Map<String,DataSetMetadata> _metadataMap = new HashMap<String,DataSetMetadata>();
+    protected transient Map<String,Field[]> _fieldsMap = new HashMap<String,Field[]>();
+
+    /**
+     * SQL dialects supporting the <code>COUNT(*) OVER ()</code> window function.
+     */
+    protected static final Set<String> WINDOW_FUNCTION_DIALECTS = new HashSet<String>(Arrays.asList(
+            "POSTGRES", "ORACLE", "SQLSERVER", "DB2", "SYBASE", "HANA", "INFORMIX", "TERADATA", "VERTICA", "REDSHIFT"));
+
+    protected boolean isWindowFunctionSupported(SQLDialect dialect) {
+        return dialect != null && WINDOW_FUNCTION_DIALECTS.contains(dialect.family().name());
+    }
+
+    /**
+     * SQL dialects whose drivers ignore the fetch size unless set to <code>Integer.MIN_VALUE</code>, which makes them
+     * stream the results row by row. Otherwise, the whole result set is loaded into memory.
+     */
+    protected static final Set<String> ROW_STREAMING_DIALECTS = new HashSet<String>(Arrays.asList(
+            "MYSQL", "MARIADB"));
+
+    protected int getStreamFetchSize(SQLDialect dialect) {
+        if (dialect != null && ROW_STREAMING_DIALECTS.contains(dialect.family().name())) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
 
     protected DataSetMetadata _getDataSetMetadata(SQLDataSetDef def, Connection conn) throws Exception {
         DataSetMetadata result = _metadataMap.get(def.getUUID());
@@ -304,21 +383,86 @@ public class SQLDataSetProvider implements DataSetProvider {
     }
 
     protected Field[] _getFields(SQLDataSetDef def, Connection conn) throws Exception {
+        Field[] result = _fieldsMap.get(def.getUUID());
+        if (result != null) return result;
+
         if (!StringUtils.isBlank(def.getDbSQL())) {
-            return using(conn).select()
+            result = using(conn).select()
                     .from("(" + def.getDbSQL() + ")")
                     .limit(1).fetch().fields();
         }
         else {
-            List<Table<?>> _jooqTables = using(conn).meta().getTables();
-            for (Table<?> _jooqTable : _jooqTables) {
-                if (_jooqTable.getName().toLowerCase().equals(def.getDbTable().toLowerCase())) {
-                    return _jooqTable.fields();
-                }
+            // Read the metadata of the target table only (instead of listing the whole schema)
+            SQLDialect dialect = using(conn).configuration().dialect();
+            DatabaseMetaData meta = conn.getMetaData();
+            String schema = StringUtils.isBlank(def.getDbSchema()) ? null : def.getDbSchema();
+            String table = def.getDbTable();
+            result = _getTableFields(meta, dialect, schema, table);
+            if (result == null) result = _getTableFields(meta, dialect, schema, table.toUpperCase());
+            if (result == null) result = _getTableFields(meta, dialect, schema, table.toLowerCase());
+            if (result == null) {
+                throw new IllegalArgumentException("Table '" + def.getDbTable() + "'not found " +
+                        "in database '" + def.getDataSource()+ "'");
+            }
+        }
+        _fieldsMap.put(def.getUUID(), result);
+        return result;
+    }
+
+    /**
+     * Get the columns of the given table.
+     * @param schema The table schema. If null, the columns of the first schema found containing the table are taken.
+     * @return The table columns or null if the table is not found.
+     */
+    protected Field[] _getTableFields(DatabaseMetaData meta, SQLDialect dialect, String schema, String table) throws SQLException {
+        List<Field> result = new ArrayList<Field>();
+        String escape = meta.getSearchStringEscape();
+        ResultSet rs = meta.getColumns(null, _escapePattern(schema, escape), _escapePattern(table, escape), null);
+        try {
+            String tableSchema = schema;
+            while (rs.next()) {
+                // Patterns are case sensitive and some drivers ignore the escape char, so double check every row
+                if (!table.equals(rs.getString("TABLE_NAME"))) continue;
+                String rowSchema = rs.getString("TABLE_SCHEM");
+                if (tableSchema == null) tableSchema = rowSchema;
+                else if (!tableSchema.equals(rowSchema)) continue;
+
+                String name = rs.getString("COLUMN_NAME");
+                DataType type = _getDataType(dialect, rs.getString("TYPE_NAME"), rs.getInt("COLUMN_SIZE"), rs.getInt("DECIMAL_DIGITS"));
+                result.add(field(name, type));
             }
-            throw new IllegalArgumentException("Table '" + def.getDbTable() + "'not found " +
-                    "in database '" + def.getDataSource()+ "'");
+        } finally {
+            rs.close();
+        }
+        return result.isEmpty() ? null : result.toArray(new Field[result.size()]);
+    }
+
+    /**
+     * Resolve the jOOQ type of a column from its database type name. Types not known by jOOQ are read as plain objects.
+     */
+    protected DataType _getDataType(SQLDialect dialect, String typeName, int length, int scale) {
+        DataType type;
+        try {
+            type = DefaultDataType.getDataType(dialect, typeName, length, scale);
+        } catch (SQLDialectNotSupportedException e) {
+            type = SQLDataType.OTHER;
         }
+        if (type.hasLength() && length > 0) type = type.length(length);
+        return type;
+    }
+
+    /**
+     * Escape the wildcards ('_' and '%') of a name so that it can be used as a metadata search pattern.
+     */
+    protected String _escapePattern(String name, String escape) {
+        if (name == null || StringUtils.isEmpty(escape)) return name;
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '_' || c == '%' || escape.indexOf(c) != -1) out.append(escape);
+            out.append(c);
+        }
+        return out.toString();
     }
 
     protected int _getRowCount(SQLDataSetDef def, Connection conn) throws Exception {
@@ -338,9 +482,34 @@ public class SQLDataSetProvider implements DataSetProvider {
         return ((Number) _jooqQuery.fetch().getValue(0 ,0)).intValue();
     }
 
+    /**
+     * Non cached data sets are fetched on every lookup request. The results of the last lookups are
+     * kept for a while though, so identical requests don't hit the database again.
+     */
+    protected DataSet _lookupDataSetCached(final SQLDataSetDef def, final DataSetLookup lookup) throws Exception {
+        return lookupCache.lookupDataSet(def.getUUID(), lookup, new Callable<DataSet>() {
+            public DataSet call() throws Exception {
+                return _lookupDataSet(def, lookup);
+            }
+        });
+    }
+
     protected DataSet _lookupDataSet(SQLDataSetDef def, DataSetLookup lookup) throws Exception {
         LookupProcessor processor = new LookupProcessor(def, lookup);
-        return processor.run();
+        long begin = System.nanoTime();
+        DataSet dataSet = processor.run();
+        _queryExecuted(def, System.nanoTime() - begin);
+        return dataSet;
+    }
+
+    /**
+     * Keep track of the time spent on every data source
+     */
+    protected void _queryExecuted(SQLDataSetDef def, long nanos) throws Exception {
+        DataSource ds = dataSourceLocator.lookup(def);
+        if (ds instanceof SQLMeteredDataSource) {
+            ((SQLMeteredDataSource) ds).getMetrics().queryExecuted(nanos);
+        }
     }
 
     protected Table _getJooqTable(SQLDataSetDef def) {
@@ -461,10 +630,14 @@ public class SQLDataSetProvider implements DataSetProvider {
         DataSetLookup lookup;
         DataSetMetadata metadata;
         SelectSelectStep _jooqQuery;
+        DataSetGroup groupOp;
         Connection conn;
         Date[] dateLimits;
         DateIntervalType dateIntervalType;
         List<DataSetOp> postProcessingOps = new ArrayList<DataSetOp>();
+        boolean windowCount = false;
+        int totalRows = -1;
+        String _countSQL;
 
         public LookupProcessor(SQLDataSetDef def, DataSetLookup lookup) {
             this.def = def;
@@ -481,86 +654,169 @@ public class SQLDataSetProvider implements DataSetProvider {
             conn = ds.getConnection();
             try {
                 metadata = _getDataSetMetadata(def, conn);
-                int totalRows = metadata.getNumberOfRows();
                 boolean trim = (lookup != null && lookup.getNumberOfRows() > 0);
 
-                // The whole data set
-                if (lookup == null || lookup.getOperationList().isEmpty()) {
+                // If possible, get the total rows along with the results rather than issuing a count query
+                windowCount = trim && isWindowFunctionSupported(using(conn).configuration().dialect());
 
-                    // Prepare the jOOQ query
-                    _jooqQuery = using(conn).select(_createAllJooqFields());
-                    _appendJooqFrom(def, _jooqQuery);
+                // Prepare the jOOQ query
+                List<DataColumn> columns = _createJooqQuery();
 
-                    // Row limits
-                    if (trim) {
-                        totalRows = using(conn).fetchCount(_jooqQuery);
-                        _jooqQuery.limit(lookup.getNumberOfRows()).offset(lookup.getRowOffset());
-                    }
-
-                    // Fetch the results and build the data set
-                    Result _jooqResults = _jooqQuery.fetch();
-                    List<DataColumn> columns = calculateColumns(null);
-                    DataSet dataSet = _buildDataSet(columns, _jooqResults);
-                    if (trim) dataSet.setRowCountNonTrimmed(totalRows);
-                    return dataSet;
+                // ... and the row limits
+                if (trim) {
+                    _appendJooqRowLimits();
                 }
-                // ... or a list of operations.
-                else {
-                    DataSetGroup groupOp = null;
-                    int groupIdx = lookup.getFirstGroupOpIndex(0, null, false);
-                    if (groupIdx != -1) groupOp = lookup.getOperation(groupIdx);
-
-                    // Prepare the jOOQ query
-                    _jooqQuery = using(conn).select(_createJooqFields(groupOp));
-                    _appendJooqFrom(def, _jooqQuery);
-
-                    // Append the filter clauses
-                    DataSetFilter filterOp = lookup.getFirstFilterOp();
-                    if (filterOp != null) {
-                        _appendJooqFilterBy(def, filterOp, _jooqQuery);
-                    }
 
-                    // Append the interval selections
-                    List<DataSetGroup> intervalSelects = lookup.getFirstGroupOpSelections();
-                    for (DataSetGroup intervalSelect : intervalSelects) {
-                        _appendJooqIntervalSelection(intervalSelect, _jooqQuery);
-                    }
+                // Fetch the results and build the data set
+                int expectedRows = trim ? lookup.getNumberOfRows() : (_isWholeDataSet() ? metadata.getNumberOfRows() : 0);
+                DataSet dataSet = _fetchDataSet(columns, expectedRows);
+                if (trim) dataSet.setRowCountNonTrimmed(_getTotalRows());
+                return dataSet;
+            } finally {
+                conn.close();
+            }
+        }
 
-                    // ... the group by clauses
-                    ColumnGroup cg = null;
-                    if (groupOp != null) {
-                        cg = groupOp.getColumnGroup();
-                        if (cg != null) {
-                            _appendJooqGroupBy(groupOp);
-                        }
-                    }
+        /**
+         * Read the results page by page, through the same cursor.
+         */
+        public void stream(int pageSize, DataSetPageHandler handler) throws Exception {
+            DataSource ds = dataSourceLocator.lookup(def);
+            conn = ds.getConnection();
+            boolean autoCommit = conn.getAutoCommit();
+            try {
+                metadata = _getDataSetMetadata(def, conn);
+                List<DataColumn> columns = _createJooqQuery();
+
+                // The total rows are not needed since all the rows are read anyway.
+                boolean trim = (lookup != null && lookup.getNumberOfRows() > 0);
+                if (trim) {
+                    _jooqQuery.limit(lookup.getNumberOfRows()).offset(lookup.getRowOffset());
+                }
 
-                    // ... the sort clauses
-                    DataSetSort sortOp = lookup.getFirstSortOp();
-                    if (sortOp != null) {
-                        if (cg != null) _appendJooqOrderGroupBy(groupOp, sortOp);
-                        else _appendJooqOrderBy(sortOp);
+                // Grouped results are usually small and might require some post-processing, so they're read at once.
+                if ((groupOp != null && groupOp.getColumnGroup() != null) || !postProcessingOps.isEmpty()) {
+                    handler.handlePage(_fetchDataSet(columns, 0));
+                    return;
+                }
+
+                // Drivers like PostgreSQL only read through a cursor inside a transaction
+                if (autoCommit) conn.setAutoCommit(false);
+
+                int totalRows = !trim && _isWholeDataSet() ? metadata.getNumberOfRows() : -1;
+                int streamFetchSize = getStreamFetchSize(using(conn).configuration().dialect());
+                ResultSet _rs = _jooqQuery.fetchSize(streamFetchSize).fetchResultSet();
+                try {
+                    int rows = 0;
+                    while (true) {
+                        DataSet page = _buildDataSet(columns, _rs, pageSize, pageSize);
+                        int pageRows = page.getRowCount();
+                        if (pageRows == 0 && rows > 0) return;
+
+                        page.setRowCountNonTrimmed(totalRows);
+                        handler.handlePage(page);
+                        rows += pageRows;
+                        if (pageRows < pageSize) return;
                     }
-                    else if (cg != null) {
-                        _appendJooqOrderGroupBy(groupOp);
+                } finally {
+                    _rs.close();
+                }
+            } finally {
+                try {
+                    // Pooled connections must be given back as they were taken
+                    if (autoCommit && !conn.getAutoCommit()) {
+                        conn.rollback();
+                        conn.setAutoCommit(true);
                     }
+                } finally {
+                    conn.close();
+                }
+            }
+        }
 
-                    // ... and the row limits
-                    if (trim) {
-                        totalRows = using(conn).fetchCount(_jooqQuery);
-                        _jooqQuery.limit(lookup.getNumberOfRows()).offset(lookup.getRowOffset());
-                    }
+        protected boolean _isWholeDataSet() {
+            return lookup == null || lookup.getOperationList().isEmpty();
+        }
 
-                    // Fetch the results and build the data set
-                    Result _jooqResults = _jooqQuery.fetch();
-                    List<DataColumn> columns = calculateColumns(groupOp);
-                    DataSet dataSet = _buildDataSet(columns, _jooqResults);
-                    if (trim) dataSet.setRowCountNonTrimmed(totalRows);
-                    return dataSet;
+        /**
+         * Prepare the jOOQ query for the lookup request (all but the row limits).
+         * @return The columns of the resulting data set.
+         */
+        protected List<DataColumn> _createJooqQuery() {
+            // The whole data set
+            if (_isWholeDataSet()) {
+                _jooqQuery = using(conn).select(_appendTotalRowsField(_createAllJooqFields()));
+                _appendJooqFrom(def, _jooqQuery);
+                return calculateColumns(null);
+            }
+
+            // ... or a list of operations.
+            int groupIdx = lookup.getFirstGroupOpIndex(0, null, false);
+            if (groupIdx != -1) groupOp = lookup.getOperation(groupIdx);
+
+            _jooqQuery = using(conn).select(_appendTotalRowsField(_createJooqFields(groupOp)));
+            _appendJooqFrom(def, _jooqQuery);
+
+            // Append the filter clauses
+            DataSetFilter filterOp = lookup.getFirstFilterOp();
+            if (filterOp != null) {
+                _appendJooqFilterBy(def, filterOp, _jooqQuery);
+            }
+
+            // Append the interval selections
+            List<DataSetGroup> intervalSelects = lookup.getFirstGroupOpSelections();
+            for (DataSetGroup intervalSelect : intervalSelects) {
+                _appendJooqIntervalSelection(intervalSelect, _jooqQuery);
+            }
+
+            // ... the group by clauses
+            ColumnGroup cg = null;
+            if (groupOp != null) {
+                cg = groupOp.getColumnGroup();
+                if (cg != null) {
+                    _appendJooqGroupBy(groupOp);
                 }
-            } finally {
-                conn.close();
             }
+
+            // ... and the sort clauses
+            DataSetSort sortOp = lookup.getFirstSortOp();
+            if (sortOp != null) {
+                if (cg != null) _appendJooqOrderGroupBy(groupOp, sortOp);
+                else _appendJooqOrderBy(sortOp);
+            }
+            else if (cg != null) {
+                _appendJooqOrderGroupBy(groupOp);
+            }
+
+            return calculateColumns(groupOp);
+        }
+
+        protected Collection<Field<?>> _appendTotalRowsField(Collection<Field<?>> _jooqFields) {
+            if (windowCount) {
+                _jooqFields.add(count().over().as("dashbuilder_total_rows"));
+            }
+            return _jooqFields;
+        }
+
+        protected void _appendJooqRowLimits() {
+            if (windowCount) {
+                // Just in case the total rows can't be read from the results (see _getTotalRows)
+                _countSQL = using(conn).selectCount().from(_jooqQuery.asTable("dashbuilder_count")).getSQL(ParamType.INLINED);
+            } else {
+                totalRows = using(conn).fetchCount(_jooqQuery);
+            }
+            _jooqQuery.limit(lookup.getNumberOfRows()).offset(lookup.getRowOffset());
+        }
+
+        protected int _getTotalRows() {
+            if (totalRows != -1) return totalRows;
+
+            // An empty page past the end of the results. The total number of rows must be asked
+            if (lookup.getRowOffset() > 0) {
+                Record record = using(conn).fetchOne(_countSQL);
+                return totalRows = ((Number) record.getValue(0)).intValue();
+            }
+            return totalRows = 0;
         }
 
         protected DateIntervalType calculateDateInterval(ColumnGroup cg) {
@@ -580,15 +836,9 @@ public class SQLDataSetProvider implements DataSetProvider {
         protected Date[] calculateDateLimits(String dateColumnId) {
             if (dateLimits != null) return dateLimits;
 
-            Date minDate = calculateDateLimit(dateColumnId, true);
-            Date maxDate = calculateDateLimit(dateColumnId, false);
-            return dateLimits = new Date[] {minDate, maxDate};
-        }
-
-        protected Date calculateDateLimit(String dateColumnId, boolean min) {
-
+            // Both limits are calculated in a single query
             Field _jooqDate = _createJooqField(dateColumnId);
-            SelectSelectStep _jooqLimits = using(conn).select(_jooqDate);
+            SelectSelectStep _jooqLimits = using(conn).select(min(_jooqDate), max(_jooqDate));
             _appendJooqFrom(def, _jooqLimits);
 
             // Append the filter clauses
@@ -603,15 +853,9 @@ public class SQLDataSetProvider implements DataSetProvider {
                 _appendJooqIntervalSelection(intervalSelect, _jooqLimits);
             }
 
-            // Fetch the date
-            Result rs = _jooqLimits
-                    .where(_jooqDate.isNotNull())
-                    .orderBy(min ? _jooqDate.asc() : _jooqDate.desc())
-                    .limit(1)
-                    .fetch();
-
-            if (rs.isEmpty()) return null;
-            return (Date) rs.getValue(0, _jooqDate);
+            Record rs = _jooqLimits.fetchOne();
+            if (rs == null) return dateLimits = new Date[] {null, null};
+            return dateLimits = new Date[] {(Date) rs.getValue(0), (Date) rs.getValue(1)};
         }
 
         protected List<DataColumn> calculateColumns(DataSetGroup gOp) {
@@ -830,16 +1074,37 @@ public class SQLDataSetProvider implements DataSetProvider {
             }
         }
 
-        protected DataSet _buildDataSet(List<DataColumn> columns, Result _jooqRs) {
+        protected DataSet _fetchDataSet(List<DataColumn> columns, int expectedRows) throws SQLException {
+            // Stream the results through a cursor rather than loading all the records in memory
+            ResultSet _rs = _jooqQuery.fetchSize(fetchSize).fetchResultSet();
+            try {
+                return _buildDataSet(columns, _rs, expectedRows);
+            } finally {
+                _rs.close();
+            }
+        }
+
+        protected DataSet _buildDataSet(List<DataColumn> columns, ResultSet _rs, int expectedRows) throws SQLException {
+            return _buildDataSet(columns, _rs, expectedRows, -1);
+        }
+
+        /**
+         * @param maxRows The max. number of rows to read from the result set (-1 means no limit).
+         */
+        protected DataSet _buildDataSet(List<DataColumn> columns, ResultSet _rs, int expectedRows, int maxRows) throws SQLException {
             DataSet dataSet = DataSetFactory.newEmptyDataSet();
             int dateGroupColumnIdx = -1;
             boolean dateIncludeEmptyIntervals = false;
-            Field[] rsFields = _jooqRs.fields();
-            for (int i = 0; i < rsFields.length; i++) {
-                Field f = rsFields[i];
+
+            // Prepare the column buffers
+            int ncolumns = columns.size();
+            DataColumn[] dataColumns = new DataColumn[ncolumns];
+            List[] valueLists = new List[ncolumns];
+            ColumnType[] readTypes = new ColumnType[ncolumns];
+            for (int i = 0; i < ncolumns; i++) {
                 DataColumn column = columns.get(i).cloneEmpty();
                 ColumnType columnType = column.getColumnType();
-                List values = _jooqRs.getValues(f);
+                readTypes[i] = columnType;
 
                 if (ColumnType.LABEL.equals(columnType)) {
                     ColumnGroup cg = column.getColumnGroup();
@@ -850,26 +1115,51 @@ public class SQLDataSetProvider implements DataSetProvider {
                         // If grouped by date then convert back to absolute dates
                         // in order to allow the post processing of the data set.
                         column.setColumnType(ColumnType.DATE);
-                        for (int j=0; j<values.size(); j++) {
-                            Object val = values.remove(j);
-                            try {
-                                Date dateObj = DateUtils.parseDate(column, val);
-                                values.add(j, dateObj);
-                            } catch (Exception e) {
-                                log.error("Error parsing date: " + val);
-                                values.add(j, null);
-                            }
-                        }
-                    }
-                }
-                if (ColumnType.NUMBER.equals(columnType)) {
-                    for (int j=0; j<values.size(); j++) {
-                        Number num = (Number) values.remove(j);
-                        values.add(j, num != null ? num.doubleValue() : null);
+                        readTypes[i] = null;
                     }
                 }
+                List values = ColumnValues.create(column.getColumnType());
+                if (values == null) values = new ArrayList(Math.max(expectedRows, 10));
+                else if (expectedRows > 0) ((ColumnValues) values).ensureCapacity(expectedRows);
 
                 column.setValues(values);
+                dataColumns[i] = column;
+                valueLists[i] = values;
+            }
+
+            // Read the rows and convert the values (just once) as they are appended to the columns
+            int rowCount = 0;
+            while ((maxRows < 0 || rowCount++ < maxRows) && _rs.next()) {
+                if (windowCount && totalRows == -1) {
+                    // The total rows come along with every row (see _appendTotalRowsField)
+                    totalRows = _rs.getInt(ncolumns + 1);
+                }
+                for (int i = 0; i < ncolumns; i++) {
+                    int rsIdx = i + 1;
+                    List values = valueLists[i];
+                    ColumnType readType = readTypes[i];
+
+                    if (ColumnType.NUMBER.equals(readType)) {
+                        double num = _rs.getDouble(rsIdx);
+                        if (_rs.wasNull()) ((NumberColumnValues) values).addNull();
+                        else ((NumberColumnValues) values).addDouble(num);
+                    }
+                    else if (ColumnType.DATE.equals(readType)) {
+                        Timestamp date = _rs.getTimestamp(rsIdx);
+                        if (date == null) ((DateColumnValues) values).addNull();
+                        else ((DateColumnValues) values).addTime(date.getTime());
+                    }
+                    else if (readType == null) {
+                        values.add(_parseDate(dataColumns[i], _rs.getObject(rsIdx)));
+                    }
+                    else {
+                        // Labels & texts keep the value returned by the driver (i.e: a numeric label is rendered as
+                        // a number and not as the driver's string conversion)
+                        values.add(_rs.getObject(rsIdx));
+                    }
+                }
+            }
+            for (DataColumn column : dataColumns) {
                 dataSet.addColumn(column);
             }
             // Some operations requires some in-memory post-processing
@@ -908,6 +1198,20 @@ public class SQLDataSetProvider implements DataSetProvider {
             return dataSet;
         }
 
+        protected Date _parseDate(DataColumn column, Object val) {
+            if (val == null) return null;
+            try {
+                // Fixed date parts are expected as integers regardless of the numeric type returned by the driver
+                if (val instanceof Number && !(val instanceof Integer)) {
+                    val = ((Number) val).intValue();
+                }
+                return DateUtils.parseDate(column, val);
+            } catch (Exception e) {
+                log.error("Error parsing date: " + val);
+                return null;
+            }
+        }
+
         protected Field _createJooqField(String name) {
             return _getJooqField(def, name);
         }
@@ -15,6 +15,7 @@
  */
 package org.dashbuilder.dataprovider.backend.sql;
 
+import java.util.List;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
@@ -29,4 +30,9 @@ public interface SQLDataSourceLocator {
      * Get the data source referenced in the SQL data set definition
      */
     DataSource lookup(SQLDataSetDef def) throws NamingException;
+
+    /**
+     * Get the usage metrics of every data source looked up so far.
+     */
+    List<SQLDataSourceMetrics> getMetrics();
 }
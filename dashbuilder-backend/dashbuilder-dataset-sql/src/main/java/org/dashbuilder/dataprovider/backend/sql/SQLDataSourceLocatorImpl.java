@@ -15,18 +15,154 @@
  */
 package org.dashbuilder.dataprovider.backend.sql;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
+import org.dashbuilder.config.Config;
 import org.dashbuilder.dataset.def.SQLDataSetDef;
 
+/**
+ * Default data source locator. The data source referenced by the SQL data set definition can be either:
+ * <ul>
+ *     <li>A JNDI name. The data source is looked up from the container's naming context.</li>
+ *     <li>A JDBC URL (<i>jdbc:...</i>). A local connection pool is created for the database.</li>
+ * </ul>
+ * <p>Data set definitions are sent to the client, so the credentials of a local data source should not be
+ * part of its URL. They are read instead from the server side <i>credentialsFile</i> classpath resource, where every
+ * data source is described by a set of <i>name.url</i>, <i>name.user</i> and <i>name.password</i> entries.</p>
+ * <p>Resolved data sources are kept for further lookups.</p>
+ */
 @ApplicationScoped
 public class SQLDataSourceLocatorImpl implements SQLDataSourceLocator {
 
+    public static final String JDBC_URL_PREFIX = "jdbc:";
+
+    /**
+     * Max. number of open connections per local (JDBC URL) data source.
+     */
+    @Inject @Config("10")
+    protected int maxPoolSize;
+
+    /**
+     * Max. time (in milliseconds) to wait for a local connection once the pool is exhausted.
+     */
+    @Inject @Config("30000")
+    protected long maxPoolWait;
+
+    /**
+     * Time (in milliseconds) after which an idle local connection gets closed.
+     */
+    @Inject @Config("600000")
+    protected long poolIdleTimeout;
+
+    /**
+     * Classpath resource holding the credentials of the local (JDBC URL) data sources.
+     */
+    @Inject @Config("META-INF/sql-datasources.properties")
+    protected String credentialsFile;
+
+    protected Map<String,String[]> credentialsMap = null;
+    protected final Map<String,SQLMeteredDataSource> dataSourceMap = new HashMap<String,SQLMeteredDataSource>();
+
     public DataSource lookup(SQLDataSetDef def) throws NamingException {
+        String name = def.getDataSource();
+        synchronized (dataSourceMap) {
+            SQLMeteredDataSource ds = dataSourceMap.get(name);
+            if (ds == null) {
+                ds = createDataSource(def);
+                dataSourceMap.put(name, ds);
+            }
+            return ds;
+        }
+    }
+
+    public List<SQLDataSourceMetrics> getMetrics() {
+        synchronized (dataSourceMap) {
+            List<SQLDataSourceMetrics> result = new ArrayList<SQLDataSourceMetrics>();
+            for (SQLMeteredDataSource ds : dataSourceMap.values()) {
+                result.add(ds.getMetrics());
+            }
+            return result;
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        synchronized (dataSourceMap) {
+            for (SQLMeteredDataSource ds : dataSourceMap.values()) {
+                ds.close();
+            }
+            dataSourceMap.clear();
+        }
+    }
+
+    protected SQLMeteredDataSource createDataSource(SQLDataSetDef def) throws NamingException {
+        String name = def.getDataSource();
+        if (name.startsWith(JDBC_URL_PREFIX)) {
+            String[] credentials = getCredentials(name);
+            try {
+                return new SQLPooledDataSource(name, credentials[0], credentials[1], def.getDbDriver(), maxPoolSize, maxPoolWait, poolIdleTimeout);
+            } catch (SQLException e) {
+                NamingException ne = new NamingException("Can't create the data source: " + SQLPooledDataSource.maskURL(name));
+                ne.setRootCause(e);
+                throw ne;
+            }
+        }
         InitialContext ctx = new InitialContext();
-        return (DataSource) ctx.lookup(def.getDataSource());
+        DataSource ds = (DataSource) ctx.lookup(name);
+        return new SQLMeteredDataSource(name, ds);
+    }
+
+    /**
+     * Get the credentials of a local data source.
+     * @return An array containing the user and the password (both null if not found).
+     */
+    protected String[] getCredentials(String url) {
+        if (credentialsMap == null) {
+            credentialsMap = readCredentials();
+        }
+        String[] credentials = credentialsMap.get(url);
+        return credentials != null ? credentials : new String[2];
+    }
+
+    protected Map<String,String[]> readCredentials() {
+        Map<String,String[]> result = new HashMap<String,String[]>();
+        if (credentialsFile == null || credentialsFile.length() == 0) return result;
+
+        Properties props = new Properties();
+        InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(credentialsFile);
+        if (is == null) return result;
+        try {
+            props.load(is);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read the data source credentials: " + credentialsFile, e);
+        } finally {
+            try {
+                is.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+        for (String key : props.stringPropertyNames()) {
+            if (key.endsWith(".url")) {
+                String prefix = key.substring(0, key.length() - 3);
+                String user = props.getProperty(prefix + "user");
+                String password = props.getProperty(prefix + "password");
+                result.put(props.getProperty(key).trim(), new String[] {user, password});
+            }
+        }
+        return result;
     }
 }
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.sql;
+
+/**
+ * Usage metrics of a data source referenced by SQL data sets.
+ */
+public class SQLDataSourceMetrics {
+
+    protected String dataSource;
+    protected int activeConnections = 0;
+    protected int idleConnections = -1;
+    protected long numberOfAcquires = 0;
+    protected long totalAcquireWait = 0;
+    protected long maxAcquireWait = 0;
+    protected long numberOfQueries = 0;
+    protected long totalQueryTime = 0;
+    protected long maxQueryTime = 0;
+
+    public SQLDataSourceMetrics(String dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * The data source name (a JNDI name or a JDBC URL).
+     */
+    public String getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Number of connections currently in use.
+     */
+    public synchronized int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     * Number of open connections waiting in the pool to be reused.
+     * @return -1 if the pool is not managed locally (i.e: JNDI data sources).
+     */
+    public synchronized int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public synchronized long getNumberOfAcquires() {
+        return numberOfAcquires;
+    }
+
+    /**
+     * Average time taken to get a connection from the data source.
+     * @return Time in nanoseconds
+     */
+    public synchronized long getAverageAcquireWait() {
+        if (numberOfAcquires == 0) return 0;
+        return totalAcquireWait / numberOfAcquires;
+    }
+
+    /**
+     * Max. time taken to get a connection from the data source.
+     * @return Time in nanoseconds
+     */
+    public synchronized long getMaxAcquireWait() {
+        return maxAcquireWait;
+    }
+
+    public synchronized long getNumberOfQueries() {
+        return numberOfQueries;
+    }
+
+    /**
+     * Average time taken by the data set lookup queries.
+     * @return Time in nanoseconds
+     */
+    public synchronized long getAverageQueryTime() {
+        if (numberOfQueries == 0) return 0;
+        return totalQueryTime / numberOfQueries;
+    }
+
+    /**
+     * Time taken by the slowest data set lookup query.
+     * @return Time in nanoseconds
+     */
+    public synchronized long getMaxQueryTime() {
+        return maxQueryTime;
+    }
+
+    protected synchronized void connectionAcquired(long wait) {
+        activeConnections++;
+        numberOfAcquires++;
+        totalAcquireWait += wait;
+        if (wait > maxAcquireWait) maxAcquireWait = wait;
+    }
+
+    protected synchronized void connectionReleased() {
+        activeConnections--;
+    }
+
+    protected synchronized void setIdleConnections(int idleConnections) {
+        this.idleConnections = idleConnections;
+    }
+
+    public synchronized void queryExecuted(long time) {
+        numberOfQueries++;
+        totalQueryTime += time;
+        if (time > maxQueryTime) maxQueryTime = time;
+    }
+
+    /**
+     * Prints a metrics summary.
+     * @param sep The separator string to insert between every metric.
+     */
+    public synchronized String toString(String sep) {
+        StringBuilder out = new StringBuilder();
+        out.append("Data source=").append(dataSource).append(sep);
+        out.append("#Active connections=").append(activeConnections).append(sep);
+        if (idleConnections >= 0) out.append("#Idle connections=").append(idleConnections).append(sep);
+        out.append("#Acquires=").append(numberOfAcquires).append(sep);
+        out.append("Avg. acquire wait=").append(getAverageAcquireWait() / 1000000).append(" ms").append(sep);
+        out.append("Max. acquire wait=").append(maxAcquireWait / 1000000).append(" ms").append(sep);
+        out.append("#Queries=").append(numberOfQueries).append(sep);
+        out.append("Avg. query time=").append(getAverageQueryTime() / 1000000).append(" ms").append(sep);
+        out.append("Max. query time=").append(maxQueryTime / 1000000).append(" ms");
+        return out.toString();
+    }
+
+    public String toString() {
+        return toString("  ");
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.sql;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * A data source wrapper which keeps track of the connections handed out.
+ * <p>Connections are returned wrapped so the time spent waiting for a connection as well as
+ * the number of connections in use are registered into the data source metrics.</p>
+ */
+public class SQLMeteredDataSource implements DataSource {
+
+    protected DataSource target;
+    protected SQLDataSourceMetrics metrics;
+
+    public SQLMeteredDataSource(String name, DataSource target) {
+        this.target = target;
+        this.metrics = new SQLDataSourceMetrics(name);
+    }
+
+    public DataSource getTarget() {
+        return target;
+    }
+
+    public SQLDataSourceMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Connection getConnection() throws SQLException {
+        long begin = System.nanoTime();
+        Connection conn = openConnection();
+        metrics.connectionAcquired(System.nanoTime() - begin);
+        return wrapConnection(conn);
+    }
+
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target.getConnection(username, password);
+    }
+
+    /**
+     * Release the resources held by this data source (if any).
+     */
+    public void close() {
+    }
+
+    protected Connection openConnection() throws SQLException {
+        return target.getConnection();
+    }
+
+    protected void releaseConnection(Connection conn) throws SQLException {
+        conn.close();
+    }
+
+    protected Connection wrapConnection(final Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class[] {Connection.class},
+                new InvocationHandler() {
+
+                    boolean closed = false;
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String name = method.getName();
+                        if ("close".equals(name)) {
+                            synchronized (this) {
+                                if (closed) return null;
+                                closed = true;
+                            }
+                            try {
+                                releaseConnection(conn);
+                            } finally {
+                                metrics.connectionReleased();
+                            }
+                            return null;
+                        }
+                        if ("isClosed".equals(name)) {
+                            synchronized (this) {
+                                if (closed) return true;
+                            }
+                        }
+                        else if ("equals".equals(name)) {
+                            return proxy == args[0];
+                        }
+                        else if ("hashCode".equals(name)) {
+                            return System.identityHashCode(proxy);
+                        }
+                        else if ("toString".equals(name)) {
+                            return "Connection(" + metrics.getDataSource() + ")";
+                        }
+                        else {
+                            synchronized (this) {
+                                if (closed) throw new SQLException("Connection is closed");
+                            }
+                        }
+                        try {
+                            return method.invoke(conn, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    // Plain delegation
+
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        return target.unwrap(iface);
+    }
+
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface.isInstance(this)) return true;
+        return target.isWrapperFor(iface);
+    }
+}
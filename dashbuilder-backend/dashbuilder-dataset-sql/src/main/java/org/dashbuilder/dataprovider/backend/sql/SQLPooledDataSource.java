@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.sql;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * A local pool of JDBC connections to the database specified by a JDBC URL.
+ * <p>It allows the SQL provider to run outside an application server (no JNDI data sources available).
+ * Idle connections are reused in LIFO order, so the ones not used for longer than the idle timeout get closed.</p>
+ * <p>The URL is never shown as is (error messages, metrics), any credentials in it get masked first.</p>
+ */
+public class SQLPooledDataSource extends SQLMeteredDataSource {
+
+    private static final Pattern URL_PARAM_CREDENTIALS = Pattern.compile("(?i)(\\b(?:user|username|password|pwd)\\s*=)[^;&]*");
+    private static final Pattern URL_USER_INFO = Pattern.compile("//[^/@?;]*@");
+
+    /**
+     * Hide the credentials included into a JDBC URL (if any).
+     */
+    public static String maskURL(String url) {
+        if (url == null) return null;
+        String result = URL_PARAM_CREDENTIALS.matcher(url).replaceAll("$1***");
+        return URL_USER_INFO.matcher(result).replaceAll("//***@");
+    }
+
+    protected String url;
+    protected String user;
+    protected String password;
+    protected int maxConnections;
+    protected long maxWait;
+    protected long idleTimeout;
+    protected Semaphore permits;
+    protected final LinkedList<IdleConnection> idleList = new LinkedList<IdleConnection>();
+    protected volatile boolean closed = false;
+    protected PrintWriter logWriter = null;
+    protected int loginTimeout = 0;
+
+    public SQLPooledDataSource(String url, String driver, int maxConnections, long maxWait, long idleTimeout) throws SQLException {
+        this(url, null, null, driver, maxConnections, maxWait, idleTimeout);
+    }
+
+    /**
+     * @param url The JDBC URL.
+     * @param user The database user (optional).
+     * @param password The database password (optional).
+     * @param driver The JDBC driver class (optional, JDBC 4 drivers register themselves).
+     * @param maxConnections Max. number of open connections.
+     * @param maxWait Max. time (in milliseconds) to wait for a connection once the max. is reached.
+     * @param idleTimeout Time (in milliseconds) after which an idle connection gets closed.
+     */
+    public SQLPooledDataSource(String url, String user, String password, String driver, int maxConnections, long maxWait, long idleTimeout) throws SQLException {
+        super(maskURL(url), null);
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxConnections = maxConnections;
+        this.maxWait = maxWait;
+        this.idleTimeout = idleTimeout;
+        this.permits = new Semaphore(maxConnections, true);
+        metrics.setIdleConnections(0);
+
+        if (driver != null) {
+            try {
+                Class.forName(driver, true, Thread.currentThread().getContextClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("JDBC driver not found: " + driver, e);
+            }
+        }
+    }
+
+    /**
+     * The JDBC URL with its credentials masked.
+     */
+    public String getUrl() {
+        return metrics.getDataSource();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Connections with specific credentials are not pooled
+        return DriverManager.getConnection(url, username, password);
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (idleList) {
+            for (IdleConnection idle : idleList) {
+                closeQuietly(idle.conn);
+            }
+            idleList.clear();
+            metrics.setIdleConnections(0);
+        }
+    }
+
+    protected Connection openConnection() throws SQLException {
+        if (closed) throw new SQLException("Data source is closed: " + getUrl());
+        try {
+            if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timeout waiting for a connection (max. " + maxConnections + "): " + getUrl());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection: " + getUrl());
+        }
+        boolean acquired = false;
+        try {
+            Connection conn = pollIdle();
+            if (conn == null) conn = createConnection();
+            acquired = true;
+            return conn;
+        } finally {
+            if (!acquired) permits.release();
+        }
+    }
+
+    /**
+     * Open a new physical connection to the database.
+     */
+    protected Connection createConnection() throws SQLException {
+        if (user == null) return DriverManager.getConnection(url);
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    protected void releaseConnection(Connection conn) throws SQLException {
+        try {
+            if (closed || conn.isClosed()) {
+                closeQuietly(conn);
+                return;
+            }
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            synchronized (idleList) {
+                idleList.addFirst(new IdleConnection(conn));
+                evictIdle();
+                metrics.setIdleConnections(idleList.size());
+            }
+        } catch (SQLException e) {
+            closeQuietly(conn);
+        } finally {
+            permits.release();
+        }
+    }
+
+    protected Connection pollIdle() {
+        synchronized (idleList) {
+            evictIdle();
+            IdleConnection idle = idleList.poll();
+            metrics.setIdleConnections(idleList.size());
+            return idle != null ? idle.conn : null;
+        }
+    }
+
+    /**
+     * Close the connections not used for longer than the idle timeout (the oldest are at the end of the list).
+     */
+    protected void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<IdleConnection> it = idleList.descendingIterator();
+        while (it.hasNext()) {
+            IdleConnection idle = it.next();
+            if (now - idle.since < idleTimeout) break;
+            it.remove();
+            closeQuietly(idle.conn);
+        }
+    }
+
+    protected void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // Ignore
+        }
+    }
+
+    public PrintWriter getLogWriter() throws SQLException {
+        return logWriter;
+    }
+
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.logWriter = out;
+    }
+
+    public void setLoginTimeout(int seconds) throws SQLException {
+        this.loginTimeout = seconds;
+    }
+
+    public int getLoginTimeout() throws SQLException {
+        return loginTimeout;
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    protected static class IdleConnection {
+
+        Connection conn;
+        long since;
+
+        IdleConnection(Connection conn) {
+            this.conn = conn;
+            this.since = System.currentTimeMillis();
+        }
+    }
+}
@@ -25,7 +25,17 @@ import org.h2.jdbcx.JdbcDataSource;
 @Specializes
 public class DataSourceLocatorMock extends SQLDataSourceLocatorImpl {
 
+    protected DataSource dataSource;
+
+    /**
+     * Make every lookup return the given data source (null to restore the default one).
+     */
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
     public DataSource lookup(SQLDataSetDef def) throws NamingException {
+        if (dataSource != null) return dataSource;
         JdbcDataSource ds = new JdbcDataSource();
         ds.setURL("jdbc:h2:mem:test;DATABASE_TO_UPPER=FALSE");
         return ds;
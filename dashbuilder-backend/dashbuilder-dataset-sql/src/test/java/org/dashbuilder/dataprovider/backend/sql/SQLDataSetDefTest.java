@@ -15,7 +15,9 @@
  */
 package org.dashbuilder.dataprovider.backend.sql;
 
+import java.math.BigDecimal;
 import java.net.URL;
+import java.util.Date;
 
 import org.apache.commons.io.IOUtils;
 import org.dashbuilder.dataset.DataSet;
@@ -28,6 +30,7 @@ import org.junit.Test;
 
 import static org.dashbuilder.dataset.Assertions.*;
 import static org.fest.assertions.api.Assertions.*;
+import static org.jooq.impl.DSL.*;
 
 public class SQLDataSetDefTest extends SQLDataSetTestBase {
 
@@ -44,6 +47,24 @@ public class SQLDataSetDefTest extends SQLDataSetTestBase {
         assertThat(metadata.getEstimatedSize()).isEqualTo(6350);
     }
 
+    @Test
+    public void testTableNameWildcards() throws Exception {
+
+        // The '_' in 'expense_reports' must not match any other table
+        using(conn).execute("CREATE TABLE expensexreports (id INTEGER NOT NULL, extra VARCHAR(10))");
+        try {
+            URL fileURL = Thread.currentThread().getContextClassLoader().getResource("expenseReports_allcolumns.dset");
+            String json = IOUtils.toString(fileURL);
+            SQLDataSetDef def = (SQLDataSetDef) jsonMarshaller.fromJson(json);
+            dataSetDefRegistry.registerDataSetDef(def);
+
+            DataSetMetadata metadata = dataSetManager.getDataSetMetadata("expense_reports_allcolumns");
+            assertThat(metadata.getNumberOfColumns()).isEqualTo(6);
+        } finally {
+            using(conn).execute("DROP TABLE expensexreports");
+        }
+    }
+
     @Test
     public void testSQLDataSet() throws Exception {
 
@@ -93,7 +114,29 @@ public class SQLDataSetDefTest extends SQLDataSetTestBase {
         assertThat(dataSet.getValueAt(0, 0)).isEqualTo("Engineering");
         assertThat(dataSet.getValueAt(0, 1)).isEqualTo("Roxie Foraker");
         assertThat(dataSet.getValueAt(0, 2)).isEqualTo(120.35d);
-        assertThat(dataSet.getValueAt(0, 3).toString()).isEqualTo("2015-12-11 00:00:00.0");
+        assertThat(dataSet.getValueAt(0, 3)).isEqualTo(new Date(115, 11, 11));
+    }
+
+    @Test
+    public void testNumericLabels() throws Exception {
+
+        SQLDataSetDef def = (SQLDataSetDef) jsonMarshaller.fromJson("{" +
+                "\"uuid\": \"expense_reports_numlabels\", " +
+                "\"provider\": \"SQL\", " +
+                "\"dataSource\": \"jdbc:h2:mem:test;DATABASE_TO_UPPER=FALSE\", " +
+                "\"dbTable\": \"expense_reports\", " +
+                "\"allColumns\": false, " +
+                "\"columns\": [{\"id\": \"id\", \"type\": \"label\"}, {\"id\": \"amount\", \"type\": \"label\"}]}");
+        dataSetDefRegistry.registerDataSetDef(def);
+
+        DataSet dataSet = dataSetManager.lookupDataSet(
+                DataSetFactory.newDataSetLookupBuilder()
+                        .dataset("expense_reports_numlabels")
+                        .buildLookup());
+
+        // Numeric labels keep the values returned by the driver
+        assertThat(dataSet.getValueAt(0, 0)).isEqualTo(1);
+        assertThat(dataSet.getValueAt(0, 1)).isEqualTo(new BigDecimal("120.35"));
     }
 
     @Test
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.backend.sql;
+
+import javax.inject.Inject;
+
+import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.def.SQLDataSetDef;
+import org.dashbuilder.dataset.impl.DataSetImpl;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.jooq.impl.DSL.*;
+
+/**
+ * <p>Measures the time and memory required to load a whole database table into a data set.</p>
+ * <p>It's not executed as part of the regular build. To run it:
+ * <code>mvn test -Dtest=SQLDataSetIngestionBenchmark -Dbenchmark.rows=10000,100000,1000000,5000000</code></p>
+ */
+public class SQLDataSetIngestionBenchmark extends SQLDataSetTestBase {
+
+    public static final String CREATE_BENCH_TABLE = "CREATE TABLE bench_reports (\n" +
+            "  id INTEGER NOT NULL,\n" +
+            "  city VARCHAR(50),\n" +
+            "  department VARCHAR(50),\n" +
+            "  employee VARCHAR(50),\n" +
+            "  date TIMESTAMP,\n" +
+            "  amount NUMERIC(28,2),\n" +
+            "  PRIMARY KEY(id)\n" +
+            ")";
+
+    public static final String POPULATE_BENCH_TABLE = "INSERT INTO bench_reports " +
+            "SELECT X, 'City ' || MOD(X, 50), 'Department ' || MOD(X, 10), 'Employee ' || MOD(X, 1000), " +
+            "DATEADD('MINUTE', X, TIMESTAMP '2010-01-01 00:00:00'), MOD(X, 10000) / 3.0 " +
+            "FROM SYSTEM_RANGE(1, %d)";
+
+    @Inject
+    SQLDataSetProvider sqlDataSetProvider;
+
+    @Test
+    public void testIngestion() throws Exception {
+        String[] sizes = System.getProperty("benchmark.rows", "10000,100000,1000000").split(",");
+        for (String size : sizes) {
+            int rows = Integer.parseInt(size.trim());
+            try {
+                using(conn).execute(CREATE_BENCH_TABLE);
+                using(conn).execute(String.format(POPULATE_BENCH_TABLE, rows));
+
+                SQLDataSetDef def = new SQLDataSetDef();
+                def.setUUID("bench_reports_" + rows);
+                def.setProvider(DataSetProviderType.SQL);
+                def.setDataSource("jdbc:h2:mem:test;DATABASE_TO_UPPER=FALSE");
+                def.setDbTable("bench_reports");
+                def.setAllColumnsEnabled(true);
+                def.setCacheEnabled(false);
+
+                // Warm up (also loads the metadata)
+                sqlDataSetProvider.lookupDataSet(def, null);
+
+                long heapBefore = usedHeap();
+                long start = System.nanoTime();
+                DataSet dataSet = sqlDataSetProvider.lookupDataSet(def, null);
+                long time = (System.nanoTime() - start) / 1000000;
+                long heap = usedHeap() - heapBefore;
+
+                assertThat(dataSet.getRowCount()).isEqualTo(rows);
+                System.out.println(String.format("%,d rows loaded in %,d ms. Heap used: %,d KB. Estimated size: %,d KB",
+                        rows, time, heap / 1024, ((DataSetImpl) dataSet).getEstimatedSize() / 1024));
+            } finally {
+                using(conn).execute("DROP TABLE IF EXISTS bench_reports");
+            }
+        }
+    }
+
+    protected long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
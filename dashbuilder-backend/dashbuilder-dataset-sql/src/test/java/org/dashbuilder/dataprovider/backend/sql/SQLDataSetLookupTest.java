@@ -15,12 +15,24 @@
  */
 package org.dashbuilder.dataprovider.backend.sql;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.dashbuilder.dataprovider.backend.DataSetPageHandler;
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetFactory;
 import org.dashbuilder.dataset.DataSetFilterTest;
 import org.dashbuilder.dataset.DataSetGroupTest;
 import org.dashbuilder.dataset.DataSetNestedGroupTest;
+import org.dashbuilder.dataset.DataSetStreamingTest;
+import org.dashbuilder.dataset.backend.BackendDataSetManager;
+import org.dashbuilder.dataset.def.DataSetDef;
 import org.junit.Test;
 
 import static org.dashbuilder.dataset.group.AggregateFunctionType.*;
@@ -29,6 +41,12 @@ import static org.fest.assertions.api.Assertions.*;
 
 public class SQLDataSetLookupTest extends SQLDataSetTestBase {
 
+    @Inject
+    SQLDataSetProvider sqlDataSetProvider;
+
+    @Inject
+    DataSourceLocatorMock dataSourceLocator;
+
     @Test
     public void testDataSetTrim() throws Exception {
         DataSet result = dataSetManager.lookupDataSet(
@@ -139,4 +157,57 @@ public class SQLDataSetLookupTest extends SQLDataSetTestBase {
         subTest.testORExpression();
         subTest.testCombinedExpression();
     }
+
+    @Test
+    public void testDataSetStream() throws Exception {
+        DataSetStreamingTest subTest = new DataSetStreamingTest();
+        subTest.dataSetManager = (BackendDataSetManager) dataSetManager;
+        subTest.dataSetFormatter = dataSetFormatter;
+        subTest.testStreamPages();
+        subTest.testStreamRowLimits();
+        subTest.testStreamGroupedResults();
+        subTest.testStreamEmptyResults();
+    }
+
+    @Test
+    public void testStreamAutoCommit() throws Exception {
+        // Always give the same connection, so its state can be checked once the stream finishes
+        final Connection sharedConn = (Connection) proxy(Connection.class, conn, "close", null);
+        DataSource dataSource = (DataSource) proxy(DataSource.class, null, "getConnection", sharedConn);
+        dataSourceLocator.setDataSource(dataSource);
+        try {
+            final int[] rows = new int[] {0};
+            final boolean[] autoCommit = new boolean[] {true};
+            DataSetDef def = dataSetDefRegistry.getDataSetDef(DataSetGroupTest.EXPENSE_REPORTS);
+            boolean streamed = sqlDataSetProvider.streamDataSet(def, null, 10, new DataSetPageHandler() {
+                public void handlePage(DataSet page) throws Exception {
+                    // The rows are read through a cursor, within a transaction
+                    autoCommit[0] &= sharedConn.getAutoCommit();
+                    rows[0] += page.getRowCount();
+                }
+            });
+            assertThat(streamed).isTrue();
+            assertThat(rows[0]).isEqualTo(50);
+            assertThat(autoCommit[0]).isFalse();
+            assertThat(conn.getAutoCommit()).isTrue();
+        } finally {
+            dataSourceLocator.setDataSource(null);
+        }
+    }
+
+    /**
+     * Create a proxy that returns the given result for the given method and delegates any other call to the target.
+     */
+    protected Object proxy(Class type, final Object target, final String method, final Object result) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {type}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+                if (m.getName().equals(method)) return result;
+                try {
+                    return m.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
 }
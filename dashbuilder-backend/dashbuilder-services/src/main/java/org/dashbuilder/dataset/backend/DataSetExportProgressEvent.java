@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+/**
+ * Event fired every time a page of rows has been written during a data set export (see {@link DataSetExporter}).
+ */
+public class DataSetExportProgressEvent {
+
+    private String dataSetUUID;
+    private int exportedRows;
+    private int totalRows;
+
+    public DataSetExportProgressEvent(String dataSetUUID, int exportedRows, int totalRows) {
+        this.dataSetUUID = dataSetUUID;
+        this.exportedRows = exportedRows;
+        this.totalRows = totalRows;
+    }
+
+    public String getDataSetUUID() {
+        return dataSetUUID;
+    }
+
+    public int getExportedRows() {
+        return exportedRows;
+    }
+
+    /**
+     * @return The total number of rows to export or -1 if it's not known in advance.
+     */
+    public int getTotalRows() {
+        return totalRows;
+    }
+}
@@ -0,0 +1,393 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+
+import au.com.bytecode.opencsv.CSVWriter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.PrintSetup;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.DateFormatConverter;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.dashbuilder.config.Config;
+import org.dashbuilder.dataprovider.backend.DataSetPageHandler;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.group.Interval;
+import org.slf4j.Logger;
+
+/**
+ * Writes data sets into CSV or Excel files.
+ * <p>The rows of a lookup request are read page by page (see <i>BackendDataSetManager.streamDataSet</i>) and every
+ * page is written to the output stream as soon as it's read, so the exported rows are never held in memory all
+ * together. A {@link DataSetExportProgressEvent} is fired after every page.</p>
+ */
+@ApplicationScoped
+public class DataSetExporter {
+
+    @Inject
+    protected Logger log;
+
+    @Inject
+    protected BackendDataSetManager dataSetManager;
+
+    @Inject
+    protected Event<DataSetExportProgressEvent> exportProgressEvent;
+
+    /**
+     * Number of rows read from the data set on every page.
+     */
+    @Inject @Config("1000")
+    protected int exportPageSize = 1000;
+
+    protected String DEFAULT_SEPARATOR_CHAR = ";";
+    protected String DEFAULT_QUOTE_CHAR = "\"";
+    protected String DEFAULT_ESCAPE_CHAR = "\\";
+
+    /**
+     * Max. number of rows (header included) per Excel sheet. Once reached, the export goes on in a new sheet.
+     */
+    protected int excelMaxRowsPerSheet = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    protected String dateFormatPattern = "dd/MM/yyyy HH:mm:ss";
+    protected String numberFormatPattern = "#,###.##########";
+
+    public void exportCSV(DataSetLookup lookup, OutputStream os) throws Exception {
+        CSVPageWriter writer = new CSVPageWriter(lookup.getDataSetUUID(), lookup, os);
+        dataSetManager.streamDataSet(lookup, exportPageSize, writer);
+        writer.finish();
+    }
+
+    public void exportCSV(DataSet dataSet, OutputStream os) throws Exception {
+        CSVPageWriter writer = new CSVPageWriter(dataSet.getUUID(), null, os);
+        writer.handlePage(dataSet);
+        writer.finish();
+    }
+
+    public void exportExcel(DataSetLookup lookup, OutputStream os) throws Exception {
+        ExcelPageWriter writer = new ExcelPageWriter(lookup.getDataSetUUID(), lookup, os);
+        try {
+            dataSetManager.streamDataSet(lookup, exportPageSize, writer);
+            writer.finish();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    public void exportExcel(DataSet dataSet, OutputStream os) throws Exception {
+        ExcelPageWriter writer = new ExcelPageWriter(dataSet.getUUID(), null, os);
+        try {
+            writer.handlePage(dataSet);
+            writer.finish();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Base class for the writers receiving the pages to export.
+     */
+    protected abstract class ExportWriter implements DataSetPageHandler {
+
+        protected String uuid;
+        protected DataSetLookup lookup;
+        protected boolean started = false;
+        protected int exportedRows = 0;
+        protected int totalRows = -1;
+
+        // Format instances are not thread safe, so every export gets its own
+        protected DecimalFormat decf = new DecimalFormat(numberFormatPattern);
+        protected DateFormat datef = new SimpleDateFormat(dateFormatPattern);
+
+        protected ExportWriter(String uuid, DataSetLookup lookup) {
+            this.uuid = uuid;
+            this.lookup = lookup;
+        }
+
+        protected abstract void writeHeader(DataSet page) throws IOException;
+        protected abstract void writeRows(DataSet page) throws IOException;
+        protected abstract void finish() throws IOException;
+
+        public void handlePage(DataSet page) throws Exception {
+            if (!started) {
+                writeHeader(page);
+                totalRows = calculateTotalRows(page);
+                started = true;
+            }
+            writeRows(page);
+            exportedRows += page.getRowCount();
+
+            log.debug("Data set export [" + uuid + "]: " + exportedRows + " of " + (totalRows == -1 ? "?" : totalRows) + " rows written");
+            exportProgressEvent.fire(new DataSetExportProgressEvent(uuid, exportedRows, totalRows));
+        }
+
+        /**
+         * Get the number of rows to export from the first page read, if known.
+         */
+        protected int calculateTotalRows(DataSet firstPage) {
+            int rows = firstPage.getRowCount();
+            if (lookup == null || rows < exportPageSize) return rows;
+
+            // The total is known only if the page is a trimmed piece of the lookup results
+            int total = firstPage.getRowCountNonTrimmed();
+            if (total <= rows) return -1;
+
+            total = Math.max(0, total - lookup.getRowOffset());
+            if (lookup.getNumberOfRows() > 0) total = Math.min(total, lookup.getNumberOfRows());
+            return total;
+        }
+
+        protected String formatAsString(Object value) {
+            if (value == null) return "";
+            if (value instanceof Number) return decf.format(value);
+            else if (value instanceof Date) return datef.format(value);
+            // TODO verify if this is correct
+            else if (value instanceof Interval) return ((Interval)value).getName();
+            else return value.toString();
+        }
+    }
+
+    protected class CSVPageWriter extends ExportWriter {
+
+        protected CSVWriter writer;
+
+        public CSVPageWriter(String uuid, DataSetLookup lookup, OutputStream os) {
+            super(uuid, lookup);
+            writer = new CSVWriter(new BufferedWriter(new OutputStreamWriter(os)),
+                    DEFAULT_SEPARATOR_CHAR.charAt(0),
+                    DEFAULT_QUOTE_CHAR.charAt(0),
+                    DEFAULT_ESCAPE_CHAR.charAt(0));
+        }
+
+        protected void writeHeader(DataSet page) {
+            int columnCount = page.getColumns().size();
+            String[] line = new String[columnCount];
+            for (int cc = 0; cc < columnCount; cc++) {
+                line[cc] = page.getColumnByIndex(cc).getId();
+            }
+            writer.writeNext(line);
+        }
+
+        protected void writeRows(DataSet page) {
+            int columnCount = page.getColumns().size();
+            int rowCount = page.getRowCount();
+            for (int rc = 0; rc < rowCount; rc++) {
+                String[] line = new String[columnCount];
+                for (int cc = 0; cc < columnCount; cc++) {
+                    line[cc] = formatAsString(page.getValueAt(rc, cc));
+                }
+                writer.writeNext(line);
+            }
+        }
+
+        protected void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    protected class ExcelPageWriter extends ExportWriter {
+
+        protected OutputStream os;
+        protected SXSSFWorkbook wb;
+        protected Map<String, CellStyle> styles;
+        protected Sheet sh;
+        protected int row = 0;
+        protected String[] columnIds = new String[0];
+
+        // The column widths are calculated as the rows are written since only the last rows are kept in memory
+        protected int[] columnWidths = new int[0];
+
+        public ExcelPageWriter(String uuid, DataSetLookup lookup, OutputStream os) {
+            super(uuid, lookup);
+            this.os = os;
+            this.wb = new SXSSFWorkbook(100); // keep 100 rows in memory, exceeding rows will be flushed to disk
+            this.styles = createStyles(wb);
+        }
+
+        protected void createSheet() {
+            sh = wb.createSheet("Sheet " + (wb.getNumberOfSheets() + 1));
+            row = 0;
+
+            // General setup
+            sh.setDisplayGridlines(true);
+            sh.setPrintGridlines(false);
+            sh.setFitToPage(true);
+            sh.setHorizontallyCenter(true);
+            PrintSetup printSetup = sh.getPrintSetup();
+            printSetup.setLandscape(true);
+
+            // Every sheet starts with the header
+            Row header = sh.createRow(row++);
+            header.setHeightInPoints(20f);
+            for (int i = 0; i < columnIds.length; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellStyle(styles.get("header"));
+                cell.setCellValue(columnIds[i]);
+            }
+        }
+
+        protected void writeHeader(DataSet page) {
+            int columnCount = page.getColumns().size();
+            if (columnCount > SpreadsheetVersion.EXCEL2007.getMaxColumns()) {
+                throw new IllegalArgumentException("Excel files can't hold more than "
+                        + SpreadsheetVersion.EXCEL2007.getMaxColumns() + " columns: " + uuid);
+            }
+            columnIds = new String[columnCount];
+            columnWidths = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                String columnId = page.getColumnByIndex(i).getId();
+                columnIds[i] = columnId;
+                columnWidths[i] = columnId == null ? 0 : columnId.length();
+            }
+            createSheet();
+        }
+
+        protected void writeRows(DataSet page) {
+            // Excel limits: 1,048,576 rows by 16,384 columns. Exceeding rows are written to a new sheet.
+            int columnCount = page.getColumns().size();
+            int rowCount = page.getRowCount();
+            for (int rc = 0; rc < rowCount; rc++) {
+                if (row >= excelMaxRowsPerSheet) createSheet();
+                Row _row = sh.createRow(row++);
+                for (int cellnum = 0; cellnum < columnCount; cellnum++) {
+                    Cell cell = _row.createCell(cellnum);
+                    Object value = page.getValueAt(rc, cellnum);
+                    if (value instanceof Short || value instanceof Long || value instanceof Integer || value instanceof BigInteger ) {
+                        cell.setCellType(Cell.CELL_TYPE_NUMERIC);
+                        cell.setCellStyle(styles.get("integer_number_cell"));
+                        cell.setCellValue(((Number) value).doubleValue());
+                    } else if (value instanceof Float || value instanceof Double || value instanceof BigDecimal ) {
+                        cell.setCellType(Cell.CELL_TYPE_NUMERIC);
+                        cell.setCellStyle(styles.get("decimal_number_cell"));
+                        cell.setCellValue(((Number) value).doubleValue());
+                    } else if (value instanceof Date) {
+                        cell.setCellType(Cell.CELL_TYPE_STRING);
+                        cell.setCellStyle(styles.get("date_cell"));
+                        cell.setCellValue((Date) value);
+                    } else if (value instanceof Interval) {
+                        cell.setCellType(Cell.CELL_TYPE_STRING);
+                        cell.setCellStyle(styles.get("text_cell"));
+                        cell.setCellValue(((Interval) value).getName());
+                    } else {
+                        cell.setCellType(Cell.CELL_TYPE_STRING);
+                        cell.setCellStyle(styles.get("text_cell"));
+                        if (value != null) cell.setCellValue(value.toString());
+                    }
+                    int width = value instanceof Date ? dateFormatPattern.length() : formatAsString(value).length();
+                    if (width > columnWidths[cellnum]) columnWidths[cellnum] = width;
+                }
+            }
+        }
+
+        protected void finish() throws IOException {
+            if (sh == null) createSheet();
+
+            // Adjust column size (Excel does not allow for more than 255 characters)
+            for (int s = 0; s < wb.getNumberOfSheets(); s++) {
+                Sheet sheet = wb.getSheetAt(s);
+                for (int i = 0; i < columnWidths.length; i++) {
+                    sheet.setColumnWidth(i, Math.min(columnWidths[i] + 2, 255) * 256);
+                }
+            }
+            wb.write(os);
+            os.flush();
+        }
+
+        protected void dispose() {
+            // Dispose of temporary files backing this workbook on disk
+            if (!wb.dispose()) log.warn("Could not dispose of temporary file associated to data export!");
+        }
+    }
+
+    protected Map<String, CellStyle> createStyles(Workbook wb){
+        Map<String, CellStyle> styles = new HashMap<String, CellStyle>();
+        CellStyle style;
+
+        Font titleFont = wb.createFont();
+        titleFont.setFontHeightInPoints((short)12);
+        titleFont.setBoldweight(Font.BOLDWEIGHT_BOLD);
+        style = wb.createCellStyle();
+        style.setAlignment(CellStyle.ALIGN_CENTER);
+        style.setVerticalAlignment(CellStyle.VERTICAL_CENTER);
+        style.setFillForegroundColor( IndexedColors.GREY_25_PERCENT.getIndex());
+        style.setFillPattern(CellStyle.SOLID_FOREGROUND);
+        style.setFont(titleFont);
+        style.setWrapText(false);
+        style.setBorderBottom(CellStyle.BORDER_THIN);
+        style.setBottomBorderColor(IndexedColors.GREY_80_PERCENT.getIndex());
+        styles.put("header", style);
+
+        Font cellFont = wb.createFont();
+        cellFont.setFontHeightInPoints((short)10);
+        cellFont.setBoldweight(Font.BOLDWEIGHT_NORMAL);
+
+        style = wb.createCellStyle();
+        style.setAlignment(CellStyle.ALIGN_RIGHT);
+        style.setVerticalAlignment(CellStyle.VERTICAL_BOTTOM);
+        style.setFont(cellFont);
+        style.setWrapText(false);
+        style.setDataFormat(wb.createDataFormat().getFormat( BuiltinFormats.getBuiltinFormat( 3 )));
+        styles.put("integer_number_cell", style);
+
+        style = wb.createCellStyle();
+        style.setAlignment(CellStyle.ALIGN_RIGHT);
+        style.setVerticalAlignment(CellStyle.VERTICAL_BOTTOM);
+        style.setFont(cellFont);
+        style.setWrapText(false);
+        style.setDataFormat(wb.createDataFormat().getFormat(BuiltinFormats.getBuiltinFormat(4)));
+        styles.put("decimal_number_cell", style);
+
+        style = wb.createCellStyle();
+        style.setAlignment(CellStyle.ALIGN_LEFT);
+        style.setVerticalAlignment(CellStyle.VERTICAL_BOTTOM);
+        style.setFont(cellFont);
+        style.setWrapText(false);
+        style.setDataFormat( (short) BuiltinFormats.getBuiltinFormat("text") );
+        styles.put("text_cell", style);
+
+        style = wb.createCellStyle();
+        style.setAlignment(CellStyle.ALIGN_CENTER);
+        style.setVerticalAlignment(CellStyle.VERTICAL_BOTTOM);
+        style.setFont(cellFont);
+        style.setWrapText(false);
+        style.setDataFormat(wb.createDataFormat().getFormat( DateFormatConverter.convert( Locale.getDefault(), dateFormatPattern )));
+        styles.put("date_cell", style);
+        return styles;
+    }
+}
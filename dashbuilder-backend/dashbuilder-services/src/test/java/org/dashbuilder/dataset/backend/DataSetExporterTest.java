@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.backend;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import javax.enterprise.event.Event;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.fest.assertions.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DataSetExporterTest {
+
+    DataSetExporter dataSetExporter;
+    Event<DataSetExportProgressEvent> exportProgressEvent;
+    DataSet dataSet;
+    Locale defaultLocale;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+
+        exportProgressEvent = mock(Event.class);
+        dataSetExporter = new DataSetExporter();
+        dataSetExporter.log = LoggerFactory.getLogger(DataSetExporter.class);
+        dataSetExporter.exportProgressEvent = exportProgressEvent;
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        dataSet = DataSetFactory.newDataSetBuilder()
+                .label("city")
+                .number("amount")
+                .date("date")
+                .row("Barcelona", 1200.5d, dateFormat.parse("2015-01-02 10:00:00"))
+                .row("Sant \"Cugat\"", 300d, dateFormat.parse("2015-02-03 11:30:00"))
+                .row("London", 75.25d, dateFormat.parse("2015-03-04 12:45:00"))
+                .buildDataSet();
+        dataSet.setUUID("expenses");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void testExportCSV() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        dataSetExporter.exportCSV(dataSet, os);
+
+        assertThat(new String(os.toByteArray())).isEqualTo(
+                "\"city\";\"amount\";\"date\"\n" +
+                "\"Barcelona\";\"1,200.5\";\"02/01/2015 10:00:00\"\n" +
+                "\"Sant \\\"Cugat\\\"\";\"300\";\"03/02/2015 11:30:00\"\n" +
+                "\"London\";\"75.25\";\"04/03/2015 12:45:00\"\n");
+
+        verify(exportProgressEvent).fire(any(DataSetExportProgressEvent.class));
+    }
+
+    @Test
+    public void testExportExcel() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        dataSetExporter.exportExcel(dataSet, os);
+
+        Workbook wb = new XSSFWorkbook(new ByteArrayInputStream(os.toByteArray()));
+        assertThat(wb.getNumberOfSheets()).isEqualTo(1);
+
+        Sheet sheet = wb.getSheetAt(0);
+        assertThat(sheet.getLastRowNum()).isEqualTo(3);
+        assertThat(sheet.getRow(0).getCell(0).getStringCellValue()).isEqualTo("city");
+        assertThat(sheet.getRow(0).getCell(2).getStringCellValue()).isEqualTo("date");
+        assertThat(sheet.getRow(1).getCell(0).getStringCellValue()).isEqualTo("Barcelona");
+        assertThat(sheet.getRow(1).getCell(1).getNumericCellValue()).isEqualTo(1200.5d);
+        assertThat(sheet.getRow(3).getCell(0).getStringCellValue()).isEqualTo("London");
+    }
+
+    @Test
+    public void testExcelSheetRollover() throws Exception {
+        // Header + 2 rows per sheet
+        dataSetExporter.excelMaxRowsPerSheet = 3;
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        dataSetExporter.exportExcel(dataSet, os);
+
+        Workbook wb = new XSSFWorkbook(new ByteArrayInputStream(os.toByteArray()));
+        assertThat(wb.getNumberOfSheets()).isEqualTo(2);
+        assertThat(wb.getSheetAt(0).getSheetName()).isEqualTo("Sheet 1");
+        assertThat(wb.getSheetAt(1).getSheetName()).isEqualTo("Sheet 2");
+
+        Sheet sheet = wb.getSheetAt(0);
+        assertThat(sheet.getLastRowNum()).isEqualTo(2);
+        assertThat(sheet.getRow(2).getCell(0).getStringCellValue()).isEqualTo("Sant \"Cugat\"");
+
+        // The header is repeated on every sheet
+        sheet = wb.getSheetAt(1);
+        assertThat(sheet.getLastRowNum()).isEqualTo(1);
+        assertThat(sheet.getRow(0).getCell(0).getStringCellValue()).isEqualTo("city");
+        assertThat(sheet.getRow(1).getCell(0).getStringCellValue()).isEqualTo("London");
+        assertThat(sheet.getRow(1).getCell(1).getNumericCellValue()).isEqualTo(75.25d);
+    }
+}
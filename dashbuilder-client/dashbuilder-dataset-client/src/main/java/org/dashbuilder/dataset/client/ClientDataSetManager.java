@@ -81,9 +81,9 @@ public class ClientDataSetManager implements DataSetManager {
         if (dataSetIndex == null) return null;
         DataSet dataSet = dataSetIndex.getDataSet();
 
-        // Apply the list of operations specified (if any).
+        // Apply the list of operations specified (if any) and get just the rows requested.
         if (!lookup.getOperationList().isEmpty()) {
-            dataSet = dataSetOpEngine.execute(uuid, lookup.getOperationList());
+            return dataSetOpEngine.execute(dataSetIndex, lookup.getOperationList(), lookup.getRowOffset(), lookup.getNumberOfRows());
         }
 
         // Trim the data set as requested.
@@ -16,15 +16,19 @@
 package org.dashbuilder.dataset.client;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.http.client.URL;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetBackendServices;
 import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupResult;
 import org.dashbuilder.dataset.DataSetMetadata;
 import org.dashbuilder.dataset.client.resources.i18n.CommonConstants;
 import org.dashbuilder.dataset.def.DataSetDef;
 import org.dashbuilder.dataset.engine.group.IntervalBuilderLocator;
 import org.dashbuilder.dataset.events.*;
+import org.dashbuilder.dataset.exception.DataSetLookupException;
 import org.dashbuilder.dataset.group.AggregateFunctionManager;
 import org.jboss.errai.bus.client.api.messaging.Message;
 import org.jboss.errai.common.client.api.Caller;
@@ -97,6 +101,21 @@ public class DataSetClientServices {
      */
     private Map<String,DataSetPushHandler> pushRequestMap = new HashMap<String,DataSetPushHandler>();
 
+    /**
+     * If enabled then the remote requests issued within the same event loop are sent to the server in a single call.
+     */
+    private boolean batchRemoteRequestsEnabled = true;
+
+    /**
+     * The remote lookup requests waiting to be sent to the server.
+     */
+    private List<DataSetLookupListenerPair> lookupBatch = new ArrayList<DataSetLookupListenerPair>();
+
+    /**
+     * The remote metadata requests waiting to be sent to the server.
+     */
+    private Map<String,DataSetMetadataRequest> metadataBatch = new LinkedHashMap<String,DataSetMetadataRequest>();
+
     public boolean isPushRemoteDataSetEnabled() {
         return pushRemoteDataSetEnabled;
     }
@@ -108,6 +127,17 @@ public class DataSetClientServices {
         this.pushRemoteDataSetEnabled = pushRemoteDataSetEnabled;
     }
 
+    public boolean isBatchRemoteRequestsEnabled() {
+        return batchRemoteRequestsEnabled;
+    }
+
+    /**
+     * Enable/disable the batching of the remote requests issued within the same event loop.
+     */
+    public void setBatchRemoteRequestsEnabled(boolean batchRemoteRequestsEnabled) {
+        this.batchRemoteRequestsEnabled = batchRemoteRequestsEnabled;
+    }
+
     /**
      * Fetch the metadata instance for the specified data set.
      *
@@ -122,22 +152,10 @@ public class DataSetClientServices {
         else if (dataSetBackendServices != null) {
             if (remoteMetadataMap.containsKey(uuid)) {
                 listener.callback(remoteMetadataMap.get(uuid));
+            } else if (batchRemoteRequestsEnabled) {
+                _fetchMetadataBatched(uuid, listener);
             } else {
-                dataSetBackendServices.call(
-                    new RemoteCallback<DataSetMetadata>() {
-                    public void callback(DataSetMetadata result) {
-                        if (result == null) listener.notFound();
-                        else {
-                            remoteMetadataMap.put(uuid, result);
-                            listener.callback(result);
-                        }
-                    }}, new ErrorCallback<Message>() {
-                            @Override
-                            public boolean error(Message message, Throwable throwable) {
-                                listener.onError(new DataSetClientServiceError(message, throwable));
-                                return true;
-                            }
-                        }).lookupDataSetMetadata(uuid);
+                _fetchMetadata(uuid, listener);
             }
         }
         else {
@@ -145,6 +163,72 @@ public class DataSetClientServices {
         }
     }
 
+    private void _fetchMetadata(final String uuid, final DataSetMetadataCallback listener) {
+        dataSetBackendServices.call(
+            new RemoteCallback<DataSetMetadata>() {
+            public void callback(DataSetMetadata result) {
+                if (result == null) listener.notFound();
+                else {
+                    remoteMetadataMap.put(uuid, result);
+                    listener.callback(result);
+                }
+            }}, new ErrorCallback<Message>() {
+                    @Override
+                    public boolean error(Message message, Throwable throwable) {
+                        listener.onError(new DataSetClientServiceError(message, throwable));
+                        return true;
+                    }
+                }).lookupDataSetMetadata(uuid);
+    }
+
+    private void _fetchMetadataBatched(String uuid, DataSetMetadataCallback listener) {
+        DataSetMetadataRequest request = metadataBatch.get(uuid);
+        if (request == null) {
+            if (metadataBatch.isEmpty()) {
+                Scheduler.get().scheduleFinally(new ScheduledCommand() {
+                    public void execute() {
+                        _flushMetadataBatch();
+                    }
+                });
+            }
+            metadataBatch.put(uuid, request = new DataSetMetadataRequest());
+        }
+        request.listenerList.add(listener);
+    }
+
+    private void _flushMetadataBatch() {
+        final Map<String,DataSetMetadataRequest> batch = metadataBatch;
+        metadataBatch = new LinkedHashMap<String,DataSetMetadataRequest>();
+        if (batch.isEmpty()) return;
+
+        final String[] uuids = batch.keySet().toArray(new String[batch.size()]);
+        if (uuids.length == 1) {
+            _fetchMetadata(uuids[0], batch.get(uuids[0]));
+            return;
+        }
+        dataSetBackendServices.call(
+            new RemoteCallback<DataSetMetadata[]>() {
+            public void callback(DataSetMetadata[] result) {
+                for (int i = 0; i < uuids.length; i++) {
+                    DataSetMetadataRequest request = batch.get(uuids[i]);
+                    if (result[i] == null) request.notFound();
+                    else {
+                        remoteMetadataMap.put(uuids[i], result[i]);
+                        request.callback(result[i]);
+                    }
+                }
+            }}, new ErrorCallback<Message>() {
+                    @Override
+                    public boolean error(Message message, Throwable throwable) {
+                        // Send the requests one by one, so every error is notified to the right listener.
+                        for (String uuid : uuids) {
+                            _fetchMetadata(uuid, batch.get(uuid));
+                        }
+                        return true;
+                    }
+                }).lookupDataSetMetadata(uuids);
+    }
+
     /**
      * Get the cached metadata instance for the specified data set.
      *
@@ -295,7 +379,68 @@ public class DataSetClientServices {
         }
     }
 
-    private void _lookupDataSet(DataSetLookup request, final DataSetReadyCallback listener) {
+    private void _lookupDataSet(DataSetLookup request, DataSetReadyCallback listener) {
+        if (!batchRemoteRequestsEnabled) {
+            _sendLookup(request, listener);
+            return;
+        }
+        if (lookupBatch.isEmpty()) {
+            Scheduler.get().scheduleFinally(new ScheduledCommand() {
+                public void execute() {
+                    _flushLookupBatch();
+                }
+            });
+        }
+        lookupBatch.add(new DataSetLookupListenerPair(request, listener));
+    }
+
+    private void _flushLookupBatch() {
+        final List<DataSetLookupListenerPair> batch = lookupBatch;
+        lookupBatch = new ArrayList<DataSetLookupListenerPair>();
+        if (batch.isEmpty()) return;
+
+        if (batch.size() == 1) {
+            _sendLookup(batch.get(0).lookup, batch.get(0).listener);
+            return;
+        }
+        DataSetLookup[] requests = new DataSetLookup[batch.size()];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = batch.get(i).lookup;
+        }
+        try {
+            dataSetBackendServices.call(
+                    new RemoteCallback<DataSetLookupResult[]>() {
+                        public void callback(DataSetLookupResult[] result) {
+                            // Every listener gets its own result, so a failed lookup only affects its listener.
+                            for (int i = 0; i < result.length; i++) {
+                                DataSetLookupListenerPair pair = batch.get(i);
+                                if (result[i].isError()) {
+                                    Throwable error = new DataSetLookupException(pair.lookup.getDataSetUUID(), result[i].getErrorMessage());
+                                    pair.listener.onError(new DataSetClientServiceError(null, error));
+                                }
+                                else if (result[i].getDataSet() == null) pair.listener.notFound();
+                                else pair.listener.callback(result[i].getDataSet());
+                            }
+                        }
+                    }, new ErrorCallback<Message>() {
+                        @Override
+                        public boolean error(Message message, Throwable throwable) {
+                            // The whole call failed (i.e: the server is not reachable)
+                            boolean handled = false;
+                            for (DataSetLookupListenerPair pair : batch) {
+                                if (pair.listener.onError(new DataSetClientServiceError(message, throwable))) handled = true;
+                            }
+                            return handled;
+                        }
+                    })
+                    .lookupDataSets(requests);
+
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void _sendLookup(DataSetLookup request, final DataSetReadyCallback listener) {
         try {
             
             dataSetBackendServices.call(
@@ -454,6 +599,32 @@ public class DataSetClientServices {
         }
     }
 
+    private class DataSetMetadataRequest implements DataSetMetadataCallback {
+
+        private List<DataSetMetadataCallback> listenerList = new ArrayList<DataSetMetadataCallback>();
+
+        public void callback(DataSetMetadata metadata) {
+            for (DataSetMetadataCallback listener : listenerList) {
+                listener.callback(metadata);
+            }
+        }
+
+        public void notFound() {
+            for (DataSetMetadataCallback listener : listenerList) {
+                listener.notFound();
+            }
+        }
+
+        @Override
+        public boolean onError(final DataSetClientServiceError error) {
+            boolean t = false;
+            for (DataSetMetadataCallback listener : listenerList) {
+                if (listener.onError(error)) t = true;
+            }
+            return t;
+        }
+    }
+
     private class DataSetLookupListenerPair {
 
         DataSetLookup lookup;
@@ -46,6 +46,14 @@ public interface DataSetBackendServices {
      */
     DataSet lookupDataSet(DataSetLookup lookup) throws Exception;
 
+    /**
+     * Process several lookup requests in a single call. Requests are resolved in parallel whenever possible.
+     *
+     * @return The results in the same order as the lookup requests. A failed request doesn't abort the rest,
+     * its result holds the error instead.
+     */
+    DataSetLookupResult[] lookupDataSets(DataSetLookup[] lookup) throws Exception;
+
     /**
      * Same as lookupDataSet but only retrieves the metadata of the resulting data set.
      *
@@ -53,6 +61,13 @@ public interface DataSetBackendServices {
      */
     DataSetMetadata lookupDataSetMetadata(String uuid) throws Exception;
 
+    /**
+     * Get the metadata of several data sets in a single call.
+     *
+     * @return The metadata instances in the same order as the UUIDs specified.
+     */
+    DataSetMetadata[] lookupDataSetMetadata(String[] uuids) throws Exception;
+
     /**
      * Get those public (shareable) data set definition (those with the public flag set to true)
      */
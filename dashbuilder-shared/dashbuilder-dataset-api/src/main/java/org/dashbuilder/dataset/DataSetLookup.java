@@ -232,10 +232,11 @@ public class DataSetLookup {
     }
 
     public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null) return false;
         try {
             DataSetLookup other = (DataSetLookup) obj;
-            if (dataSetUUID == null || other.dataSetUUID == null) return false;
-            if (!dataSetUUID.equals(other.dataSetUUID)) return false;
+            if (dataSetUUID != null ? !dataSetUUID.equals(other.dataSetUUID) : other.dataSetUUID != null) return false;
             if (rowOffset != other.rowOffset) return false;
             if (numberOfRows != other.numberOfRows) return false;
             if (operationList.size() != other.operationList.size()) return false;
@@ -249,4 +250,12 @@ public class DataSetLookup {
             return false;
         }
     }
+
+    public int hashCode() {
+        int result = dataSetUUID != null ? dataSetUUID.hashCode() : 0;
+        result = 31 * result + rowOffset;
+        result = 31 * result + numberOfRows;
+        result = 31 * result + operationList.hashCode();
+        return result;
+    }
 }
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * The outcome of a single lookup request sent within a batch. It holds either the resulting data set
+ * or the error message, so a failed request does not prevent the rest of the batch from being served.
+ */
+@Portable
+public class DataSetLookupResult {
+
+    protected DataSet dataSet;
+    protected String errorMessage;
+
+    public DataSetLookupResult() {
+    }
+
+    public DataSetLookupResult(DataSet dataSet) {
+        this.dataSet = dataSet;
+    }
+
+    public DataSetLookupResult(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * The resulting data set. It's null if the data set was not found or the lookup failed.
+     */
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    public void setDataSet(DataSet dataSet) {
+        this.dataSet = dataSet;
+    }
+
+    /**
+     * The reason why the lookup failed. It's null if the lookup succeeded.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public boolean isError() {
+        return errorMessage != null;
+    }
+}
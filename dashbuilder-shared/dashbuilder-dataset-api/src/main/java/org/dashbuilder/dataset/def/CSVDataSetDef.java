@@ -43,6 +43,7 @@ public class CSVDataSetDef extends DataSetDef {
     protected String numberPattern = "#,###.##";
 
     protected boolean allColumnsEnabled = true;
+    protected boolean appendEnabled = false;
 
     public CSVDataSetDef() {
         super.setProvider(DataSetProviderType.CSV);
@@ -139,6 +140,18 @@ public class CSVDataSetDef extends DataSetDef {
         this.allColumnsEnabled = allColumnsEnabled;
     }
 
+    /**
+     * Append mode is intended for CSV files which only grow by having new rows written at the end (f.i: logs).
+     * Once loaded, only the rows appended to the file are parsed when the file changes.
+     */
+    public boolean isAppendEnabled() {
+        return appendEnabled;
+    }
+
+    public void setAppendEnabled(boolean appendEnabled) {
+        this.appendEnabled = appendEnabled;
+    }
+
     @Override
     public DataSetDef clone() {
         CSVDataSetDef def = new CSVDataSetDef();
@@ -151,6 +164,7 @@ public class CSVDataSetDef extends DataSetDef {
         def.setDatePattern(getDatePattern());
         def.setNumberPattern(getNumberPattern());
         def.setAllColumnsEnabled(isAllColumnsEnabled());
+        def.setAppendEnabled(isAppendEnabled());
         return def;
     }
     
@@ -174,6 +188,7 @@ public class CSVDataSetDef extends DataSetDef {
         out.append("Escape char=").append(escapeChar).append("\n");
         out.append("Number pattern=").append(numberPattern).append("\n");
         out.append("Date pattern=").append(datePattern).append("\n");
+        out.append("Append enabled=").append(appendEnabled).append("\n");
         return out.toString();
     }
 }
@@ -56,6 +56,15 @@ public interface CSVDataSetDefBuilder<T extends DataSetDefBuilder> extends DataS
      */
     T allColumns(boolean all);
 
+    /**
+     * It tells the CSV provider whether the CSV file only grows by having new rows appended at the end. If so,
+     * only the new rows are loaded every time the file changes.
+     *
+     * @param append If true only the rows appended to the CSV file are loaded on changes (default false).
+     * @return The DataSetDefBuilder instance that is being used to configure a DataSetDef.
+     */
+    T appendEnabled(boolean append);
+
     /**
      * Set the CSV column separator char.
      *
@@ -28,6 +28,11 @@ public class SQLDataSetDef extends DataSetDef {
     @NotNull(message = "{dataSetApi_sqlDataSetDef_dataSource_notNull}")
     protected String dataSource;
 
+    /**
+     * JDBC driver class. Only required by data sources specified as a JDBC URL whose driver doesn't register itself.
+     */
+    protected String dbDriver;
+
     protected String dbSchema;
 
     @NotNull(message = "{dataSetApi_sqlDataSetDef_dbTable_notNull}", groups = SQLDataSetDefDbTableValidation.class)
@@ -50,6 +55,14 @@ public class SQLDataSetDef extends DataSetDef {
         this.dataSource = dataSource;
     }
 
+    public String getDbDriver() {
+        return dbDriver;
+    }
+
+    public void setDbDriver(String dbDriver) {
+        this.dbDriver = dbDriver;
+    }
+
     public String getDbTable() {
         return dbTable;
     }
@@ -103,6 +116,7 @@ public class SQLDataSetDef extends DataSetDef {
         SQLDataSetDef def = new SQLDataSetDef();
         clone(def);
         def.setDataSource(getDataSource());
+        def.setDbDriver(getDbDriver());
         def.setDbSchema(getDbSchema());
         def.setDbTable(getDbTable());
         def.setAllColumnsEnabled(isAllColumnsEnabled());
@@ -121,6 +135,7 @@ public class SQLDataSetDef extends DataSetDef {
             out.append("Refresh always=").append(refreshAlways).append("\n");
         }
         out.append("Data source=").append(dataSource).append("\n");
+        if (dbDriver != null) out.append("DB Driver=").append(dbDriver).append("\n");
         if (dbSchema != null) out.append("DB Schema=").append(dbSchema).append("\n");
         out.append("DB Table=").append(dbTable).append("\n");
         out.append("DB SQL=").append(dbSQL).append("\n");
@@ -40,12 +40,18 @@ public abstract class ColumnFilter {
     public abstract ColumnFilter cloneInstance();
 
     public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null || obj.getClass() != getClass()) return false;
         try {
             ColumnFilter other = (ColumnFilter) obj;
-            if (columnId != null && !columnId.equals(other.columnId)) return false;
+            if (columnId != null ? !columnId.equals(other.columnId) : other.columnId != null) return false;
             return true;
         } catch (ClassCastException e) {
             return false;
         }
     }
+
+    public int hashCode() {
+        return columnId != null ? columnId.hashCode() : 0;
+    }
 }
\ No newline at end of file
@@ -134,7 +134,7 @@ public class CoreFunctionFilter extends ColumnFilter {
             CoreFunctionFilter other = (CoreFunctionFilter) obj;
             if (!super.equals(other)) return false;
 
-            if (type != null && !type.equals(other.type)) return false;
+            if (type != null ? !type.equals(other.type) : other.type != null) return false;
             if (parameters.size() != other.parameters.size()) return false;
             for (Object param : parameters) {
                 if (!other.parameters.contains(param)) {
@@ -146,4 +146,14 @@ public class CoreFunctionFilter extends ColumnFilter {
             return false;
         }
     }
+
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (type != null ? type.hashCode() : 0);
+        // Parameters order is not relevant (see equals)
+        for (Object param : parameters) {
+            if (param != null) result += param.hashCode();
+        }
+        return result;
+    }
 }
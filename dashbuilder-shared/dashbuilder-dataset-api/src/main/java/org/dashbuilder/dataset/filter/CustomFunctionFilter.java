@@ -49,10 +49,18 @@ public class CustomFunctionFilter extends ColumnFilter {
         try {
             CustomFunctionFilter other = (CustomFunctionFilter) obj;
             if (!super.equals(other)) return false;
-            if (function != null && !function.getClass().equals(other.getClass())) return false;
+            if (function == null) return other.function == null;
+            if (other.function == null) return false;
+            if (!function.getClass().equals(other.function.getClass())) return false;
             return true;
         } catch (ClassCastException e) {
             return false;
         }
     }
+
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (function != null ? function.getClass().getName().hashCode() : 0);
+        return result;
+    }
 }
@@ -61,6 +61,8 @@ public class DataSetFilter extends AbstractDataSetOp {
     }
 
     public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null) return false;
         try {
             DataSetFilter other = (DataSetFilter) obj;
             if (columnFilterList.size() != other.columnFilterList.size()) return false;
@@ -74,4 +76,8 @@ public class DataSetFilter extends AbstractDataSetOp {
             return false;
         }
     }
+
+    public int hashCode() {
+        return columnFilterList.hashCode();
+    }
 }
@@ -98,7 +98,7 @@ public class LogicalExprFilter extends ColumnFilter {
             LogicalExprFilter other = (LogicalExprFilter) obj;
             if (!super.equals(other)) return false;
 
-            if (logicalOperator != null && !logicalOperator.equals(other.logicalOperator)) return false;
+            if (logicalOperator != null ? !logicalOperator.equals(other.logicalOperator) : other.logicalOperator != null) return false;
             if (logicalTerms.size() != other.logicalTerms.size()) return false;
             for (ColumnFilter fc : logicalTerms) {
                 if (!other.logicalTerms.contains(fc)) {
@@ -111,6 +111,16 @@ public class LogicalExprFilter extends ColumnFilter {
         }
     }
 
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (logicalOperator != null ? logicalOperator.hashCode() : 0);
+        // Terms order is not relevant (see equals)
+        for (ColumnFilter term : logicalTerms) {
+            if (term != null) result += term.hashCode();
+        }
+        return result;
+    }
+
     public String toString() {
         StringBuilder out = new StringBuilder();
         out.append(logicalOperator).append(" (");
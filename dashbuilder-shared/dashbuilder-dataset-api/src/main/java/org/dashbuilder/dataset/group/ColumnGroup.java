@@ -144,20 +144,38 @@ public class ColumnGroup {
     }
 
     public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null) return false;
         try {
             ColumnGroup other = (ColumnGroup) obj;
-            if (sourceId != null && !sourceId.equals(other.sourceId)) return false;
-            if (columnId != null && !columnId.equals(other.columnId)) return false;
-            if (strategy != null && !strategy.equals(other.strategy)) return false;
-            if (intervalSize != null && !intervalSize.equals(other.intervalSize)) return false;
+            if (sourceId != null ? !sourceId.equals(other.sourceId) : other.sourceId != null) return false;
+            if (columnId != null ? !columnId.equals(other.columnId) : other.columnId != null) return false;
+            if (strategy != null ? !strategy.equals(other.strategy) : other.strategy != null) return false;
+            if (intervalSize != null ? !intervalSize.equals(other.intervalSize) : other.intervalSize != null) return false;
             if (emptyIntervals != other.emptyIntervals) return false;
             if (maxIntervals != other.maxIntervals) return false;
+            if (ascendingOrder != other.ascendingOrder) return false;
+            if (firstMonthOfYear != other.firstMonthOfYear) return false;
+            if (firstDayOfWeek != other.firstDayOfWeek) return false;
             return true;
         } catch (ClassCastException e) {
             return false;
         }
     }
 
+    public int hashCode() {
+        int result = sourceId != null ? sourceId.hashCode() : 0;
+        result = 31 * result + (columnId != null ? columnId.hashCode() : 0);
+        result = 31 * result + (strategy != null ? strategy.hashCode() : 0);
+        result = 31 * result + (intervalSize != null ? intervalSize.hashCode() : 0);
+        result = 31 * result + (emptyIntervals ? 1 : 0);
+        result = 31 * result + maxIntervals;
+        result = 31 * result + (ascendingOrder ? 1 : 0);
+        result = 31 * result + (firstMonthOfYear != null ? firstMonthOfYear.hashCode() : 0);
+        result = 31 * result + (firstDayOfWeek != null ? firstDayOfWeek.hashCode() : 0);
+        return result;
+    }
+
     public String toString() {
         StringBuilder out = new StringBuilder();
         out.append("column=").append(sourceId).append(" ");
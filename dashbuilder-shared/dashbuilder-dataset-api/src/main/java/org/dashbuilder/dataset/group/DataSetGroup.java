@@ -125,6 +125,7 @@ public class DataSetGroup extends AbstractDataSetOp {
 
     public boolean equals(Object obj) {
         if (obj == this) return true;
+        if (obj == null) return false;
         try {
             DataSetGroup other = (DataSetGroup) obj;
             if (join != other.join) return false;
@@ -148,6 +149,19 @@ public class DataSetGroup extends AbstractDataSetOp {
         }
     }
 
+    public int hashCode() {
+        int result = join ? 1 : 0;
+        result = 31 * result + (columnGroup != null ? columnGroup.hashCode() : 0);
+        // Functions and intervals order is not relevant (see equals)
+        for (GroupFunction gf : groupFunctionList) {
+            if (gf != null) result += gf.hashCode();
+        }
+        for (Interval interval : selectedIntervalList) {
+            if (interval != null) result += interval.hashCode();
+        }
+        return result;
+    }
+
     public String toString() {
         StringBuilder out = new StringBuilder();
         if (columnGroup != null) {
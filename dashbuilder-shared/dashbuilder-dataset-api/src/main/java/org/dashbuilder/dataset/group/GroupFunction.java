@@ -69,17 +69,26 @@ public class GroupFunction {
     }
 
     public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null) return false;
         try {
             GroupFunction other = (GroupFunction) obj;
-            if (sourceId != null && !sourceId.equals(other.sourceId)) return false;
-            if (columnId != null && !columnId.equals(other.columnId)) return false;
-            if (function != null && !function.equals(other.function)) return false;
+            if (sourceId != null ? !sourceId.equals(other.sourceId) : other.sourceId != null) return false;
+            if (columnId != null ? !columnId.equals(other.columnId) : other.columnId != null) return false;
+            if (function != null ? !function.equals(other.function) : other.function != null) return false;
             return true;
         } catch (ClassCastException e) {
             return false;
         }
     }
 
+    public int hashCode() {
+        int result = sourceId != null ? sourceId.hashCode() : 0;
+        result = 31 * result + (columnId != null ? columnId.hashCode() : 0);
+        result = 31 * result + (function != null ? function.hashCode() : 0);
+        return result;
+    }
+
     public String toString() {
         StringBuilder out = new StringBuilder();
         if (sourceId != null) out.append(" column=").append(sourceId);
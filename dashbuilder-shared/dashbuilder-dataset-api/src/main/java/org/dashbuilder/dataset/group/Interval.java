@@ -15,9 +15,9 @@
  */
 package org.dashbuilder.dataset.group;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import org.dashbuilder.dataset.impl.ArrayRowList;
 import org.jboss.errai.common.client.api.annotations.Portable;
 
 /**
@@ -39,7 +39,7 @@ public class Interval {
     /**
      * The row indexes of the values that belong to this interval.
      */
-    protected List<Integer> rows = new ArrayList<Integer>();
+    protected List<Integer> rows = new ArrayRowList();
 
     /**
      * The interval type
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.List;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * A growable list of row numbers backed by an array of ints.
+ */
+@Portable
+public class ArrayRowList extends RowList {
+
+    protected int[] rows = new int[0];
+    protected int size = 0;
+    protected boolean ascending = true;
+
+    public ArrayRowList() {
+    }
+
+    public ArrayRowList(int capacity) {
+        rows = new int[capacity];
+    }
+
+    public ArrayRowList(List<Integer> rows) {
+        this(rows.size());
+        RowIterator it = rowIterator(rows);
+        while (it.hasNext()) {
+            addRow(it.nextRow());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getRow(int index) {
+        checkIndex(index, size);
+        return rows[index];
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public boolean containsRow(int row) {
+        if (ascending) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midRow = rows[mid];
+                if (midRow < row) low = mid + 1;
+                else if (midRow > row) high = mid - 1;
+                else return true;
+            }
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (rows[i] == row) return true;
+        }
+        return false;
+    }
+
+    public RowIterator rowIterator() {
+        return rowIterator(0);
+    }
+
+    public RowIterator rowIterator(final int from) {
+        return new RowIterator() {
+            int next = from;
+            public boolean hasNext() {
+                return next < size;
+            }
+            public int nextRow() {
+                if (next >= size) noSuchElement();
+                return rows[next++];
+            }
+        };
+    }
+
+    public void addRow(int row) {
+        ensureCapacity(size + 1);
+        if (size > 0 && rows[size - 1] >= row) ascending = false;
+        rows[size++] = row;
+        modCount++;
+    }
+
+    public boolean add(Integer row) {
+        addRow(row);
+        return true;
+    }
+
+    public void add(int index, Integer row) {
+        if (index == size) {
+            addRow(row);
+            return;
+        }
+        checkIndex(index, size);
+        ensureCapacity(size + 1);
+        System.arraycopy(rows, index, rows, index + 1, size - index);
+        size++;
+        store(index, row);
+        modCount++;
+    }
+
+    public Integer set(int index, Integer row) {
+        checkIndex(index, size);
+        int old = rows[index];
+        store(index, row);
+        return old;
+    }
+
+    public Integer remove(int index) {
+        checkIndex(index, size);
+        int old = rows[index];
+        System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    public void clear() {
+        rows = new int[0];
+        size = 0;
+        ascending = true;
+        modCount++;
+    }
+
+    /**
+     * Reverse the order of the rows.
+     */
+    public void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int row = rows[i];
+            rows[i] = rows[j];
+            rows[j] = row;
+        }
+        if (size > 1) ascending = false;
+        modCount++;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        int capacity = rows.length;
+        if (minCapacity > capacity) {
+            int newCapacity = capacity + (capacity >> 1) + 1;
+            resize(newCapacity < minCapacity ? minCapacity : newCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (rows.length > size) resize(size);
+    }
+
+    public long getEstimatedSize() {
+        return MemSizeEstimator.sizeOfArray(rows.length, MemSizeEstimator.sizeOfIntValue);
+    }
+
+    protected void store(int index, int row) {
+        rows[index] = row;
+        if ((index > 0 && rows[index - 1] >= row) || (index < size - 1 && rows[index + 1] <= row)) {
+            ascending = false;
+        }
+    }
+
+    protected void resize(int capacity) {
+        int[] result = new int[capacity];
+        System.arraycopy(rows, 0, result, 0, Math.min(capacity, size));
+        rows = result;
+    }
+}
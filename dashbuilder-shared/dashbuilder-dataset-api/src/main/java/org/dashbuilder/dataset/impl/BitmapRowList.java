@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.List;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * A read-only list of row numbers sorted in ascending order and backed by a bitmap. It only takes one bit per row
+ * of the data set so it's the best choice for dense row lists.
+ */
+@Portable
+public class BitmapRowList extends RowList {
+
+    /**
+     * The number of bitmap words counted by every entry of the rank table.
+     */
+    protected static final int RANK_BLOCK = 16;
+
+    protected int[] words = new int[0];
+    protected int size = 0;
+    protected transient volatile int[] ranks = null;
+
+    public BitmapRowList() {
+    }
+
+    /**
+     * Creates a bitmap holding the given rows. Rows can be in any order and duplicates are discarded.
+     */
+    public BitmapRowList(List<Integer> rows) {
+        int lastRow = -1;
+        RowIterator it = rowIterator(rows);
+        while (it.hasNext()) {
+            int row = it.nextRow();
+            if (row > lastRow) lastRow = row;
+        }
+        words = new int[(lastRow >> 5) + 1];
+        it = rowIterator(rows);
+        while (it.hasNext()) {
+            int row = it.nextRow();
+            int mask = 1 << (row & 31);
+            if ((words[row >> 5] & mask) == 0) {
+                words[row >> 5] |= mask;
+                size++;
+            }
+        }
+    }
+
+    protected BitmapRowList(int[] words) {
+        this.words = words;
+        for (int word : words) {
+            size += Integer.bitCount(word);
+        }
+    }
+
+    /**
+     * Check if a bitmap is smaller than an array of ints for the given rows.
+     */
+    public static boolean isDense(int size, int lastRow) {
+        return (lastRow >> 5) + 1 < size;
+    }
+
+    public boolean isDense() {
+        return words.length < size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isAscending() {
+        return true;
+    }
+
+    public boolean containsRow(int row) {
+        if (row < 0 || (row >> 5) >= words.length) return false;
+        return (words[row >> 5] & (1 << (row & 31))) != 0;
+    }
+
+    public int getRow(int index) {
+        checkIndex(index, size);
+        int[] rankTable = getRanks();
+
+        // Look for the block holding the row
+        int low = 0;
+        int high = rankTable.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (rankTable[mid] <= index) low = mid;
+            else high = mid - 1;
+        }
+        // Look for the word holding the row
+        int count = rankTable[low];
+        int w = low * RANK_BLOCK;
+        int bits = Integer.bitCount(words[w]);
+        while (count + bits <= index) {
+            count += bits;
+            bits = Integer.bitCount(words[++w]);
+        }
+        // Look for the bit
+        int word = words[w];
+        for (int i = index - count; i > 0; i--) {
+            word &= word - 1;
+        }
+        return (w << 5) + Integer.numberOfTrailingZeros(word);
+    }
+
+    public RowIterator rowIterator() {
+        return rowIterator(0);
+    }
+
+    public RowIterator rowIterator(final int from) {
+        // Start at the word holding the first row (the bits before it are cleared)
+        final int first = from > 0 && from < size ? getRow(from) : 0;
+        return new RowIterator() {
+            int returned = from;
+            int w = first >> 5;
+            int word = words.length > 0 ? words[w] & (-1 << (first & 31)) : 0;
+
+            public boolean hasNext() {
+                return returned < size;
+            }
+            public int nextRow() {
+                if (returned >= size) noSuchElement();
+                while (word == 0) word = words[++w];
+                int bit = Integer.numberOfTrailingZeros(word);
+                word &= word - 1;
+                returned++;
+                return (w << 5) + bit;
+            }
+        };
+    }
+
+    /**
+     * Get the rows present in both bitmaps.
+     */
+    public BitmapRowList and(BitmapRowList other) {
+        int length = Math.min(words.length, other.words.length);
+        while (length > 0 && (words[length - 1] & other.words[length - 1]) == 0) length--;
+
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = words[i] & other.words[i];
+        }
+        return new BitmapRowList(result);
+    }
+
+    public long getEstimatedSize() {
+        return MemSizeEstimator.sizeOfArray(words.length, MemSizeEstimator.sizeOfIntValue)
+                + MemSizeEstimator.sizeOfArray((words.length + RANK_BLOCK - 1) / RANK_BLOCK, MemSizeEstimator.sizeOfIntValue);
+    }
+
+    /**
+     * The rank table contains the number of rows stored before every block of words.
+     * <p>It's built lazily and it might be built by several threads at once since bitmaps are shared by the
+     * data set indexes. That's harmless as all of them produce the same table.</p>
+     */
+    protected int[] getRanks() {
+        int[] table = ranks;
+        if (table == null) {
+            int[] result = new int[(words.length + RANK_BLOCK - 1) / RANK_BLOCK];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                if (i % RANK_BLOCK == 0) result[i / RANK_BLOCK] = count;
+                count += Integer.bitCount(words[i]);
+            }
+            ranks = table = result;
+        }
+        return table;
+    }
+}
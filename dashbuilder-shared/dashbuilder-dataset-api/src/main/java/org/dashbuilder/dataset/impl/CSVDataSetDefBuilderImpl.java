@@ -40,6 +40,11 @@ public class CSVDataSetDefBuilderImpl extends AbstractDataSetDefBuilder<CSVDataS
         return this;
     }
 
+    public CSVDataSetDefBuilderImpl appendEnabled(boolean append) {
+        ((CSVDataSetDef) def).setAppendEnabled(append);
+        return this;
+    }
+
     public CSVDataSetDefBuilderImpl separatorChar(char separator) {
         ((CSVDataSetDef) def).setSeparatorChar(separator);
         return this;
@@ -0,0 +1,230 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dashbuilder.dataset.ColumnType;
+
+/**
+ * Base class for the columnar value lists held by a <tt>DataColumnImpl</tt>.
+ * <p>Values are stored in primitive arrays (plus a null bitmap) instead of one boxed object per cell. The class still
+ * honours the <tt>java.util.List</tt> contract so any code accessing the column values keeps working. If a value
+ * the storage can't represent is ever set then the list falls back to a plain <tt>ArrayList</tt>.</p>
+ */
+public abstract class ColumnValues extends AbstractList {
+
+    protected int size = 0;
+    protected int[] nullBits = new int[0];
+    protected List fallback = null;
+
+    /**
+     * Creates the columnar storage for the given column type.
+     * @return null if there is no columnar storage for the given type.
+     */
+    public static ColumnValues create(ColumnType type) {
+        if (ColumnType.NUMBER.equals(type)) return new NumberColumnValues();
+        if (ColumnType.DATE.equals(type)) return new DateColumnValues();
+        if (ColumnType.LABEL.equals(type)) return new LabelColumnValues();
+        return null;
+    }
+
+    /**
+     * Check if the given value can be stored without falling back to an object list.
+     */
+    public abstract boolean isSupported(Object value);
+
+    protected abstract Object getValue(int index);
+    protected abstract void setValue(int index, Object value);
+    protected abstract void moveValues(int from, int to, int length);
+    protected abstract int capacity();
+    protected abstract void resize(int capacity);
+    protected abstract long getValuesSize();
+
+    /**
+     * @return true if the values are stored in primitive arrays. False if the list has fallen back to plain objects.
+     */
+    public boolean isColumnar() {
+        return fallback == null;
+    }
+
+    public boolean isNull(int index) {
+        if (fallback != null) return fallback.get(index) == null;
+        return (nullBits[index >> 5] & (1 << (index & 31))) != 0;
+    }
+
+    protected void setNull(int index, boolean isNull) {
+        int word = index >> 5;
+        int mask = 1 << (index & 31);
+        if (isNull) nullBits[word] |= mask;
+        else nullBits[word] &= ~mask;
+    }
+
+    public int size() {
+        if (fallback != null) return fallback.size();
+        return size;
+    }
+
+    public Object get(int index) {
+        if (fallback != null) return fallback.get(index);
+        checkIndex(index, size);
+        if (isNull(index)) return null;
+        return getValue(index);
+    }
+
+    public Object set(int index, Object value) {
+        if (fallback == null && !isSupported(value)) inflate();
+        if (fallback != null) return fallback.set(index, value);
+
+        checkIndex(index, size);
+        Object old = get(index);
+        store(index, value);
+        return old;
+    }
+
+    public void add(int index, Object value) {
+        if (fallback == null && !isSupported(value)) inflate();
+        if (fallback != null) {
+            fallback.add(index, value);
+            modCount++;
+            return;
+        }
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        if (index < size) {
+            moveValues(index, index + 1, size - index);
+            for (int i = size; i > index; i--) setNull(i, isNull(i - 1));
+        }
+        size++;
+        store(index, value);
+        modCount++;
+    }
+
+    public Object remove(int index) {
+        if (fallback != null) {
+            modCount++;
+            return fallback.remove(index);
+        }
+        checkIndex(index, size);
+        Object old = get(index);
+        if (index < size - 1) {
+            moveValues(index + 1, index, size - index - 1);
+            for (int i = index; i < size - 1; i++) setNull(i, isNull(i + 1));
+        }
+        setNull(size - 1, false);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    /**
+     * Append a null value.
+     */
+    public void addNull() {
+        if (fallback != null) {
+            fallback.add(null);
+            modCount++;
+            return;
+        }
+        setNull(appendSlot(), true);
+    }
+
+    public void clear() {
+        fallback = null;
+        size = 0;
+        resize(0);
+        modCount++;
+    }
+
+    /**
+     * Make sure the storage is able to hold the specified number of values without any further resizing.
+     */
+    public void ensureCapacity(int minCapacity) {
+        int capacity = capacity();
+        if (minCapacity > capacity) {
+            int newCapacity = capacity + (capacity >> 1) + 1;
+            resize(newCapacity < minCapacity ? minCapacity : newCapacity);
+        }
+    }
+
+    /**
+     * Release the storage not used by the current values.
+     */
+    public void trimToSize() {
+        if (fallback == null && capacity() > size) {
+            resize(size);
+        }
+    }
+
+    /**
+     * The estimated memory (in bytes) consumed by this list.
+     */
+    public long getEstimatedSize() {
+        if (fallback != null) {
+            long result = 0;
+            for (Object value : fallback) {
+                if (value instanceof String) result += MemSizeEstimator.sizeOfString((String) value);
+                else result += MemSizeEstimator.sizeOf(value);
+                result += MemSizeEstimator.sizeOfReference;
+            }
+            return result;
+        }
+        return MemSizeEstimator.sizeOfArray(nullBits.length, MemSizeEstimator.sizeOfIntValue) + getValuesSize();
+    }
+
+    /**
+     * Make room for a new value at the end of the list.
+     * @return The position of the new (non-null) value.
+     */
+    protected int appendSlot() {
+        ensureCapacity(size + 1);
+        setNull(size, false);
+        modCount++;
+        return size++;
+    }
+
+    protected void store(int index, Object value) {
+        setNull(index, value == null);
+        if (value != null) setValue(index, value);
+    }
+
+    protected int[] resizeNullBits(int capacity) {
+        int words = (capacity + 31) >> 5;
+        int[] result = new int[words];
+        System.arraycopy(nullBits, 0, result, 0, Math.min(words, nullBits.length));
+        return result;
+    }
+
+    protected void inflate() {
+        List values = new ArrayList(size + 1);
+        for (int i = 0; i < size; i++) {
+            values.add(get(i));
+        }
+        resize(0);
+        size = 0;
+        fallback = values;
+    }
+
+    protected void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
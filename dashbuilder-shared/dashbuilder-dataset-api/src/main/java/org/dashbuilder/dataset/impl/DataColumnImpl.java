@@ -127,8 +127,58 @@ public class DataColumnImpl implements DataColumn {
         this.groupFunction = groupFunction;
     }
 
+    /**
+     * Moves the column values into a columnar (primitive arrays based) storage.
+     * @return true if the values are now stored in a columnar fashion.
+     */
+    public boolean compact() {
+        if (values instanceof ColumnValues) {
+            ColumnValues columnValues = (ColumnValues) values;
+            columnValues.trimToSize();
+            return columnValues.isColumnar();
+        }
+        ColumnValues columnValues = ColumnValues.create(columnType);
+        if (columnValues == null) return false;
+
+        columnValues.ensureCapacity(values.size());
+        for (Object value : values) {
+            if (!columnValues.isSupported(value)) return false;
+            columnValues.add(value);
+        }
+        values = columnValues;
+        return true;
+    }
+
+    /**
+     * Estimated memory (in bytes) consumed by the column values.
+     */
+    public long getEstimatedSize() {
+        if (values instanceof ColumnValues) {
+            return ((ColumnValues) values).getEstimatedSize();
+        }
+        int nrows = values.size();
+        if (nrows == 0) return 0;
+
+        long result = (long) nrows * MemSizeEstimator.sizeOfReference;
+        Object firstRowValue = values.get(0);
+        if (firstRowValue instanceof String) {
+            for (int j = 0; j < nrows; j++) {
+                String stringValue = (String) values.get(j);
+                result += MemSizeEstimator.sizeOfString(stringValue);
+            }
+        } else {
+            int singleValueSize = MemSizeEstimator.sizeOf(firstRowValue);
+            result += (long) nrows * singleValueSize;
+        }
+        return result;
+    }
+
     public DataColumn cloneEmpty() {
         DataColumnImpl otherCol = new DataColumnImpl();
+        if (values instanceof ColumnValues) {
+            ColumnValues columnValues = ColumnValues.create(columnType);
+            if (columnValues != null) otherCol.setValues(columnValues);
+        }
         otherCol.setId(getId());
         otherCol.setColumnType(getColumnType());
         if (columnGroup != null) otherCol.setColumnGroup(columnGroup.cloneInstance());
@@ -141,7 +191,13 @@ public class DataColumnImpl implements DataColumn {
 
     public DataColumn cloneInstance() {
         DataColumnImpl otherCol = (DataColumnImpl) cloneEmpty();
-        otherCol.setValues(new ArrayList(values));
+        List otherValues = otherCol.getValues();
+        if (otherValues instanceof ColumnValues) {
+            ((ColumnValues) otherValues).ensureCapacity(values.size());
+            otherValues.addAll(values);
+        } else {
+            otherCol.setValues(new ArrayList(values));
+        }
         return otherCol;
     }
 
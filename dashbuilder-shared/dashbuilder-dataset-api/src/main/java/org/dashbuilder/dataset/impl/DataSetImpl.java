@@ -145,6 +145,17 @@ public class DataSetImpl implements DataSet {
         return this;
     }
 
+    /**
+     * Moves the values of every column into a columnar (primitive arrays based) storage. Columns holding
+     * values not supported by the columnar storage are left untouched.
+     */
+    public DataSetImpl compact() {
+        for (DataColumnImpl column : columns) {
+            column.compact();
+        }
+        return this;
+    }
+
     public boolean isEmpty() {
         return getRowCount() == 0;
     }
@@ -271,6 +282,7 @@ public class DataSetImpl implements DataSet {
             DataColumn colOther = other.getColumns().get(i);
             List values = column.getValues();
             List valOther = colOther.getValues();
+            if (valOther instanceof ColumnValues) ((ColumnValues) valOther).ensureCapacity(Math.min(rows, values.size() - offset));
             for (int j=offset; j<values.size() && j<( offset+rows ); j++) {
                 Object value = values.get(j);
                 valOther.add(value);
@@ -290,7 +302,10 @@ public class DataSetImpl implements DataSet {
         for (int i=0; i<columns.size(); i++) {
             List values = columns.get(i).getValues();
             List valOther = other.getColumns().get(i).getValues();
-            for (Integer row : rows) {
+            if (valOther instanceof ColumnValues) ((ColumnValues) valOther).ensureCapacity(rows.size());
+            RowIterator it = RowList.rowIterator(rows);
+            while (it.hasNext()) {
+                int row = it.nextRow();
                 if (row >= values.size()) {
                     throw new IllegalArgumentException("Row number is out of bounds: " + row);
                 }
@@ -322,23 +337,9 @@ public class DataSetImpl implements DataSet {
     }
 
     public long getEstimatedSize() {
-        int nrows = getRowCount();
-        if (nrows == 0) return 0;
-
-        List<DataColumn> columns = getColumns();
-        int ncells = nrows * columns.size();
-        int result = ncells * 4;
-        for (int i = 0; i < columns.size(); i++) {
-            Object firstRowValue = getValueAt(0, i);
-            if (firstRowValue instanceof String) {
-                for (int j = 0; j < nrows; j++) {
-                    String stringValue = (String) getValueAt(j, i);
-                    result += MemSizeEstimator.sizeOfString(stringValue);
-                }
-            } else {
-                int singleValueSize = MemSizeEstimator.sizeOf(firstRowValue);
-                result += nrows * singleValueSize;
-            }
+        long result = 0;
+        for (DataColumnImpl column : columns) {
+            result += column.getEstimatedSize();
         }
         return result;
     }
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.Date;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Columnar storage for DATE columns. Values are kept as epoch milliseconds.
+ */
+@Portable
+public class DateColumnValues extends ColumnValues {
+
+    protected long[] values = new long[0];
+
+    public DateColumnValues() {
+    }
+
+    public boolean isSupported(Object value) {
+        return value == null || value instanceof Date;
+    }
+
+    /**
+     * Get the epoch milliseconds at the given position. It returns 0 for null values.
+     */
+    public long getTime(int index) {
+        if (fallback != null) {
+            Date d = (Date) fallback.get(index);
+            return d == null ? 0 : d.getTime();
+        }
+        return values[index];
+    }
+
+    /**
+     * Append a date given as epoch milliseconds.
+     */
+    public void addTime(long time) {
+        if (fallback != null) {
+            fallback.add(new Date(time));
+            modCount++;
+            return;
+        }
+        int index = appendSlot();
+        values[index] = time;
+    }
+
+    protected Object getValue(int index) {
+        return new Date(values[index]);
+    }
+
+    protected void setValue(int index, Object value) {
+        values[index] = ((Date) value).getTime();
+    }
+
+    protected void moveValues(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+    }
+
+    protected int capacity() {
+        return values.length;
+    }
+
+    protected void resize(int capacity) {
+        long[] result = new long[capacity];
+        System.arraycopy(values, 0, result, 0, Math.min(capacity, values.length));
+        values = result;
+        nullBits = resizeNullBits(capacity);
+    }
+
+    protected long getValuesSize() {
+        return MemSizeEstimator.sizeOfArray(values.length, MemSizeEstimator.sizeOfLongValue);
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Columnar storage for LABEL columns. Every distinct value is stored once in a dictionary and the rows
+ * just hold the dictionary code of its value.
+ */
+@Portable
+public class LabelColumnValues extends ColumnValues {
+
+    protected int[] codes = new int[0];
+    protected List<Object> dictionary = new ArrayList<Object>();
+    protected transient Map<Object,Integer> dictionaryMap = null;
+
+    public LabelColumnValues() {
+    }
+
+    public boolean isSupported(Object value) {
+        return true;
+    }
+
+    /**
+     * Get the dictionary code of the value at the given position. It returns -1 for null values.
+     */
+    public int getCode(int index) {
+        if (fallback != null) throw new IllegalStateException("Label column is not dictionary encoded");
+        if (isNull(index)) return -1;
+        return codes[index];
+    }
+
+    /**
+     * The list of distinct values. The position of every value is its dictionary code.
+     */
+    public List<Object> getDictionary() {
+        return dictionary;
+    }
+
+    protected Object getValue(int index) {
+        return dictionary.get(codes[index]);
+    }
+
+    protected void setValue(int index, Object value) {
+        codes[index] = encode(value);
+    }
+
+    protected int encode(Object value) {
+        if (dictionaryMap == null) {
+            dictionaryMap = new HashMap<Object,Integer>();
+            for (int i = 0; i < dictionary.size(); i++) {
+                dictionaryMap.put(dictionary.get(i), i);
+            }
+        }
+        Integer code = dictionaryMap.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            dictionaryMap.put(value, code);
+        }
+        return code;
+    }
+
+    protected void moveValues(int from, int to, int length) {
+        System.arraycopy(codes, from, codes, to, length);
+    }
+
+    protected int capacity() {
+        return codes.length;
+    }
+
+    protected void resize(int capacity) {
+        int[] result = new int[capacity];
+        System.arraycopy(codes, 0, result, 0, Math.min(capacity, codes.length));
+        codes = result;
+        nullBits = resizeNullBits(capacity);
+        if (capacity == 0) {
+            dictionary.clear();
+            dictionaryMap = null;
+        }
+    }
+
+    protected long getValuesSize() {
+        long result = MemSizeEstimator.sizeOfArray(codes.length, MemSizeEstimator.sizeOfIntValue);
+        for (Object value : dictionary) {
+            if (value instanceof String) result += MemSizeEstimator.sizeOfString((String) value);
+            else result += MemSizeEstimator.sizeOf(value);
+            result += MemSizeEstimator.sizeOfMapEntry;
+        }
+        return result;
+    }
+}
@@ -34,6 +34,14 @@ public class MemSizeEstimator {
     public static int sizeOfDouble = 16;
     public static int sizeOfBigDecimal = 32;
 
+    // Primitive (unboxed) values, object references & headers
+    public static int sizeOfIntValue = 4;
+    public static int sizeOfLongValue = 8;
+    public static int sizeOfDoubleValue = 8;
+    public static int sizeOfReference = 4;
+    public static int sizeOfArrayHeader = 16;
+    public static int sizeOfMapEntry = 32;
+
     static Map<Class,Integer> sizeOfMap = new HashMap<Class, Integer>();
 
     static {
@@ -60,6 +68,10 @@ public class MemSizeEstimator {
         return sizeOf(o.getClass());
     }
 
+    public static long sizeOfArray(int length, int elementSize) {
+        return sizeOfArrayHeader + (long) length * elementSize;
+    }
+
     public static int sizeOfString(String s) {
         if (s == null) return 0;
 
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Columnar storage for NUMBER columns. Values are kept as primitive doubles.
+ */
+@Portable
+public class NumberColumnValues extends ColumnValues {
+
+    protected double[] values = new double[0];
+
+    public NumberColumnValues() {
+    }
+
+    public boolean isSupported(Object value) {
+        return value == null || value instanceof Number;
+    }
+
+    /**
+     * Get the primitive value at the given position. It returns 0 for null values.
+     */
+    public double getDouble(int index) {
+        if (fallback != null) {
+            Number n = (Number) fallback.get(index);
+            return n == null ? 0 : n.doubleValue();
+        }
+        return values[index];
+    }
+
+    /**
+     * Append a primitive value with no boxing involved.
+     */
+    public void addDouble(double value) {
+        if (fallback != null) {
+            fallback.add(value);
+            modCount++;
+            return;
+        }
+        int index = appendSlot();
+        values[index] = value;
+    }
+
+    protected Object getValue(int index) {
+        return values[index];
+    }
+
+    protected void setValue(int index, Object value) {
+        values[index] = ((Number) value).doubleValue();
+    }
+
+    protected void moveValues(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+    }
+
+    protected int capacity() {
+        return values.length;
+    }
+
+    protected void resize(int capacity) {
+        double[] result = new double[capacity];
+        System.arraycopy(values, 0, result, 0, Math.min(capacity, values.length));
+        values = result;
+        nullBits = resizeNullBits(capacity);
+    }
+
+    protected long getValuesSize() {
+        return MemSizeEstimator.sizeOfArray(values.length, MemSizeEstimator.sizeOfDoubleValue);
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Base class for the compact row number lists used by the data set indexes.
+ * <p>Row numbers are stored as primitive ints (either in an array or in a bitmap) rather than as a list of
+ * <tt>Integer</tt> objects. The class honours the <tt>java.util.List</tt> contract so the row lists can be passed
+ * around as usual, however, callers should use the <tt>rowIterator</tt> & <tt>getRow</tt> methods in order to avoid
+ * boxing.</p>
+ */
+public abstract class RowList extends AbstractList<Integer> {
+
+    public abstract int getRow(int index);
+    public abstract boolean containsRow(int row);
+    public abstract RowIterator rowIterator();
+
+    /**
+     * Get an iterator starting at the given position of the list.
+     */
+    public abstract RowIterator rowIterator(int from);
+
+    /**
+     * @return true if the row numbers are sorted in strict ascending order.
+     */
+    public abstract boolean isAscending();
+
+    /**
+     * The estimated memory (in bytes) consumed by this list.
+     */
+    public abstract long getEstimatedSize();
+
+    public Integer get(int index) {
+        return getRow(index);
+    }
+
+    public boolean contains(Object o) {
+        if (!(o instanceof Integer)) return false;
+        return containsRow((Integer) o);
+    }
+
+    public Iterator<Integer> iterator() {
+        final RowIterator it = rowIterator();
+        return new Iterator<Integer>() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+            public Integer next() {
+                return it.nextRow();
+            }
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Get an iterator for any list of row numbers. Row lists are iterated without any boxing.
+     */
+    public static RowIterator rowIterator(List<Integer> rows) {
+        if (rows instanceof RowList) {
+            return ((RowList) rows).rowIterator();
+        }
+        final Iterator<Integer> it = rows.iterator();
+        return new RowIterator() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+            public int nextRow() {
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Get an iterator for any list of row numbers starting at the given position.
+     */
+    public static RowIterator rowIterator(List<Integer> rows, int from) {
+        if (rows instanceof RowList) {
+            return ((RowList) rows).rowIterator(from);
+        }
+        final Iterator<Integer> it = rows.listIterator(from);
+        return new RowIterator() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+            public int nextRow() {
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Get the most compact representation for the given row numbers. If rows are sorted in ascending order and the
+     * list is dense enough a bitmap is used. An array of ints is used otherwise.
+     */
+    public static RowList compact(List<Integer> rows) {
+        if (rows == null) return null;
+
+        ArrayRowList arrayRows = null;
+        if (rows instanceof ArrayRowList) arrayRows = (ArrayRowList) rows;
+        else if (rows instanceof BitmapRowList) {
+            BitmapRowList bitmap = (BitmapRowList) rows;
+            if (bitmap.isDense()) return bitmap;
+            arrayRows = new ArrayRowList(bitmap);
+        }
+        else arrayRows = new ArrayRowList(rows);
+
+        arrayRows.trimToSize();
+        if (arrayRows.isAscending() && !arrayRows.isEmpty()) {
+            int lastRow = arrayRows.getRow(arrayRows.size() - 1);
+            if (BitmapRowList.isDense(arrayRows.size(), lastRow)) {
+                return new BitmapRowList(arrayRows);
+            }
+        }
+        return arrayRows;
+    }
+
+    /**
+     * Get the rows present in both lists. The order of the first list is preserved.
+     */
+    public static RowList and(List<Integer> rows, List<Integer> other) {
+        if (rows instanceof BitmapRowList && other instanceof BitmapRowList) {
+            return ((BitmapRowList) rows).and((BitmapRowList) other);
+        }
+        RowList lookup = null;
+        if (other instanceof BitmapRowList || (other instanceof ArrayRowList && ((ArrayRowList) other).isAscending())) {
+            lookup = (RowList) other;
+        } else {
+            lookup = new BitmapRowList(other);
+        }
+        ArrayRowList result = new ArrayRowList();
+        RowIterator it = rowIterator(rows);
+        while (it.hasNext()) {
+            int row = it.nextRow();
+            if (lookup.containsRow(row)) result.addRow(row);
+        }
+        return result;
+    }
+
+    protected void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    protected static void noSuchElement() {
+        throw new NoSuchElementException();
+    }
+}
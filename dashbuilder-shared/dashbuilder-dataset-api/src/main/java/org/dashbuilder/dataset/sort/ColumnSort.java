@@ -58,13 +58,21 @@ public class ColumnSort {
     }
 
     public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null) return false;
         try {
             ColumnSort other = (ColumnSort) obj;
-            if (columnId != null && !columnId.equals(other.columnId)) return false;
-            if (order != null && !order.equals(other.order)) return false;
+            if (columnId != null ? !columnId.equals(other.columnId) : other.columnId != null) return false;
+            if (order != null ? !order.equals(other.order) : other.order != null) return false;
             return true;
         } catch (ClassCastException e) {
             return false;
         }
     }
+
+    public int hashCode() {
+        int result = columnId != null ? columnId.hashCode() : 0;
+        result = 31 * result + (order != null ? order.hashCode() : 0);
+        return result;
+    }
 }
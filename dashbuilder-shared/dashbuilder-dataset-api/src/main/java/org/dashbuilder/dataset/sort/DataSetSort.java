@@ -68,6 +68,8 @@ public class DataSetSort extends AbstractDataSetOp {
     }
 
     public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null) return false;
         try {
             DataSetSort other = (DataSetSort) obj;
             if (columnSortList.size() != other.columnSortList.size()) return false;
@@ -81,4 +83,8 @@ public class DataSetSort extends AbstractDataSetOp {
             return false;
         }
     }
+
+    public int hashCode() {
+        return columnSortList.hashCode();
+    }
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Component used by the engine to process large sets of rows. It splits the rows into chunks and processes them
+ * (in parallel if possible). The results are returned in the same order as the chunks.
+ * <p>This implementation runs always a single chunk within the calling thread. Environments supporting
+ * multiple threads can provide its own implementation.</p>
+ */
+@ApplicationScoped
+public class RowChunkExecutor {
+
+    /**
+     * Check if the processing of the given number of rows is split into several chunks.
+     */
+    public boolean isParallel(int rows) {
+        return false;
+    }
+
+    /**
+     * Process the specified number of rows.
+     * @param rows The number of rows.
+     * @param task The task to apply on every chunk.
+     * @return The results of every chunk (in chunk order).
+     */
+    public <T> List<T> execute(int rows, RowChunkTask<T> task) {
+        List<T> result = new ArrayList<T>(1);
+        result.add(task.process(0, rows));
+        return result;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine;
+
+/**
+ * A piece of work over a range of rows. Tasks must be able to run concurrently on different ranges.
+ */
+public interface RowChunkTask<T> {
+
+    /**
+     * Process the rows within the given range.
+     * @param from The first position of the range (inclusive).
+     * @param to The last position of the range (exclusive).
+     * @return The partial result for the range.
+     */
+    T process(int from, int to);
+}
@@ -15,12 +15,17 @@
  */
 package org.dashbuilder.dataset.engine;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.dashbuilder.dataset.DataSetOpEngine;
+import org.dashbuilder.dataset.engine.function.AbstractFunction;
+import org.dashbuilder.dataset.engine.function.ColumnAggregates;
+import org.dashbuilder.dataset.engine.function.PartialAggregate;
 import org.dashbuilder.dataset.engine.index.DataSetStaticIndex;
 import org.dashbuilder.dataset.group.AggregateFunction;
 import org.dashbuilder.dataset.group.AggregateFunctionManager;
@@ -28,6 +33,7 @@ import org.dashbuilder.dataset.engine.group.IntervalBuilder;
 import org.dashbuilder.dataset.engine.group.IntervalBuilderLocator;
 import org.dashbuilder.dataset.engine.group.IntervalList;
 import org.dashbuilder.dataset.engine.index.DataSetFilterIndex;
+import org.dashbuilder.dataset.engine.index.DataSetFunctionIndex;
 import org.dashbuilder.dataset.engine.index.DataSetGroupIndex;
 import org.dashbuilder.dataset.engine.index.DataSetIndex;
 import org.dashbuilder.dataset.engine.index.DataSetIndexNode;
@@ -39,18 +45,24 @@ import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetOp;
 import org.dashbuilder.dataset.DataSetOpType;
 import org.dashbuilder.dataset.filter.DataSetFilter;
 import org.dashbuilder.dataset.engine.filter.DataSetFilterAlgorithm;
 import org.dashbuilder.dataset.filter.ColumnFilter;
+import org.dashbuilder.dataset.filter.LogicalExprFilter;
+import org.dashbuilder.dataset.filter.LogicalExprType;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
 import org.dashbuilder.dataset.group.DataSetGroup;
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.GroupFunction;
 import org.dashbuilder.dataset.group.GroupStrategy;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.ArrayRowList;
 import org.dashbuilder.dataset.impl.DataColumnImpl;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 import org.dashbuilder.dataset.sort.ColumnSort;
 import org.dashbuilder.dataset.sort.DataSetSort;
 import org.dashbuilder.dataset.engine.sort.DataSetSortAlgorithm;
@@ -67,6 +79,7 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
     @Inject protected DataSetSortAlgorithm sortAlgorithm;
     @Inject protected DataSetFilterAlgorithm filterAlgorithm;
     @Inject protected Chronometer chronometer;
+    @Inject protected RowChunkExecutor chunkExecutor;
 
     public AggregateFunctionManager getAggregateFunctionManager() {
         return aggregateFunctionManager;
@@ -88,6 +101,10 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
         return filterAlgorithm;
     }
 
+    public RowChunkExecutor getChunkExecutor() {
+        return chunkExecutor;
+    }
+
     public DataSet execute(DataSet dataSet, List<DataSetOp> opList) {
         DataSetOpListProcessor processor = new DataSetOpListProcessor();
         DataSetStaticIndex index = new DataSetStaticIndex(dataSet);
@@ -98,17 +115,251 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
     }
 
     public DataSet execute(String uuid, List<DataSetOp> opList) {
+        return execute(indexRegistry.get(uuid), opList);
+    }
+
+    /**
+     * Apply the operations over an already registered data set index.
+     */
+    public DataSet execute(DataSetIndex index, List<DataSetOp> opList) {
         DataSetOpListProcessor processor = new DataSetOpListProcessor();
-        processor.setDataSetIndex(indexRegistry.get(uuid));
+        processor.setDataSetIndex(index);
         processor.setOperationList(opList);
         processor.run();
         return processor.getDataSet();
     }
 
+    /**
+     * Apply the operations over an already registered data set index and get just the rows requested.
+     * <p>Since only the first rows of the sorted data set are required, the sort operation (if any) does not need
+     * to sort all the rows.</p>
+     * @param rowOffset The first row to return.
+     * @param numberOfRows The number of rows to return. Lower or equals than zero means all the rows.
+     * @return The trimmed data set. Its <i>rowCountNonTrimmed</i> property contains the total number of rows.
+     */
+    public DataSet execute(DataSetIndex index, List<DataSetOp> opList, int rowOffset, int numberOfRows) {
+        DataSetOpListProcessor processor = new DataSetOpListProcessor();
+        processor.setDataSetIndex(index);
+        processor.setOperationList(opList);
+        return processor.run(rowOffset, numberOfRows);
+    }
+
+    /**
+     * Apply several lookup requests over the same registered data set index.
+     * <p>The lookups are arranged in a prefix tree so that the filter and interval selection operations they start
+     * with are evaluated just once. The rows selected by every shared prefix are then reused by all the lookups
+     * sharing it.</p>
+     * @param lookupList The lookup requests. The data set UUID of every lookup is ignored.
+     * @return The resulting data sets, in the same order as the lookup requests.
+     */
+    public List<DataSet> executeAll(DataSetIndex index, List<DataSetLookup> lookupList) {
+        DataSetOpListProcessor processor = new DataSetOpListProcessor();
+        processor.setDataSetIndex(index);
+
+        // Group the lookups by the operations they have in common.
+        OpPrefixNode root = new OpPrefixNode(null, 0);
+        for (int i=0; i<lookupList.size(); i++) {
+            List<DataSetOp> opList = lookupList.get(i).getOperationList();
+            processor.checkOpList(opList);
+
+            OpPrefixNode node = root;
+            while (node.depth < opList.size() && isPrefixOp(opList.get(node.depth))) {
+                node = node.getChild(opList.get(node.depth));
+            }
+            node.lookupIdxs.add(i);
+        }
+
+        DataSet[] result = new DataSet[lookupList.size()];
+        execute(root, processor, lookupList, result);
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Register a data set which holds all the rows of an already indexed data set plus some new rows appended at
+     * the end. Rather than dropping the existing indexes, they are carried over to the new data set:
+     * <ul>
+     *     <li>Filter indexes get the new rows that surpass the filter added (so do their sub filters).</li>
+     *     <li>COUNT, MIN & MAX values are updated with the new rows.</li>
+     *     <li>Sort & group indexes as well as any other aggregate value are dropped, they are rebuilt on demand.</li>
+     * </ul>
+     * <p>The old index is left untouched so that any running lookup can finish on the old data set.</p>
+     * @param index The index of the old data set.
+     * @param dataSet The new data set. It must have the same columns as the old one.
+     * @return The index of the new data set.
+     */
+    public DataSetIndex append(DataSetIndex index, DataSet dataSet) {
+        int oldRows = index.getDataSet().getRowCount();
+        int newRows = dataSet.getRowCount();
+        if (newRows < oldRows) {
+            throw new IllegalArgumentException("The data set has less rows than the indexed one: " + dataSet.getUUID());
+        }
+        DataSetIndex result = indexRegistry.put(dataSet);
+
+        ArrayRowList rows = new ArrayRowList(newRows - oldRows);
+        for (int i = oldRows; i < newRows; i++) rows.addRow(i);
+        appendIndexes(index, result, dataSet, oldRows, rows);
+        return result;
+    }
+
+    /**
+     * Carry over the indexes of an old node to its counterpart in the new data set.
+     * @param oldRows The number of rows of the old node.
+     * @param newRows The new rows belonging to the node.
+     */
+    protected void appendIndexes(DataSetIndexNode oldNode, DataSetIndexNode newNode, DataSet dataSet, int oldRows, ArrayRowList newRows) {
+        // Aggregate values
+        for (Map.Entry<String, Map<AggregateFunctionType, DataSetFunctionIndex>> entry : oldNode.getFunctionIndexMap().entrySet()) {
+            String columnId = entry.getKey();
+            DataColumn column = dataSet.getColumnById(columnId);
+            if (column == null) continue;
+
+            for (Map.Entry<AggregateFunctionType, DataSetFunctionIndex> functionEntry : entry.getValue().entrySet()) {
+                AggregateFunctionType type = functionEntry.getKey();
+                DataSetFunctionIndex functionIndex = functionEntry.getValue();
+                Double value = appendAggValue(column, type, functionIndex.getValue(), oldRows, newRows);
+                if (value != null) {
+                    newNode.indexAggValue(columnId, type, value, functionIndex.getBuildTime());
+                }
+            }
+        }
+        // Filter indexes (the rows of a filter index are always in ascending order)
+        for (DataSetIndexNode child : oldNode.getChildIndexes()) {
+            if (!(child instanceof DataSetFilterIndex)) continue;
+
+            DataSetFilterIndex filterIndex = (DataSetFilterIndex) child;
+            ColumnFilter filter = filterIndex.getColumnFilter();
+            if (filter == null || dataSet.getColumnById(filter.getColumnId()) == null) continue;
+
+            List<Integer> oldFilterRows = filterIndex.getRows();
+            List<Integer> newFilterRows = newRows.isEmpty() ? newRows : filterAlgorithm.filter(new RowSetHandler(dataSet, newRows), filter);
+            ArrayRowList filterRows = new ArrayRowList(oldFilterRows.size() + newFilterRows.size());
+            RowIterator it = RowList.rowIterator(oldFilterRows);
+            while (it.hasNext()) filterRows.addRow(it.nextRow());
+            it = RowList.rowIterator(newFilterRows);
+            while (it.hasNext()) filterRows.addRow(it.nextRow());
+
+            DataSetFilterIndex newFilterIndex = newNode.indexFilter(filter, filterRows, filterIndex.getBuildTime());
+            appendIndexes(filterIndex, newFilterIndex, dataSet, oldFilterRows.size(), new ArrayRowList(newFilterRows));
+        }
+    }
+
+    /**
+     * Update an aggregate value with the new rows.
+     * @return The updated value or null if it can't be updated incrementally.
+     */
+    protected Double appendAggValue(DataColumn column, AggregateFunctionType type, Double value, int oldRows, List<Integer> newRows) {
+        if (value == null) return null;
+        if (AggregateFunctionType.COUNT.equals(type)) return value + newRows.size();
+        if (!AggregateFunctionType.MIN.equals(type) && !AggregateFunctionType.MAX.equals(type)) return null;
+        if (!hasNumbers(column.getValues(), newRows)) return value;
+
+        AggregateFunction function = aggregateFunctionManager.getFunctionByType(type);
+        double newValue = function.aggregate(column.getValues(), newRows);
+        if (oldRows == 0) return newValue;
+
+        // Zero is also returned when there are no numbers at all, so it can't be compared
+        if (value == 0) return null;
+        if (AggregateFunctionType.MIN.equals(type)) return Math.min(value, newValue);
+        return Math.max(value, newValue);
+    }
+
+    protected boolean hasNumbers(List values, List<Integer> rows) {
+        RowIterator it = RowList.rowIterator(rows);
+        while (it.hasNext()) {
+            if (values.get(it.nextRow()) != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * A fixed set of rows to be passed to the filter algorithm.
+     */
+    private static class RowSetHandler implements DataSetHandler {
+
+        DataSet dataSet;
+        List<Integer> rows;
+
+        RowSetHandler(DataSet dataSet, List<Integer> rows) {
+            this.dataSet = dataSet;
+            this.rows = rows;
+        }
+        public DataSet getDataSet() {
+            return dataSet;
+        }
+        public List<Integer> getRows() {
+            return rows;
+        }
+        public DataSetHandler group(DataSetGroup op) {
+            throw new UnsupportedOperationException();
+        }
+        public DataSetHandler filter(DataSetFilter op) {
+            throw new UnsupportedOperationException();
+        }
+        public DataSetHandler sort(DataSetSort op) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private void execute(OpPrefixNode node, DataSetOpListProcessor processor, List<DataSetLookup> lookupList, DataSet[] result) {
+        // Resolve the lookups ending at this node: just the operations not shared are left.
+        for (Integer i : node.lookupIdxs) {
+            DataSetLookup lookup = lookupList.get(i);
+            List<DataSetOp> opList = lookup.getOperationList();
+            DataSetOpListProcessor lookupProcessor = processor.fork();
+            lookupProcessor.setOperationList(opList.subList(node.depth, opList.size()));
+            result[i] = lookupProcessor.run(lookup.getRowOffset(), lookup.getNumberOfRows());
+        }
+        // Apply every shared operation just once before going deeper.
+        for (OpPrefixNode child : node.children) {
+            DataSetOpListProcessor childProcessor = processor.fork();
+            childProcessor.apply(child.op);
+            execute(child, childProcessor, lookupList, result);
+        }
+    }
+
+    /**
+     * Only filters and interval selections can be shared among lookups since they just narrow the rows
+     * without building any intermediate data set.
+     */
+    protected boolean isPrefixOp(DataSetOp op) {
+        if (op instanceof DataSetFilter) return true;
+        if (op instanceof DataSetGroup) {
+            DataSetGroup groupOp = (DataSetGroup) op;
+            return groupOp.getColumnGroup() != null && groupOp.isSelect();
+        }
+        return false;
+    }
+
+    private static class OpPrefixNode {
+
+        DataSetOp op;
+        int depth;
+        List<OpPrefixNode> children = new ArrayList<OpPrefixNode>();
+        List<Integer> lookupIdxs = new ArrayList<Integer>();
+
+        OpPrefixNode(DataSetOp op, int depth) {
+            this.op = op;
+            this.depth = depth;
+        }
+
+        OpPrefixNode getChild(DataSetOp op) {
+            for (OpPrefixNode child : children) {
+                if (child.op.equals(op)) return child;
+            }
+            OpPrefixNode child = new OpPrefixNode(op, depth + 1);
+            children.add(child);
+            return child;
+        }
+    }
+
     private class DataSetOpListProcessor implements Runnable {
 
         List<DataSetOp> operationList;
         InternalContext context;
+        int rowLimit = -1;
+        int totalRows = -1;
+        boolean group = false;
+        boolean sort = false;
 
         public void setDataSetIndex(DataSetIndex index) {
             context = new InternalContext(index);
@@ -118,6 +369,33 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             operationList = new ArrayList<DataSetOp>(opList);
         }
 
+        /**
+         * Set the number of rows required from the resulting data set. The sort operation can then get just the
+         * first rows. Lower or equals than zero means all the rows.
+         */
+        public void setRowLimit(int rowLimit) {
+            this.rowLimit = rowLimit;
+        }
+
+        /**
+         * Create a processor starting from the current state of this one, so any operations already applied are
+         * shared with the new processor.
+         */
+        public DataSetOpListProcessor fork() {
+            DataSetOpListProcessor processor = new DataSetOpListProcessor();
+            processor.context = new InternalContext(context);
+            processor.group = group;
+            processor.sort = sort;
+            return processor;
+        }
+
+        /**
+         * The number of rows sorted if only the first ones were kept (see <i>setRowLimit</i>). -1 otherwise.
+         */
+        public int getTotalRows() {
+            return totalRows;
+        }
+
         /**
          * Ensure the sequence of operations to apply match the following pattern:
          * <ul>
@@ -151,54 +429,67 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
 
             checkOpList(operationList);
 
-            boolean group = false;
-            boolean sort = false;
-
             for (int i=0; i<operationList.size(); i++) {
-                DataSetOp op = operationList.get(i);
+                apply(operationList.get(i));
+            }
 
-                if (DataSetOpType.GROUP.equals(op.getType())) {
-                    if (sort) throw new IllegalStateException("Sort operations must be applied ALWAYS AFTER GROUP.");
+            // Build the resulting data set
+            buildDataSet(context);
+        }
 
-                    DataSetGroup gOp = (DataSetGroup) op;
-                    ColumnGroup columnGroup = gOp.getColumnGroup();
-                    if (columnGroup == null) {
-                        // No real group requested only column selections
-                        group = true;
-                        context.lastOperation = op;
-                    } else {
-                        if (group(gOp, context)) {
-                            // The group will be required if is not an interval selection
-                            group = !context.getLastGroupOp().isSelect();
-                            context.lastOperation = op;
-                        }
-                    }
-                }
-                else if (DataSetOpType.FILTER.equals(op.getType())) {
-                    if (group) throw new IllegalStateException("Filter operations must be applied ALWAYS BEFORE GROUP.");
-                    if (sort) throw new IllegalStateException("Sort operations must be applied ALWAYS AFTER FILTER.");
+        /**
+         * Run the operations and get just the rows requested.
+         * @param rowOffset The first row to return.
+         * @param numberOfRows The number of rows to return. Lower or equals than zero means all the rows.
+         */
+        public DataSet run(int rowOffset, int numberOfRows) {
+            setRowLimit(numberOfRows > 0 ? rowOffset + numberOfRows : -1);
+            run();
 
-                    filter((DataSetFilter) op, context);
-                    context.lastOperation = op;
-                }
-                else if (DataSetOpType.SORT.equals(op.getType())) {
-                    if (sort) throw new IllegalStateException("Sort can only be executed once.");
+            DataSet result = getDataSet().trim(rowOffset, numberOfRows);
+            if (getTotalRows() > 0) result.setRowCountNonTrimmed(getTotalRows());
+            return result;
+        }
 
-                    if (group) {
-                        buildDataSet(context);
-                    }
+        public void apply(DataSetOp op) {
+            if (DataSetOpType.GROUP.equals(op.getType())) {
+                if (sort) throw new IllegalStateException("Sort operations must be applied ALWAYS AFTER GROUP.");
 
-                    sort = true;
-                    sort((DataSetSort) op, context);
+                DataSetGroup gOp = (DataSetGroup) op;
+                ColumnGroup columnGroup = gOp.getColumnGroup();
+                if (columnGroup == null) {
+                    // No real group requested only column selections
+                    group = true;
                     context.lastOperation = op;
-                }
-                else {
-                    throw new IllegalArgumentException("Unsupported operation: " + op.getClass().getName());
+                } else {
+                    if (group(gOp, context)) {
+                        // The group will be required if is not an interval selection
+                        group = !context.getLastGroupOp().isSelect();
+                        context.lastOperation = op;
+                    }
                 }
             }
+            else if (DataSetOpType.FILTER.equals(op.getType())) {
+                if (group) throw new IllegalStateException("Filter operations must be applied ALWAYS BEFORE GROUP.");
+                if (sort) throw new IllegalStateException("Sort operations must be applied ALWAYS AFTER FILTER.");
 
-            // Build the resulting data set
-            buildDataSet(context);
+                filter((DataSetFilter) op, context);
+                context.lastOperation = op;
+            }
+            else if (DataSetOpType.SORT.equals(op.getType())) {
+                if (sort) throw new IllegalStateException("Sort can only be executed once.");
+
+                if (group) {
+                    buildDataSet(context);
+                }
+
+                sort = true;
+                sort((DataSetSort) op, context);
+                context.lastOperation = op;
+            }
+            else {
+                throw new IllegalArgumentException("Unsupported operation: " + op.getClass().getName());
+            }
         }
 
         // GROUP OPERATION
@@ -260,15 +551,27 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             if (groupIndex != null) {
                 return groupIndex;
             }
-            // No index match => Build required
-            chronometer.start();
-            IntervalList intervalList = intervalBuilder.build(new InternalHandler(context), columnGroup);
-            chronometer.stop();
-
-            // Index before return.
-            DataSetGroupIndex index = new DataSetGroupIndex(columnGroup, intervalList);
-            index.setBuildTime(chronometer.elapsedTime());
-            return context.index.indexGroup(index);
+            // No index match => Build required (just once, concurrent requests wait for it)
+            String groupKey = context.index.getGroupKey(columnGroup);
+            Object buildLock = context.index.acquireBuildLock(groupKey);
+            try {
+                synchronized (buildLock) {
+                    groupIndex = context.index.getGroupIndex(columnGroup);
+                    if (groupIndex != null) {
+                        return groupIndex;
+                    }
+                    long start = chronometer.start();
+                    IntervalList intervalList = intervalBuilder.build(new InternalHandler(context), columnGroup);
+                    long buildTime = chronometer.stop() - start;
+
+                    // Index before return.
+                    DataSetGroupIndex index = new DataSetGroupIndex(columnGroup, intervalList);
+                    index.setBuildTime(buildTime);
+                    return context.index.indexGroup(index);
+                }
+            } finally {
+                context.index.releaseBuildLock(groupKey);
+            }
         }
 
         protected DataSetGroupIndex nestedGroup(DataSetGroup op, DataSetGroupIndex lastGroupIndex, InternalContext context) {
@@ -277,8 +580,26 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             DataSetGroupIndex nestedGroupIndex = lastGroupIndex.getGroupIndex(op.getColumnGroup());
             if (nestedGroupIndex != null) return nestedGroupIndex;
 
-            // No index match => Create a brand new group index
-            nestedGroupIndex = new DataSetGroupIndex(op.getColumnGroup());
+            // No index match => Build required (just once, concurrent requests wait for it)
+            String groupKey = lastGroupIndex.getGroupKey(op.getColumnGroup());
+            Object buildLock = lastGroupIndex.acquireBuildLock(groupKey);
+            try {
+                synchronized (buildLock) {
+                    nestedGroupIndex = lastGroupIndex.getGroupIndex(op.getColumnGroup());
+                    if (nestedGroupIndex != null) return nestedGroupIndex;
+
+                    return buildNestedGroup(op, lastGroupIndex, context);
+                }
+            } finally {
+                lastGroupIndex.releaseBuildLock(groupKey);
+            }
+        }
+
+        protected DataSetGroupIndex buildNestedGroup(DataSetGroup op, DataSetGroupIndex lastGroupIndex, InternalContext context) {
+            long start = chronometer.start();
+
+            // Create a brand new group index
+            DataSetGroupIndex nestedGroupIndex = new DataSetGroupIndex(op.getColumnGroup());
 
             // Apply the nested group operation on each parent group interval.
             InternalContext nestedContext = new InternalContext(context.dataSet, null);
@@ -301,6 +622,7 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                     nestedGroupIndex.indexIntervals(sg.getIntervalIndexes());
                 }
             }
+            nestedGroupIndex.setBuildTime(chronometer.stop() - start);
             context.index.indexGroup(nestedGroupIndex);
             return nestedGroupIndex;
         }
@@ -362,14 +684,83 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                     context.index(op, index);
                     continue;
                 }
-                // No index match => Filter required
-                chronometer.start();
-                List<Integer> rows = filterAlgorithm.filter(new InternalHandler(context), filter);
-                chronometer.stop();
+                // No index match => Filter required (just once, concurrent requests wait for it)
+                DataSetIndexNode node = context.index;
+                Object buildLock = node.acquireBuildLock(filter);
+                try {
+                    synchronized (buildLock) {
+                        index = node.getFilterIndex(filter);
+                        if (index == null) {
+                            index = buildFilterIndex(filter, context);
+                        }
+                    }
+                } finally {
+                    node.releaseBuildLock(filter);
+                }
+                context.index(op, index);
+            }
+        }
+
+        protected DataSetFilterIndex buildFilterIndex(ColumnFilter filter, InternalContext context) {
+            long start = chronometer.start();
+            List<Integer> rows = filterRows(filter, context);
+            long buildTime = chronometer.stop() - start;
+
+            // Index before continue.
+            return context.index.indexFilter(filter, rows, buildTime);
+        }
+
+        protected List<Integer> filterRows(ColumnFilter filter, InternalContext context) {
+            List<Integer> rows = getIndexedFilterRows(context, filter);
+            if (rows != null) return rows;
+
+            // AND expressions => Intersect the rows of the terms already indexed & evaluate just the rest of terms
+            if (filter instanceof LogicalExprFilter && LogicalExprType.AND.equals(((LogicalExprFilter) filter).getLogicalOperator())) {
+                rows = context.getRows();
+                List<ColumnFilter> pendingTerms = new ArrayList<ColumnFilter>();
+                boolean indexed = false;
+                for (ColumnFilter term : ((LogicalExprFilter) filter).getLogicalTerms()) {
+                    List<Integer> termRows = getIndexedFilterRows(context, term);
+                    if (termRows == null) {
+                        pendingTerms.add(term);
+                    } else {
+                        rows = rows == null ? termRows : RowList.and(rows, termRows);
+                        indexed = true;
+                    }
+                }
+                if (indexed) {
+                    if (pendingTerms.isEmpty()) return rows;
 
-                // Index before continue.
-                context.index(op, context.index.indexFilter(filter, rows, chronometer.elapsedTime()));
+                    ColumnFilter pending = pendingTerms.size() == 1 ? pendingTerms.get(0) : new LogicalExprFilter(filter.getColumnId(),
+                            LogicalExprType.AND, pendingTerms.toArray(new ColumnFilter[pendingTerms.size()]));
+                    InternalContext pendingContext = new InternalContext(context.dataSet, new DataSetFilterIndex(pending, rows));
+                    return filterAlgorithm.filter(new InternalHandler(pendingContext), pending);
+                }
             }
+            return filterAlgorithm.filter(new InternalHandler(context), filter);
+        }
+
+        /**
+         * Get the rows matching the given filter from the filter indexes already built, if any: either on top of the
+         * current rows or over the whole data set.
+         */
+        protected List<Integer> getIndexedFilterRows(InternalContext context, ColumnFilter filter) {
+            DataSetFilterIndex index = context.index.getFilterIndex(filter);
+            if (index != null) return index.getRows();
+
+            // The filter has been already applied over the whole data set => Just intersect both row sets
+            DataSetFilterIndex rootIndex = getRootFilterIndex(context, filter);
+            if (rootIndex != null) return RowList.and(context.getRows(), rootIndex.getRows());
+            return null;
+        }
+
+        protected DataSetFilterIndex getRootFilterIndex(InternalContext context, ColumnFilter filter) {
+            if (context.getRows() == null) return null;
+
+            DataSetIndexNode root = context.index;
+            while (root.getParent() != null) root = root.getParent();
+            if (root == context.index) return null;
+            return root.getFilterIndex(filter);
         }
 
         // SORT OPERATION
@@ -390,26 +781,45 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                 return;
             }
 
+            // Only the first rows might be required
+            int nrows = context.getRows() == null ? context.dataSet.getRowCount() : context.getRows().size();
+            boolean partial = rowLimit > 0 && rowLimit < nrows;
+
             // No index => Sort required
             if (context.index == null) {
-                List<Integer> orderedRows = sortAlgorithm.sort(context.getDataSet(), context.getRows(), op.getColumnSortList());
-                context.index(op, new DataSetSortIndex(op, orderedRows));
+                List<Integer> orderedRows = sortAlgorithm.sort(context.getDataSet(), context.getRows(), op.getColumnSortList(), rowLimit);
+                context.index(op, new DataSetSortIndex(op, orderedRows, partial));
+                if (partial) totalRows = nrows;
                 return;
 
             }
             // Index match => Reuse it
-            DataSetSortIndex sortIndex = context.index.getSortIndex(op);
+            DataSetSortIndex sortIndex = context.index.getSortIndex(op, rowLimit);
             if (sortIndex != null) {
                 context.index(op, sortIndex);
+                if (sortIndex.isPartial()) totalRows = nrows;
                 return;
             }
-            // No index match => Sort required
-            chronometer.start();
-            List<Integer> orderedRows = sortAlgorithm.sort(context.getDataSet(), context.getRows(), op.getColumnSortList());
-            chronometer.stop();
-
-            // Index before return.
-            context.index(op, context.index.indexSort(op, orderedRows, chronometer.elapsedTime()));
+            // No index match => Sort required (just once, concurrent requests wait for it)
+            DataSetIndexNode node = context.index;
+            Object buildLock = node.acquireBuildLock(op);
+            try {
+                synchronized (buildLock) {
+                    sortIndex = node.getSortIndex(op, rowLimit);
+                    if (sortIndex == null) {
+                        long start = chronometer.start();
+                        List<Integer> orderedRows = sortAlgorithm.sort(context.getDataSet(), context.getRows(), op.getColumnSortList(), rowLimit);
+                        long buildTime = chronometer.stop() - start;
+
+                        // Index before return.
+                        sortIndex = node.indexSort(op, orderedRows, buildTime, partial);
+                    }
+                }
+            } finally {
+                node.releaseBuildLock(op);
+            }
+            context.index(op, sortIndex);
+            if (sortIndex.isPartial()) totalRows = nrows;
         }
 
         // DATASET BUILD
@@ -502,6 +912,19 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                     }
                 }
             }
+            // The columns the aggregation functions apply to.
+            DataColumn[] functionColumns = new DataColumn[groupFunctions.size()];
+            for (int j=0; j< groupFunctions.size(); j++) {
+                GroupFunction groupFunction = groupFunctions.get(j);
+                String sourceId = groupFunction.getSourceId();
+                if (groupFunction.getFunction() != null) {
+                    DataColumn dataColumn = dataSet.getColumnByIndex(0);
+                    if (sourceId != null) dataColumn = dataSet.getColumnById(sourceId);
+                    if (dataColumn == null) throw new IllegalArgumentException("Column not found: " + sourceId);
+                    functionColumns[j] = dataColumn;
+                }
+            }
+
             // Add the aggregate calculations to the result.
             List<DataSetIntervalIndex> intervalIdxs = index.getIntervalIndexes();
             int row = 0;
@@ -513,6 +936,9 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                     continue;
                 }
 
+                // Calculate all the interval aggregations at once.
+                Double[] aggValues = _calculateFunctions(groupFunctions, functionColumns, intervalIdx);
+
                 // Add the aggregate calculations.
                 for (int j=0; j< groupFunctions.size(); j++) {
                     GroupFunction groupFunction = groupFunctions.get(j);
@@ -522,13 +948,9 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                     if (sourceId != null && sourceId.equals(columnGroup.getSourceId()) && columnFunction == null) {
                         result.setValueAt(row, j, intervalIdx.getName());
                     } else {
-                        DataColumn dataColumn = dataSet.getColumnByIndex(0);
-                        if (sourceId != null) dataColumn = dataSet.getColumnById(sourceId);
-
                         // Columns based on aggregation functions
                         if (columnFunction != null) {
-                            Double aggValue = _calculateFunction(dataColumn, groupFunction.getFunction(), intervalIdx);
-                            result.setValueAt(row, j, aggValue);
+                            result.setValueAt(row, j, aggValues[j]);
                         }
                         // Pick up the first column value for the interval
                         else {
@@ -536,6 +958,8 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                             if (rows == null || rows.isEmpty()) {
                                 result.setValueAt(row, j, null);
                             } else {
+                                DataColumn dataColumn = dataSet.getColumnByIndex(0);
+                                if (sourceId != null) dataColumn = dataSet.getColumnById(sourceId);
                                 int intervalRow = rows.get(0);
                                 Object firstValue = dataColumn.getValues().get(intervalRow);
                                 result.setValueAt(row, j, firstValue);
@@ -554,6 +978,7 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             DataSet result = DataSetFactory.newEmptyDataSet();
 
             if (hasAggregations) {
+                DataColumn[] functionColumns = new DataColumn[groupFunctions.size()];
                 for (int i=0; i< groupFunctions.size(); i++) {
                     GroupFunction gf = groupFunctions.get(i);
                     String sourceId = gf.getSourceId();
@@ -565,9 +990,11 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
 
                     DataColumn dataColumn = dataSet.getColumnById(sourceId);
                     if (dataColumn == null) dataColumn = dataSet.getColumnByIndex(0);
-
-                    Double aggValue = _calculateFunction(dataColumn, gf.getFunction(), index);
-                    result.setValueAt(0, i, aggValue);
+                    functionColumns[i] = dataColumn;
+                }
+                Double[] aggValues = _calculateFunctions(groupFunctions, functionColumns, index);
+                for (int i=0; i< groupFunctions.size(); i++) {
+                    result.setValueAt(0, i, aggValues[i]);
                 }
             } else {
                 DataSet _temp = dataSet.trim(index.getRows());
@@ -586,6 +1013,109 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             return result;
         }
 
+        /**
+         * Calculate the aggregation functions over the rows of the given index. Values already present in the index
+         * are reused. The rest are calculated in a single pass over the rows and indexed afterwards.
+         * @param groupFunctions The group functions requested.
+         * @param functionColumns The column every aggregation function applies to (null for non aggregation functions).
+         * @param index The index holding the target rows.
+         * @return The aggregation values (null for non aggregation functions).
+         */
+        private Double[] _calculateFunctions(List<GroupFunction> groupFunctions, DataColumn[] functionColumns, DataSetIndexNode index) {
+            Double[] result = new Double[groupFunctions.size()];
+            List<ColumnAggregates> columnAggregates = new ArrayList<ColumnAggregates>();
+            int pending = 0;
+
+            for (int j=0; j< groupFunctions.size(); j++) {
+                AggregateFunctionType type = groupFunctions.get(j).getFunction();
+                DataColumn column = functionColumns[j];
+                if (type == null || column == null) continue;
+
+                // Look into the index first
+                Double sv = index.getAggValue(column.getId(), type);
+                if (sv != null) {
+                    result[j] = sv;
+                    continue;
+                }
+                // Functions not supporting partial aggregates are calculated apart.
+                AggregateFunction function = aggregateFunctionManager.getFunctionByType(type);
+                if (function == null) {
+                    throw new IllegalArgumentException("Aggregate function not supported: " + type);
+                }
+                if (!(function instanceof AbstractFunction)) {
+                    result[j] = _calculateFunction(column, type, index);
+                    continue;
+                }
+                ColumnAggregates aggregates = null;
+                for (ColumnAggregates ca : columnAggregates) {
+                    if (ca.getColumn() == column) aggregates = ca;
+                }
+                if (aggregates == null) {
+                    columnAggregates.add(aggregates = new ColumnAggregates(column));
+                }
+                aggregates.addFunction((AbstractFunction) function, j);
+                pending++;
+            }
+            if (pending == 0) {
+                return result;
+            }
+
+            // Do the aggregate calculations.
+            long start = chronometer.start();
+            PartialAggregate[] partials = _accumulate(columnAggregates, index.getRows());
+            long buildTime = (chronometer.stop() - start) / pending;
+
+            // Index the results
+            for (int c=0; c<partials.length; c++) {
+                ColumnAggregates aggregates = columnAggregates.get(c);
+                String columnId = aggregates.getColumn().getId();
+                for (int k=0; k<aggregates.getFunctions().size(); k++) {
+                    AbstractFunction function = aggregates.getFunctions().get(k);
+                    double aggValue = function.aggregate(partials[c]);
+                    index.indexAggValue(columnId, function.getType(), aggValue, buildTime);
+                    result[aggregates.getPositions().get(k)] = aggValue;
+                }
+            }
+            return result;
+        }
+
+        private PartialAggregate[] _accumulate(final List<ColumnAggregates> columnAggregates, final List<Integer> rows) {
+            int nrows = rows == null ? columnAggregates.get(0).getColumn().getValues().size() : rows.size();
+            if (!chunkExecutor.isParallel(nrows)) {
+                return _accumulate(columnAggregates, rows, 0, nrows);
+            }
+            // Large row sets are split into chunks and the partial aggregates merged afterwards.
+            List<PartialAggregate[]> chunks = chunkExecutor.execute(nrows, new RowChunkTask<PartialAggregate[]>() {
+                public PartialAggregate[] process(int from, int to) {
+                    return _accumulate(columnAggregates, rows, from, to);
+                }
+            });
+            PartialAggregate[] result = chunks.get(0);
+            for (int i=1; i<chunks.size(); i++) {
+                PartialAggregate[] chunk = chunks.get(i);
+                for (int c=0; c<result.length; c++) {
+                    result[c].merge(chunk[c]);
+                }
+            }
+            return result;
+        }
+
+        private PartialAggregate[] _accumulate(List<ColumnAggregates> columnAggregates, List<Integer> rows, int from, int to) {
+            ColumnAggregates[] aggregates = columnAggregates.toArray(new ColumnAggregates[columnAggregates.size()]);
+            PartialAggregate[] partials = new PartialAggregate[aggregates.length];
+            for (int c=0; c<aggregates.length; c++) {
+                partials[c] = new PartialAggregate();
+            }
+            RowIterator it = rows == null ? null : RowList.rowIterator(rows, from);
+            for (int i=from; i<to; i++) {
+                int row = it == null ? i : it.nextRow();
+                for (int c=0; c<aggregates.length; c++) {
+                    aggregates[c].accumulate(partials[c], row);
+                }
+            }
+            return partials;
+        }
+
         private Double _calculateFunction(DataColumn column, AggregateFunctionType type, DataSetIndexNode index) {
             // Preconditions
             if (type == null) {
@@ -597,14 +1127,14 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                 if (sv != null) return sv;
             }
             // Do the aggregate calculations.
-            chronometer.start();
+            long start = chronometer.start();
             AggregateFunction function = aggregateFunctionManager.getFunctionByType(type);
             double aggValue = function.aggregate(column.getValues(), index.getRows());
-            chronometer.stop();
+            long buildTime = chronometer.stop() - start;
 
             // Index the result
             if (index != null) {
-                index.indexAggValue(column.getId(), type, aggValue, chronometer.elapsedTime());
+                index.indexAggValue(column.getId(), type, aggValue, buildTime);
             }
             return aggValue;
         }
@@ -631,6 +1161,18 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                 this.index = index;
             }
 
+            InternalContext(InternalContext other) {
+                this.dataSet = other.dataSet;
+                this.index = other.index;
+                this.lastOperation = other.lastOperation;
+                this.groupOpList = new ArrayList<DataSetGroup>(other.groupOpList);
+                this.lastGroupIndex = other.lastGroupIndex;
+                this.lastFilterOp = other.lastFilterOp;
+                this.lastFilterIndex = other.lastFilterIndex;
+                this.lastSortOp = other.lastSortOp;
+                this.lastSortIndex = other.lastSortIndex;
+            }
+
             public DataSet getDataSet() {
                 return dataSet;
             }
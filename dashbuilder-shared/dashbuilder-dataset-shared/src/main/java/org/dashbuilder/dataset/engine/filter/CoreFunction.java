@@ -17,6 +17,7 @@ package org.dashbuilder.dataset.engine.filter;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.dashbuilder.dataset.filter.CoreFunctionFilter;
@@ -87,6 +88,10 @@ public class CoreFunction extends DataSetFunction {
     public boolean isEqualsTo(Comparable value) {
         if (isNull(value)) return false;
 
+        // Several parameters means any of them
+        List params = coreFunctionFilter.getParameters();
+        if (params.size() > 1) return params.contains(value);
+
         Comparable ref = getParameter(0);
         return ref.equals(value);
     }
@@ -99,28 +104,28 @@ public class CoreFunction extends DataSetFunction {
         if (isNull(value)) return false;
 
         Comparable ref = getParameter(0);
-        return value.compareTo(ref) == -1;
+        return value.compareTo(ref) < 0;
     }
 
     public boolean isLowerThanOrEqualsTo(Comparable value) {
         if (isNull(value)) return false;
 
         Comparable ref = getParameter(0);
-        return value.compareTo(ref) != 1;
+        return value.compareTo(ref) <= 0;
     }
 
     public boolean isGreaterThan(Comparable value) {
         if (isNull(value)) return false;
 
         Comparable ref = getParameter(0);
-        return value.compareTo(ref) == 1;
+        return value.compareTo(ref) > 0;
     }
 
     public boolean isGreaterThanOrEqualsTo(Comparable value) {
         if (isNull(value)) return false;
 
         Comparable ref = getParameter(0);
-        return value.compareTo(ref) != -1;
+        return value.compareTo(ref) >= 0;
     }
 
     public boolean isBetween(Comparable value) {
@@ -128,8 +133,8 @@ public class CoreFunction extends DataSetFunction {
 
         Comparable low = getParameter(0);
         Comparable high = getParameter(1);
-        if (value.compareTo(low) == -1) return false;
-        if (value.compareTo(high) == 1) return false;
+        if (value.compareTo(low) < 0) return false;
+        if (value.compareTo(high) > 0) return false;
         return true;
     }
 
@@ -15,16 +15,21 @@
  */
 package org.dashbuilder.dataset.engine.filter;
 
-import java.util.ArrayList;
 import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.engine.DataSetHandler;
+import org.dashbuilder.dataset.engine.RowChunkExecutor;
+import org.dashbuilder.dataset.engine.RowChunkTask;
 import org.dashbuilder.dataset.filter.ColumnFilter;
 import org.dashbuilder.dataset.filter.CoreFunctionFilter;
 import org.dashbuilder.dataset.filter.CustomFunctionFilter;
 import org.dashbuilder.dataset.filter.LogicalExprFilter;
+import org.dashbuilder.dataset.impl.ArrayRowList;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * Default data set filter algorithm.
@@ -32,6 +37,11 @@ import org.dashbuilder.dataset.filter.LogicalExprFilter;
 @ApplicationScoped
 public class DefaultFilterAlgorithm implements DataSetFilterAlgorithm {
 
+    protected FilterCompiler filterCompiler = new FilterCompiler();
+
+    @Inject
+    protected RowChunkExecutor chunkExecutor;
+
     /*
 
      LogicalFunction
@@ -76,34 +86,61 @@ public class DefaultFilterAlgorithm implements DataSetFilterAlgorithm {
      */
     public List<Integer> filter(DataSetHandler ctx, ColumnFilter columnFilter) {
 
-        // Build the data set filter function.
+        // Compile the filter for the target data set.
         DataSet dataSet = ctx.getDataSet();
-        DataSetFilterContext dataSetFilterContext = new DataSetFilterContext(dataSet);
-        DataSetFunction filterFunction = buildFunction(dataSetFilterContext, columnFilter);
+        final FilterPredicate predicate = filterCompiler.compile(dataSet, columnFilter);
 
-        List<Integer> result = new ArrayList<Integer>();
+        // Apply the filter either to the whole data set or only to the target rows specified.
+        final List<Integer> rows = ctx.getRows();
+        int nrows = rows == null ? dataSet.getRowCount() : rows.size();
+        if (chunkExecutor == null || !chunkExecutor.isParallel(nrows)) {
+            return filter(predicate, rows, 0, nrows);
+        }
 
-        // Apply the filter function to the whole data set.
-        if (ctx == null || ctx.getRows() == null) {
-            for (int i = 0; i < dataSet.getRowCount(); i++) {
-                dataSetFilterContext.setCurrentRow(i);
-                if (filterFunction.pass()) {
-                    result.add(i);
-                }
+        // Large row sets are split into chunks. The chunk results are joined in order.
+        List<ArrayRowList> chunks = chunkExecutor.execute(nrows, new RowChunkTask<ArrayRowList>() {
+            public ArrayRowList process(int from, int to) {
+                return filter(predicate, rows, from, to);
             }
+        });
+        int size = 0;
+        for (ArrayRowList chunk : chunks) size += chunk.size();
+        ArrayRowList result = new ArrayRowList(size);
+        for (ArrayRowList chunk : chunks) {
+            RowIterator it = chunk.rowIterator();
+            while (it.hasNext()) result.addRow(it.nextRow());
         }
-        // Filter only the target rows specified.
-        else {
-            for (Integer targetRow : ctx.getRows()) {
-                dataSetFilterContext.setCurrentRow(targetRow);
-                if (filterFunction.pass()) {
-                    result.add(targetRow);
+        return result;
+    }
+
+    /**
+     * Apply the filter to the given range of rows.
+     * @param rows The target rows. If null then the range refers to the data set rows.
+     */
+    protected ArrayRowList filter(FilterPredicate predicate, List<Integer> rows, int from, int to) {
+        ArrayRowList result = new ArrayRowList();
+        if (rows == null) {
+            for (int i = from; i < to; i++) {
+                if (predicate.pass(i)) {
+                    result.addRow(i);
+                }
+            }
+        } else {
+            RowIterator it = RowList.rowIterator(rows, from);
+            for (int i = from; i < to; i++) {
+                int targetRow = it.nextRow();
+                if (predicate.pass(targetRow)) {
+                    result.addRow(targetRow);
                 }
             }
         }
         return result;
     }
 
+    /**
+     * Build a function which evaluates the filter row by row through the given filter context.
+     * <p>Notice the filter algorithm uses the <i>FilterCompiler</i> instead.</p>
+     */
     public DataSetFunction buildFunction(DataSetFilterContext filterContext, ColumnFilter columnFilter) {
 
         // Logical expression filter
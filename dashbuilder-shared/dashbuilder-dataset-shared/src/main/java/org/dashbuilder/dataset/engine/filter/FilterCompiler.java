@@ -0,0 +1,379 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.filter;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dashbuilder.dataset.DataColumn;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.date.TimeFrame;
+import org.dashbuilder.dataset.filter.ColumnFilter;
+import org.dashbuilder.dataset.filter.CoreFunctionFilter;
+import org.dashbuilder.dataset.filter.CoreFunctionType;
+import org.dashbuilder.dataset.filter.LogicalExprFilter;
+import org.dashbuilder.dataset.filter.LogicalExprType;
+import org.dashbuilder.dataset.impl.ColumnValues;
+import org.dashbuilder.dataset.impl.DateColumnValues;
+import org.dashbuilder.dataset.impl.LabelColumnValues;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
+
+/**
+ * Turns a column filter into a predicate specialized for the data set it's going to be applied to.
+ * <p>All the work not depending on the row being evaluated (function type dispatching, parameter conversion,
+ * time frame parsing, ...) is done just once at compile time. Columnar values are compared using its primitive
+ * representation and label filters are evaluated just once per distinct label.</p>
+ */
+public class FilterCompiler {
+
+    public FilterPredicate compile(DataSet dataSet, ColumnFilter columnFilter) {
+
+        // Logical expression filter
+        if (columnFilter instanceof LogicalExprFilter) {
+            LogicalExprFilter filter = (LogicalExprFilter) columnFilter;
+            List<ColumnFilter> filterTerms = filter.getLogicalTerms();
+            FilterPredicate[] terms = new FilterPredicate[filterTerms.size()];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = compile(dataSet, filterTerms.get(i));
+            }
+            return compileLogicalExpr(filter.getLogicalOperator(), terms);
+        }
+        // Core function filter
+        if (columnFilter instanceof CoreFunctionFilter) {
+            return compileCoreFunction(dataSet, (CoreFunctionFilter) columnFilter);
+        }
+        throw new IllegalArgumentException("Filter type not supported: " + columnFilter.getClass().getName());
+    }
+
+    protected FilterPredicate compileLogicalExpr(LogicalExprType type, final FilterPredicate[] terms) {
+        if (LogicalExprType.NOT.equals(type)) {
+            return new FilterPredicate() {
+                public boolean pass(int row) {
+                    for (FilterPredicate term : terms) {
+                        if (term.pass(row)) return false;
+                    }
+                    return true;
+                }
+            };
+        }
+        if (LogicalExprType.AND.equals(type)) {
+            if (terms.length == 1) return terms[0];
+            return new FilterPredicate() {
+                public boolean pass(int row) {
+                    for (FilterPredicate term : terms) {
+                        if (!term.pass(row)) return false;
+                    }
+                    return true;
+                }
+            };
+        }
+        if (LogicalExprType.OR.equals(type)) {
+            if (terms.length == 1) return terms[0];
+            return new FilterPredicate() {
+                public boolean pass(int row) {
+                    for (FilterPredicate term : terms) {
+                        if (term.pass(row)) return true;
+                    }
+                    return false;
+                }
+            };
+        }
+        throw new IllegalArgumentException("Logical operator not supported: " + type);
+    }
+
+    protected FilterPredicate compileCoreFunction(DataSet dataSet, CoreFunctionFilter filter) {
+        DataColumn column = dataSet.getColumnById(filter.getColumnId());
+        if (column == null) {
+            throw new IllegalArgumentException("Filter column specified not found in the data set: " + filter.getColumnId());
+        }
+        CoreFunctionType type = filter.getType();
+        List params = filter.getParameters();
+        List values = column.getValues();
+
+        if (values instanceof ColumnValues && ((ColumnValues) values).isColumnar()) {
+            if (values instanceof LabelColumnValues) {
+                return compileLabelFunction((LabelColumnValues) values, new ValueTest(type, params));
+            }
+            if (values instanceof NumberColumnValues && areInstancesOf(params, Number.class)) {
+                return compileNumberFunction((NumberColumnValues) values, type, params);
+            }
+            if (values instanceof DateColumnValues && (CoreFunctionType.TIME_FRAME.equals(type) || areInstancesOf(params, Date.class))) {
+                return compileDateFunction((DateColumnValues) values, type, params);
+            }
+        }
+        return compileObjectFunction(values, new ValueTest(type, params));
+    }
+
+    protected boolean areInstancesOf(List params, Class clazz) {
+        for (Object param : params) {
+            if (param == null) return false;
+            if (clazz == Number.class && !(param instanceof Number)) return false;
+            if (clazz == Date.class && !(param instanceof Date)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Labels are evaluated just once per dictionary entry.
+     */
+    protected FilterPredicate compileLabelFunction(final LabelColumnValues values, ValueTest test) {
+        List<Object> dictionary = values.getDictionary();
+        final boolean[] codeMatches = new boolean[dictionary.size()];
+        for (int i = 0; i < codeMatches.length; i++) {
+            codeMatches[i] = test.pass(dictionary.get(i));
+        }
+        final boolean nullMatches = test.pass(null);
+        return new FilterPredicate() {
+            public boolean pass(int row) {
+                int code = values.getCode(row);
+                return code < 0 ? nullMatches : codeMatches[code];
+            }
+        };
+    }
+
+    protected FilterPredicate compileNumberFunction(final NumberColumnValues values, CoreFunctionType type, List params) {
+        final double ref = params.isEmpty() ? 0 : ((Number) params.get(0)).doubleValue();
+        switch (type) {
+            case IS_NULL:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return values.isNull(row);
+                    }
+                };
+            case NOT_NULL:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row);
+                    }
+                };
+            case EQUALS_TO:
+            case NOT_EQUALS_TO:
+                final boolean equals = CoreFunctionType.EQUALS_TO.equals(type);
+                if (params.size() == 1) {
+                    return new FilterPredicate() {
+                        public boolean pass(int row) {
+                            if (values.isNull(row)) return !equals;
+                            return (values.getDouble(row) == ref) == equals;
+                        }
+                    };
+                }
+                final double[] refs = new double[params.size()];
+                for (int i = 0; i < refs.length; i++) refs[i] = ((Number) params.get(i)).doubleValue();
+                Arrays.sort(refs);
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        if (values.isNull(row)) return !equals;
+                        return (Arrays.binarySearch(refs, values.getDouble(row)) >= 0) == equals;
+                    }
+                };
+            case LOWER_THAN:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row) && values.getDouble(row) < ref;
+                    }
+                };
+            case LOWER_OR_EQUALS_TO:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row) && values.getDouble(row) <= ref;
+                    }
+                };
+            case GREATER_THAN:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row) && values.getDouble(row) > ref;
+                    }
+                };
+            case GREATER_OR_EQUALS_TO:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row) && values.getDouble(row) >= ref;
+                    }
+                };
+            case BETWEEN:
+                final double high = ((Number) params.get(1)).doubleValue();
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        if (values.isNull(row)) return false;
+                        double value = values.getDouble(row);
+                        return value >= ref && value <= high;
+                    }
+                };
+        }
+        throw new IllegalArgumentException("Core function type not supported: " + type);
+    }
+
+    protected FilterPredicate compileDateFunction(final DateColumnValues values, CoreFunctionType type, List params) {
+        if (CoreFunctionType.TIME_FRAME.equals(type)) {
+            TimeFrameLimits limits = new TimeFrameLimits(params.get(0));
+            final long from = limits.from;
+            final long to = limits.to;
+            return new FilterPredicate() {
+                public boolean pass(int row) {
+                    if (values.isNull(row)) return false;
+                    long time = values.getTime(row);
+                    return time >= from && time <= to;
+                }
+            };
+        }
+        final long ref = params.isEmpty() ? 0 : ((Date) params.get(0)).getTime();
+        switch (type) {
+            case IS_NULL:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return values.isNull(row);
+                    }
+                };
+            case NOT_NULL:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row);
+                    }
+                };
+            case EQUALS_TO:
+            case NOT_EQUALS_TO:
+                final boolean equals = CoreFunctionType.EQUALS_TO.equals(type);
+                final long[] refs = new long[params.size()];
+                for (int i = 0; i < refs.length; i++) refs[i] = ((Date) params.get(i)).getTime();
+                Arrays.sort(refs);
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        if (values.isNull(row)) return !equals;
+                        return (Arrays.binarySearch(refs, values.getTime(row)) >= 0) == equals;
+                    }
+                };
+            case LOWER_THAN:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row) && values.getTime(row) < ref;
+                    }
+                };
+            case LOWER_OR_EQUALS_TO:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row) && values.getTime(row) <= ref;
+                    }
+                };
+            case GREATER_THAN:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row) && values.getTime(row) > ref;
+                    }
+                };
+            case GREATER_OR_EQUALS_TO:
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        return !values.isNull(row) && values.getTime(row) >= ref;
+                    }
+                };
+            case BETWEEN:
+                final long high = ((Date) params.get(1)).getTime();
+                return new FilterPredicate() {
+                    public boolean pass(int row) {
+                        if (values.isNull(row)) return false;
+                        long time = values.getTime(row);
+                        return time >= ref && time <= high;
+                    }
+                };
+        }
+        throw new IllegalArgumentException("Core function type not supported: " + type);
+    }
+
+    protected FilterPredicate compileObjectFunction(final List values, final ValueTest test) {
+        return new FilterPredicate() {
+            public boolean pass(int row) {
+                return test.pass(values.get(row));
+            }
+        };
+    }
+
+    /**
+     * Generic core function evaluation for any kind of value.
+     */
+    protected static class ValueTest {
+
+        CoreFunctionType type;
+        Comparable ref = null;
+        Comparable high = null;
+        Set<Object> refSet = null;
+        TimeFrameLimits timeFrameLimits = null;
+
+        public ValueTest(CoreFunctionType type, List params) {
+            this.type = type;
+            if (CoreFunctionType.TIME_FRAME.equals(type)) {
+                timeFrameLimits = new TimeFrameLimits(params.get(0));
+            } else {
+                if (params.size() > 0) ref = (Comparable) params.get(0);
+                if (params.size() > 1) high = (Comparable) params.get(1);
+                if (params.size() > 1) refSet = new HashSet<Object>(params);
+            }
+        }
+
+        public boolean pass(Object value) {
+            switch (type) {
+                case IS_NULL:
+                    return value == null;
+                case NOT_NULL:
+                    return value != null;
+                case EQUALS_TO:
+                    return isEqualsTo(value);
+                case NOT_EQUALS_TO:
+                    return !isEqualsTo(value);
+                case LOWER_THAN:
+                    return value != null && ((Comparable) value).compareTo(ref) < 0;
+                case LOWER_OR_EQUALS_TO:
+                    return value != null && ((Comparable) value).compareTo(ref) <= 0;
+                case GREATER_THAN:
+                    return value != null && ((Comparable) value).compareTo(ref) > 0;
+                case GREATER_OR_EQUALS_TO:
+                    return value != null && ((Comparable) value).compareTo(ref) >= 0;
+                case BETWEEN:
+                    if (value == null) return false;
+                    Comparable c = (Comparable) value;
+                    return c.compareTo(ref) >= 0 && c.compareTo(high) <= 0;
+                case TIME_FRAME:
+                    if (!(value instanceof Date)) return false;
+                    long time = ((Date) value).getTime();
+                    return time >= timeFrameLimits.from && time <= timeFrameLimits.to;
+            }
+            throw new IllegalArgumentException("Core function type not supported: " + type);
+        }
+
+        protected boolean isEqualsTo(Object value) {
+            if (value == null) return false;
+            if (refSet != null) return refSet.contains(value);
+            return ref.equals(value);
+        }
+    }
+
+    protected static class TimeFrameLimits {
+
+        long from;
+        long to;
+
+        public TimeFrameLimits(Object timeFrameExpr) {
+            TimeFrame timeFrame = TimeFrame.parse(timeFrameExpr.toString());
+            if (timeFrame == null) {
+                throw new IllegalArgumentException("Time frame expression not valid: " + timeFrameExpr);
+            }
+            from = timeFrame.getFrom().getTimeInstant().getTime();
+            to = timeFrame.getTo().getTimeInstant().getTime();
+        }
+    }
+}
@@ -15,7 +15,11 @@
  */
 package org.dashbuilder.dataset.engine.function;
 
+import java.util.List;
+
 import org.dashbuilder.dataset.group.AggregateFunction;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * Base class for the implementation of aggregate functions.
@@ -34,4 +38,42 @@ public abstract class AbstractFunction implements AggregateFunction {
         double power = Math.pow(10, precission);
         return Math.round(value * power) / power;
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the partial aggregate for a range of rows. Partial aggregates can be merged and the final value is
+     * obtained through the <i>aggregate(PartialAggregate)</i> method.
+     * @param values The column values.
+     * @param rows The target rows. If null then the range refers to the column values.
+     * @param from The first position of the range (inclusive).
+     * @param to The last position of the range (exclusive).
+     */
+    public PartialAggregate partial(List values, List<Integer> rows, int from, int to) {
+        PartialAggregate partial = new PartialAggregate();
+        if (rows == null) {
+            for (int row = from; row < to; row++) {
+                partial.addRow();
+                accumulate(partial, values, row);
+            }
+        } else {
+            RowIterator it = RowList.rowIterator(rows, from);
+            for (int i = from; i < to; i++) {
+                partial.addRow();
+                accumulate(partial, values, it.nextRow());
+            }
+        }
+        return partial;
+    }
+
+    /**
+     * Add the value at the given row to the partial aggregate (rows are counted by the caller). By default, values
+     * are treated as numbers.
+     */
+    public void accumulate(PartialAggregate partial, List values, int row) {
+        partial.addNumber(values, row);
+    }
+
+    /**
+     * Get the aggregate value from a partial aggregate.
+     */
+    public abstract double aggregate(PartialAggregate partial);
+}
@@ -49,4 +49,8 @@ public class AverageFunction extends SumFunction {
         return ret;
     }
 
+    public double aggregate(PartialAggregate partial) {
+        if (partial.getCount() == 0) return 0;
+        return round(partial.getSum() / partial.getCount(), precission);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.function;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dashbuilder.dataset.DataColumn;
+
+/**
+ * The aggregate functions to calculate over a column. All the functions share a single partial aggregate so the
+ * column values are read just once no matter how many functions are requested.
+ */
+public class ColumnAggregates {
+
+    protected DataColumn column;
+    protected List values;
+    protected List<AbstractFunction> functions = new ArrayList<AbstractFunction>();
+    protected List<Integer> positions = new ArrayList<Integer>();
+    protected boolean numbers = false;
+    protected boolean distincts = false;
+
+    public ColumnAggregates(DataColumn column) {
+        this.column = column;
+        this.values = column.getValues();
+    }
+
+    public DataColumn getColumn() {
+        return column;
+    }
+
+    public List<AbstractFunction> getFunctions() {
+        return functions;
+    }
+
+    /**
+     * The position (within the group function list) the result of every function goes to.
+     */
+    public List<Integer> getPositions() {
+        return positions;
+    }
+
+    public void addFunction(AbstractFunction function, int position) {
+        functions.add(function);
+        positions.add(position);
+        switch (function.getType()) {
+            case DISTINCT:
+                distincts = true;
+                break;
+            case COUNT:
+                break;
+            default:
+                numbers = true;
+        }
+    }
+
+    /**
+     * Add the value at the given row to the partial aggregate.
+     */
+    public void accumulate(PartialAggregate partial, int row) {
+        partial.addRow();
+        if (numbers) partial.addNumber(values, row);
+        if (distincts) partial.addDistinct(values.get(row));
+    }
+}
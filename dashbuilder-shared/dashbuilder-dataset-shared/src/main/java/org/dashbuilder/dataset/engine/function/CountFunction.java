@@ -43,4 +43,12 @@ public class CountFunction extends AbstractFunction {
         if (rows.isEmpty()) return 0;
         return rows.size();
     }
+
+    public void accumulate(PartialAggregate partial, List values, int row) {
+        // Only the number of rows matters
+    }
+
+    public double aggregate(PartialAggregate partial) {
+        return partial.getCount();
+    }
 }
\ No newline at end of file
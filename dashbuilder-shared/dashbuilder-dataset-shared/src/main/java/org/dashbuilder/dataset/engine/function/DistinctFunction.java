@@ -22,6 +22,8 @@ import java.util.Set;
 
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * It calculates the number of distinct occurrences inside a given collection.
@@ -57,11 +59,21 @@ public class DistinctFunction extends AbstractFunction {
 
         // Return the number of distinct items in the collection.
         Set distincts = new HashSet();
-        for (Integer row : rows) {
-            Object o = values.get(row);
+        RowIterator it = RowList.rowIterator(rows);
+        while (it.hasNext()) {
+            Object o = values.get(it.nextRow());
             if (distincts.contains(o)) continue;
             distincts.add(o);
         }
         return distincts.size();
     }
+
+    public void accumulate(PartialAggregate partial, List values, int row) {
+        partial.addDistinct(values.get(row));
+    }
+
+    public double aggregate(PartialAggregate partial) {
+        Set distincts = partial.getDistincts();
+        return distincts == null ? 0 : distincts.size();
+    }
 }
@@ -20,6 +20,9 @@ import java.util.List;
 
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * It calculates the max. number of a set of numbers.
@@ -56,14 +59,34 @@ public class MaxFunction extends AbstractFunction {
         if (values == null || values.isEmpty()) return 0;
 
         // Get the max. value from the collection.
-        Number max = null;
-        for (Integer row : rows) {
-            Number n = (Number) values.get(row);
-            if (n == null) continue;
-            if (max == null || n.doubleValue() > max.doubleValue()) max = n;
+        boolean found = false;
+        double max = 0;
+        RowIterator it = RowList.rowIterator(rows);
+        if (values instanceof NumberColumnValues) {
+            NumberColumnValues numbers = (NumberColumnValues) values;
+            while (it.hasNext()) {
+                int row = it.nextRow();
+                if (numbers.isNull(row)) continue;
+                double d = numbers.getDouble(row);
+                if (!found || d > max) max = d;
+                found = true;
+            }
+        } else {
+            while (it.hasNext()) {
+                Number n = (Number) values.get(it.nextRow());
+                if (n == null) continue;
+                double d = n.doubleValue();
+                if (!found || d > max) max = d;
+                found = true;
+            }
         }
-        if (max == null) return 0;
-        double ret = round(max.doubleValue(), precission);
+        if (!found) return 0;
+        double ret = round(max, precission);
         return ret;
     }
+
+    public double aggregate(PartialAggregate partial) {
+        if (partial.getNumbers() == 0) return 0;
+        return round(partial.getMax(), precission);
+    }
 }
\ No newline at end of file
@@ -20,6 +20,9 @@ import java.util.List;
 
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * It calculates the min. number of a set of numbers.
@@ -57,15 +60,35 @@ public class MinFunction extends AbstractFunction {
         if (values == null || values.isEmpty()) return 0;
 
         // Get the min. value from the collection.
-        Number min = null;
-        for (Integer row : rows) {
-            Number n = (Number) values.get(row);
-            if (n == null) continue;
-            if (min == null || n.doubleValue() < min.doubleValue()) min = n;
+        boolean found = false;
+        double min = 0;
+        RowIterator it = RowList.rowIterator(rows);
+        if (values instanceof NumberColumnValues) {
+            NumberColumnValues numbers = (NumberColumnValues) values;
+            while (it.hasNext()) {
+                int row = it.nextRow();
+                if (numbers.isNull(row)) continue;
+                double d = numbers.getDouble(row);
+                if (!found || d < min) min = d;
+                found = true;
+            }
+        } else {
+            while (it.hasNext()) {
+                Number n = (Number) values.get(it.nextRow());
+                if (n == null) continue;
+                double d = n.doubleValue();
+                if (!found || d < min) min = d;
+                found = true;
+            }
         }
         // Adjust to the specified precision.
-        if (min == null) return 0;
-        double ret = round(min.doubleValue(), precission);
+        if (!found) return 0;
+        double ret = round(min, precission);
         return ret;
     }
+
+    public double aggregate(PartialAggregate partial) {
+        if (partial.getNumbers() == 0) return 0;
+        return round(partial.getMin(), precission);
+    }
 }
\ No newline at end of file
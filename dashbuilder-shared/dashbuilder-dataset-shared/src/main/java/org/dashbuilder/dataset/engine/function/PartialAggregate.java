@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.function;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dashbuilder.dataset.impl.NumberColumnValues;
+
+/**
+ * Intermediate state of an aggregate calculation. Partial aggregates calculated over different sets of rows can be
+ * merged together and the aggregate function gets the final value from the merged result.
+ */
+public class PartialAggregate {
+
+    protected int count = 0;
+    protected int numbers = 0;
+    protected double sum = 0;
+    protected double min = 0;
+    protected double max = 0;
+    protected Set distincts = null;
+
+    /**
+     * The number of rows accumulated.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * The number of non null numbers accumulated.
+     */
+    public int getNumbers() {
+        return numbers;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public Set getDistincts() {
+        return distincts;
+    }
+
+    public void addRow() {
+        count++;
+    }
+
+    public void addNumber(double d) {
+        if (numbers == 0 || d < min) min = d;
+        if (numbers == 0 || d > max) max = d;
+        sum += d;
+        numbers++;
+    }
+
+    /**
+     * Add the number at the given row (if not null).
+     */
+    public void addNumber(List values, int row) {
+        if (values instanceof NumberColumnValues) {
+            NumberColumnValues numbers = (NumberColumnValues) values;
+            if (!numbers.isNull(row)) addNumber(numbers.getDouble(row));
+        } else {
+            Number n = (Number) values.get(row);
+            if (n != null) addNumber(n.doubleValue());
+        }
+    }
+
+    public void addDistinct(Object value) {
+        if (distincts == null) distincts = new HashSet();
+        distincts.add(value);
+    }
+
+    /**
+     * Merge the given partial aggregate into this one.
+     */
+    public PartialAggregate merge(PartialAggregate other) {
+        if (other.numbers > 0) {
+            if (numbers == 0 || other.min < min) min = other.min;
+            if (numbers == 0 || other.max > max) max = other.max;
+            sum += other.sum;
+            numbers += other.numbers;
+        }
+        if (other.distincts != null) {
+            if (distincts == null) distincts = new HashSet();
+            distincts.addAll(other.distincts);
+        }
+        count += other.count;
+        return this;
+    }
+}
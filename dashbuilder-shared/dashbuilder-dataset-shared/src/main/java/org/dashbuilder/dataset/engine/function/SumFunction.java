@@ -20,6 +20,9 @@ import java.util.List;
 
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * It calculates the sum value of a set of numbers.
@@ -56,12 +59,26 @@ public class SumFunction extends AbstractFunction {
 
         // Sum the collection.
         double sum = 0;
-        for (Integer row : rows) {
-            Number n = (Number) values.get(row);
-            if (n == null) continue;
-            sum += n.doubleValue();
+        RowIterator it = RowList.rowIterator(rows);
+        if (values instanceof NumberColumnValues) {
+            NumberColumnValues numbers = (NumberColumnValues) values;
+            while (it.hasNext()) {
+                int row = it.nextRow();
+                if (numbers.isNull(row)) continue;
+                sum += numbers.getDouble(row);
+            }
+        } else {
+            while (it.hasNext()) {
+                Number n = (Number) values.get(it.nextRow());
+                if (n == null) continue;
+                sum += n.doubleValue();
+            }
         }
         double ret = round(sum, precission);
         return ret;
     }
+
+    public double aggregate(PartialAggregate partial) {
+        return round(partial.getSum(), precission);
+    }
 }
\ No newline at end of file
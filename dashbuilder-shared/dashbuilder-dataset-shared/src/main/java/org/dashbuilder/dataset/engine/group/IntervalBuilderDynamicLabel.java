@@ -15,13 +15,26 @@
  */
 package org.dashbuilder.dataset.engine.group;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.engine.DataSetHandler;
+import org.dashbuilder.dataset.engine.RowChunkExecutor;
+import org.dashbuilder.dataset.engine.RowChunkTask;
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.ArrayRowList;
+import org.dashbuilder.dataset.impl.LabelColumnValues;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * Interval builder for label columns which generates one interval per label.
@@ -29,6 +42,9 @@ import org.dashbuilder.dataset.group.Interval;
 @ApplicationScoped
 public class IntervalBuilderDynamicLabel implements IntervalBuilder {
 
+    @Inject
+    protected RowChunkExecutor chunkExecutor;
+
     public IntervalList build(DataSetHandler ctx, ColumnGroup columnGroup) {
         IntervalListLabel intervalList = new IntervalListLabel(columnGroup);
         String columnId = columnGroup.getSourceId();
@@ -49,36 +65,182 @@ public class IntervalBuilderDynamicLabel implements IntervalBuilder {
         if (columnGroup == null) return null;
         if (intervalIndex == null) return null;
 
-        IntervalListLabel intervalList = new IntervalListLabel(columnGroup);
-        intervalList.indexValues(column.getValues(), null);
-        if (intervalIndex >= intervalList.size()) return null;
-        return intervalList.get(intervalIndex);
+        // Look for the nth distinct label (no need to index the whole column)
+        Set<String> names = new HashSet<String>();
+        for (Object value : column.getValues()) {
+            String name = getIntervalName(value);
+            if (names.add(name) && names.size() > intervalIndex) {
+                return new Interval(name, intervalIndex);
+            }
+        }
+        return null;
+    }
+
+    protected static String getIntervalName(Object value) {
+        return value == null ? null : value.toString();
     }
 
     private class IntervalListLabel extends IntervalList {
 
+        private Map<String,Interval> intervalMap = new HashMap<String,Interval>();
+
         private IntervalListLabel(ColumnGroup columnGroup) {
             super(columnGroup);
         }
 
+        /**
+         * Labels are classified in two passes: the first one assigns every row to a label slot and counts the rows
+         * per label. Once the intervals are created (with the exact capacity required), the second pass adds the
+         * rows to its interval.
+         * <p>On large row sets the first pass is split into chunks. Every chunk gets its own slots which are
+         * merged afterwards keeping the order in which the labels first appear.</p>
+         */
+        public IntervalList indexValues(final List<Object> values, final List<Integer> rows) {
+            int nrows = rows == null ? values.size() : rows.size();
+            List<LabelSlots> chunks = null;
+            if (chunkExecutor == null || !chunkExecutor.isParallel(nrows)) {
+                chunks = new ArrayList<LabelSlots>(1);
+                chunks.add(classify(values, rows, 0, nrows));
+            } else {
+                chunks = chunkExecutor.execute(nrows, new RowChunkTask<LabelSlots>() {
+                    public LabelSlots process(int from, int to) {
+                        return classify(values, rows, from, to);
+                    }
+                });
+            }
+
+            // Merge the slots of every chunk
+            List<String> slotNames = new ArrayList<String>();
+            Map<String,Integer> nameSlots = new HashMap<String,Integer>();
+            int[] slotCounts = new int[16];
+            for (LabelSlots chunk : chunks) {
+                int nslots = chunk.names.size();
+                chunk.mergedSlots = new int[nslots];
+                for (int i = 0; i < nslots; i++) {
+                    String name = chunk.names.get(i);
+                    Integer slot = nameSlots.get(name);
+                    if (slot == null) {
+                        nameSlots.put(name, slot = slotNames.size());
+                        slotNames.add(name);
+                        if (slot == slotCounts.length) slotCounts = grow(slotCounts);
+                    }
+                    slotCounts[slot] += chunk.counts[i];
+                    chunk.mergedSlots[i] = slot;
+                }
+            }
+
+            // Create the intervals
+            Interval[] slotIntervals = createIntervals(slotNames, slotCounts);
+
+            // Classify the rows
+            for (LabelSlots chunk : chunks) {
+                RowIterator it = rows == null ? null : RowList.rowIterator(rows, chunk.from);
+                for (int i = 0; i < chunk.rowSlots.length; i++) {
+                    int row = it == null ? chunk.from + i : it.nextRow();
+                    ((ArrayRowList) slotIntervals[chunk.mergedSlots[chunk.rowSlots[i]]].getRows()).addRow(row);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Assign a label slot to every row within the given range.
+         */
+        protected LabelSlots classify(List<Object> values, List<Integer> rows, int from, int to) {
+            LabelSlots result = new LabelSlots(from, to);
+            List<String> slotNames = result.names;
+            int[] rowSlots = result.rowSlots;
+            int[] slotCounts = result.counts;
+
+            // Label columns keep a dictionary of its values, so the dictionary code can be used instead of hashing.
+            LabelColumnValues labelValues = null;
+            int[] codeSlots = null;
+            if (values instanceof LabelColumnValues && ((LabelColumnValues) values).isColumnar()) {
+                labelValues = (LabelColumnValues) values;
+                codeSlots = new int[labelValues.getDictionary().size() + 1];
+                Arrays.fill(codeSlots, -1);
+            }
+            Map<String,Integer> nameSlots = new HashMap<String,Integer>();
+
+            RowIterator it = rows == null ? null : RowList.rowIterator(rows, from);
+            for (int i = 0; i < rowSlots.length; i++) {
+                int row = it == null ? from + i : it.nextRow();
+                int slot;
+                if (labelValues != null) {
+                    int code = labelValues.getCode(row) + 1;
+                    slot = codeSlots[code];
+                    if (slot == -1) {
+                        codeSlots[code] = slot = slotNames.size();
+                        slotNames.add(code == 0 ? null : getIntervalName(labelValues.getDictionary().get(code - 1)));
+                    }
+                } else {
+                    String name = getIntervalName(values.get(row));
+                    Integer s = nameSlots.get(name);
+                    if (s == null) {
+                        nameSlots.put(name, s = slotNames.size());
+                        slotNames.add(name);
+                    }
+                    slot = s;
+                }
+                if (slot == slotCounts.length) {
+                    slotCounts = grow(slotCounts);
+                }
+                slotCounts[slot]++;
+                rowSlots[i] = slot;
+            }
+            result.counts = slotCounts;
+            return result;
+        }
+
+        protected int[] grow(int[] counts) {
+            int[] result = new int[counts.length * 2];
+            System.arraycopy(counts, 0, result, 0, counts.length);
+            return result;
+        }
+
+        protected Interval[] createIntervals(List<String> slotNames, int[] slotCounts) {
+            int nslots = slotNames.size();
+            Interval[] slotIntervals = new Interval[nslots];
+            for (int i = 0; i < nslots; i++) {
+                Interval interval = new Interval(slotNames.get(i), this.size());
+                ((ArrayRowList) interval.getRows()).ensureCapacity(slotCounts[i]);
+                this.add(interval);
+                intervalMap.put(interval.getName(), interval);
+                slotIntervals[i] = interval;
+            }
+            return slotIntervals;
+        }
+
         public void indexValue(Object value, int row) {
             Interval interval = locateInterval(value);
             if (interval == null) {
-                // TODO: create a composite interval when the maxIntervals are reached.
-                String name = (value == null ? null : value.toString());
+                String name = getIntervalName(value);
                 int index = this.size();
                 this.add(interval = new Interval(name, index));
+                intervalMap.put(name, interval);
             }
             interval.getRows().add(row);
         }
 
         public Interval locateInterval(Object value) {
-            for (Interval interval : this) {
-                if (interval.getName() == value || (interval.getName() != null && interval.getName().equals(value))) {
-                    return interval;
-                }
-            }
-            return null;
+            return intervalMap.get(getIntervalName(value));
+        }
+    }
+
+    /**
+     * The label slots assigned to a range of rows.
+     */
+    private static class LabelSlots {
+
+        private int from;
+        private int[] rowSlots;
+        private int[] counts = new int[16];
+        private List<String> names = new ArrayList<String>();
+        private int[] mergedSlots;
+
+        private LabelSlots(int from, int to) {
+            this.from = from;
+            this.rowSlots = new int[to - from];
         }
     }
 }
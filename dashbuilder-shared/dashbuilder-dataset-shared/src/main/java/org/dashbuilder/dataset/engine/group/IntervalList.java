@@ -20,6 +20,8 @@ import java.util.List;
 
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * An list containing the intervals derived from an specific domain configuration.
@@ -75,7 +77,9 @@ public abstract class IntervalList extends ArrayList<Interval> {
                 indexValue(value, row);
             }
         } else {
-            for (Integer row : rows) {
+            RowIterator it = RowList.rowIterator(rows);
+            while (it.hasNext()) {
+                int row = it.nextRow();
                 Object value = values.get(row);
                 indexValue(value, row);
             }
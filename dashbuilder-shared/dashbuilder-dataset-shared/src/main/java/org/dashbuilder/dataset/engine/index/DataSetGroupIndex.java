@@ -23,6 +23,7 @@ import org.dashbuilder.dataset.group.Interval;
 import org.dashbuilder.dataset.engine.group.IntervalList;
 import org.dashbuilder.dataset.engine.index.visitor.DataSetIndexVisitor;
 import org.dashbuilder.dataset.group.ColumnGroup;
+import org.dashbuilder.dataset.impl.ArrayRowList;
 
 /**
  * A DataSet group operation index
@@ -131,10 +132,14 @@ public class DataSetGroupIndex extends DataSetIndexNode implements DataSetInterv
         return -1;
     }
 
-    public DataSetGroupIndex getSelectionIndex(List<Interval> intervalList) {
+    public synchronized DataSetGroupIndex getSelectionIndex(List<Interval> intervalList) {
         if (selectIndexList == null) return null;
 
         String targetKey = buildSelectKey(intervalList);
+        return getSelectionIndex(targetKey);
+    }
+
+    protected DataSetGroupIndex getSelectionIndex(String targetKey) {
         for (DataSetGroupIndex idx : selectIndexList) {
             if (idx.selectKey.equals(targetKey)) {
                 idx.reuseHit();
@@ -144,10 +149,14 @@ public class DataSetGroupIndex extends DataSetIndexNode implements DataSetInterv
         return null;
     }
 
-    public DataSetGroupIndex indexSelection(List<Interval> intervalList, List<DataSetIntervalIndex> intervalIndexes) {
+    public synchronized DataSetGroupIndex indexSelection(List<Interval> intervalList, List<DataSetIntervalIndex> intervalIndexes) {
         if (selectIndexList == null) selectIndexList = new ArrayList<DataSetGroupIndex>();
 
+        // Selections are cheap to build so in case of concurrent requests just keep the first one indexed.
         String key = buildSelectKey(intervalList);
+        DataSetGroupIndex existing = getSelectionIndex(key);
+        if (existing != null) return existing;
+
         DataSetGroupIndex index = new DataSetGroupIndex(key, intervalIndexes);
         index.setParent(this);
         index.setBuildTime(buildTime);
@@ -168,7 +177,7 @@ public class DataSetGroupIndex extends DataSetIndexNode implements DataSetInterv
         if (intervalIndexList == null || intervalIndexList.isEmpty()) {
             return null;
         }
-        List<Integer> results = new ArrayList<Integer>();
+        ArrayRowList results = new ArrayRowList();
         for (DataSetIntervalIndex intervalIndex : intervalIndexList) {
             results.addAll(intervalIndex.getRows());
         }
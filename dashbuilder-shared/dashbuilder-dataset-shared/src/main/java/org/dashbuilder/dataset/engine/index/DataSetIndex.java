@@ -23,11 +23,53 @@ import org.dashbuilder.dataset.DataSet;
  */
 public abstract class DataSetIndex extends DataSetIndexNode {
 
+    /**
+     * Number of sub-indexes evicted from this index due to memory constraints.
+     */
+    int evictedIndexes = 0;
+
+    /**
+     * Number of times the data set has been evicted from the registry due to memory constraints.
+     */
+    int dataSetEvictions = 0;
+
+    /**
+     * The estimated size of the data set, calculated on demand (it's expensive to estimate).
+     */
+    volatile long dataSetSize = -1;
+
+    public int getEvictedIndexes() {
+        return evictedIndexes;
+    }
+
+    public void indexEvicted() {
+        this.evictedIndexes++;
+    }
+
+    public int getDataSetEvictions() {
+        return dataSetEvictions;
+    }
+
+    public void setDataSetEvictions(int dataSetEvictions) {
+        this.dataSetEvictions = dataSetEvictions;
+    }
+
     /**
      * Get the data set referenced by this index.
      */
     public abstract DataSet getDataSet();
 
+    /**
+     * Get the estimated heap size (in bytes) taken by the data set referenced by this index.
+     */
+    public long getDataSetSize() {
+        long size = dataSetSize;
+        if (size < 0) {
+            dataSetSize = size = getDataSet().getEstimatedSize();
+        }
+        return size;
+    }
+
     /**
      * Get the performance stats of this index.
      */
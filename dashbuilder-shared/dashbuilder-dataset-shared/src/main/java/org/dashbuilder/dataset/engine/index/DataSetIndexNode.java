@@ -16,12 +16,14 @@
 package org.dashbuilder.dataset.engine.index;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.dashbuilder.dataset.impl.ArrayRowList;
 import org.dashbuilder.dataset.impl.MemSizeEstimator;
+import org.dashbuilder.dataset.impl.RowList;
 import org.dashbuilder.dataset.engine.index.visitor.DataSetIndexVisitor;
 import org.dashbuilder.dataset.filter.ColumnFilter;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
@@ -30,6 +32,8 @@ import org.dashbuilder.dataset.sort.DataSetSort;
 
 /**
  * A DataSet index node
+ * <p>Nodes are shared by all the requests executed over the same data set so the access to the child indexes is
+ * synchronized.</p>
  */
 public abstract class DataSetIndexNode extends DataSetIndexElement {
 
@@ -39,6 +43,7 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
     List<DataSetSortIndex> sortIndexes = null;
     List<DataSetFilterIndex> filterIndexes = null;
     Map<String, Map<AggregateFunctionType, DataSetFunctionIndex>> functionIndexes = null;
+    List<BuildLock> buildLocks = null;
 
     public DataSetIndexNode() {
         this(null, null, 0);
@@ -47,7 +52,7 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
     public DataSetIndexNode(DataSetIndexNode parent, List<Integer> rows, long buildTime) {
         super(buildTime);
         this.parent = parent;
-        this.rows = rows;
+        this.rows = RowList.compact(rows);
     }
 
     public DataSetIndexNode getParent() {
@@ -64,7 +69,10 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
 
     public long getEstimatedSize() {
         long result = super.getEstimatedSize();
-        if (rows != null) {
+        if (rows instanceof RowList) {
+            result += ((RowList) rows).getEstimatedSize();
+        }
+        else if (rows != null) {
             result += rows.size() * MemSizeEstimator.sizeOfInteger;
         }
         return result;
@@ -73,33 +81,109 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
     public void acceptVisitor(DataSetIndexVisitor visitor) {
         super.acceptVisitor(visitor);
 
-        if (groupIndexes != null) {
-            for (DataSetGroupIndex index : groupIndexes) {
-                index.acceptVisitor(visitor);
+        for (DataSetIndexNode index : getChildIndexes()) {
+            index.acceptVisitor(visitor);
+        }
+        for (DataSetFunctionIndex index : getFunctionIndexes()) {
+            index.acceptVisitor(visitor);
+        }
+    }
+
+    /**
+     * Get the group, filter & sort indexes built on top of this node.
+     */
+    public synchronized List<DataSetIndexNode> getChildIndexes() {
+        List<DataSetIndexNode> result = new ArrayList<DataSetIndexNode>();
+        if (groupIndexes != null) result.addAll(groupIndexes);
+        if (filterIndexes != null) result.addAll(filterIndexes);
+        if (sortIndexes != null) result.addAll(sortIndexes);
+        return result;
+    }
+
+    /**
+     * Removes the given child index (and all its sub-indexes).
+     * @return true if the index was found.
+     */
+    public synchronized boolean removeChildIndex(DataSetIndexNode index) {
+        if (groupIndexes != null && groupIndexes.remove(index)) return true;
+        if (filterIndexes != null && filterIndexes.remove(index)) return true;
+        if (sortIndexes != null && sortIndexes.remove(index)) return true;
+        return false;
+    }
+
+    /**
+     * Get the aggregate function values calculated on top of this node.
+     */
+    public synchronized List<DataSetFunctionIndex> getFunctionIndexes() {
+        List<DataSetFunctionIndex> result = new ArrayList<DataSetFunctionIndex>();
+        if (functionIndexes != null) {
+            for (Map<AggregateFunctionType, DataSetFunctionIndex> indexMap : functionIndexes.values()) {
+                result.addAll(indexMap.values());
             }
         }
-        if (filterIndexes != null) {
-            for (DataSetFilterIndex index : filterIndexes) {
-                index.acceptVisitor(visitor);
+        return result;
+    }
+
+    /**
+     * Get a copy of the aggregate function values calculated on top of this node, by column & function type.
+     */
+    public synchronized Map<String, Map<AggregateFunctionType, DataSetFunctionIndex>> getFunctionIndexMap() {
+        Map<String, Map<AggregateFunctionType, DataSetFunctionIndex>> result = new HashMap<String, Map<AggregateFunctionType, DataSetFunctionIndex>>();
+        if (functionIndexes != null) {
+            for (Map.Entry<String, Map<AggregateFunctionType, DataSetFunctionIndex>> entry : functionIndexes.entrySet()) {
+                result.put(entry.getKey(), new HashMap<AggregateFunctionType, DataSetFunctionIndex>(entry.getValue()));
             }
         }
-        if (sortIndexes != null) {
-            for (DataSetSortIndex index : sortIndexes) {
-                index.acceptVisitor(visitor);
+        return result;
+    }
+
+    // Concurrent index builds
+
+    /**
+     * Get the lock to hold while building the child index identified by the given key. Callers must look up the index
+     * again once the lock is held since a concurrent request may have built it in the meantime. This way, concurrent
+     * requests for the same index wait for a single build rather than duplicating it.
+     * <p>Every call must be paired with a call to <i>releaseBuildLock</i>.</p>
+     * @param key The index key: the group key, the column filter, the sort operation, ...
+     */
+    public synchronized Object acquireBuildLock(Object key) {
+        if (buildLocks == null) buildLocks = new ArrayList<BuildLock>();
+
+        for (BuildLock lock : buildLocks) {
+            if (lock.key.equals(key)) {
+                lock.users++;
+                return lock;
             }
         }
-        if (functionIndexes != null) {
-            for (Map<AggregateFunctionType, DataSetFunctionIndex> indexMap : functionIndexes.values()) {
-                for (DataSetFunctionIndex index : indexMap.values()) {
-                    index.acceptVisitor(visitor);
-                }
+        BuildLock lock = new BuildLock(key);
+        buildLocks.add(lock);
+        return lock;
+    }
+
+    public synchronized void releaseBuildLock(Object key) {
+        if (buildLocks == null) return;
+
+        for (BuildLock lock : buildLocks) {
+            if (lock.key.equals(key)) {
+                if (--lock.users == 0) buildLocks.remove(lock);
+                return;
             }
         }
     }
 
+    static class BuildLock {
+
+        Object key;
+        int users = 1;
+
+        BuildLock(Object key) {
+            this.key = key;
+        }
+    }
+
     // Aggregate function indexes
 
-    public DataSetFunctionIndex indexAggValue(String columnId, AggregateFunctionType type, Double value, long buildTime) {
+    public synchronized DataSetFunctionIndex indexAggValue(String columnId, AggregateFunctionType type, Double value, long buildTime) {
         if (functionIndexes == null) functionIndexes = new HashMap<String, Map<AggregateFunctionType, DataSetFunctionIndex>>();
 
         Map<AggregateFunctionType,DataSetFunctionIndex> columnAggFunctions = functionIndexes.get(columnId);
@@ -110,7 +194,7 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
         return index;
     }
 
-    public Double getAggValue(String columnId, AggregateFunctionType type) {
+    public synchronized Double getAggValue(String columnId, AggregateFunctionType type) {
         if (functionIndexes == null) return null;
 
         Map<AggregateFunctionType,DataSetFunctionIndex> columnAggFunctions = functionIndexes.get(columnId);
@@ -123,19 +207,16 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
         return functionIndex.getValue();
     }
 
-    // TODO: coordinate concurrent index modifications
-
     // Group indexes
 
-    public DataSetGroupIndex indexGroup(DataSetGroupIndex index) {
+    public synchronized DataSetGroupIndex indexGroup(DataSetGroupIndex index) {
         if (groupIndexes == null) groupIndexes = new ArrayList<DataSetGroupIndex>();
         index.setParent(this);
-        index.setBuildTime(buildTime);
         groupIndexes.add(index);
         return index;
     }
 
-    public DataSetGroupIndex getGroupIndex(ColumnGroup gc) {
+    public synchronized DataSetGroupIndex getGroupIndex(ColumnGroup gc) {
         if (groupIndexes == null) return null;
 
         String key = getGroupKey(gc);
@@ -162,7 +243,7 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
 
     // Filter indexes
 
-    public DataSetFilterIndex indexFilter(ColumnFilter filter, List<Integer> rows, long buildTime) {
+    public synchronized DataSetFilterIndex indexFilter(ColumnFilter filter, List<Integer> rows, long buildTime) {
         if (filterIndexes == null) filterIndexes = new ArrayList<DataSetFilterIndex>();
 
         DataSetFilterIndex index = new DataSetFilterIndex(filter, rows);
@@ -172,7 +253,7 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
         return index;
     }
 
-    public DataSetFilterIndex getFilterIndex(ColumnFilter filter) {
+    public synchronized DataSetFilterIndex getFilterIndex(ColumnFilter filter) {
         if (filterIndexes == null) return null;
 
         for (DataSetFilterIndex index: filterIndexes) {
@@ -186,30 +267,54 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
 
     // Sort indexes
 
-    public DataSetSortIndex indexSort(DataSetSort sortOp, List<Integer> sortedRows, long buildTime) {
+    public synchronized DataSetSortIndex indexSort(DataSetSort sortOp, List<Integer> sortedRows, long buildTime) {
+        return indexSort(sortOp, sortedRows, buildTime, false);
+    }
+
+    /**
+     * Index the result of a sort operation.
+     * @param partial If true the sorted rows are just the first rows of the sort.
+     */
+    public synchronized DataSetSortIndex indexSort(DataSetSort sortOp, List<Integer> sortedRows, long buildTime, boolean partial) {
         if (sortIndexes == null) sortIndexes = new ArrayList<DataSetSortIndex>();
 
-        DataSetSortIndex index = new DataSetSortIndex(sortOp, sortedRows);
+        // Replace any previous partial sort
+        DataSetSort invertedSortOp = sortOp.cloneInstance().invertOrder();
+        Iterator<DataSetSortIndex> it = sortIndexes.iterator();
+        while (it.hasNext()) {
+            DataSetSort op = it.next().getSortOp();
+            if (sortOp.equals(op) || (!partial && invertedSortOp.equals(op))) it.remove();
+        }
+
+        DataSetSortIndex index = new DataSetSortIndex(sortOp, sortedRows, partial);
         index.setParent(this);
         index.setBuildTime(buildTime);
         sortIndexes.add(index);
 
-        // Also create an index for the inverted sort.
-        DataSetSort invertedSortOp = sortOp.cloneInstance().invertOrder();
-        List<Integer> invertedRows = new ArrayList<Integer>(sortedRows);
-        Collections.reverse(invertedRows);
-        DataSetSortIndex invertedIndex = new DataSetSortIndex(invertedSortOp, invertedRows);
-        invertedIndex.setParent(this);
-        sortIndexes.add(invertedIndex);
-
+        // Also create an index for the inverted sort (not possible for partial sorts).
+        if (!partial) {
+            ArrayRowList invertedRows = new ArrayRowList(index.getRows());
+            invertedRows.reverse();
+            DataSetSortIndex invertedIndex = new DataSetSortIndex(invertedSortOp, invertedRows);
+            invertedIndex.setParent(this);
+            sortIndexes.add(invertedIndex);
+        }
         return index;
     }
 
-    public DataSetSortIndex getSortIndex(DataSetSort sortOp) {
+    public synchronized DataSetSortIndex getSortIndex(DataSetSort sortOp) {
+        return getSortIndex(sortOp, -1);
+    }
+
+    /**
+     * Get the sort index holding (at least) the first sorted rows requested.
+     * @param limit The number of rows requested. Lower or equals than zero means all the rows.
+     */
+    public synchronized DataSetSortIndex getSortIndex(DataSetSort sortOp, int limit) {
         if (sortIndexes == null) return null;
 
         for (DataSetSortIndex sortIndex : sortIndexes) {
-            if (sortOp.equals(sortIndex.getSortOp())) {
+            if (sortOp.equals(sortIndex.getSortOp()) && sortIndex.covers(limit)) {
                 sortIndex.reuseHit();
                 return sortIndex;
             }
@@ -25,14 +25,36 @@ import org.dashbuilder.dataset.sort.DataSetSort;
 public class DataSetSortIndex extends DataSetIndexNode {
 
     private DataSetSort sortOp;
+    private boolean partial = false;
 
     public DataSetSortIndex(DataSetSort sortOp, List<Integer> sortedRows) {
         super(null, sortedRows, 0);
         this.sortOp = sortOp;
     }
 
+    public DataSetSortIndex(DataSetSort sortOp, List<Integer> sortedRows, boolean partial) {
+        this(sortOp, sortedRows);
+        this.partial = partial;
+    }
+
     public DataSetSort getSortOp() {
         return sortOp;
     }
+
+    /**
+     * @return true if the index only holds the first rows of the sort.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Check if the index contains the first sorted rows requested.
+     * @param limit The number of rows requested. Lower or equals than zero means all the rows.
+     */
+    public boolean covers(int limit) {
+        if (!partial) return true;
+        return limit > 0 && limit <= getRows().size();
+    }
 }
 
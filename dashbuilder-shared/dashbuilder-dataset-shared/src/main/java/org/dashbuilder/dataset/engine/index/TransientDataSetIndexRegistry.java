@@ -15,45 +15,260 @@
  */
 package org.dashbuilder.dataset.engine.index;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.def.DataSetDef;
 import org.dashbuilder.dataset.engine.index.spi.DataSetIndexRegistry;
+import org.dashbuilder.dataset.engine.index.visitor.DataSetIndexVisitor;
 import org.dashbuilder.dataset.uuid.UUIDGenerator;
 
+/**
+ * In-memory index registry.
+ * <p>The registry can optionally be bounded to a max. heap size. Every time the estimated size of the data sets
+ * plus its indexes goes beyond that limit then:
+ * <ul>
+ *     <li>Sub-indexes with the worst benefit/cost ratio (build time & reuse hits vs. size) are evicted first.</li>
+ *     <li>If that's not enough then whole data sets are evicted, the least recently used first. Data sets also
+ *     referenced by its definition (see <tt>StaticDataSetDef</tt>) are kept, since evicting them releases no memory.</li>
+ * </ul>
+ * </p>
+ * <p>Evicted data sets are expected to be rebuilt on demand by its provider (see
+ * <tt>StaticDataSetProvider</tt>).</p>
+ * <p>The heap size checks run outside the registry lock, so they don't block the lookups meanwhile.</p>
+ */
 @ApplicationScoped
 public class TransientDataSetIndexRegistry implements DataSetIndexRegistry {
 
     @Inject
     protected UUIDGenerator uuidGenerator;
 
-    protected Map<String,DataSetIndex> indexMap = new HashMap<String, DataSetIndex>();
+    /**
+     * Indexes are kept in access order, so the least recently used index comes first.
+     */
+    protected Map<String,DataSetIndex> indexMap = new LinkedHashMap<String, DataSetIndex>(16, 0.75f, true);
+
+    /**
+     * Number of times every data set has been evicted.
+     */
+    protected Map<String,Integer> evictionMap = new HashMap<String, Integer>();
+
+    /**
+     * Max. estimated heap size (in bytes) to be taken by the registered data sets and indexes. 0 means no limit.
+     */
+    protected long maxHeapSize = 0;
+
+    /**
+     * The number of index lookups between two consecutive heap size checks.
+     */
+    protected int evictionCheckInterval = 10;
+
+    protected int lookupsSinceLastCheck = 0;
+
+    /**
+     * Prevents concurrent evictions.
+     */
+    protected final Object evictionLock = new Object();
+
+    public long getMaxHeapSize() {
+        return maxHeapSize;
+    }
+
+    public void setMaxHeapSize(long maxHeapSize) {
+        this.maxHeapSize = maxHeapSize;
+    }
+
+    public int getEvictionCheckInterval() {
+        return evictionCheckInterval;
+    }
+
+    public void setEvictionCheckInterval(int evictionCheckInterval) {
+        this.evictionCheckInterval = evictionCheckInterval;
+    }
 
     public DataSetIndex put(DataSet dataSet) {
         if (dataSet == null) return null;
 
-        String uuid = dataSet.getUUID();
-        if (uuid == null || uuid.length() == 0) {
-            uuid = uuidGenerator.newUuidBase64();
-            dataSet.setUUID(uuid);
-        }
-
         DataSetIndex dsIndex = new DataSetStaticIndex(dataSet);
-        indexMap.put(uuid, dsIndex);
+        synchronized (this) {
+            String uuid = dataSet.getUUID();
+            if (uuid == null || uuid.length() == 0) {
+                uuid = uuidGenerator.newUuidBase64();
+                dataSet.setUUID(uuid);
+            }
+            Integer evictions = evictionMap.get(uuid);
+            if (evictions != null) dsIndex.setDataSetEvictions(evictions);
+            indexMap.put(uuid, dsIndex);
+            lookupsSinceLastCheck = 0;
+        }
+        evict();
         return dsIndex;
     }
 
     public DataSetIndex get(String uuid) {
-        DataSetIndex index = indexMap.get(uuid);
-        if (index != null) index.reuseHit();
+        DataSetIndex index;
+        boolean check = false;
+        synchronized (this) {
+            index = indexMap.get(uuid);
+            if (index != null) {
+                index.reuseHit();
+                if (++lookupsSinceLastCheck >= evictionCheckInterval) {
+                    lookupsSinceLastCheck = 0;
+                    check = true;
+                }
+            }
+        }
+        if (check) evict();
         return index;
     }
 
-    public DataSetIndex remove(String uuid) {
+    public synchronized DataSetIndex remove(String uuid) {
+        evictionMap.remove(uuid);
         return indexMap.remove(uuid);
     }
-}
 
+    /**
+     * Get the estimated heap size (in bytes) taken by all the registered data sets and its indexes.
+     */
+    public long getEstimatedSize() {
+        long result = 0;
+        for (DataSetIndex index : getIndexes().values()) {
+            result += index.getDataSetSize() + getIndexSize(index);
+        }
+        return result;
+    }
+
+    /**
+     * Get a copy of the registered indexes, the least recently used first.
+     */
+    protected synchronized Map<String,DataSetIndex> getIndexes() {
+        return new LinkedHashMap<String,DataSetIndex>(indexMap);
+    }
+
+    /**
+     * Evict data sets and/or indexes until the estimated heap size gets under the max. limit.
+     */
+    public void evict() {
+        if (maxHeapSize <= 0) return;
+
+        synchronized (evictionLock) {
+            Map<String,DataSetIndex> indexes = getIndexes();
+            long total = 0;
+            for (DataSetIndex index : indexes.values()) {
+                total += index.getDataSetSize() + getIndexSize(index);
+            }
+            if (total <= maxHeapSize) return;
+
+            // Evict first the sub-indexes with the worst benefit/cost ratio.
+            List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>();
+            for (DataSetIndex index : indexes.values()) {
+                collectCandidates(index, index, candidates);
+            }
+            Collections.sort(candidates, new Comparator<EvictionCandidate>() {
+                public int compare(EvictionCandidate o1, EvictionCandidate o2) {
+                    return Double.compare(o1.score, o2.score);
+                }
+            });
+            Set<DataSetIndexNode> evicted = new HashSet<DataSetIndexNode>();
+            for (EvictionCandidate candidate : candidates) {
+                if (total <= maxHeapSize) return;
+                if (isEvicted(candidate.index, evicted)) continue;
+
+                if (candidate.index.getParent().removeChildIndex(candidate.index)) {
+                    candidate.root.indexEvicted();
+                    total -= candidate.size;
+                }
+                evicted.add(candidate.index);
+            }
+
+            // Evict whole data sets, the least recently used first. The last one used is always kept.
+            Iterator<Map.Entry<String,DataSetIndex>> it = indexes.entrySet().iterator();
+            for (int i = 0; i < indexes.size() - 1 && total > maxHeapSize; i++) {
+                Map.Entry<String,DataSetIndex> entry = it.next();
+                DataSetIndex index = entry.getValue();
+                if (isDataSetPinned(index)) continue;
+
+                long size = index.getDataSetSize() + getIndexSize(index);
+                if (removeEvicted(entry.getKey(), index)) total -= size;
+            }
+        }
+    }
+
+    /**
+     * Remove an evicted data set, unless it has been replaced in the meantime.
+     */
+    protected synchronized boolean removeEvicted(String uuid, DataSetIndex index) {
+        DataSetIndex current = indexMap.remove(uuid);
+        if (current != index) {
+            if (current != null) indexMap.put(uuid, current);
+            return false;
+        }
+        evictionMap.put(uuid, index.getDataSetEvictions() + 1);
+        return true;
+    }
+
+    /**
+     * Check if the data set is also referenced by its definition, so it can't be garbage collected once evicted.
+     */
+    protected boolean isDataSetPinned(DataSetIndex index) {
+        DataSet dataSet = index.getDataSet();
+        DataSetDef def = dataSet.getDefinition();
+        return def != null && def.getDataSet() == dataSet;
+    }
+
+    protected void collectCandidates(DataSetIndex root, DataSetIndexNode node, List<EvictionCandidate> candidates) {
+        for (DataSetIndexNode child : node.getChildIndexes()) {
+            candidates.add(new EvictionCandidate(root, child, getIndexSize(child)));
+            collectCandidates(root, child, candidates);
+        }
+        if (node instanceof DataSetGroupIndex) {
+            for (DataSetIntervalIndex intervalIndex : ((DataSetGroupIndex) node).getIntervalIndexes()) {
+                collectCandidates(root, intervalIndex, candidates);
+            }
+        }
+    }
+    protected boolean isEvicted(DataSetIndexNode index, Set<DataSetIndexNode> evicted) {
+        for (DataSetIndexNode node = index; node != null; node = node.getParent()) {
+            if (evicted.contains(node)) return true;
+        }
+        return false;
+    }
+
+    protected long getIndexSize(DataSetIndexNode index) {
+        final long[] size = new long[] {0};
+        index.acceptVisitor(new DataSetIndexVisitor() {
+            public void visit(DataSetIndexElement element) {
+                size[0] += element.getEstimatedSize();
+            }
+        });
+        return size[0];
+    }
+
+    protected static class EvictionCandidate {
+
+        DataSetIndex root;
+        DataSetIndexNode index;
+        long size;
+        double score;
+
+        EvictionCandidate(DataSetIndex root, DataSetIndexNode index, long size) {
+            this.root = root;
+            this.index = index;
+            this.size = size;
+
+            // The time saved so far by keeping the index per every byte consumed.
+            this.score = (double) index.getBuildTime() * (index.getReuseHits() + 1) / (size + 1);
+        }
+    }
+}
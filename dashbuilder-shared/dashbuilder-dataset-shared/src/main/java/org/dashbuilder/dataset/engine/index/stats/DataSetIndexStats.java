@@ -59,6 +59,16 @@ public interface DataSetIndexStats {
      */
     int getNumberOfAggFunctions();
 
+    /**
+     * Total number of sub-indexes evicted from the data set index due to memory constraints.
+     */
+    int getNumberOfEvictedIndexes();
+
+    /**
+     * Number of times the data set has been evicted from memory (and rebuilt later on).
+     */
+    int getNumberOfDataSetEvictions();
+
     /**
      * An index reference to the element that takes more time to get instantiated.
      */
@@ -91,6 +91,14 @@ public class DataSetIndexStatsImpl implements DataSetIndexStats, DataSetIndexVis
         return reuseTime;
     }
 
+    public int getNumberOfEvictedIndexes() {
+        return index.getEvictedIndexes();
+    }
+
+    public int getNumberOfDataSetEvictions() {
+        return index.getDataSetEvictions();
+    }
+
     public DataSetIndexElement getLongestBuild() {
         return longestBuild;
     }
@@ -141,6 +149,8 @@ public class DataSetIndexStatsImpl implements DataSetIndexStats, DataSetIndexVis
         out.append("#Filter ops=").append(getNumberOfFilterOps()).append(sep);
         out.append("#Sort ops=").append(getNumberOfSortOps()).append(sep);
         out.append("#Agg funcs=").append(getNumberOfAggFunctions()).append(sep);
+        out.append("#Evicted indexes=").append(getNumberOfEvictedIndexes()).append(sep);
+        out.append("#Data set evictions=").append(getNumberOfDataSetEvictions()).append(sep);
         return out.toString();
     }
 }
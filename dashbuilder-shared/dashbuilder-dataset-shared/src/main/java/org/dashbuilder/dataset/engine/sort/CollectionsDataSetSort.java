@@ -15,28 +15,39 @@
  */
 package org.dashbuilder.dataset.engine.sort;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
 
-import org.dashbuilder.dataset.engine.DataSetHandler;
 import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.impl.ArrayRowList;
+import org.dashbuilder.dataset.impl.RowIterator;
+import org.dashbuilder.dataset.impl.RowList;
 import org.dashbuilder.dataset.sort.ColumnSort;
 
 /**
- * A basic sort algorithm takes relies on the default <tt>Collections.sort()</tt> implementation.
+ * Default sort algorithm. Row numbers are sorted as primitive ints through a stable merge sort.
+ * <p>When only the first rows are requested (see the <i>limit</i> argument) a bounded heap is used instead, so the
+ * sort cost is O(n log k) rather than O(n log n).</p>
  */
 @ApplicationScoped
 public class CollectionsDataSetSort implements DataSetSortAlgorithm {
 
+    /**
+     * Ranges smaller than this are sorted by insertion.
+     */
+    protected static final int INSERTION_SORT_THRESHOLD = 16;
 
     public List<Integer> sort(DataSet dataSet, List<ColumnSort> columnSortList) {
         return sort(dataSet, null, columnSortList);
     }
 
     public List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList) {
+        return sort(dataSet, rowNumbers, columnSortList, -1);
+    }
+
+    public List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList, int limit) {
 
         // Create the comparator.
         DataSetRowComparator comparator = new DataSetRowComparator();
@@ -47,16 +58,117 @@ public class CollectionsDataSetSort implements DataSetSortAlgorithm {
             comparator.criteria(column, columnSort.getOrder());
         }
         // Create the row number list to sort.
-        List<Integer> rows = new ArrayList<Integer>();
+        int[] rows;
         if (rowNumbers != null) {
-            rows.addAll(rowNumbers);
+            rows = new int[rowNumbers.size()];
+            RowIterator it = RowList.rowIterator(rowNumbers);
+            for (int i=0; i<rows.length; i++) {
+                rows[i] = it.nextRow();
+            }
         } else {
-            for (int i=0; i<dataSet.getRowCount(); i++) {
-                rows.add(i);
+            rows = new int[dataSet.getRowCount()];
+            for (int i=0; i<rows.length; i++) {
+                rows[i] = i;
             }
         }
         // Sort the row numbers.
-        Collections.sort(rows, comparator);
-        return rows;
+        int[] sorted = null;
+        if (limit > 0 && limit < rows.length) {
+            sorted = top(rows, comparator, limit);
+        } else {
+            sorted = rows.clone();
+            mergeSort(rows, sorted, 0, rows.length, comparator);
+        }
+        ArrayRowList result = new ArrayRowList(sorted.length);
+        for (int row : sorted) {
+            result.addRow(row);
+        }
+        return result;
+    }
+
+    /**
+     * Sort the rows within the given range. On return, <i>dest</i> holds the sorted rows. Both arrays must contain
+     * the same values on entry.
+     */
+    protected void mergeSort(int[] src, int[] dest, int from, int to, DataSetRowComparator comparator) {
+        int length = to - from;
+        if (length < INSERTION_SORT_THRESHOLD) {
+            for (int i=from+1; i<to; i++) {
+                int row = dest[i];
+                int j = i - 1;
+                while (j >= from && comparator.compareRows(dest[j], row) > 0) {
+                    dest[j + 1] = dest[j];
+                    j--;
+                }
+                dest[j + 1] = row;
+            }
+            return;
+        }
+        // Sort both halves into src and merge them into dest (the left half goes first on ties)
+        int mid = (from + to) >>> 1;
+        mergeSort(dest, src, from, mid, comparator);
+        mergeSort(dest, src, mid, to, comparator);
+        if (comparator.compareRows(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, from, dest, from, length);
+            return;
+        }
+        for (int i=from, p=from, q=mid; i<to; i++) {
+            if (q >= to || (p < mid && comparator.compareRows(src[p], src[q]) <= 0)) dest[i] = src[p++];
+            else dest[i] = src[q++];
+        }
+    }
+
+    /**
+     * Get the first <i>k</i> rows in order. Rows are kept in a max-heap holding the <i>k</i> lowest rows found so far.
+     * Ties are resolved by the row position so the result is the same as the one given by a stable sort.
+     */
+    protected int[] top(int[] rows, DataSetRowComparator comparator, int k) {
+        int[] heap = new int[k];
+        int size = 0;
+        for (int p=0; p<rows.length; p++) {
+            if (size < k) {
+                // Sift up
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (compare(rows, heap[parent], p, comparator) >= 0) break;
+                    heap[i] = heap[parent];
+                    i = parent;
+                }
+                heap[i] = p;
+            }
+            else if (compare(rows, p, heap[0], comparator) < 0) {
+                // Replace the greatest row and sift down
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= k) break;
+                    if (child + 1 < k && compare(rows, heap[child + 1], heap[child], comparator) > 0) child++;
+                    if (compare(rows, p, heap[child], comparator) >= 0) break;
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = p;
+            }
+        }
+        // The positions of the first k rows in ascending order
+        int[] positions = heap.clone();
+        Arrays.sort(positions);
+        int[] sorted = new int[k];
+        for (int i=0; i<k; i++) {
+            sorted[i] = rows[positions[i]];
+        }
+        int[] src = sorted.clone();
+        mergeSort(src, sorted, 0, k, comparator);
+        return sorted;
+    }
+
+    /**
+     * Compare the rows at the given positions. Rows comparing equal are ordered by its position.
+     */
+    protected int compare(int[] rows, int p1, int p2, DataSetRowComparator comparator) {
+        int comp = comparator.compareRows(rows[p1], rows[p2]);
+        if (comp != 0) return comp;
+        return p1 < p2 ? -1 : (p1 == p2 ? 0 : 1);
     }
 }
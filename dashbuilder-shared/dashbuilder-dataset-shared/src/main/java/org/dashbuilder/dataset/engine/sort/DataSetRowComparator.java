@@ -21,10 +21,14 @@ import java.util.List;
 
 import org.dashbuilder.comparator.ComparatorUtils;
 import org.dashbuilder.dataset.DataColumn;
+import org.dashbuilder.dataset.impl.DateColumnValues;
+import org.dashbuilder.dataset.impl.NumberColumnValues;
 import org.dashbuilder.dataset.sort.SortOrder;
 
 /**
  * A comparator of data set rows.
+ * <p>Rows can be compared without any boxing through the <i>compareRows</i> method. Number & date columns held in a
+ * columnar storage are compared through its primitive values.</p>
  */
 public class DataSetRowComparator implements Comparator<Integer> {
 
@@ -46,15 +50,46 @@ public class DataSetRowComparator implements Comparator<Integer> {
         else if (row1 != null && row2 == null) return 1;
         else if (row1 == null) return 0;
 
-        // Compare the two rows.
+        return compareRows(row1, row2);
+    }
+
+    /**
+     * Compare two rows (given its row numbers) according to the sort criteria.
+     */
+    public int compareRows(int row1, int row2) {
         for (int i=0; i<columns.size(); i++) {
-            DataColumn column = columns.get(i);
-            SortOrder order = orders.get(i);
-            Comparable value1 = (Comparable) column.getValues().get(row1);
-            Comparable value2 = (Comparable) column.getValues().get(row2);
-            int comp = ComparatorUtils.compare(value1, value2, order.asInt());
-            if (comp != 0) return comp;
+            List values = columns.get(i).getValues();
+            int ordering = orders.get(i).asInt();
+            int comp;
+            if (values instanceof NumberColumnValues && ((NumberColumnValues) values).isColumnar()) {
+                comp = compareNumbers((NumberColumnValues) values, row1, row2);
+            }
+            else if (values instanceof DateColumnValues && ((DateColumnValues) values).isColumnar()) {
+                comp = compareDates((DateColumnValues) values, row1, row2);
+            }
+            else {
+                Comparable value1 = (Comparable) values.get(row1);
+                Comparable value2 = (Comparable) values.get(row2);
+                comp = ComparatorUtils.compare(value1, value2, 1);
+            }
+            if (comp != 0) return ordering == -1 ? -comp : comp;
         }
         return 0;
     }
+
+    protected int compareNumbers(NumberColumnValues values, int row1, int row2) {
+        boolean null1 = values.isNull(row1);
+        boolean null2 = values.isNull(row2);
+        if (null1 || null2) return null1 == null2 ? 0 : (null1 ? -1 : 1);
+        return Double.compare(values.getDouble(row1), values.getDouble(row2));
+    }
+
+    protected int compareDates(DateColumnValues values, int row1, int row2) {
+        boolean null1 = values.isNull(row1);
+        boolean null2 = values.isNull(row2);
+        if (null1 || null2) return null1 == null2 ? 0 : (null1 ? -1 : 1);
+        long time1 = values.getTime(row1);
+        long time2 = values.getTime(row2);
+        return time1 < time2 ? -1 : (time1 == time2 ? 0 : 1);
+    }
 }
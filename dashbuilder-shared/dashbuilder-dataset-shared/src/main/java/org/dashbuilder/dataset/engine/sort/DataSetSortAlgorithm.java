@@ -41,4 +41,14 @@ public interface DataSetSortAlgorithm {
      * @return A list of ordered row numbers reflecting the sort results.
      */
     List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList);
+
+    /**
+     * Get the first rows of the specified data set once sorted according the sort criteria list specified.
+     * @param dataSet The data set to sort
+     * @param rowNumbers The subset of rows to sort.
+     * @param columnSortList The sort operations to apply
+     * @param limit The max. number of sorted rows to return. If lower or equals than zero then all the rows are sorted.
+     * @return A list of ordered row numbers reflecting the sort results.
+     */
+    List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList, int limit);
 }